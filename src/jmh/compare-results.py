@@ -0,0 +1,104 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files (mvn -Pbenchmark verify writes target/jmh-result.json).
+
+    python3 src/jmh/compare-results.py src/jmh/baseline.json target/jmh-result.json
+
+Prints time per operation and bytes allocated per operation for every benchmark in either file,
+and exits non-zero when one has regressed beyond the thresholds. Allocation per operation barely
+depends on the machine, but can move by a few dozen bytes between runs when the JIT scalar-replaces
+an object in one and not the other, hence the absolute minimum. Timings from different hardware only
+compare loosely and are best compared between runs on the same host.
+"""
+import argparse
+import json
+import sys
+
+ALLOC_METRIC = "gc.alloc.rate.norm"
+MIN_ALLOC_DELTA = 128
+
+
+def load(path):
+    with open(path) as f:
+        runs = json.load(f)
+    results = {}
+    for run in runs:
+        params = run.get("params") or {}
+        key = run["benchmark"].replace("com.hospital.", "")
+        if params:
+            key += "(" + ", ".join(f"{k}={v}" for k, v in sorted(params.items())) + ")"
+        primary = run["primaryMetric"]
+        alloc = (run.get("secondaryMetrics") or {}).get(ALLOC_METRIC)
+        results[key] = {
+            "score": primary["score"],
+            "error": primary["scoreError"],
+            "unit": primary["scoreUnit"],
+            "alloc": alloc["score"] if alloc else None,
+        }
+    return results
+
+
+def change(before, after):
+    if before is None or after is None:
+        return None
+    if before == 0:
+        return 0.0 if after == 0 else float("inf")
+    return (after - before) / before * 100
+
+
+def fmt_change(pct):
+    if pct is None:
+        return "n/a"
+    return "inf" if pct == float("inf") else f"{pct:+.1f}%"
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--time-threshold", type=float, default=20.0,
+                        help="percent slowdown, beyond the combined score error, that counts as a regression")
+    parser.add_argument("--alloc-threshold", type=float, default=10.0,
+                        help="percent increase in bytes/op that counts as a regression")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+
+    regressions = []
+    rows = []
+    for key in sorted(baseline.keys() | current.keys()):
+        old, new = baseline.get(key), current.get(key)
+        if old is None or new is None:
+            rows.append((key, "", "", "", "", "", "", "added" if old is None else "removed"))
+            continue
+        time_pct = change(old["score"], new["score"])
+        alloc_pct = change(old["alloc"], new["alloc"])
+        flags = []
+        # A slowdown inside the measurement error of either run is noise, whatever the percentage
+        if time_pct > args.time_threshold and new["score"] - new["error"] > old["score"] + old["error"]:
+            flags.append("TIME")
+        if (alloc_pct is not None and alloc_pct > args.alloc_threshold
+                and new["alloc"] - old["alloc"] >= MIN_ALLOC_DELTA):
+            flags.append("ALLOC")
+        if flags:
+            regressions.append(key)
+        rows.append((key,
+                     f"{old['score']:.1f}", f"{new['score']:.1f} {new['unit']}", fmt_change(time_pct),
+                     "n/a" if old["alloc"] is None else f"{old['alloc']:.0f}",
+                     "n/a" if new["alloc"] is None else f"{new['alloc']:.0f}",
+                     fmt_change(alloc_pct), " ".join(flags)))
+
+    header = ("benchmark", "base", "current", "time", "base B/op", "B/op", "alloc", "")
+    widths = [max(len(row[i]) for row in rows + [header]) for i in range(len(header))]
+    for row in [header] + rows:
+        print("  ".join(cell.ljust(width) if i == 0 else cell.rjust(width)
+                        for i, (cell, width) in enumerate(zip(row, widths))).rstrip())
+
+    if regressions:
+        print(f"\n{len(regressions)} regression(s): " + ", ".join(regressions))
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,140 @@
+package com.hospital.config;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hospital.entity.Appointment;
+import com.hospital.entity.Bill;
+import com.hospital.entity.BillItem;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.entity.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of the entity graphs still returned directly: an appointment with its doctor
+ * and patient, and a bill with its patient, hospital and line items. Uses the application's mapper,
+ * Hibernate module and mixins included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntitySerializationBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 1, 10, 30);
+
+    private ObjectWriter writer;
+    private Appointment appointment;
+
+    @Setup
+    public void setUp() {
+        writer = new JacksonConfig().objectMapper().writer();
+
+        appointment = new Appointment();
+        appointment.setId(1001L);
+        appointment.setDoctor(doctor());
+        appointment.setPatient(patient());
+        appointment.setAppointmentTime(NOW.plusDays(2));
+        appointment.setCreatedAt(NOW);
+        appointment.setUpdatedAt(NOW);
+    }
+
+    @Benchmark
+    public byte[] appointment() throws Exception {
+        return writer.writeValueAsBytes(appointment);
+    }
+
+    @Benchmark
+    public byte[] bill(BillState state) throws Exception {
+        return writer.writeValueAsBytes(state.bill);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BillState {
+        @Param({"5", "50"})
+        int billItems;
+
+        Bill bill;
+
+        @Setup
+        public void setUp() {
+            bill = new Bill();
+            bill.setId(501L);
+            bill.setBillNumber("BILL-2025-000501");
+            bill.setPatient(patient());
+            bill.setHospital(hospital());
+            bill.setBillDate(NOW);
+            bill.setDueDate(NOW.plusDays(30));
+            List<BillItem> items = new ArrayList<>(billItems);
+            for (int i = 0; i < billItems; i++) {
+                BillItem item = new BillItem();
+                item.setId(5000L + i);
+                item.setBill(bill);
+                item.setServiceType(BillItem.ServiceType.PHARMACY);
+                item.setServiceName("Atorvastatin 10mg");
+                item.setQuantity(2);
+                item.setUnitPrice(new BigDecimal("84.25"));
+                item.setTotalAmount(new BigDecimal("198.83"));
+                items.add(item);
+            }
+            bill.setBillItems(items);
+            bill.calculateTotals();
+        }
+    }
+
+    private static Hospital hospital() {
+        Hospital hospital = new Hospital();
+        hospital.setId(1L);
+        hospital.setName("City General Hospital");
+        hospital.setAddress("12 Park Street");
+        hospital.setPhoneNumber("+919876543210");
+        hospital.setEmail("info@citygeneral.example");
+        return hospital;
+    }
+
+    private static Doctor doctor() {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setName("Dr. Asha Rao");
+        doctor.setSpecialization("Cardiology");
+        doctor.setEmail("asha.rao@citygeneral.example");
+        doctor.setHospital(hospital());
+        doctor.setCreatedAt(NOW);
+        doctor.setUpdatedAt(NOW);
+        return doctor;
+    }
+
+    private static Patient patient() {
+        Patient patient = new Patient();
+        patient.setId(42L);
+        patient.setFirstName("Ravi");
+        patient.setLastName("Kumar");
+        patient.setEmail("ravi.kumar@mail.example");
+        patient.setPhone("98765 43210");
+        patient.setPhoneNormalized("+919876543210");
+        patient.setDateOfBirth(LocalDate.of(1984, 3, 14));
+        patient.setGender("M");
+        patient.setBloodGroup("B+");
+        patient.setCreatedAt(NOW);
+        patient.setUpdatedAt(NOW);
+        return patient;
+    }
+}
@@ -0,0 +1,60 @@
+package com.hospital.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JacksonConfig.FlexibleLocalDateTimeDeserializer} on each input shape clients send, through the
+ * application's mapper, and the fast parser and formatter fallback it chooses between.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalDateTimeDeserializerBenchmark {
+
+    @Param({"2025-08-01T10:30:00", "2025-08-01T10:30:00.123Z", "2025-08-01 10:30:00", "2025-08-01"})
+    String value;
+
+    private ObjectReader reader;
+    private String json;
+    private char[] chars;
+
+    @Setup
+    public void setUp() {
+        reader = new JacksonConfig().objectMapper().readerFor(LocalDateTime.class);
+        json = '"' + value + '"';
+        chars = value.toCharArray();
+    }
+
+    @Benchmark
+    public LocalDateTime deserialize() throws Exception {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public LocalDateTime fastParser() {
+        return LocalDateTimeFastParser.parse(chars, 0, chars.length);
+    }
+
+    @Benchmark
+    public LocalDateTime formatterFallback() throws JsonProcessingException {
+        return JacksonConfig.FlexibleLocalDateTimeDeserializer.parseWithFormatters(value);
+    }
+}
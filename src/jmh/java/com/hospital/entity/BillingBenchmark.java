@@ -0,0 +1,82 @@
+package com.hospital.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line-item and bill total arithmetic, run on every bill save and recalculation.
+ * Both methods are idempotent for a fixed input, so the same objects are reused across invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillingBenchmark {
+
+    private BillItem item;
+
+    @Setup
+    public void setUp() {
+        item = billItem(0);
+    }
+
+    @Benchmark
+    public BigDecimal billItemCalculateAmounts() {
+        item.calculateAmounts();
+        return item.getTotalAmount();
+    }
+
+    @Benchmark
+    public BigDecimal billCalculateTotals(BillState state) {
+        state.bill.calculateTotals();
+        return state.bill.getTotalAmount();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BillState {
+        @Param({"1", "20"})
+        int items;
+
+        Bill bill;
+
+        @Setup
+        public void setUp() {
+            bill = new Bill();
+            bill.setDiscountAmount(new BigDecimal("50.00"));
+            List<BillItem> billItems = new ArrayList<>(items);
+            for (int i = 0; i < items; i++) {
+                BillItem billItem = billItem(i);
+                billItem.calculateAmounts();
+                billItem.setBill(bill);
+                billItems.add(billItem);
+            }
+            bill.setBillItems(billItems);
+        }
+    }
+
+    private static BillItem billItem(int i) {
+        BillItem billItem = new BillItem();
+        billItem.setServiceType(BillItem.ServiceType.LAB_TEST);
+        billItem.setServiceName("Complete blood count " + i);
+        billItem.setQuantity(1 + i % 3);
+        billItem.setUnitPrice(new BigDecimal("349.50"));
+        billItem.setDiscountPercentage(new BigDecimal("10.00"));
+        return billItem;
+    }
+}
@@ -0,0 +1,45 @@
+package com.hospital.exception;
+
+import com.hospital.config.MessageSourceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error detail lookup on the exception handler path, from the precomputed details, and a message
+ * resolved through the message source on each call for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorMessageResolverBenchmark {
+
+    private ErrorMessageResolver resolver;
+
+    @Setup
+    public void setUp() {
+        resolver = new ErrorMessageResolver(new MessageSourceConfig().messageSource());
+    }
+
+    @Benchmark
+    public ErrorMessageResolver.ErrorDetail errorDetail() {
+        return resolver.getErrorDetail(ErrorMessageResolver.APPOINTMENT_CONFLICT);
+    }
+
+    @Benchmark
+    public String errorMessage() {
+        return resolver.getErrorMessage(ErrorMessageResolver.APPOINTMENT_CONFLICT + ".detail");
+    }
+}
@@ -0,0 +1,65 @@
+package com.hospital.service;
+
+import com.hospital.entity.Appointment;
+import com.hospital.exception.AppointmentConflictException;
+import com.hospital.repository.AppointmentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AppointmentService#checkAppointmentConflicts} against a repository stub that answers instantly,
+ * so the score is the service's own cost: the window arithmetic and, on a conflict, raising the exception.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentConflictBenchmark {
+
+    @Param({"false", "true"})
+    boolean conflict;
+
+    private AppointmentService service;
+    private LocalDateTime appointmentTime;
+
+    @Setup
+    public void setUp() {
+        List<Appointment> found = conflict ? List.of(new Appointment()) : List.of();
+        AppointmentRepository repository = (AppointmentRepository) Proxy.newProxyInstance(
+            AppointmentRepository.class.getClassLoader(), new Class<?>[] {AppointmentRepository.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("findByDoctorIdAndAppointmentTimeBetweenAndStatusNot")) {
+                    return found;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        service = new AppointmentService(repository, null, null, null, null, null, null, null);
+        appointmentTime = LocalDateTime.of(2025, 8, 1, 10, 30);
+    }
+
+    @Benchmark
+    public Object checkAppointmentConflicts() {
+        try {
+            service.checkAppointmentConflicts(7L, appointmentTime);
+            return null;
+        } catch (AppointmentConflictException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hospital.service;
+
+import com.hospital.entity.WaitlistEntry.Urgency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching a freed slot against one doctor's {@link WaitlistQueue}, the in-memory part of
+ * {@link WaitlistService#offerSlot}. {@code bounded} is the share of entries that only take slots within a
+ * time window; the slot is late in the day, so bounded entries mostly have to be walked past. {@code offer}
+ * adds taking the match off the queue and putting it back, as an offer and its lapse do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaitlistMatchingBenchmark {
+
+    @Param({"1000", "10000"})
+    int waitlisted;
+
+    @Param({"0.2", "0.95", "1.0"})
+    double bounded;
+
+    private WaitlistQueue queue;
+    private LocalDateTime slot;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime day = LocalDateTime.of(2025, 8, 1, 0, 0);
+        slot = day.withHour(16).withMinute(30);
+        queue = new WaitlistQueue();
+        Urgency[] urgencies = Urgency.values();
+        for (long id = 1; id <= waitlisted; id++) {
+            LocalDateTime earliest = null;
+            LocalDateTime latest = null;
+            if (random.nextDouble() < bounded) {
+                // Morning and midday windows; a few reach the afternoon slot
+                earliest = day.withHour(8 + random.nextInt(6));
+                latest = earliest.plusHours(1 + random.nextInt(random.nextInt(500) == 0 ? 8 : 2));
+            }
+            queue.put(new WaitlistQueue.Candidate(id, id, 1L, urgencies[random.nextInt(urgencies.length)],
+                day.minusDays(30).plusMinutes(random.nextInt(30 * 24 * 60)), earliest, latest, null));
+        }
+    }
+
+    @Benchmark
+    public WaitlistQueue.Candidate match() {
+        return queue.match(slot, Set.of());
+    }
+
+    @Benchmark
+    public WaitlistQueue.Candidate offer() {
+        WaitlistQueue.Candidate candidate = queue.match(slot, Set.of());
+        if (candidate != null) {
+            queue.remove(candidate.entryId());
+            queue.put(candidate);
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hospital.loadtest;
+
+import com.hospital.loadtest.DatasetGenerator.Table;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads generated tables over JDBC into an existing schema, one table at a time with several writers each.
+ * <p>
+ * Each writer claims chunks of parent ids, inserts them with batched statements (rewritten into multi-row
+ * inserts by Connector/J) and commits once per chunk. On MySQL, foreign key and unique checks are turned off
+ * for the loading sessions: the ids are consistent by construction and the load order keeps parents first.
+ */
+final class BulkLoader {
+    private static final int CHUNK_PARENTS = 5_000;
+
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+    private final int writers;
+    private final int batchSize;
+
+    BulkLoader(String jdbcUrl, String user, String password, int writers, int batchSize) {
+        this.jdbcUrl = isMySql(jdbcUrl) && !jdbcUrl.contains("rewriteBatchedStatements")
+            ? jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true"
+            : jdbcUrl;
+        this.user = user;
+        this.password = password;
+        this.writers = writers;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Deletes existing rows, children first.
+     */
+    void truncate(List<Table> tables) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (int i = tables.size() - 1; i >= 0; i--) {
+                statement.execute((isMySql(jdbcUrl) ? "TRUNCATE TABLE " : "DELETE FROM ") + tables.get(i).name());
+            }
+            connection.commit();
+        }
+    }
+
+    void load(List<Table> tables, DatasetGenerator generator) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            long started = System.nanoTime();
+            long total = 0;
+            for (Table table : tables) {
+                total += load(table, generator, executor);
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Loaded %,d rows in %.1f s (%,.0f rows/s)%n", total, seconds, total / seconds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long load(Table table, DatasetGenerator generator, ExecutorService executor) throws Exception {
+        long started = System.nanoTime();
+        AtomicLong nextChunk = new AtomicLong();
+        long chunks = (table.parents() + CHUNK_PARENTS - 1) / CHUNK_PARENTS;
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < Math.min(writers, chunks); i++) {
+            results.add(executor.submit(() -> write(table, generator, nextChunk, chunks)));
+        }
+        long rows = 0;
+        try {
+            for (Future<Long> result : results) {
+                rows += result.get();
+            }
+        } catch (ExecutionException e) {
+            // Stop the other writers of this table before reporting the first failure
+            results.forEach(result -> result.cancel(true));
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("  %-28s %,14d rows %8.1f s %,12.0f rows/s%n", table.name(), rows, seconds, rows / seconds);
+        return rows;
+    }
+
+    private long write(Table table, DatasetGenerator generator, AtomicLong nextChunk, long chunks) throws SQLException {
+        try (Connection connection = connect(); PreparedStatement insert = connection.prepareStatement(table.insertSql())) {
+            int columns = table.columns().size();
+            int[] pending = {0};
+            long[] rows = {0};
+            DatasetGenerator.RowSink sink = values -> {
+                if (values.length != columns) {
+                    throw new IllegalStateException(table.name() + " row has " + values.length + " values for "
+                        + columns + " columns");
+                }
+                for (int i = 0; i < values.length; i++) {
+                    insert.setObject(i + 1, values[i]);
+                }
+                insert.addBatch();
+                rows[0]++;
+                if (++pending[0] == batchSize) {
+                    insert.executeBatch();
+                    pending[0] = 0;
+                }
+            };
+            for (long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                long first = chunk * CHUNK_PARENTS + 1;
+                long last = Math.min(table.parents(), first + CHUNK_PARENTS - 1);
+                for (long id = first; id <= last; id++) {
+                    table.source().rows(id, generator.random(table.stream(), id), sink);
+                }
+                if (pending[0] > 0) {
+                    insert.executeBatch();
+                    pending[0] = 0;
+                }
+                connection.commit();
+            }
+            return rows[0];
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(jdbcUrl, user, password);
+        connection.setAutoCommit(false);
+        if (isMySql(jdbcUrl)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET foreign_key_checks = 0");
+                statement.execute("SET unique_checks = 0");
+            }
+        }
+        return connection;
+    }
+
+    private static boolean isMySql(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:mysql:");
+    }
+}
@@ -0,0 +1,316 @@
+package com.hospital.loadtest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Seeded synthetic rows for every table the application reads, in the shape its entities map them.
+ * <p>
+ * Each row is generated from a random stream derived from (seed, table, parent id) alone, so the same
+ * options always produce the same dataset, whatever the chunking and thread count of the load.
+ */
+final class DatasetGenerator {
+    private static final String[] CITIES = {"Chennai", "Mumbai", "Delhi", "Bengaluru", "Hyderabad", "Pune",
+        "Kolkata", "Ahmedabad", "Jaipur", "Kochi", "Lucknow", "Madurai"};
+    private static final String[] DEPARTMENTS = {"Cardiology", "Neurology", "Orthopaedics", "Paediatrics",
+        "Dermatology", "Oncology", "General Medicine", "ENT", "Ophthalmology", "Gynaecology", "Psychiatry",
+        "Radiology", "Nephrology", "Gastroenterology", "Pulmonology", "Urology"};
+    private static final String[] FIRST_NAMES = {"Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Rohan", "Karthik",
+        "Rahul", "Vikram", "Suresh", "Ananya", "Diya", "Priya", "Kavya", "Meera", "Lakshmi", "Divya", "Sneha",
+        "Pooja", "Nithya", "Ishaan", "Farhan", "Joseph", "Maria", "Ayesha", "Gurpreet", "Harini", "Deepak"};
+    private static final String[] LAST_NAMES = {"Sharma", "Iyer", "Reddy", "Nair", "Patel", "Gupta", "Singh",
+        "Kumar", "Menon", "Rao", "Das", "Joshi", "Pillai", "Khan", "Fernandes", "Mehta", "Verma", "Chopra",
+        "Banerjee", "Krishnan", "Subramanian", "Bose", "Mishra", "Naidu"};
+    private static final String[] BLOOD_GROUPS = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final String[] DIAGNOSES = {"Hypertension", "Type 2 diabetes", "Viral fever", "Migraine",
+        "Asthma", "Gastritis", "Lower back pain", "Upper respiratory infection", "Anaemia", "Hypothyroidism",
+        "Osteoarthritis", "Allergic rhinitis", "Urinary tract infection", "Dermatitis"};
+    private static final String[] ALLERGIES = {"Penicillin", "Sulfa drugs", "Aspirin", "Ibuprofen", "Peanuts",
+        "Shellfish", "Latex", "Dust mites", "Pollen", "Eggs"};
+    private static final String[][] VITALS = {
+        {"Blood Pressure", "mmHg"}, {"Heart Rate", "bpm"}, {"Temperature", "F"}, {"SpO2", "%"},
+        {"Respiratory Rate", "breaths/min"}, {"Weight", "kg"}};
+    private static final String[] RECORD_TYPES = {"REGULAR_CHECKUP", "EMERGENCY", "FOLLOW_UP", "SURGERY",
+        "LAB_TEST", "VACCINATION", "PRESCRIPTION", "CONSULTATION"};
+    private static final String[] SERVICE_TYPES = {"CONSULTATION", "LAB_TEST", "PHARMACY", "PROCEDURE",
+        "ROOM_CHARGES", "OTHER"};
+    private static final String[] PAYMENT_METHODS = {"CASH", "CARD", "UPI", "NET_BANKING", "INSURANCE"};
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+    private static final String CREATED_BY = "LOADTEST";
+
+    // Stream ids of the random sequences; changing one reshuffles that table only
+    private static final int HOSPITAL = 1, BLOCK = 2, DEPARTMENT = 3, DOCTOR = 4, PATIENT = 5, APPOINTMENT = 6,
+        RECORD = 7, VITALS_STREAM = 8, ALLERGY = 9, BILL = 10, BILL_ITEM = 11;
+
+    private final DatasetScale scale;
+    private final LocalDateTime epoch;
+
+    DatasetGenerator(DatasetScale scale) {
+        this.scale = scale;
+        this.epoch = scale.epoch.atStartOfDay();
+    }
+
+    /**
+     * Tables in load order, parents before children.
+     */
+    List<Table> tables() {
+        return List.of(
+            new Table("hospital", HOSPITAL, scale.hospitals, List.of("id", "name", "address", "phone_number", "email",
+                "created_by", "last_modified_by", "created_at", "updated_at", "deleted_at"), this::hospital),
+            new Table("block", BLOCK, scale.blocks(), List.of("id", "name", "description", "floor_number",
+                "hospital_id", "created_by", "last_modified_by", "created_at", "updated_at"), this::block),
+            new Table("department", DEPARTMENT, scale.departments(), List.of("id", "name", "description",
+                "hospital_id", "block_id", "created_by", "last_modified_by", "created_at", "updated_at",
+                "deleted_at"), this::department),
+            new Table("doctor", DOCTOR, scale.doctors(), List.of("id", "name", "specialization", "email",
+                "hospital_id", "department_id", "created_by", "last_modified_by", "created_at", "updated_at"),
+                this::doctor),
+            new Table("patient", PATIENT, scale.patients, List.of("id", "first_name", "last_name", "email", "phone",
+                "phone_normalized", "date_of_birth", "address", "gender", "blood_group", "hospital_id", "created_by",
+                "last_modified_by", "created_at", "updated_at", "deleted_at"), this::patient),
+            new Table("appointment", APPOINTMENT, scale.appointments(), List.of("id", "doctor_id", "patient_id",
+                "appointment_time", "status", "created_by", "last_modified_by", "created_at", "updated_at"),
+                this::appointment),
+            new Table("medical_record", RECORD, scale.medicalRecords(), List.of("id", "patient_id", "doctor_id",
+                "diagnosis", "symptoms", "treatment", "prescriptions", "notes", "visit_date", "record_type",
+                "created_by", "last_modified_by", "created_at", "updated_at"), this::medicalRecord),
+            new Table("medical_record_vital_signs", VITALS_STREAM, scale.medicalRecords(), List.of(
+                "medical_record_id", "type", "value", "unit", "recorded_at"), this::vitalSigns),
+            new Table("medical_record_allergies", ALLERGY, scale.medicalRecords(), List.of("medical_record_id",
+                "allergies"), this::allergies),
+            new Table("bill", BILL, scale.bills(), List.of("id", "bill_number", "patient_id", "hospital_id",
+                "bill_date", "due_date", "status", "sub_total", "tax_amount", "discount_amount", "total_amount",
+                "paid_amount", "balance_amount", "payment_method", "payment_reference", "notes", "created_by",
+                "last_modified_by", "created_at", "updated_at"), this::bill),
+            new Table("bill_item", BILL_ITEM, scale.billItems(), List.of("id", "bill_id", "service_type",
+                "service_name", "description", "quantity", "unit_price", "discount_percentage", "discount_amount",
+                "tax_percentage", "tax_amount", "total_amount", "appointment_id", "medical_record_id", "lab_test_id",
+                "pharmacy_item_id", "created_by", "last_modified_by", "created_at", "updated_at"), this::billItem));
+    }
+
+    private void hospital(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        String city = CITIES[(int) ((id - 1) % CITIES.length)];
+        LocalDateTime created = epoch.minusDays(1000 + random.nextInt(1000));
+        sink.row(id, city + " General Hospital " + id, id + " Hospital Road, " + city, "+9144" + (20000000 + id),
+            "info" + id + "@hospital.example", CREATED_BY, null, created, created, null);
+    }
+
+    private void block(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        int index = (int) ((id - 1) % scale.blocksPerHospital);
+        LocalDateTime created = epoch.minusDays(500 + random.nextInt(500));
+        sink.row(id, "Block " + blockLetter(index), "Wing " + (index + 1), 1 + random.nextInt(6),
+            scale.hospitalOfBlock(id), CREATED_BY, null, created, created);
+    }
+
+    private void department(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        long blockId = scale.blockOfDepartment(id);
+        long indexInHospital = (id - 1) % ((long) scale.blocksPerHospital * scale.departmentsPerBlock);
+        String name = DEPARTMENTS[(int) (indexInHospital % DEPARTMENTS.length)];
+        LocalDateTime created = epoch.minusDays(300 + random.nextInt(200));
+        sink.row(id, name, name + " department", scale.hospitalOfBlock(blockId), blockId, CREATED_BY, null,
+            created, created, null);
+    }
+
+    private void doctor(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        long departmentId = scale.departmentOfDoctor(id);
+        long indexInHospital = (departmentId - 1) % ((long) scale.blocksPerHospital * scale.departmentsPerBlock);
+        String first = pick(FIRST_NAMES, random);
+        String last = pick(LAST_NAMES, random);
+        LocalDateTime created = epoch.minusDays(random.nextInt(300));
+        sink.row(id, "Dr. " + first + " " + last, DEPARTMENTS[(int) (indexInHospital % DEPARTMENTS.length)],
+            "dr." + first.toLowerCase() + "." + id + "@hospital.example", scale.hospitalOfDoctor(id), departmentId,
+            CREATED_BY, null, created, created);
+    }
+
+    private void patient(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        String first = pick(FIRST_NAMES, random);
+        String last = pick(LAST_NAMES, random);
+        // Unique per patient, so walk-in lookups by phone resolve to exactly one row
+        long national = 9_000_000_000L + id;
+        String phone = String.valueOf(national);
+        LocalDateTime created = epoch.minusDays(random.nextInt(730)).plusMinutes(random.nextInt(24 * 60));
+        sink.row(id, first, last, first.toLowerCase() + "." + last.toLowerCase() + id + "@mail.example",
+            phone.substring(0, 5) + " " + phone.substring(5), "+91" + phone,
+            scale.epoch.minusYears(1 + random.nextInt(90)).minusDays(random.nextInt(365)),
+            (1 + random.nextInt(400)) + " Main Street, " + pick(CITIES, random), random.nextBoolean() ? "M" : "F",
+            pick(BLOOD_GROUPS, random), scale.hospitalOfPatient(id), CREATED_BY, null, created, created, null);
+    }
+
+    private void appointment(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        long patientId = scale.patientOfAppointment(id);
+        LocalDateTime time = slot(random, 365, 365);
+        String status;
+        if (time.isBefore(epoch)) {
+            status = random.nextInt(100) < 85 ? "COMPLETED" : "CANCELLED";
+        } else {
+            status = random.nextInt(100) < 90 ? "SCHEDULED" : "CANCELLED";
+        }
+        LocalDateTime created = time.minusDays(1 + random.nextInt(30));
+        sink.row(id, scale.randomDoctorOf(scale.hospitalOfPatient(patientId), random), patientId, time, status,
+            CREATED_BY, null, created, created);
+    }
+
+    private void medicalRecord(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        long patientId = scale.patientOfRecord(id);
+        LocalDateTime visit = slot(random, 730, 0);
+        String diagnosis = pick(DIAGNOSES, random);
+        sink.row(id, patientId, scale.randomDoctorOf(scale.hospitalOfPatient(patientId), random), diagnosis,
+            "Presented with symptoms consistent with " + diagnosis.toLowerCase(),
+            "Standard treatment protocol for " + diagnosis.toLowerCase(),
+            "Tab. Paracetamol 500mg 1-0-1 x " + (3 + random.nextInt(5)) + " days",
+            random.nextInt(4) == 0 ? "Review in two weeks" : null, visit, pick(RECORD_TYPES, random),
+            CREATED_BY, null, visit, visit);
+    }
+
+    private void vitalSigns(long recordId, SplittableRandom random, RowSink sink) throws SQLException {
+        LocalDateTime recordedAt = slot(random, 730, 0);
+        for (int i = 0; i < scale.vitalsPerRecord; i++) {
+            String[] vital = VITALS[i % VITALS.length];
+            sink.row(recordId, vital[0], vitalValue(i % VITALS.length, random), vital[1], recordedAt.plusMinutes(i));
+        }
+    }
+
+    // Drawn per patient rather than per record, so all of a patient's records agree
+    private void allergies(long recordId, SplittableRandom ignored, RowSink sink) throws SQLException {
+        long patientId = scale.patientOfRecord(recordId);
+        SplittableRandom random = random(ALLERGY, patientId);
+        int count = random.nextInt(100) < 80 ? 0 : 1 + random.nextInt(2);
+        int first = random.nextInt(ALLERGIES.length);
+        for (int i = 0; i < count; i++) {
+            sink.row(recordId, ALLERGIES[(first + i) % ALLERGIES.length]);
+        }
+    }
+
+    private void bill(long id, SplittableRandom random, RowSink sink) throws SQLException {
+        long patientId = scale.patientOfBill(id);
+        BigDecimal subTotal = BigDecimal.ZERO;
+        for (long itemId = (id - 1) * scale.itemsPerBill + 1; itemId <= id * scale.itemsPerBill; itemId++) {
+            subTotal = subTotal.add(itemAmounts(itemId).total());
+        }
+        LocalDateTime billDate = slot(random, 730, 0);
+        // Most bills are settled within two months, so open bills past their due date stay a small share,
+        // as in a real ledger and as the overdue query's index assumes
+        int paidShare = billDate.isBefore(epoch.minusDays(60)) ? 95 : 60;
+        int openShare = 100 - paidShare;
+        int roll = random.nextInt(100);
+        String status;
+        BigDecimal paid;
+        if (roll < paidShare) {
+            status = "PAID";
+            paid = subTotal;
+        } else if (roll < paidShare + openShare * 5 / 8) {
+            status = "PENDING";
+            paid = BigDecimal.ZERO;
+        } else if (roll < paidShare + openShare * 7 / 8) {
+            status = "PARTIALLY_PAID";
+            paid = subTotal.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+        } else {
+            status = "OVERDUE";
+            paid = BigDecimal.ZERO;
+        }
+        boolean hasPayment = paid.signum() > 0;
+        // Item totals already include tax, as Bill.calculateTotals leaves the bill-level tax at zero
+        sink.row(id, "BILL-" + id, patientId, scale.hospitalOfPatient(patientId), billDate, billDate.plusDays(30),
+            status, subTotal, BigDecimal.ZERO, BigDecimal.ZERO, subTotal, paid, subTotal.subtract(paid),
+            hasPayment ? pick(PAYMENT_METHODS, random) : null, hasPayment ? "PAY-" + id : null, null,
+            CREATED_BY, null, billDate, billDate);
+    }
+
+    private void billItem(long id, SplittableRandom ignored, RowSink sink) throws SQLException {
+        ItemAmounts item = itemAmounts(id);
+        long billId = scale.billOfItem(id);
+        long patientId = scale.patientOfBill(billId);
+        Long appointmentId = item.serviceType().equals("CONSULTATION") && scale.appointmentsPerPatient > 0
+            ? (patientId - 1) * scale.appointmentsPerPatient + 1 : null;
+        Long recordId = item.serviceType().equals("LAB_TEST") && scale.recordsPerPatient > 0
+            ? (patientId - 1) * scale.recordsPerPatient + 1 : null;
+        LocalDateTime created = epoch.minusDays(id % 730);
+        sink.row(id, billId, item.serviceType(), item.serviceType().replace('_', ' ').toLowerCase() + " charge",
+            null, item.quantity(), item.unitPrice(), item.discountPercentage(), item.discount(), item.taxPercentage(),
+            item.tax(), item.total(), appointmentId, recordId, null, null, CREATED_BY, null, created, created);
+    }
+
+    /**
+     * An item's amounts, computed as BillItem.calculateAmounts does. Both the item and its bill's
+     * totals call this, so they always agree.
+     */
+    private ItemAmounts itemAmounts(long itemId) {
+        SplittableRandom random = random(BILL_ITEM, itemId);
+        String serviceType = pick(SERVICE_TYPES, random);
+        int quantity = 1 + random.nextInt(3);
+        BigDecimal unitPrice = BigDecimal.valueOf(100 + random.nextInt(4900), 0).add(BigDecimal.valueOf(random.nextInt(100), 2));
+        BigDecimal discountPercentage = random.nextInt(5) == 0 ? BigDecimal.TEN : BigDecimal.ZERO;
+        BigDecimal taxPercentage = serviceType.equals("PHARMACY") ? new BigDecimal("12.00") : new BigDecimal("18.00");
+        BigDecimal base = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        BigDecimal discount = base.multiply(discountPercentage).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        BigDecimal tax = base.subtract(discount).multiply(taxPercentage).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        return new ItemAmounts(serviceType, quantity, unitPrice, discountPercentage, discount, taxPercentage, tax,
+            base.subtract(discount).add(tax));
+    }
+
+    /**
+     * A quarter-hour slot between 09:00 and 17:00, from {@code daysBefore} days before the epoch
+     * to {@code daysAfter} days after it.
+     */
+    private LocalDateTime slot(SplittableRandom random, int daysBefore, int daysAfter) {
+        int day = random.nextInt(daysBefore + daysAfter + 1) - daysBefore;
+        return epoch.plusDays(day).plusHours(9).plusMinutes(15L * random.nextInt(32));
+    }
+
+    SplittableRandom random(int stream, long id) {
+        long z = scale.seed ^ (stream * 0x9E3779B97F4A7C15L) ^ (id * 0xC2B2AE3D27D4EB4FL);
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return new SplittableRandom(z ^ (z >>> 33));
+    }
+
+    private static String vitalValue(int vital, SplittableRandom random) {
+        return switch (vital) {
+            case 0 -> (100 + random.nextInt(60)) + "/" + (60 + random.nextInt(35));
+            case 1 -> String.valueOf(55 + random.nextInt(60));
+            case 2 -> (97 + random.nextInt(4)) + "." + random.nextInt(10);
+            case 3 -> String.valueOf(90 + random.nextInt(11));
+            case 4 -> String.valueOf(12 + random.nextInt(10));
+            default -> String.valueOf(3 + random.nextInt(100));
+        };
+    }
+
+    private static String blockLetter(int index) {
+        return index < 26 ? String.valueOf((char) ('A' + index)) : String.valueOf(index + 1);
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private record ItemAmounts(String serviceType, int quantity, BigDecimal unitPrice, BigDecimal discountPercentage,
+                               BigDecimal discount, BigDecimal taxPercentage, BigDecimal tax, BigDecimal total) {
+    }
+
+    @FunctionalInterface
+    interface RowSink {
+        void row(Object... values) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface RowSource {
+        void rows(long parentId, SplittableRandom random, RowSink sink) throws SQLException;
+    }
+
+    /**
+     * One table's insert: the parent ids 1..{@code parents} to iterate and the rows each one yields.
+     * For tables with their own id the parent id is the row id; collection tables yield several rows per parent.
+     */
+    record Table(String name, int stream, long parents, List<String> columns, RowSource source) {
+        String insertSql() {
+            return "INSERT INTO " + name + " (" + columns.stream().map(c -> '`' + c + '`').collect(Collectors.joining(", "))
+                + ") VALUES (" + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.hospital.loadtest;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Row counts of a synthetic dataset, and the id arithmetic that links its rows.
+ * <p>
+ * Ids are 1-based and contiguous in every table, and each child row's parent follows from its own id,
+ * so the generator never reads back what it wrote and the load driver can pick valid ids for a dataset
+ * it did not load, given the same options.
+ */
+final class DatasetScale {
+    final long seed;
+    final LocalDate epoch;
+    final int hospitals;
+    final int blocksPerHospital;
+    final int departmentsPerBlock;
+    final int doctorsPerDepartment;
+    final long patients;
+    final int appointmentsPerPatient;
+    final int recordsPerPatient;
+    final int vitalsPerRecord;
+    final int billsPerPatient;
+    final int itemsPerBill;
+
+    private DatasetScale(LoadTest.Options options) {
+        seed = options.getLong("seed", 42);
+        epoch = LocalDate.parse(options.get("epoch", "2025-01-01"));
+        hospitals = options.getInt("hospitals", 10);
+        blocksPerHospital = options.getInt("blocks-per-hospital", 4);
+        departmentsPerBlock = options.getInt("departments-per-block", 3);
+        doctorsPerDepartment = options.getInt("doctors-per-department", 5);
+        patients = options.getLong("patients", 100_000);
+        appointmentsPerPatient = options.getInt("appointments-per-patient", 4);
+        recordsPerPatient = options.getInt("records-per-patient", 3);
+        vitalsPerRecord = options.getInt("vitals-per-record", 4);
+        billsPerPatient = options.getInt("bills-per-patient", 2);
+        itemsPerBill = options.getInt("items-per-bill", 3);
+        if (hospitals < 1 || blocksPerHospital < 1 || departmentsPerBlock < 1 || doctorsPerDepartment < 1 || patients < 1) {
+            throw new IllegalArgumentException("Every hospital needs at least one block, department and doctor, "
+                    + "and the dataset at least one patient");
+        }
+    }
+
+    static DatasetScale from(LoadTest.Options options) {
+        return new DatasetScale(options);
+    }
+
+    long blocks() {
+        return (long) hospitals * blocksPerHospital;
+    }
+
+    long departments() {
+        return blocks() * departmentsPerBlock;
+    }
+
+    long doctors() {
+        return departments() * doctorsPerDepartment;
+    }
+
+    long doctorsPerHospital() {
+        return (long) blocksPerHospital * departmentsPerBlock * doctorsPerDepartment;
+    }
+
+    long appointments() {
+        return patients * appointmentsPerPatient;
+    }
+
+    long medicalRecords() {
+        return patients * recordsPerPatient;
+    }
+
+    long bills() {
+        return patients * billsPerPatient;
+    }
+
+    long billItems() {
+        return bills() * itemsPerBill;
+    }
+
+    long hospitalOfBlock(long blockId) {
+        return (blockId - 1) / blocksPerHospital + 1;
+    }
+
+    long blockOfDepartment(long departmentId) {
+        return (departmentId - 1) / departmentsPerBlock + 1;
+    }
+
+    long departmentOfDoctor(long doctorId) {
+        return (doctorId - 1) / doctorsPerDepartment + 1;
+    }
+
+    long hospitalOfDoctor(long doctorId) {
+        return hospitalOfBlock(blockOfDepartment(departmentOfDoctor(doctorId)));
+    }
+
+    // Round-robin, so every hospital gets the same share of patients
+    long hospitalOfPatient(long patientId) {
+        return (patientId - 1) % hospitals + 1;
+    }
+
+    long patientOfAppointment(long appointmentId) {
+        return (appointmentId - 1) / appointmentsPerPatient + 1;
+    }
+
+    long patientOfRecord(long recordId) {
+        return (recordId - 1) / recordsPerPatient + 1;
+    }
+
+    long patientOfBill(long billId) {
+        return (billId - 1) / billsPerPatient + 1;
+    }
+
+    long billOfItem(long itemId) {
+        return (itemId - 1) / itemsPerBill + 1;
+    }
+
+    long randomDoctorOf(long hospitalId, SplittableRandom random) {
+        return (hospitalId - 1) * doctorsPerHospital() + 1 + random.nextLong(doctorsPerHospital());
+    }
+
+    long randomId(long count, SplittableRandom random) {
+        return 1 + random.nextLong(count);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hospitals, %d blocks, %d departments, %d doctors, %d patients, %d appointments, "
+                + "%d medical records, %d bills, %d bill items (seed %d)", hospitals, blocks(), departments(), doctors(),
+                patients, appointments(), medicalRecords(), bills(), billItems(), seed);
+    }
+}
@@ -0,0 +1,100 @@
+package com.hospital.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * Bulk patient import throughput: uploads a generated CSV to one instance and polls the job, on the same or
+ * another instance, until it finishes. The file is sent twice, so the first pass measures inserts and the
+ * second, whose emails all exist by then, updates.
+ */
+final class ImportDriver {
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+    private static final String[] BLOOD_GROUPS = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+
+    private final URI submitUrl;
+    private final URI pollUrl;
+    private final long hospitalId;
+    private final int rows;
+    private final long seed;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    ImportDriver(URI submitUrl, URI pollUrl, long hospitalId, int rows, long seed) {
+        this.submitUrl = submitUrl;
+        this.pollUrl = pollUrl;
+        this.hospitalId = hospitalId;
+        this.rows = rows;
+        this.seed = seed;
+    }
+
+    void run() throws IOException, InterruptedException {
+        byte[] csv = csv();
+        System.out.printf("Importing %,d patients (%,d bytes) into hospital %d at %s, polling %s%n",
+            rows, csv.length, hospitalId, submitUrl, pollUrl);
+        System.out.printf("%-8s %9s %9s %9s %9s %10s %12s %6s%n", "pass", "read", "inserted", "updated", "rejected",
+            "wall ms", "wall rows/s", "polls");
+        pass("insert", csv);
+        pass("update", csv);
+    }
+
+    private void pass(String name, byte[] csv) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> submitted = client.send(HttpRequest.newBuilder(
+                submitUrl.resolve("/api/patients/import?hospitalId=" + hospitalId))
+            .header("Content-Type", "text/csv")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(csv))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        if (submitted.statusCode() != 202) {
+            throw new IllegalStateException("Import was refused with " + submitted.statusCode() + ": " + submitted.body());
+        }
+        String jobId = objectMapper.readTree(submitted.body()).get("jobId").asText();
+
+        JsonNode job;
+        int polls = 0;
+        do {
+            Thread.sleep(POLL_INTERVAL.toMillis());
+            HttpResponse<String> polled = client.send(HttpRequest.newBuilder(
+                pollUrl.resolve("/api/patients/import/" + jobId)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            polls++;
+            if (polled.statusCode() != 200) {
+                throw new IllegalStateException("Polling job " + jobId + " returned " + polled.statusCode());
+            }
+            job = objectMapper.readTree(polled.body());
+        } while ("QUEUED".equals(job.get("status").asText()) || "RUNNING".equals(job.get("status").asText()));
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%-8s %9d %9d %9d %9d %10.0f %12.0f %6d%n", name, job.get("rowsRead").asLong(),
+            job.get("inserted").asLong(), job.get("updated").asLong(), job.get("rejected").asLong(), millis,
+            job.get("rowsRead").asLong() / (millis / 1000), polls);
+        if (!"COMPLETED".equals(job.get("status").asText())) {
+            throw new IllegalStateException("Import " + jobId + " ended " + job.get("status").asText() + ": " + job.get("errors"));
+        }
+    }
+
+    private byte[] csv() {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder csv = new StringBuilder(rows * 120);
+        csv.append("firstName,lastName,email,phone,dateOfBirth,gender,bloodGroup\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Import").append(',')
+                .append("Patient").append(i).append(',')
+                .append("import-").append(seed).append('-').append(i).append("@example.test").append(',')
+                .append(9_000_000_000L + random.nextLong(1_000_000_000L)).append(',')
+                .append(LocalDate.of(1940, 1, 1).plusDays(random.nextInt(365 * 80))).append(',')
+                .append(random.nextBoolean() ? "FEMALE" : "MALE").append(',')
+                .append(BLOOD_GROUPS[random.nextInt(BLOOD_GROUPS.length)]).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,199 @@
+package com.hospital.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load: requests arrive as a Poisson process at a fixed mean rate, whether or not earlier
+ * ones have completed, the way independent users arrive.
+ * <p>
+ * Latency is measured from each request's scheduled send time rather than from when it was actually sent,
+ * so a stalled server or a driver falling behind shows up in the histograms instead of being hidden by
+ * fewer requests (coordinated omission). Requests scheduled during the warm-up are sent but not recorded.
+ */
+final class LoadDriver {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final URI baseUrl;
+    private final List<Scenario> mix;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int maxInFlight;
+    private final long seed;
+
+    LoadDriver(URI baseUrl, List<Scenario> mix, double rate, Duration warmup, Duration duration, int maxInFlight, long seed) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+        this.seed = seed;
+    }
+
+    Map<String, EndpointStats> run() throws InterruptedException {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        mix.forEach(scenario -> stats.put(scenario.name, new EndpointStats()));
+        int totalWeight = mix.stream().mapToInt(scenario -> scenario.weight).sum();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(executor)
+            .build();
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAdder dropped = new LongAdder();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        System.out.printf("Driving %.0f req/s at %s for %s after %s warm-up%n", rate, baseUrl, duration, warmup);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = pick(random, totalWeight);
+            EndpointStats endpoint = next >= measureFrom ? stats.get(scenario.name) : null;
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                // The server is this far behind; count the arrival as lost rather than block the schedule
+                inFlight.decrementAndGet();
+                if (endpoint != null) {
+                    endpoint.dropped.increment();
+                }
+                dropped.increment();
+            } else {
+                long scheduled = next;
+                HttpRequest request = scenario.request(baseUrl, random);
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    if (endpoint != null) {
+                        endpoint.record(scheduled, response, error);
+                    }
+                });
+            }
+            next += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(35);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        executor.shutdownNow();
+        if (dropped.sum() > 0) {
+            System.out.printf("%,d arrivals dropped with %d requests in flight%n", dropped.sum(), maxInFlight);
+        }
+        return stats;
+    }
+
+    private Scenario pick(SplittableRandom random, int totalWeight) {
+        int roll = random.nextInt(totalWeight);
+        for (Scenario scenario : mix) {
+            roll -= scenario.weight;
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("Weights changed while driving");
+    }
+
+    /**
+     * Prints a per-endpoint summary and writes each endpoint's percentile distribution as
+     * {@code <endpoint>.hgrm} (milliseconds), the format HdrHistogram's plotter reads.
+     */
+    static void report(Map<String, EndpointStats> stats, Duration duration, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-20s %9s %8s %6s %6s %6s %6s %9s %9s %9s %9s %9s%n", "endpoint", "count",
+            "req/s", "2xx", "4xx", "5xx", "fail", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            all.add(endpoint.latency);
+            summary.append(line(entry.getKey(), endpoint.latency, duration, endpoint.success.sum(),
+                endpoint.clientErrors.sum(), endpoint.serverErrors.sum(), endpoint.failures.sum() + endpoint.dropped.sum()));
+            writeDistribution(endpoint.latency, outputDirectory.resolve(entry.getKey() + ".hgrm"));
+        }
+        long success = stats.values().stream().mapToLong(s -> s.success.sum()).sum();
+        long clientErrors = stats.values().stream().mapToLong(s -> s.clientErrors.sum()).sum();
+        long serverErrors = stats.values().stream().mapToLong(s -> s.serverErrors.sum()).sum();
+        long failures = stats.values().stream().mapToLong(s -> s.failures.sum() + s.dropped.sum()).sum();
+        summary.append(line("all", all, duration, success, clientErrors, serverErrors, failures));
+        writeDistribution(all, outputDirectory.resolve("all.hgrm"));
+
+        System.out.print(summary);
+        Files.writeString(outputDirectory.resolve("summary.txt"), summary);
+        System.out.println("Histograms written to " + outputDirectory.toAbsolutePath());
+    }
+
+    private static String line(String name, Histogram latency, Duration duration, long success, long clientErrors,
+                               long serverErrors, long failures) {
+        return String.format("%-20s %9d %8.1f %6d %6d %6d %6d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+            latency.getTotalCount(), latency.getTotalCount() / (duration.toMillis() / 1000.0), success, clientErrors,
+            serverErrors, failures, millis(latency, 50), millis(latency, 90), millis(latency, 99), millis(latency, 99.9),
+            latency.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static void writeDistribution(Histogram latency, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latency.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    /**
+     * Latency of completed responses, in microseconds, and outcome counts for one endpoint.
+     */
+    static final class EndpointStats {
+        final ConcurrentHistogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder success = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        void record(long scheduledNanos, HttpResponse<?> response, Throwable error) {
+            if (error != null) {
+                failures.increment();
+                return;
+            }
+            long micros = (System.nanoTime() - scheduledNanos) / 1000;
+            latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+            int status = response.statusCode();
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            } else {
+                success.increment();
+            }
+        }
+    }
+}
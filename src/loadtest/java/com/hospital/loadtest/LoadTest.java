@@ -0,0 +1,223 @@
+package com.hospital.loadtest;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load-test harness: a seeded synthetic dataset and an open-model HTTP driver.
+ * <pre>
+ * generate --jdbc-url=... [--user=root] [--password=] [--truncate] [dataset options]
+ * explain  --jdbc-url=... [--user=root] [--password=] [dataset options]
+ * drive    --base-url=http://host:8080 [driver options] [dataset options]
+ * local    [driver options] [dataset options] [--app.&lt;property&gt;=value] [--app-jvm-args=-Xmx768m,...]
+ * import   --base-url=http://host:8080 --hospital-id=1 [--poll-url=http://other-host:8080] [--rows=100000] [--driver-seed=n]
+ * </pre>
+ * {@code local} starts MySQL in Docker and the application in its own JVM, loads the dataset, restarts the
+ * application so it boots over the loaded data as in production, and drives it. {@code explain} checks that
+ * the hot queries use their indexes on a loaded database and exits with status 1 if one does not. {@code drive} against a
+ * deployment needs the dataset options it was generated with, so it only asks for ids that exist. {@code import}
+ * measures bulk patient import throughput, polling the job on {@code --poll-url} (another replica) if given.
+ * <p>
+ * Dataset options: seed, epoch, hospitals, blocks-per-hospital, departments-per-block, doctors-per-department,
+ * patients, appointments-per-patient, records-per-patient, vitals-per-record, bills-per-patient, items-per-bill.
+ * Driver options: rate (requests/s), warmup, duration, mix, max-in-flight, driver-seed, out.
+ */
+public final class LoadTest {
+    // One pod's limits in k8s/deployment.yaml: 1 CPU, and 75% of 1Gi as heap (MaxRAMPercentage in the Dockerfile)
+    private static final String DEFAULT_APP_JVM_ARGS = "-Xmx768m,-XX:ActiveProcessorCount=1";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length));
+        switch (args[0]) {
+            case "generate" -> generate(options);
+            case "explain" -> {
+                if (explain(options.require("jdbc-url"), options.get("user", "root"), options.get("password", ""), options) > 0) {
+                    System.exit(1);
+                }
+            }
+            case "drive" -> drive(URI.create(options.require("base-url")), options);
+            case "local" -> local(options);
+            case "import" -> {
+                URI baseUrl = URI.create(options.require("base-url"));
+                new ImportDriver(baseUrl, URI.create(options.get("poll-url", baseUrl.toString())),
+                    options.getLong("hospital-id", 1), options.getInt("rows", 100_000), driverSeed(options)).run();
+            }
+            default -> usage();
+        }
+    }
+
+    private static void generate(Options options) throws Exception {
+        DatasetScale scale = DatasetScale.from(options);
+        DatasetGenerator generator = new DatasetGenerator(scale);
+        BulkLoader loader = new BulkLoader(options.require("jdbc-url"), options.get("user", "root"),
+            options.get("password", ""), options.getInt("writers", 4), options.getInt("batch-size", 1000));
+        if (options.getBoolean("truncate")) {
+            loader.truncate(generator.tables());
+        }
+        System.out.println("Generating " + scale);
+        loader.load(generator.tables(), generator);
+    }
+
+    private static int explain(String jdbcUrl, String user, String password, Options options) throws Exception {
+        return new QueryPlanCheck(jdbcUrl, user, password, DatasetScale.from(options)).run();
+    }
+
+    private static void drive(URI baseUrl, Options options) throws Exception {
+        DatasetScale scale = DatasetScale.from(options);
+        Duration duration = options.getDuration("duration", Duration.ofMinutes(2));
+        LoadDriver driver = new LoadDriver(baseUrl, Scenario.mix(scale, options.get("mix", null)),
+            options.getDouble("rate", 100), options.getDuration("warmup", Duration.ofSeconds(30)), duration,
+            options.getInt("max-in-flight", 2000), driverSeed(options));
+        LoadDriver.report(driver.run(), duration, outputDirectory(options));
+    }
+
+    private static void local(Options options) throws Exception {
+        DatasetScale scale = DatasetScale.from(options);
+        DatasetGenerator generator = new DatasetGenerator(scale);
+        Path output = outputDirectory(options);
+        Files.createDirectories(output);
+        List<String> jvmArgs = List.of(options.get("app-jvm-args", DEFAULT_APP_JVM_ARGS).split(","));
+
+        try (LocalEnvironment environment = new LocalEnvironment(options.get("mysql-image", "mysql:8.0"),
+                options.get("mysql-buffer-pool", "1G"), output)) {
+            environment.startDatabase();
+            // A first boot runs the migrations; the measured boot then starts over a loaded database,
+            // so startup indexes such as the phone Bloom filter cover the generated patients
+            environment.startApplication("schema", Map.of(), jvmArgs);
+            environment.stopApplication();
+
+            System.out.println("Generating " + scale);
+            new BulkLoader(environment.jdbcUrl(), environment.user(), environment.password(),
+                options.getInt("writers", 4), options.getInt("batch-size", 1000)).load(generator.tables(), generator);
+            // Reported rather than fatal here, so a plan regression still comes with its latency numbers
+            explain(environment.jdbcUrl(), environment.user(), environment.password(), options);
+
+            URI baseUrl = environment.startApplication("application", options.withPrefix("app."), jvmArgs);
+            drive(baseUrl, options);
+        }
+    }
+
+    /**
+     * A new request sequence per run unless {@code --driver-seed} is given, so repeated runs against the same
+     * database book new slots instead of colliding with the appointments an earlier run created.
+     */
+    private static long driverSeed(Options options) {
+        long seed = options.getLong("driver-seed", System.nanoTime());
+        System.out.println("Driver seed " + seed + " (replay with --driver-seed=" + seed + ")");
+        return seed;
+    }
+
+    private static Path outputDirectory(Options options) {
+        return Path.of(options.get("out", "target/loadtest-results"));
+    }
+
+    private static void usage() {
+        System.out.println("""
+            Usage: LoadTest generate|explain|drive|local|import [--option=value ...]
+              generate  --jdbc-url=jdbc:mysql://host:3306/doctor_appointment_db --user=root --password=... [--truncate]
+              explain   --jdbc-url=jdbc:mysql://host:3306/doctor_appointment_db --user=root --password=...
+              drive     --base-url=http://host:8080 --rate=200 --duration=5m --warmup=1m
+              local     --patients=100000 --rate=100 --app.threads.virtual.enabled=true
+              import    --base-url=http://host:8080 --hospital-id=1 --rows=100000 --poll-url=http://other-host:8080
+            Dataset options must match between generate and drive. See the LoadTest class comment for all options.""");
+    }
+
+    /**
+     * {@code --name=value} options; a bare {@code --name} means true.
+     */
+    static final class Options {
+        private final Map<String, String> values;
+
+        private Options(Map<String, String> values) {
+            this.values = values;
+        }
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+                }
+                int equals = arg.indexOf('=');
+                if (equals < 0) {
+                    values.put(arg.substring(2), "true");
+                } else {
+                    values.put(arg.substring(2, equals), arg.substring(equals + 1));
+                }
+            }
+            return new Options(values);
+        }
+
+        String get(String name, String defaultValue) {
+            return values.getOrDefault(name, defaultValue);
+        }
+
+        String require(String name) {
+            String value = values.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("--" + name + " is required");
+            }
+            return value;
+        }
+
+        int getInt(String name, int defaultValue) {
+            return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+        }
+
+        long getLong(String name, long defaultValue) {
+            return values.containsKey(name) ? Long.parseLong(values.get(name).replace("_", "")) : defaultValue;
+        }
+
+        double getDouble(String name, double defaultValue) {
+            return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+        }
+
+        boolean getBoolean(String name) {
+            return Boolean.parseBoolean(values.getOrDefault(name, "false"));
+        }
+
+        /**
+         * Accepts ISO-8601 ({@code PT90S}) or a number with an s, m or h suffix ({@code 90s}, {@code 5m}).
+         */
+        Duration getDuration(String name, Duration defaultValue) {
+            String value = values.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            if (value.startsWith("P") || value.startsWith("p")) {
+                return Duration.parse(value);
+            }
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            return switch (value.charAt(value.length() - 1)) {
+                case 's' -> Duration.ofSeconds(amount);
+                case 'm' -> Duration.ofMinutes(amount);
+                case 'h' -> Duration.ofHours(amount);
+                default -> throw new IllegalArgumentException("--" + name + " needs a unit, as in 90s or 5m");
+            };
+        }
+
+        Map<String, String> withPrefix(String prefix) {
+            Map<String, String> matching = new LinkedHashMap<>();
+            values.forEach((name, value) -> {
+                if (name.startsWith(prefix)) {
+                    matching.put(name.substring(prefix.length()), value);
+                }
+            });
+            return matching;
+        }
+    }
+}
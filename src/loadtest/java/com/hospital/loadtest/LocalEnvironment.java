@@ -0,0 +1,132 @@
+package com.hospital.loadtest;
+
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A throwaway MySQL in Docker (Testcontainers) and the application in its own JVM against it.
+ * <p>
+ * The application runs in a separate process so its CPU, heap and GC are its own, and can be given
+ * pod-like limits through {@code --app-jvm-args}. {@code --app.<property>=<value>} options are passed
+ * to it as Spring properties, which is how a run compares, say, virtual and platform threads.
+ */
+final class LocalEnvironment implements AutoCloseable {
+    private static final String DATABASE = "doctor_appointment_db";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(5);
+
+    private final MySQLContainer<?> mysql;
+    private final Path outputDirectory;
+    private Process application;
+
+    LocalEnvironment(String mysqlImage, String bufferPoolSize, Path outputDirectory) {
+        this.mysql = new MySQLContainer<>(DockerImageName.parse(mysqlImage).asCompatibleSubstituteFor("mysql"))
+            .withDatabaseName(DATABASE)
+            .withCommand("--innodb-buffer-pool-size=" + bufferPoolSize, "--max-allowed-packet=64M");
+        this.outputDirectory = outputDirectory;
+    }
+
+    void startDatabase() {
+        System.out.println("Starting " + mysql.getDockerImageName());
+        mysql.start();
+    }
+
+    String jdbcUrl() {
+        return mysql.getJdbcUrl();
+    }
+
+    String user() {
+        return mysql.getUsername();
+    }
+
+    String password() {
+        return mysql.getPassword();
+    }
+
+    /**
+     * Starts the application and waits until its health endpoint reports UP.
+     */
+    URI startApplication(String name, Map<String, String> properties, List<String> jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("com.hospital.Application");
+        command.add("--server.port=" + port);
+        String url = mysql.getJdbcUrl();
+        command.add("--spring.datasource.url=" + url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true");
+        command.add("--spring.datasource.username=" + mysql.getUsername());
+        command.add("--spring.datasource.password=" + mysql.getPassword());
+        command.add("--spring.jpa.show-sql=false");
+        // The mail indicator would report DOWN whenever the SMTP server is unreachable from the test host
+        command.add("--management.health.mail.enabled=false");
+        properties.forEach((key, value) -> command.add("--" + key + "=" + value));
+
+        Path log = outputDirectory.resolve(name + ".log");
+        System.out.println("Starting the application (" + name + "), output in " + log);
+        application = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        URI baseUrl = URI.create("http://localhost:" + port);
+        awaitHealthy(baseUrl);
+        return baseUrl;
+    }
+
+    void stopApplication() throws InterruptedException {
+        if (application != null && application.isAlive()) {
+            // SIGTERM, so Spring shuts down gracefully and the next start finds the schema complete
+            application.destroy();
+            if (!application.waitFor(60, TimeUnit.SECONDS)) {
+                application.destroyForcibly().waitFor();
+            }
+        }
+        application = null;
+    }
+
+    @Override
+    public void close() throws Exception {
+        stopApplication();
+        mysql.stop();
+    }
+
+    private void awaitHealthy(URI baseUrl) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(baseUrl.resolve("/actuator/health"))
+            .timeout(Duration.ofSeconds(5)).GET().build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("The application exited with status " + application.exitValue()
+                    + " during startup; see its log in " + outputDirectory);
+            }
+            try {
+                HttpResponse<String> response = client.send(health, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200 && response.body().contains("\"UP\"")) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("The application did not become healthy within " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
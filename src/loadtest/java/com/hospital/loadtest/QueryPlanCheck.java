@@ -0,0 +1,62 @@
+package com.hospital.loadtest;
+
+import com.hospital.repository.QueryPlans;
+import com.hospital.repository.QueryPlans.HotQuery;
+import com.hospital.repository.QueryPlans.Plan;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Runs EXPLAIN for the {@link QueryPlans hot repository queries} against a migrated, loaded MySQL database and
+ * checks that each one reads its table through the index V2__access_path_indexes.sql designed for it, with
+ * literals from the generated dataset. {@code QueryPlanTest} makes the same check on every build over a small
+ * seeded dataset; this one confirms it at production row counts.
+ */
+final class QueryPlanCheck {
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+    private final List<HotQuery> queries;
+
+    QueryPlanCheck(String jdbcUrl, String user, String password, DatasetScale scale) {
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+        this.queries = queries(scale);
+    }
+
+    /**
+     * Prints each query's plan for the checked table and returns how many did not use the expected index.
+     */
+    int run() throws SQLException {
+        int failures = 0;
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, user, password);
+             Statement statement = connection.createStatement()) {
+            QueryPlans.analyze(statement);
+            System.out.printf("%-26s %-15s %-8s %-34s %10s%n", "query", "table", "access", "index", "est. rows");
+            for (HotQuery query : queries) {
+                Plan plan = QueryPlans.explain(statement, query);
+                boolean ok = query.index().equals(plan.key());
+                if (!ok) {
+                    failures++;
+                }
+                System.out.printf("%-26s %-15s %-8s %-34s %10s%s%n", query.name(), query.table(), plan.type(),
+                    plan.key() == null ? "(none)" : plan.key(), plan.rows(),
+                    ok ? "" : "   expected " + query.index() + " for " + query.method());
+            }
+        }
+        System.out.println(failures == 0 ? "All hot queries use their index"
+            : failures + " of " + queries.size() + " hot queries do not use their index");
+        return failures;
+    }
+
+    private static List<HotQuery> queries(DatasetScale scale) {
+        long patient = scale.patients / 2 + 1;
+        return QueryPlans.hotQueries(1, patient, scale.hospitalOfPatient(patient), scale.doctorsPerHospital() / 2 + 1,
+            (patient - 1) * scale.appointmentsPerPatient + 1, scale.epoch.atStartOfDay());
+    }
+}
@@ -0,0 +1,108 @@
+package com.hospital.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * One endpoint of the traffic mix: its share of requests and how to build a request against the dataset.
+ */
+final class Scenario {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] SEARCH_PREFIXES = {"Sha", "Iye", "Red", "Nai", "Pat", "Gup", "Sin", "Kum",
+        "Men", "Rao", "Aar", "Priy", "Kav", "Mee", "Div", "Ish"};
+
+    final String name;
+    final int weight;
+    private final RequestFactory factory;
+
+    private Scenario(String name, int weight, RequestFactory factory) {
+        this.name = name;
+        this.weight = weight;
+        this.factory = factory;
+    }
+
+    HttpRequest request(URI baseUrl, SplittableRandom random) {
+        return factory.create(baseUrl, random);
+    }
+
+    /**
+     * The default mix, read-heavy like the front desk and doctor screens, with weights overridable
+     * by {@code --mix=name:weight,...}. A weight of 0 drops an endpoint.
+     */
+    static List<Scenario> mix(DatasetScale scale, String overrides) {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        add(scenarios, "appointment-get", 20, (base, random) ->
+            get(base, "/api/appointments/" + scale.randomId(scale.appointments(), random)));
+        add(scenarios, "doctor-appointments", 5, (base, random) ->
+            get(base, "/api/appointments/doctor/" + scale.randomId(scale.doctors(), random)));
+        add(scenarios, "hospital-structure", 10, (base, random) ->
+            get(base, "/api/hospitals/" + scale.randomId(scale.hospitals, random) + "/structure"));
+        add(scenarios, "patient-get", 15, (base, random) ->
+            get(base, "/api/patients/" + scale.randomId(scale.patients, random)));
+        add(scenarios, "patient-search", 10, (base, random) ->
+            get(base, "/api/patients/search?q=" + SEARCH_PREFIXES[random.nextInt(SEARCH_PREFIXES.length)]
+                + "&hospitalId=" + scale.randomId(scale.hospitals, random) + "&limit=10"));
+        add(scenarios, "patient-timeline", 10, (base, random) ->
+            get(base, "/api/patients/" + scale.randomId(scale.patients, random) + "/timeline"));
+        add(scenarios, "medical-records", 10, (base, random) ->
+            get(base, "/api/medical-records/patient/" + scale.randomId(scale.patients, random) + "/paged?page=0&size=20"));
+        add(scenarios, "patient-bills", 10, (base, random) ->
+            get(base, "/api/bills/patient/" + scale.randomId(scale.patients, random)));
+        add(scenarios, "appointment-create", 10, (base, random) -> {
+            long patientId = scale.randomId(scale.patients, random);
+            long doctorId = scale.randomDoctorOf(scale.hospitalOfPatient(patientId), random);
+            // Minute-granular times over the next ten years, so bookings are valid and rarely conflict
+            LocalDateTime time = LocalDate.now().atStartOfDay().plusDays(1 + random.nextInt(3650))
+                .plusHours(9).plusMinutes(random.nextInt(8 * 60));
+            String body = "{\"doctor\":{\"id\":" + doctorId + "},\"patient\":{\"id\":" + patientId
+                + "},\"appointmentTime\":\"" + time + "\"}";
+            return HttpRequest.newBuilder(base.resolve("/api/appointments/doctor/" + doctorId + "/patient"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        });
+
+        if (overrides != null && !overrides.isBlank()) {
+            for (String entry : overrides.split(",")) {
+                String[] parts = entry.trim().split(":");
+                Scenario scenario = scenarios.get(parts[0]);
+                if (scenario == null || parts.length != 2) {
+                    throw new IllegalArgumentException("Unknown mix entry '" + entry + "'; endpoints are " + scenarios.keySet());
+                }
+                scenarios.put(scenario.name, new Scenario(scenario.name, Integer.parseInt(parts[1]), scenario.factory));
+            }
+        }
+        List<Scenario> mix = new ArrayList<>();
+        for (Scenario scenario : scenarios.values()) {
+            if (scenario.weight > 0) {
+                mix.add(scenario);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no endpoint with a positive weight");
+        }
+        return mix;
+    }
+
+    private static void add(Map<String, Scenario> scenarios, String name, int weight, RequestFactory factory) {
+        scenarios.put(name, new Scenario(name, weight, factory));
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create(URI baseUrl, SplittableRandom random);
+    }
+}
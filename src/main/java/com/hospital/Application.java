@@ -3,11 +3,13 @@ package com.hospital;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 
 @SpringBootApplication
 @EnableRetry
+@EnableScheduling
 @OpenAPIDefinition(info = @Info(title = "Doctor Appointment API", version = "1.0", description = "API for managing doctor appointments"))
 public class Application {
     public static void main(String[] args) {
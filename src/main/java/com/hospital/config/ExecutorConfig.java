@@ -0,0 +1,106 @@
+package com.hospital.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool for fan-out reads such as the patient timeline. When it is saturated,
+     * submissions are rejected rather than queued without limit, and callers degrade to partial results.
+     */
+    @Bean(name = "timelineExecutor")
+    public ThreadPoolTaskExecutor timelineExecutor(
+            @Value("${timeline.executor.pool-size:16}") int poolSize,
+            @Value("${timeline.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("timeline-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // Workers read from the request's shard, and from the primary whenever the request has to (read replica routing)
+        executor.setTaskDecorator(task -> ReadRouting.propagate(ShardContext.propagate(task)));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs bulk patient imports. Imports are write-heavy, so only a couple run at once and
+     * further uploads are rejected instead of piling up spooled files.
+     */
+    @Bean(name = "importExecutor")
+    public ThreadPoolTaskExecutor importExecutor(
+            @Value("${patient.import.executor.pool-size:2}") int poolSize,
+            @Value("${patient.import.executor.queue-capacity:4}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("patient-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        // The import writes to the shard of the hospital it was uploaded for
+        executor.setTaskDecorator(ShardContext::propagate);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs one query per shard for cross-shard reads (hospital sharding). Each query holds a connection
+     * from its shard's pool, so the pool stays small; saturation rejects the query instead of queueing it.
+     */
+    @Bean(name = "shardQueryExecutor")
+    public ThreadPoolTaskExecutor shardQueryExecutor(
+            @Value("${shard.executor.pool-size:8}") int poolSize,
+            @Value("${shard.executor.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("shard-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes the change feed's server-sent events. A task runs only while a stream has changes to send, so a
+     * few threads serve many idle streams; a rejected task is retried at the next relay or heartbeat.
+     */
+    @Bean(name = "changeFeedExecutor")
+    public ThreadPoolTaskExecutor changeFeedExecutor(
+            @Value("${changes.executor.pool-size:4}") int poolSize,
+            @Value("${changes.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("change-feed-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes queue board frames to the screens watching them ({@code QueueBoardService}). Like the change feed
+     * executor, a task runs only while a screen has frames to send.
+     */
+    @Bean(name = "queueBoardExecutor")
+    public ThreadPoolTaskExecutor queueBoardExecutor(
+            @Value("${queue-board.executor.pool-size:4}") int poolSize,
+            @Value("${queue-board.executor.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("queue-board-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
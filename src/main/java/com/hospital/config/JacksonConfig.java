@@ -34,7 +34,9 @@ public class JacksonConfig {
         // Add Hibernate6Module to handle Hibernate proxies (Jakarta EE compatible)
         Hibernate6Module hibernateModule = new Hibernate6Module();
         hibernateModule.disable(Hibernate6Module.Feature.USE_TRANSIENT_ANNOTATION);
-        hibernateModule.enable(Hibernate6Module.Feature.FORCE_LAZY_LOADING);
+        // Never initialize lazy associations while writing a response; read endpoints return projections,
+        // and an entity that is still returned renders unloaded associations as their identifier
+        hibernateModule.disable(Hibernate6Module.Feature.FORCE_LAZY_LOADING);
         hibernateModule.enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
         mapper.registerModule(hibernateModule);
 
@@ -66,15 +68,30 @@ public class JacksonConfig {
         @Override
         public LocalDateTime deserialize(JsonParser parser, DeserializationContext context)
                 throws IOException, JsonProcessingException {
-            String dateString = parser.getText();
+            char[] text = parser.getTextCharacters();
+            if (text == null) {
+                return null;
+            }
 
-            if (dateString == null || dateString.trim().isEmpty()) {
+            // Same whitespace rule as String.trim(), applied to the parser's buffer without copying it
+            int start = parser.getTextOffset();
+            int end = start + parser.getTextLength();
+            while (start < end && text[start] <= ' ') {
+                start++;
+            }
+            while (end > start && text[end - 1] <= ' ') {
+                end--;
+            }
+            if (start == end) {
                 return null;
             }
 
-            dateString = dateString.trim();
+            LocalDateTime parsed = LocalDateTimeFastParser.parse(text, start, end);
+            return parsed != null ? parsed : parseWithFormatters(new String(text, start, end - start));
+        }
 
-            // Try each formatter
+        // Handles whatever the fast path declines, e.g. out-of-range fields the lenient patterns adjust
+        static LocalDateTime parseWithFormatters(String dateString) throws JsonProcessingException {
             for (DateTimeFormatter formatter : FORMATTERS) {
                 try {
                     if (formatter == DateTimeFormatter.ISO_LOCAL_DATE) {
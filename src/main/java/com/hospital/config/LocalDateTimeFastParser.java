@@ -0,0 +1,120 @@
+package com.hospital.config;
+
+import java.time.LocalDateTime;
+import java.time.Year;
+
+/**
+ * Single-pass parser for the date-time shapes {@link JacksonConfig.FlexibleLocalDateTimeDeserializer}
+ * accepts, reading straight from the parser's character buffer.
+ * <p>
+ * It only answers for input whose fields are all in range, where every formatter in the legacy chain that
+ * accepts the text agrees on the result. Anything else (out-of-range fields that the lenient patterns
+ * would adjust, lower-case separators, extended years, ...) returns {@code null} so the caller can defer to
+ * the formatter chain and keep its exact behaviour.
+ */
+final class LocalDateTimeFastParser {
+    private LocalDateTimeFastParser() {
+    }
+
+    /**
+     * Parses {@code text[start, end)}, already trimmed, or returns {@code null} if the text is not one of the
+     * handled shapes:
+     * <ul>
+     *   <li>{@code yyyy-MM-dd} (start of day)</li>
+     *   <li>{@code yyyy-MM-ddTHH:mm}, {@code yyyy-MM-ddTHH:mm:ss}, {@code yyyy-MM-ddTHH:mm:ss.f} with 1-9 fraction digits</li>
+     *   <li>{@code yyyy-MM-ddTHH:mm:ssZ} and {@code yyyy-MM-ddTHH:mm:ss.SSSZ}, where the {@code Z} is ignored</li>
+     *   <li>{@code yyyy-MM-dd HH:mm:ss}</li>
+     * </ul>
+     */
+    static LocalDateTime parse(char[] text, int start, int end) {
+        if (end - start < 10 || text[start + 4] != '-' || text[start + 7] != '-') {
+            return null;
+        }
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        if (end - start == 10) {
+            return LocalDateTime.of(year, month, day, 0, 0);
+        }
+
+        char separator = text[start + 10];
+        if ((separator != 'T' && separator != ' ') || end - start < 16 || text[start + 13] != ':') {
+            return null;
+        }
+        int hour = digits(text, start + 11, 2);
+        int minute = digits(text, start + 14, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        int pos = start + 16;
+        if (pos == end) {
+            return separator == 'T' ? LocalDateTime.of(year, month, day, hour, minute) : null;
+        }
+
+        if (text[pos] != ':' || end - pos < 3) {
+            return null;
+        }
+        int second = digits(text, pos + 1, 2);
+        if (second < 0 || second > 59) {
+            return null;
+        }
+        pos += 3;
+        if (pos == end) {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        }
+        if (separator != 'T') {
+            return null;
+        }
+
+        int nanos = 0;
+        int fractionDigits = 0;
+        if (text[pos] == '.') {
+            pos++;
+            while (pos < end && fractionDigits < 9 && isDigit(text[pos])) {
+                nanos = nanos * 10 + (text[pos++] - '0');
+                fractionDigits++;
+            }
+            if (fractionDigits == 0) {
+                return null;
+            }
+            for (int i = fractionDigits; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+        if (pos == end) {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        }
+        // The 'Z' patterns only exist for whole seconds and for exactly three fraction digits
+        if (pos == end - 1 && text[pos] == 'Z' && (fractionDigits == 0 || fractionDigits == 3)) {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        }
+        return null;
+    }
+
+    // Value of count ASCII digits at offset, or -1 if any of them is not a digit
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            if (!isDigit(text[i])) {
+                return -1;
+            }
+            value = value * 10 + (text[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
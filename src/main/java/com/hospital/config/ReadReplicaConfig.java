@@ -0,0 +1,183 @@
+package com.hospital.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * Read replica routing: read-only transactions ({@code @Transactional(readOnly = true)}) read from a replica
+ * pool, everything else uses the primary pool.
+ * <p>
+ * Both pools are Hikari pools, so admission control and statement counting wrap each of them, and the
+ * {@code @Primary} {@link ReadRoutingDataSource} in front picks one per transaction. The replica is used only
+ * while it is at most {@code datasource.replica.max-lag-seconds} behind; a client that wrote keeps reading
+ * from the primary for that long plus one lag check, so it reads its own writes.
+ * <p>
+ * Hibernate normally holds a connection until the open-in-view session closes, which would carry one pool's
+ * connection into the request's next transaction, so here it returns it after each transaction instead.
+ * Health follows the primary only: a replica outage moves reads to the primary rather than failing pods.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+    public static final String STICKY_COOKIE = "read-primary-until";
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties primary,
+            @Value("${datasource.replica.url}") String url,
+            @Value("${datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .driverClassName(primary.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        return new ReadRoutingDataSource(primary, replica, replicaLagMonitor);
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                        @Value("${datasource.replica.max-lag-seconds:5}") long maxLagSeconds) {
+        return new ReplicaLagMonitor(replica, maxLagSeconds);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${datasource.replica.lag-check-interval-ms:1000}") long checkIntervalMillis) {
+        return new ReadYourWritesFilter(maxLagSeconds * 1000 + checkIntervalMillis);
+    }
+
+    /**
+     * Replaces Boot's health check of every data source, which would report a replica outage as DOWN.
+     */
+    @Bean
+    public HealthIndicator dbHealthIndicator(@Qualifier("primaryDataSource") DataSource primary) {
+        return new DataSourceHealthIndicator(primary);
+    }
+
+    @Bean
+    public HealthIndicator readReplicaHealthIndicator(ReplicaLagMonitor replicaLagMonitor) {
+        return () -> {
+            Health.Builder health = Health.up()
+                    .withDetail("reads", replicaLagMonitor.isUsable() ? "replica" : "primary")
+                    .withDetail("lagSeconds", replicaLagMonitor.lagSeconds());
+            String problem = replicaLagMonitor.problem();
+            return problem != null ? health.withDetail("problem", problem).build() : health.build();
+        };
+    }
+
+    @Bean
+    public MeterBinder readReplicaMetrics(ReplicaLagMonitor replicaLagMonitor) {
+        return registry -> {
+            Gauge.builder("jdbc.replica.lag", replicaLagMonitor,
+                            monitor -> monitor.lagSeconds() < 0 ? Double.NaN : monitor.lagSeconds())
+                    .description("Seconds the read replica was behind the primary at the last check")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("jdbc.replica.in.use", replicaLagMonitor, monitor -> monitor.isUsable() ? 1 : 0)
+                    .description("1 while read-only transactions read from the replica, 0 while they use the primary")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Keeps a request's reads on the primary once it has written, and those of the client's following
+     * requests while the {@value #STICKY_COOKIE} cookie set on that write is current.
+     */
+    static class ReadYourWritesFilter extends OncePerRequestFilter {
+        private final long stickyMillis;
+
+        ReadYourWritesFilter(long stickyMillis) {
+            this.stickyMillis = stickyMillis;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            long now = System.currentTimeMillis();
+            long stickyUntil = stickyUntil(request);
+            // Values more than one window ahead are ignored, so a forged cookie cannot pin a client indefinitely
+            ReadRouting.startRequest(stickyUntil > now && stickyUntil <= now + stickyMillis, () -> {
+                if (!response.isCommitted()) {
+                    Cookie cookie = new Cookie(STICKY_COOKIE, String.valueOf(System.currentTimeMillis() + stickyMillis));
+                    cookie.setPath("/");
+                    cookie.setHttpOnly(true);
+                    cookie.setMaxAge((int) Math.ceil(stickyMillis / 1000.0));
+                    response.addCookie(cookie);
+                }
+            });
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                ReadRouting.endRequest();
+            }
+        }
+
+        private static long stickyUntil(HttpServletRequest request) {
+            Cookie[] cookies = request.getCookies();
+            if (cookies != null) {
+                for (Cookie cookie : cookies) {
+                    if (STICKY_COOKIE.equals(cookie.getName())) {
+                        try {
+                            return Long.parseLong(cookie.getValue());
+                        } catch (NumberFormatException e) {
+                            return 0;
+                        }
+                    }
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hospital.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Whether the current thread's read-only transactions must read from the primary when a read replica is
+ * configured ({@link ReadReplicaConfig}). Without a replica every statement goes to the primary anyway.
+ * <p>
+ * Reads stay on the primary inside {@link #onPrimary}, for work that caches what it reads against state
+ * read from the primary. They also stay there for the rest of a request once it has written, and, through a
+ * cookie, for the client's requests that follow within the replica's tolerated lag, so callers read their
+ * own writes.
+ */
+public final class ReadRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<RequestReads> REQUEST = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Runs {@code reads} with every transaction it starts on this thread reading from the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        boolean outermost = PRIMARY_ONLY.get() == null;
+        if (outermost) {
+            PRIMARY_ONLY.set(Boolean.TRUE);
+        }
+        try {
+            return reads.get();
+        } finally {
+            if (outermost) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    /**
+     * Task decorator for executors that read on behalf of a request, such as the timeline fan-out, so the
+     * request's workers read from wherever the request itself would.
+     */
+    static Runnable propagate(Runnable task) {
+        if (!primaryRequired()) {
+            return task;
+        }
+        return () -> onPrimary(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    static boolean primaryRequired() {
+        if (PRIMARY_ONLY.get() != null) {
+            return true;
+        }
+        RequestReads request = REQUEST.get();
+        return request != null && request.primary;
+    }
+
+    /**
+     * Starts tracking a request; {@code onFirstWrite} runs when it first takes a connection for a read-write
+     * transaction.
+     */
+    static void startRequest(boolean primary, Runnable onFirstWrite) {
+        REQUEST.set(new RequestReads(primary, onFirstWrite));
+    }
+
+    static void endRequest() {
+        REQUEST.remove();
+    }
+
+    static void wrote() {
+        RequestReads request = REQUEST.get();
+        if (request != null && !request.wrote) {
+            request.wrote = true;
+            request.primary = true;
+            request.onFirstWrite.run();
+        }
+    }
+
+    private static final class RequestReads {
+        private final Runnable onFirstWrite;
+        private boolean primary;
+        private boolean wrote;
+
+        private RequestReads(boolean primary, Runnable onFirstWrite) {
+            this.primary = primary;
+            this.onFirstWrite = onFirstWrite;
+        }
+    }
+}
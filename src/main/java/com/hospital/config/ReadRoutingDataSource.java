@@ -0,0 +1,50 @@
+package com.hospital.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * The application's data source when a read replica is configured: each connection comes from the replica
+ * or the primary, chosen at its first statement.
+ * <p>
+ * Read-only transactions read from the replica while {@link ReplicaLagMonitor} reports it usable and
+ * {@link ReadRouting} does not require the primary. Read-write transactions and work outside a transaction
+ * use the primary. The checkout is deferred because Spring marks a transaction read-only only after the
+ * transaction manager has asked for its connection.
+ */
+class ReadRoutingDataSource extends LazyConnectionDataSourceProxy {
+    enum Target { PRIMARY, REPLICA }
+
+    ReadRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        Router router = new Router(lagMonitor);
+        router.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    private static class Router extends AbstractRoutingDataSource {
+        private final ReplicaLagMonitor lagMonitor;
+
+        private Router(ReplicaLagMonitor lagMonitor) {
+            this.lagMonitor = lagMonitor;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                return Target.PRIMARY;
+            }
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                ReadRouting.wrote();
+                return Target.PRIMARY;
+            }
+            return ReadRouting.primaryRequired() || !lagMonitor.isUsable() ? Target.PRIMARY : Target.REPLICA;
+        }
+    }
+}
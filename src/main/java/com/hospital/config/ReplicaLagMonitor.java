@@ -0,0 +1,115 @@
+package com.hospital.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+
+/**
+ * Polls the read replica's replication status, so reads only go to it while it is close behind the primary.
+ * <p>
+ * The lag is the replica's own estimate in whole seconds ({@code Seconds_Behind_Source}, or
+ * {@code Seconds_Behind_Master} before MySQL 8.0.22). A replica that cannot be reached, is not replicating
+ * or has replication stopped is unusable, as is one that has not been checked yet. The check needs the
+ * REPLICATION CLIENT privilege on the replica.
+ */
+@Log4j2
+class ReplicaLagMonitor {
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+
+    private final DataSource replica;
+    private final long maxLagSeconds;
+    private String statusStatement = "SHOW REPLICA STATUS";
+    private volatile boolean usable;
+    private volatile long lagSeconds = -1;
+    private volatile boolean checked;
+    private volatile String problem = "not checked yet";
+
+    ReplicaLagMonitor(DataSource replica, long maxLagSeconds) {
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Seconds the replica was behind at the last check, or -1 if that is unknown.
+     */
+    long lagSeconds() {
+        return lagSeconds;
+    }
+
+    /**
+     * Why reads are on the primary, or null while the replica is usable.
+     */
+    String problem() {
+        return problem;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        long lag;
+        String found;
+        try {
+            lag = readLag();
+            found = lag < 0 ? "replication is not running"
+                : lag > maxLagSeconds ? "replica is " + lag + " s behind (limit " + maxLagSeconds + " s)" : null;
+        } catch (SQLException e) {
+            lag = -1;
+            found = "replica status check failed: " + e.getMessage();
+        }
+        lagSeconds = lag;
+        // Only changes are logged; the health endpoint shows the current state
+        if (found == null && !usable) {
+            log.info("Read replica is {} s behind, routing read-only transactions to it", lag);
+        } else if (found != null && (usable || !checked)) {
+            log.warn("Routing read-only transactions to the primary: {}", found);
+        }
+        problem = found;
+        usable = found == null;
+        checked = true;
+    }
+
+    /**
+     * Seconds behind the primary, or -1 when the replica reports no lag figure because it is not replicating.
+     */
+    private long readLag() throws SQLException {
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement();
+             ResultSet status = replicaStatus(statement)) {
+            if (!status.next()) {
+                return -1;
+            }
+            long lag = status.getLong(lagColumn(status.getMetaData()));
+            return status.wasNull() ? -1 : lag;
+        }
+    }
+
+    private ResultSet replicaStatus(Statement statement) throws SQLException {
+        try {
+            return statement.executeQuery(statusStatement);
+        } catch (SQLSyntaxErrorException e) {
+            // Servers before MySQL 8.0.22 only know the older statement
+            statusStatement = "SHOW SLAVE STATUS";
+            return statement.executeQuery(statusStatement);
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            for (String name : LAG_COLUMNS) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return i;
+                }
+            }
+        }
+        throw new SQLException("Replica status has none of the columns " + String.join(", ", LAG_COLUMNS));
+    }
+}
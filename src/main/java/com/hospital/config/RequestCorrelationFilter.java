@@ -0,0 +1,91 @@
+package com.hospital.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.ThreadContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Puts a request ID and a W3C trace ID into the logging context for the duration of each request, so
+ * every line it logs carries them. An incoming {@code X-Request-Id} or {@code traceparent} is kept;
+ * otherwise fresh IDs are generated. The request ID is echoed back on the response.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestCorrelationFilter extends OncePerRequestFilter {
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String REQUEST_ID_KEY = "requestId";
+    public static final String TRACE_ID_KEY = "traceId";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String traceId = traceIdOf(request.getHeader(TRACEPARENT_HEADER));
+        if (traceId == null) {
+            traceId = randomHex();
+        }
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (!isValidRequestId(requestId)) {
+            requestId = traceId.substring(16);
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        ThreadContext.put(REQUEST_ID_KEY, requestId);
+        ThreadContext.put(TRACE_ID_KEY, traceId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ThreadContext.remove(REQUEST_ID_KEY);
+            ThreadContext.remove(TRACE_ID_KEY);
+        }
+    }
+
+    /**
+     * Trace ID of a version-00 {@code traceparent} header, or null if it is absent or malformed.
+     */
+    static String traceIdOf(String traceparent) {
+        if (traceparent == null || traceparent.length() < 55 || !traceparent.startsWith("00-")
+                || traceparent.charAt(35) != '-') {
+            return null;
+        }
+        String traceId = traceparent.substring(3, 35);
+        boolean allZero = true;
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) {
+                return null;
+            }
+            allZero &= c == '0';
+        }
+        return allZero ? null : traceId;
+    }
+
+    // Client-supplied IDs end up in log lines, so only short plain tokens are accepted
+    private static boolean isValidRequestId(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomHex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,100 @@
+package com.hospital.config;
+
+import com.hospital.exception.SqlBudgetExceededException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL work done by the current request thread: statements executed, rows read and lazy loads.
+ * <p>
+ * Statements are keyed by their text with {@code ?} placeholders, so the same statement executed
+ * again with different parameters counts as a repeat, which is how N+1 patterns show up. Work done on
+ * other threads (the timeline fan-out, background jobs) is not attributed to any request.
+ */
+final class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+    // Bounds memory for requests that run many distinct statements
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private final String endpoint;
+    private final int budget;
+    private final boolean failOnExceed;
+    private final Map<String, Integer> executions = new HashMap<>();
+    private int statements;
+    private long rows;
+    private int lazyLoads;
+    private String mostRepeatedSql;
+    private int mostRepeatedCount;
+
+    private RequestSqlStats(String endpoint, int budget, boolean failOnExceed) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+        this.failOnExceed = failOnExceed;
+    }
+
+    static RequestSqlStats start(String endpoint, int budget, boolean failOnExceed) {
+        RequestSqlStats stats = new RequestSqlStats(endpoint, budget, failOnExceed);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void statementExecuted(String sql) {
+        statements++;
+        if (sql != null && (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql))) {
+            int count = executions.merge(sql, 1, Integer::sum);
+            if (count > mostRepeatedCount) {
+                mostRepeatedCount = count;
+                mostRepeatedSql = sql;
+            }
+        }
+        if (failOnExceed && statements > budget) {
+            throw new SqlBudgetExceededException(endpoint + " exceeded its SQL budget of " + budget
+                + " statements; most repeated (" + mostRepeatedCount + "x): " + mostRepeatedSql);
+        }
+    }
+
+    void rowRead() {
+        rows++;
+    }
+
+    void lazyLoaded() {
+        lazyLoads++;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    int budget() {
+        return budget;
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    int lazyLoads() {
+        return lazyLoads;
+    }
+
+    String mostRepeatedSql() {
+        return mostRepeatedSql;
+    }
+
+    int mostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+}
@@ -0,0 +1,63 @@
+package com.hospital.config;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's database work goes to when hospital sharding is enabled
+ * ({@link ShardingConfig}). Without a shard set, work goes to the default shard.
+ * <p>
+ * Requests set it from the hospital they address; background work and cross-shard queries set it per shard
+ * with {@link #onShard}.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * The shard set on this thread, or null for the default shard.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs {@code work} against {@code shard}, restoring the thread's previous shard afterwards.
+     */
+    public static <T> T onShard(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Task decorator for executors that work on behalf of a request, so their tasks use the request's shard.
+     */
+    static Runnable propagate(Runnable task) {
+        String shard = CURRENT.get();
+        if (shard == null) {
+            return task;
+        }
+        return () -> onShard(shard, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    static void set(String shard) {
+        CURRENT.set(shard);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,211 @@
+package com.hospital.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which shard holds each hospital's data when hospital sharding is enabled ({@link ShardingConfig}).
+ * <p>
+ * Each shard generates IDs in its own block ({@code shard.shards.<name>.id-block}, the default shard's is 0),
+ * so a hospital lives on the shard whose block its ID is in. A hospital moved to another shard is recorded in
+ * the {@code hospital_shard} table on the default shard, which every node re-reads every
+ * {@code shard.directory.poll-interval-ms}. Without sharding there is only the default shard.
+ */
+@Component
+@Log4j2
+public class ShardDirectory {
+    /**
+     * IDs are unique across shards because each shard's auto-increment counters start at {@code block << 40}.
+     */
+    public static final int ID_BLOCK_BITS = 40;
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO hospital_shard (hospital_id, shard, updated_at) VALUES (?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE shard = VALUES(shard), updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final String defaultShard;
+    private final String newHospitalShard;
+    private final Map<String, Long> idBlocks = new LinkedHashMap<>();
+    private final Map<Long, String> shardsByBlock = new HashMap<>();
+    private volatile Map<Long, String> movedHospitals = Map.of();
+
+    public ShardDirectory(JdbcTemplate jdbcTemplate, Environment environment,
+                          @Value("${shard.enabled:false}") boolean enabled,
+                          @Value("${shard.new-hospitals:}") String newHospitalShard) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        List<Shard> shards = configuredShards(environment);
+        if (!enabled) {
+            shards = shards.subList(0, 1);
+        }
+        for (Shard shard : shards) {
+            idBlocks.put(shard.name(), shard.idBlock());
+            shardsByBlock.put(shard.idBlock(), shard.name());
+        }
+        this.defaultShard = shards.get(0).name();
+        this.newHospitalShard = newHospitalShard.isBlank() ? defaultShard : newHospitalShard;
+        if (!idBlocks.containsKey(this.newHospitalShard)) {
+            throw new IllegalStateException("shard.new-hospitals names an unknown shard: " + newHospitalShard);
+        }
+        if (enabled) {
+            refresh();
+            log.info("Hospital sharding across {}; new hospitals go to '{}'", idBlocks.keySet(), this.newHospitalShard);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Shard names, the default shard first.
+     */
+    public List<String> shards() {
+        return List.copyOf(idBlocks.keySet());
+    }
+
+    public String defaultShard() {
+        return defaultShard;
+    }
+
+    public String newHospitalShard() {
+        return newHospitalShard;
+    }
+
+    public long idBlock(String shard) {
+        return idBlocks.get(shard);
+    }
+
+    /**
+     * The shard this thread's database work currently goes to.
+     */
+    public String currentShard() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : defaultShard;
+    }
+
+    public String shardOf(Long hospitalId) {
+        if (!enabled || hospitalId == null) {
+            return defaultShard;
+        }
+        String moved = movedHospitals.get(hospitalId);
+        if (moved != null) {
+            return moved;
+        }
+        String owner = shardsByBlock.get(hospitalId >> ID_BLOCK_BITS);
+        return owner != null ? owner : defaultShard;
+    }
+
+    /**
+     * Hospitals that live outside the shard their ID was generated on.
+     */
+    public Map<Long, String> movedHospitals() {
+        return movedHospitals;
+    }
+
+    /**
+     * Routes the hospital to {@code shard} from now on, on this node immediately and on the others at their
+     * next poll. The hospital's rows must already have been copied there.
+     * <p>
+     * The target's ID block may not be lower than the current shard's: copying rows with IDs from a higher
+     * block would move the target's auto-increment counters into that block, and its new rows would take IDs
+     * the other shard is still handing out.
+     */
+    public void assign(Long hospitalId, String shard) {
+        if (!enabled) {
+            throw new IllegalStateException("Hospital sharding is not enabled");
+        }
+        if (!idBlocks.containsKey(shard)) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        String current = shardOf(hospitalId);
+        if (idBlocks.get(shard) < idBlocks.get(current)) {
+            throw new IllegalArgumentException("Hospital ID: " + hospitalId + " is on shard '" + current
+                    + "', whose ID block is above that of '" + shard + "'");
+        }
+        ShardContext.onShard(defaultShard, () -> {
+            if (shard.equals(shardsByBlock.get(hospitalId >> ID_BLOCK_BITS))) {
+                return jdbcTemplate.update("DELETE FROM hospital_shard WHERE hospital_id = ?", hospitalId);
+            }
+            return jdbcTemplate.update(UPSERT_SQL, hospitalId, shard, Timestamp.valueOf(LocalDateTime.now()));
+        });
+        log.info("Hospital ID: {} assigned to shard '{}'", hospitalId, shard);
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${shard.directory.poll-interval-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, String> moved = new HashMap<>();
+        ShardContext.onShard(defaultShard, () -> {
+            jdbcTemplate.query("SELECT hospital_id, shard FROM hospital_shard", row -> {
+                String shard = row.getString("shard");
+                if (idBlocks.containsKey(shard)) {
+                    moved.put(row.getLong("hospital_id"), shard);
+                } else {
+                    log.warn("Ignoring hospital ID: {} assigned to unknown shard '{}'", row.getLong("hospital_id"), shard);
+                }
+            });
+            return null;
+        });
+        if (!moved.equals(movedHospitals)) {
+            log.info("Shard directory now has {} moved hospitals", moved.size());
+            movedHospitals = Map.copyOf(moved);
+        }
+    }
+
+    /**
+     * The configured shards, the default shard ({@code spring.datasource}, ID block 0) first.
+     */
+    static List<Shard> configuredShards(Environment environment) {
+        Binder binder = Binder.get(environment);
+        List<Shard> shards = new ArrayList<>();
+        shards.add(new Shard(environment.getProperty("shard.default-name", "main"), 0,
+                environment.getProperty("spring.datasource.url"),
+                environment.getProperty("spring.datasource.username"),
+                environment.getProperty("spring.datasource.password")));
+        binder.bind("shard.shards", Bindable.mapOf(String.class, ShardProperties.class))
+            .orElse(Map.of())
+            .forEach((name, properties) -> {
+                if (properties.url() == null || properties.idBlock() == null || properties.idBlock() <= 0
+                        || properties.idBlock() >= 1L << (Long.SIZE - 1 - ID_BLOCK_BITS)) {
+                    throw new IllegalStateException("Shard '" + name + "' needs a url and an id-block from 1 to "
+                            + ((1L << (Long.SIZE - 1 - ID_BLOCK_BITS)) - 1));
+                }
+                for (Shard existing : shards) {
+                    if (existing.name().equals(name) || existing.idBlock() == properties.idBlock()) {
+                        throw new IllegalStateException("Shard '" + name + "' repeats the name or ID block of '"
+                                + existing.name() + "'");
+                    }
+                }
+                shards.add(new Shard(name, properties.idBlock(), properties.url(),
+                        properties.username() != null ? properties.username() : shards.get(0).username(),
+                        properties.password() != null ? properties.password() : shards.get(0).password()));
+            });
+        return shards;
+    }
+
+    record Shard(String name, long idBlock, String url, String username, String password) {
+    }
+
+    record ShardProperties(String url, String username, String password, Long idBlock) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.hospital.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How an endpoint names the hospital whose shard it works on, for endpoints that differ from the default:
+ * a {@code hospitalId} path variable, a {@code hospitalId} request parameter or the {@code X-Hospital-Id}
+ * header. A method annotation overrides the class annotation.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardRoute {
+    /**
+     * Path variable holding the hospital ID.
+     */
+    String hospitalVariable() default "hospitalId";
+
+    /**
+     * The endpoint creates a hospital, which goes to the shard configured for new hospitals.
+     */
+    boolean newHospital() default false;
+}
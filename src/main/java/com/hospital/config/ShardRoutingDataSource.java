@@ -0,0 +1,38 @@
+package com.hospital.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections from the pool of the shard set in {@link ShardContext}, or the default shard's.
+ * Hibernate picks its connections per session through {@link ShardingConfig.ShardConnectionProvider}; this is
+ * the data source for everything else, such as {@code JdbcTemplate} and Flyway.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    private final String defaultShard;
+
+    ShardRoutingDataSource(Map<String, DataSource> shards, String defaultShard) {
+        this.defaultShard = defaultShard;
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(defaultShard));
+        // An unknown shard name is a routing bug, not a reason to write to the default shard
+        setLenientFallback(false);
+    }
+
+    DataSource shardDataSource(String shard) {
+        DataSource dataSource = getResolvedDataSources().get(shard);
+        if (dataSource == null) {
+            throw new IllegalStateException("Unknown shard: " + shard);
+        }
+        return dataSource;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : defaultShard;
+    }
+}
@@ -0,0 +1,292 @@
+package com.hospital.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hospital sharding: each hospital's rows live on one of several MySQL databases, picked by hospital ID
+ * through the {@link ShardDirectory}.
+ * <p>
+ * Every shard gets a Hikari pool bean built from {@code spring.datasource.hikari} (so admission control,
+ * statement counting, metrics and health cover each of them), and Hibernate opens each session on the shard
+ * set in {@link ShardContext} as its tenant, which also keeps the second-level and query caches apart per
+ * shard. Requests set the shard from the hospital they name before the open-in-view session starts; requests
+ * that name no hospital use the default shard. Flyway migrates every shard, and each shard's auto-increment
+ * counters start at its ID block so IDs stay unique across shards and a hospital can be moved.
+ * <p>
+ * Not combined with the read replica: per-shard replicas are not supported.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shard.enabled", havingValue = "true")
+@Log4j2
+public class ShardingConfig implements WebMvcConfigurer {
+    public static final String HOSPITAL_HEADER = "X-Hospital-Id";
+
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+
+    public ShardingConfig(ObjectProvider<ShardDirectory> shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Bean
+    static ShardPoolRegistrar shardPoolRegistrar() {
+        return new ShardPoolRegistrar();
+    }
+
+    @Bean
+    @Primary
+    ShardRoutingDataSource dataSource(ListableBeanFactory beanFactory, Environment environment) {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        for (ShardDirectory.Shard shard : ShardDirectory.configuredShards(environment)) {
+            pools.put(shard.name(), beanFactory.getBean(poolBeanName(shard.name()), DataSource.class));
+        }
+        return new ShardRoutingDataSource(pools, pools.keySet().iterator().next());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardTenancyCustomizer(ShardRoutingDataSource shards, Environment environment) {
+        String defaultShard = ShardDirectory.configuredShards(environment).get(0).name();
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, new ShardConnectionProvider(shards));
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new ShardTenantResolver(defaultShard));
+        };
+    }
+
+    /**
+     * Migrates the shards one after another, the default shard first, and moves each other shard's
+     * auto-increment counters into its ID block.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(Environment environment) {
+        return flyway -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(flyway.getConfiguration().getDataSource());
+            for (ShardDirectory.Shard shard : ShardDirectory.configuredShards(environment)) {
+                ShardContext.onShard(shard.name(), () -> {
+                    log.info("Migrating shard '{}'", shard.name());
+                    flyway.migrate();
+                    startIdBlock(jdbcTemplate, shard);
+                    return null;
+                });
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Ahead of the open-in-view interceptor, whose session is bound to the shard it opens on
+        registry.addInterceptor(new ShardRoutingInterceptor(shardDirectory.getObject()))
+            .addPathPatterns("/api/**")
+            .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    static String poolBeanName(String shard) {
+        return shard + "ShardDataSource";
+    }
+
+    private static void startIdBlock(JdbcTemplate jdbcTemplate, ShardDirectory.Shard shard) {
+        long blockStart = shard.idBlock() << ShardDirectory.ID_BLOCK_BITS;
+        List<Map<String, Object>> columns = jdbcTemplate.queryForList(
+            "SELECT TABLE_NAME, COLUMN_NAME FROM information_schema.COLUMNS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND EXTRA LIKE '%auto_increment%'");
+        for (Map<String, Object> column : columns) {
+            String table = (String) column.get("TABLE_NAME");
+            Long maxId = jdbcTemplate.queryForObject(
+                "SELECT MAX(`" + column.get("COLUMN_NAME") + "`) FROM `" + table + "`", Long.class);
+            if (blockStart > 0 && (maxId == null || maxId < blockStart)) {
+                jdbcTemplate.execute("ALTER TABLE `" + table + "` AUTO_INCREMENT = " + blockStart);
+            } else if (maxId != null && maxId >= blockStart + (1L << ShardDirectory.ID_BLOCK_BITS)) {
+                // Rows copied in from a shard with a higher block moved this table's counter into that block
+                log.warn("Table {} on shard '{}' has IDs beyond its ID block {}; new rows may collide with another shard's",
+                        table, shard.name(), shard.idBlock());
+            }
+        }
+    }
+
+    /**
+     * Registers a Hikari pool bean per configured shard: {@code spring.datasource.hikari} settings with the
+     * shard's URL and credentials. The default shard keeps the configured pool name and catalog; the others
+     * get the shard name appended to the pool name and use the database in their URL.
+     */
+    static class ShardPoolRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+        private Environment environment;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+            if (environment.getProperty("datasource.replica.enabled", Boolean.class, false)) {
+                throw new IllegalStateException("shard.enabled and datasource.replica.enabled cannot be combined");
+            }
+            List<ShardDirectory.Shard> shards = ShardDirectory.configuredShards(environment);
+            for (ShardDirectory.Shard shard : shards) {
+                boolean defaultShard = shard == shards.get(0);
+                RootBeanDefinition definition = new RootBeanDefinition(HikariDataSource.class, () -> pool(shard, defaultShard));
+                definition.setDestroyMethodName("close");
+                registry.registerBeanDefinition(poolBeanName(shard.name()), definition);
+            }
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        }
+
+        private HikariDataSource pool(ShardDirectory.Shard shard, boolean defaultShard) {
+            HikariDataSource pool = new HikariDataSource();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setJdbcUrl(shard.url());
+            pool.setUsername(shard.username());
+            pool.setPassword(shard.password());
+            if (!defaultShard) {
+                pool.setPoolName((pool.getPoolName() != null ? pool.getPoolName() : "HikariCP") + "-" + shard.name());
+                pool.setCatalog(null);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Hibernate's connections for a session come from the pool of the session's shard.
+     */
+    static class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl {
+        private final ShardRoutingDataSource shards;
+
+        ShardConnectionProvider(ShardRoutingDataSource shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        protected DataSource selectAnyDataSource() {
+            return shards.getResolvedDefaultDataSource();
+        }
+
+        @Override
+        protected DataSource selectDataSource(String shard) {
+            return shards.shardDataSource(shard);
+        }
+    }
+
+    /**
+     * A session opens on the thread's current shard.
+     */
+    static class ShardTenantResolver implements CurrentTenantIdentifierResolver {
+        private final String defaultShard;
+
+        ShardTenantResolver(String defaultShard) {
+            this.defaultShard = defaultShard;
+        }
+
+        @Override
+        public String resolveCurrentTenantIdentifier() {
+            String shard = ShardContext.current();
+            return shard != null ? shard : defaultShard;
+        }
+
+        @Override
+        public boolean validateExistingCurrentSessions() {
+            return false;
+        }
+    }
+
+    /**
+     * Sets the request's shard from the hospital it names: the {@value #HOSPITAL_HEADER} header, the
+     * hospital path variable or the {@code hospitalId} request parameter, which must agree.
+     */
+    private static class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+        private final ShardDirectory shardDirectory;
+
+        private ShardRoutingInterceptor(ShardDirectory shardDirectory) {
+            this.shardDirectory = shardDirectory;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (handler instanceof HandlerMethod handlerMethod) {
+                ShardRoute route = handlerMethod.getMethodAnnotation(ShardRoute.class);
+                if (route == null) {
+                    route = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), ShardRoute.class);
+                }
+                if (route != null && route.newHospital()) {
+                    ShardContext.set(shardDirectory.newHospitalShard());
+                    return true;
+                }
+                Long hospitalId = hospitalId(request, route != null ? route.hospitalVariable() : "hospitalId");
+                if (hospitalId != null) {
+                    ShardContext.set(shardDirectory.shardOf(hospitalId));
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            ShardContext.clear();
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            // The thread goes back to the pool while the async result (change feed) is pending
+            ShardContext.clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Long hospitalId(HttpServletRequest request, String pathVariable) {
+            Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            Long hospitalId = null;
+            for (String value : new String[] {request.getHeader(HOSPITAL_HEADER),
+                    variables != null ? variables.get(pathVariable) : null, request.getParameter("hospitalId")}) {
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                long id;
+                try {
+                    id = Long.parseLong(value.trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid hospital ID: " + value);
+                }
+                if (hospitalId != null && hospitalId != id) {
+                    throw new IllegalArgumentException("Request names two hospitals: " + hospitalId + " and " + id);
+                }
+                hospitalId = id;
+            }
+            return hospitalId;
+        }
+    }
+}
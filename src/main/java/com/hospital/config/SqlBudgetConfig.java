@@ -0,0 +1,207 @@
+package com.hospital.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Per-request SQL accounting: statements, rows read and lazy loads, against a statement budget.
+ * <p>
+ * Requests over budget are logged, as are statements repeated at least {@code sql.budget.repeat-threshold}
+ * times with different parameters (likely N+1). With {@code sql.budget.headers} the counts are also
+ * returned as {@code X-SQL-*} response headers, and with {@code sql.budget.fail-on-exceed} (for integration
+ * tests) the statement that breaks the budget throws instead of running.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.budget.enabled", havingValue = "true")
+@Log4j2
+public class SqlBudgetConfig implements WebMvcConfigurer {
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+    public static final String LAZY_LOADS_HEADER = "X-SQL-Lazy-Loads";
+    public static final String MAX_REPEATS_HEADER = "X-SQL-Max-Repeats";
+
+    private final int defaultStatements;
+    private final int repeatThreshold;
+    private final boolean failOnExceed;
+
+    public SqlBudgetConfig(@Value("${sql.budget.default-statements:25}") int defaultStatements,
+                           @Value("${sql.budget.repeat-threshold:5}") int repeatThreshold,
+                           @Value("${sql.budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.defaultStatements = defaultStatements;
+        this.repeatThreshold = repeatThreshold;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlBudgetInterceptor()).addPathPatterns("/api/**");
+    }
+
+    @Bean
+    static StatementCountingPostProcessor statementCountingPostProcessor() {
+        return new StatementCountingPostProcessor();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer lazyLoadCountingCustomizer() {
+        return properties -> properties.put(JpaSettings.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(new LazyLoadCountingIntegrator()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "sql.budget.headers", havingValue = "true")
+    public SqlStatsHeaderAdvice sqlStatsHeaderAdvice() {
+        return new SqlStatsHeaderAdvice();
+    }
+
+    private class SqlBudgetInterceptor implements AsyncHandlerInterceptor {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (handler instanceof HandlerMethod handlerMethod) {
+                String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                RequestSqlStats.start(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()),
+                        budgetOf(handlerMethod), failOnExceed);
+            }
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats == null) {
+                return;
+            }
+            RequestSqlStats.end();
+            if (stats.statements() > stats.budget()) {
+                log.warn("SQL budget exceeded for {}: {} statements (budget {}), {} rows, {} lazy loads",
+                        stats.endpoint(), stats.statements(), stats.budget(), stats.rows(), stats.lazyLoads());
+            }
+            if (stats.mostRepeatedCount() >= repeatThreshold) {
+                log.warn("Possible N+1 in {}: statement ran {} times: {}",
+                        stats.endpoint(), stats.mostRepeatedCount(), stats.mostRepeatedSql());
+            }
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            // The async dispatch that writes the result starts its own accounting on its own thread
+            RequestSqlStats.end();
+        }
+
+        private int budgetOf(HandlerMethod handlerMethod) {
+            SqlBudget budget = handlerMethod.getMethodAnnotation(SqlBudget.class);
+            if (budget == null) {
+                budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), SqlBudget.class);
+            }
+            return budget != null ? budget.statements() : defaultStatements;
+        }
+    }
+
+    /**
+     * Adds the counts so far as response headers, just before the body is written.
+     */
+    @ControllerAdvice
+    static class SqlStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats != null) {
+                response.getHeaders().set(STATEMENTS_HEADER, String.valueOf(stats.statements()));
+                response.getHeaders().set(ROWS_HEADER, String.valueOf(stats.rows()));
+                response.getHeaders().set(LAZY_LOADS_HEADER, String.valueOf(stats.lazyLoads()));
+                response.getHeaders().set(MAX_REPEATS_HEADER, String.valueOf(stats.mostRepeatedCount()));
+            }
+            return body;
+        }
+    }
+
+    /**
+     * Wraps data sources last, outside any other wrapper such as the virtual-thread admission control.
+     * The read replica and shard routers are skipped, since the pools behind them are wrapped themselves.
+     */
+    static class StatementCountingPostProcessor implements BeanPostProcessor, Ordered {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                    && !(bean instanceof ReadRoutingDataSource) && !(bean instanceof ShardRoutingDataSource)) {
+                return new StatementCountingDataSource(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Counts proxy initializations and collection loads, the loads that happen on access rather than by query.
+     */
+    private static class LazyLoadCountingIntegrator implements Integrator {
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+            EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+            listeners.appendListeners(EventType.INIT_COLLECTION,
+                    (InitializeCollectionEventListener) event -> countLazyLoad());
+            listeners.appendListeners(EventType.LOAD, (LoadEventListener) (event, loadType) -> {
+                if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+                    countLazyLoad();
+                }
+            });
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+
+        private static void countLazyLoad() {
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats != null) {
+                stats.lazyLoaded();
+            }
+        }
+    }
+}
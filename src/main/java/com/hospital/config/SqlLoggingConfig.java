@@ -0,0 +1,48 @@
+package com.hospital.config;
+
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled SQL logging, used in place of {@code spring.jpa.show-sql}, which prints every statement
+ * synchronously to stdout. Enabled by a positive {@code sql.log.sample-rate}.
+ */
+@Configuration
+@ConditionalOnExpression("${sql.log.sample-rate:0} > 0")
+public class SqlLoggingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlSamplingCustomizer(@Value("${sql.log.sample-rate}") double sampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new SamplingStatementInspector(sampleRate));
+    }
+
+    /**
+     * Logs roughly {@code sampleRate} of the statements Hibernate prepares to {@code com.hospital.sql}.
+     * The sampling decision is made before the logging call, so an unsampled statement costs one random draw.
+     */
+    @Log4j2(topic = "com.hospital.sql")
+    static class SamplingStatementInspector implements StatementInspector {
+        private final double sampleRate;
+
+        SamplingStatementInspector(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log.debug(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.hospital.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts statements and rows into the current {@link RequestSqlStats}.
+ * <p>
+ * Only connections taken while a request is being tracked are wrapped, so background work pays nothing.
+ * Counting happens at this level rather than in a Hibernate {@code StatementInspector} so that
+ * {@code JdbcTemplate} statements are included as well.
+ */
+class StatementCountingDataSource extends DelegatingDataSource {
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    private static Connection track(Connection connection) {
+        if (RequestSqlStats.current() == null) {
+            return connection;
+        }
+        return (Connection) proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return trackStatement(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private static Statement trackStatement(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) proxy(type, (proxy, method, args) -> {
+            String name = method.getName();
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats != null && name.startsWith("execute")) {
+                // Plain statements carry their SQL in the execute call
+                stats.statementExecuted(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+            }
+            Object result = invoke(statement, method, args);
+            if (stats != null && result instanceof ResultSet resultSet
+                    && (name.startsWith("execute") || name.equals("getResultSet"))) {
+                return trackResultSet(resultSet, stats);
+            }
+            return result;
+        });
+    }
+
+    private static ResultSet trackResultSet(ResultSet resultSet, RequestSqlStats stats) {
+        return (ResultSet) proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                stats.rowRead();
+            }
+            return result;
+        });
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) ->
+            switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> handler.invoke(proxy, method, args);
+            });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.hospital.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Opt-in virtual-thread execution, enabled with {@code threads.virtual.enabled=true} on a Java 21 runtime.
+ * <p>
+ * Tomcat request handling and the application task executor (MVC async and {@code @Async}) get one
+ * virtual thread per task, so blocking JDBC, SMTP and retry backoff no longer hold a platform thread
+ * each. The timeline and import pools keep their platform threads: their bounds are deliberate
+ * admission control. Database concurrency is capped by {@link AdmissionControlledDataSource} instead of
+ * by the request thread count.
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+@Log4j2
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ThreadFactory threadFactory = virtualThreadFactory("tomcat-vt-");
+        log.info("Tomcat requests will run on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(task -> threadFactory.newThread(task).start());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setThreadFactory(virtualThreadFactory("task-vt-"));
+        return executor;
+    }
+
+    @Bean
+    static AdmissionPostProcessor dataSourceAdmissionPostProcessor() {
+        return new AdmissionPostProcessor();
+    }
+
+    /**
+     * Callers parked on the admission semaphore. Hikari's pending gauge stays near zero in this mode,
+     * because nobody reaches the pool without a free connection.
+     */
+    @Bean
+    public MeterBinder dataSourceAdmissionMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            if (dataSource instanceof AdmissionControlledDataSource admission) {
+                Gauge.builder("jdbc.connections.admission.waiting", admission, AdmissionControlledDataSource::waitingCallers)
+                    .description("Callers waiting for a database connection permit")
+                    .tag("name", name)
+                    .register(registry);
+            }
+        });
+    }
+
+    /**
+     * Wraps each Hikari pool before any wrapper ordered after it, such as SQL statement counting.
+     */
+    static class AdmissionPostProcessor implements BeanPostProcessor, Ordered {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource hikari) {
+                log.info("Admitting at most {} concurrent connection checkouts on '{}'",
+                        hikari.getMaximumPoolSize(), beanName);
+                return new AdmissionControlledDataSource(hikari, hikari.getMaximumPoolSize(),
+                        hikari.getConnectionTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+
+    /**
+     * {@code Thread.ofVirtual()} looked up reflectively, since the build still targets Java 17.
+     */
+    static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("threads.virtual.enabled=true requires a Java 21 runtime, found "
+                    + Runtime.version(), e);
+        }
+    }
+}
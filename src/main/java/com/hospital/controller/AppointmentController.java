@@ -1,15 +1,20 @@
 package com.hospital.controller;
 
+import com.hospital.config.SqlBudget;
 import com.hospital.dto.AppointmentDTO;
 import com.hospital.dto.AppointmentStatusDTO;
+import com.hospital.dto.AppointmentView;
 import com.hospital.dto.RescheduleRequestDTO;
 import com.hospital.entity.Appointment;
 import com.hospital.service.AppointmentService;
+import com.hospital.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,35 +24,45 @@ import java.util.List;
 @Log4j2
 public class AppointmentController {
     private final AppointmentService appointmentService;
+    private final IdempotencyService idempotencyService;
 
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, IdempotencyService idempotencyService) {
         this.appointmentService = appointmentService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/doctor/{doctorId}/patient")
     @Operation(summary = "Create a new appointment with a doctor for a patient")
     public ResponseEntity<Appointment> createAppointment(
             @PathVariable Long doctorId,
-            @RequestBody AppointmentDTO appointmentDTO) {
+            @RequestBody AppointmentDTO appointmentDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("Request received to create appointment with doctor ID: {}", doctorId);
         // Override the IDs from path variables if provided
         appointmentDTO.setDoctor(appointmentDTO.getDoctor());
         appointmentDTO.setPatient(appointmentDTO.getPatient());
-        return ResponseEntity.ok(appointmentService.createAppointment(appointmentDTO));
+        return IdempotentResponse.of(HttpStatus.OK, idempotencyService.execute("appointments", idempotencyKey,
+            appointmentDTO, () -> appointmentService.createAppointment(appointmentDTO), Appointment::getId,
+            appointmentService::getAppointmentDetails));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get appointment by ID")
-    public ResponseEntity<Appointment> getAppointment(@PathVariable Long id) {
+    @SqlBudget(statements = 2)
+    public ResponseEntity<AppointmentView> getAppointment(@PathVariable Long id, WebRequest request) {
         log.info("Request received to fetch appointment with ID: {}", id);
-        return ResponseEntity.ok(appointmentService.getAppointment(id));
+        return ConditionalGet.respond(request,
+            () -> appointmentService.getAppointmentVersion(id),
+            () -> appointmentService.getAppointmentView(id));
     }
 
     @GetMapping("/doctor/{doctorId}")
     @Operation(summary = "Get all appointments for a doctor")
-    public ResponseEntity<List<Appointment>> getDoctorAppointments(@PathVariable Long doctorId) {
+    public ResponseEntity<List<AppointmentView>> getDoctorAppointments(@PathVariable Long doctorId, WebRequest request) {
         log.info("Request received to fetch appointments for doctor ID: {}", doctorId);
-        return ResponseEntity.ok(appointmentService.getDoctorAppointments(doctorId));
+        return ConditionalGet.respond(request,
+            () -> appointmentService.getDoctorAppointmentsVersion(doctorId),
+            () -> appointmentService.getDoctorAppointments(doctorId));
     }
 
     @PatchMapping("/{id}/status")
@@ -69,7 +84,7 @@ public class AppointmentController {
 
     @GetMapping
     @Operation(summary = "Get all appointments")
-    public ResponseEntity<List<Appointment>> getAllAppointments() {
+    public ResponseEntity<List<AppointmentView>> getAllAppointments() {
         log.info("Request received to fetch all appointments");
         return ResponseEntity.ok(appointmentService.getAllAppointments());
     }
@@ -2,9 +2,11 @@ package com.hospital.controller;
 
 import com.hospital.dto.BillDTO;
 import com.hospital.dto.BillItemDTO;
+import com.hospital.dto.BillView;
 import com.hospital.dto.PaymentDTO;
 import com.hospital.entity.Bill;
 import com.hospital.service.BillService;
+import com.hospital.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -13,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -26,21 +29,26 @@ import java.util.Map;
 public class BillController {
 
     private final BillService billService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     @Operation(summary = "Create a new bill")
-    public ResponseEntity<Bill> createBill(@Valid @RequestBody BillDTO billDTO) {
+    public ResponseEntity<Bill> createBill(
+            @Valid @RequestBody BillDTO billDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("Request received to create bill for patient ID: {}", billDTO.getPatientId());
-        Bill bill = billService.createBill(billDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(bill);
+        return IdempotentResponse.of(HttpStatus.CREATED, idempotencyService.execute("bills", idempotencyKey,
+            billDTO, () -> billService.createBill(billDTO), Bill::getId, billService::getBill));
     }
 
     @PostMapping("/consultation/{appointmentId}")
     @Operation(summary = "Create consultation bill for an appointment")
-    public ResponseEntity<Bill> createConsultationBill(@PathVariable Long appointmentId) {
+    public ResponseEntity<Bill> createConsultationBill(
+            @PathVariable Long appointmentId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("Request received to create consultation bill for appointment ID: {}", appointmentId);
-        Bill bill = billService.createConsultationBill(appointmentId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(bill);
+        return IdempotentResponse.of(HttpStatus.CREATED, idempotencyService.execute("bills/consultation", idempotencyKey,
+            appointmentId, () -> billService.createConsultationBill(appointmentId), Bill::getId, billService::getBill));
     }
 
     @PostMapping("/lab")
@@ -48,10 +56,12 @@ public class BillController {
     public ResponseEntity<Bill> createLabBill(
             @RequestParam Long patientId,
             @RequestParam Long hospitalId,
-            @Valid @RequestBody List<BillItemDTO> labItems) {
+            @Valid @RequestBody List<BillItemDTO> labItems,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("Request received to create lab bill for patient ID: {}", patientId);
-        Bill bill = billService.createLabBill(patientId, hospitalId, labItems);
-        return ResponseEntity.status(HttpStatus.CREATED).body(bill);
+        return IdempotentResponse.of(HttpStatus.CREATED, idempotencyService.execute("bills/lab", idempotencyKey,
+            List.of(patientId, hospitalId, labItems), () -> billService.createLabBill(patientId, hospitalId, labItems),
+            Bill::getId, billService::getBill));
     }
 
     @PostMapping("/pharmacy")
@@ -59,41 +69,46 @@ public class BillController {
     public ResponseEntity<Bill> createPharmacyBill(
             @RequestParam Long patientId,
             @RequestParam Long hospitalId,
-            @Valid @RequestBody List<BillItemDTO> pharmacyItems) {
+            @Valid @RequestBody List<BillItemDTO> pharmacyItems,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         log.info("Request received to create pharmacy bill for patient ID: {}", patientId);
-        Bill bill = billService.createPharmacyBill(patientId, hospitalId, pharmacyItems);
-        return ResponseEntity.status(HttpStatus.CREATED).body(bill);
+        return IdempotentResponse.of(HttpStatus.CREATED, idempotencyService.execute("bills/pharmacy", idempotencyKey,
+            List.of(patientId, hospitalId, pharmacyItems),
+            () -> billService.createPharmacyBill(patientId, hospitalId, pharmacyItems), Bill::getId, billService::getBill));
     }
 
     @GetMapping("/patient/{patientId}")
     @Operation(summary = "Get all bills for a patient")
-    public ResponseEntity<List<Bill>> getBillsByPatient(@PathVariable Long patientId) {
+    public ResponseEntity<List<BillView>> getBillsByPatient(@PathVariable Long patientId, WebRequest request) {
         log.info("Request received to get bills for patient ID: {}", patientId);
-        List<Bill> bills = billService.getBillsByPatient(patientId);
-        return ResponseEntity.ok(bills);
+        return ConditionalGet.respond(request,
+            () -> billService.getBillsByPatientVersion(patientId),
+            () -> billService.getBillsByPatient(patientId));
     }
 
     @GetMapping("/hospital/{hospitalId}")
     @Operation(summary = "Get all bills for a hospital")
-    public ResponseEntity<List<Bill>> getBillsByHospital(@PathVariable Long hospitalId) {
+    public ResponseEntity<List<BillView>> getBillsByHospital(@PathVariable Long hospitalId, WebRequest request) {
         log.info("Request received to get bills for hospital ID: {}", hospitalId);
-        List<Bill> bills = billService.getBillsByHospital(hospitalId);
-        return ResponseEntity.ok(bills);
+        return ConditionalGet.respond(request,
+            () -> billService.getBillsByHospitalVersion(hospitalId),
+            () -> billService.getBillsByHospital(hospitalId));
     }
 
     @GetMapping("/hospital/{hospitalId}/pending")
     @Operation(summary = "Get pending bills for a hospital")
-    public ResponseEntity<List<Bill>> getPendingBills(@PathVariable Long hospitalId) {
+    public ResponseEntity<List<BillView>> getPendingBills(@PathVariable Long hospitalId, WebRequest request) {
         log.info("Request received to get pending bills for hospital ID: {}", hospitalId);
-        List<Bill> bills = billService.getPendingBills(hospitalId);
-        return ResponseEntity.ok(bills);
+        return ConditionalGet.respond(request,
+            () -> billService.getPendingBillsVersion(hospitalId),
+            () -> billService.getPendingBills(hospitalId));
     }
 
     @GetMapping("/overdue")
     @Operation(summary = "Get all overdue bills")
-    public ResponseEntity<List<Bill>> getOverdueBills() {
+    public ResponseEntity<List<BillView>> getOverdueBills() {
         log.info("Request received to get overdue bills");
-        List<Bill> bills = billService.getOverdueBills();
+        List<BillView> bills = billService.getOverdueBills();
         return ResponseEntity.ok(bills);
     }
 
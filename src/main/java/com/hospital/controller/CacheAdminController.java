@@ -0,0 +1,29 @@
+package com.hospital.controller;
+
+import com.hospital.dto.CacheRegionStatsDTO;
+import com.hospital.service.ReferenceDataCacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@Tag(name = "Cache Administration", description = "APIs for inspecting the reference data cache")
+public class CacheAdminController {
+    private final ReferenceDataCacheService referenceDataCacheService;
+
+    public CacheAdminController(ReferenceDataCacheService referenceDataCacheService) {
+        this.referenceDataCacheService = referenceDataCacheService;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get hit ratios for each second-level cache region")
+    public ResponseEntity<List<CacheRegionStatsDTO>> getStats() {
+        return ResponseEntity.ok(referenceDataCacheService.getRegionStats());
+    }
+}
@@ -0,0 +1,52 @@
+package com.hospital.controller;
+
+import com.hospital.dto.ChangeBatchDTO;
+import com.hospital.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Change Feed", description = "APIs for following appointment, bill and medical record changes")
+@Log4j2
+public class ChangeFeedController {
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get changes after an offset, waiting up to waitMs for the first one")
+    public DeferredResult<ChangeBatchDTO> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "0") long waitMs,
+            @RequestParam(required = false) Set<String> types,
+            @RequestParam(required = false) Long hospitalId) {
+        return changeFeedService.poll(after, limit, waitMs, new ChangeFeedService.Filter(types, hospitalId));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream changes after an offset as server-sent events; reconnects resume from Last-Event-ID")
+    public SseEmitter streamChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(required = false) Set<String> types,
+            @RequestParam(required = false) Long hospitalId) {
+        log.info("Change stream opened after offset {}", lastEventId != null ? lastEventId : after);
+        return changeFeedService.stream(lastEventId != null ? lastEventId : after,
+            new ChangeFeedService.Filter(types, hospitalId));
+    }
+}
@@ -0,0 +1,40 @@
+package com.hospital.controller;
+
+import com.hospital.dto.ResourceVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for read endpoints backed by a {@link ResourceVersion} projection.
+ * <p>
+ * The validator query runs first; when the client's {@code If-None-Match} or {@code If-Modified-Since}
+ * still matches, the response is a bodiless 304 and the entity graph is never loaded. The ETag is weak
+ * because it vouches for the rows, not for byte-identical JSON.
+ */
+final class ConditionalGet {
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, Supplier<ResourceVersion> validator, Supplier<T> body) {
+        // Read the validator before the body: if a write lands in between, the client holds newer data
+        // under an older tag and simply refetches on its next poll
+        ResourceVersion version = validator.get();
+        long lastModified = version.lastModified() == null ? -1
+            : version.lastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String etag = "W/\"" + version.count() + "-" + Math.max(lastModified, 0) + "\"";
+
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache());
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        return response.body(body.get());
+    }
+}
@@ -0,0 +1,34 @@
+package com.hospital.controller;
+
+import com.hospital.entity.DeletionJob;
+import com.hospital.service.DeletionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/deletion-jobs")
+@Tag(name = "Deletion Jobs", description = "APIs for tracking background deletion of hospitals, departments and patients")
+@Log4j2
+public class DeletionJobController {
+    private final DeletionService deletionService;
+
+    public DeletionJobController(DeletionService deletionService) {
+        this.deletionService = deletionService;
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get deletion job progress")
+    public ResponseEntity<DeletionJob> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(deletionService.getJob(id));
+    }
+
+    @PostMapping("/{id}/retry")
+    @Operation(summary = "Resume a failed deletion job from its last completed batch")
+    public ResponseEntity<DeletionJob> retryJob(@PathVariable Long id) {
+        log.info("Request received to retry deletion job ID: {}", id);
+        return ResponseEntity.ok(deletionService.retryJob(id));
+    }
+}
@@ -1,12 +1,14 @@
 package com.hospital.controller;
 
 import com.hospital.dto.DepartmentDTO;
+import com.hospital.entity.DeletionJob;
 import com.hospital.entity.Department;
 import com.hospital.service.DepartmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -77,9 +79,8 @@ public class DepartmentController {
 
     @DeleteMapping("/departments/{id}")
     @Operation(summary = "Delete department")
-    public ResponseEntity<Void> deleteDepartment(@PathVariable Long id) {
+    public ResponseEntity<DeletionJob> deleteDepartment(@PathVariable Long id) {
         log.info("Request received to delete department with ID: {}", id);
-        departmentService.deleteDepartment(id);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(departmentService.deleteDepartment(id));
     }
 }
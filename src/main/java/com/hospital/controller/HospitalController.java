@@ -1,27 +1,39 @@
 package com.hospital.controller;
 
+import com.hospital.config.ShardRoute;
+import com.hospital.config.SqlBudget;
+import com.hospital.entity.DeletionJob;
 import com.hospital.entity.Hospital;
 import com.hospital.service.HospitalService;
+import com.hospital.service.HospitalStructureService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/hospitals")
+@ShardRoute(hospitalVariable = "id")
 @Tag(name = "Hospital Management", description = "APIs for managing hospitals")
 @Log4j2
 public class HospitalController {
     private final HospitalService hospitalService;
+    private final HospitalStructureService hospitalStructureService;
 
-    public HospitalController(HospitalService hospitalService) {
+    public HospitalController(HospitalService hospitalService, HospitalStructureService hospitalStructureService) {
         this.hospitalService = hospitalService;
+        this.hospitalStructureService = hospitalStructureService;
     }
 
     @PostMapping
+    @ShardRoute(newHospital = true)
     @Operation(summary = "Create a new hospital")
     public ResponseEntity<Hospital> createHospital(@RequestBody Hospital hospital) {
         log.info("Request received to create new hospital");
@@ -42,6 +54,25 @@ public class HospitalController {
         return ResponseEntity.ok(hospitalService.getAllHospitals());
     }
 
+    @GetMapping("/{id}/structure")
+    @Operation(summary = "Get the hospital's blocks, departments and doctors as one tree",
+               description = "Send the returned ETag in If-None-Match to get 304 Not Modified until the structure changes")
+    @SqlBudget(statements = 5)
+    public ResponseEntity<byte[]> getHospitalStructure(@PathVariable Long id, WebRequest request) {
+        log.info("Request received to fetch structure of hospital with ID: {}", id);
+        HospitalStructureService.Snapshot snapshot = hospitalStructureService.getSnapshot(id);
+        // Clients must revalidate, but a matching ETag costs no body
+        CacheControl cacheControl = CacheControl.noCache();
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag())
+            .cacheControl(cacheControl)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(snapshot.body());
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update hospital information")
     public ResponseEntity<Hospital> updateHospital(
@@ -53,9 +84,8 @@ public class HospitalController {
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete hospital")
-    public ResponseEntity<Void> deleteHospital(@PathVariable Long id) {
+    public ResponseEntity<DeletionJob> deleteHospital(@PathVariable Long id) {
         log.info("Request received to delete hospital with ID: {}", id);
-        hospitalService.deleteHospital(id);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(hospitalService.deleteHospital(id));
     }
 }
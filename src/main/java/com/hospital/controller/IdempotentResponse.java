@@ -0,0 +1,23 @@
+package com.hospital.controller;
+
+import com.hospital.service.IdempotencyService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Responses for create endpoints that accept an {@value IdempotencyService#HEADER}. A repeated key gets the
+ * same status as the first request, with {@value IdempotencyService#REPLAYED_HEADER} set so clients and logs
+ * can tell the two apart.
+ */
+final class IdempotentResponse {
+    private IdempotentResponse() {
+    }
+
+    static <T> ResponseEntity<T> of(HttpStatus status, IdempotencyService.Outcome<T> outcome) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (outcome.replayed()) {
+            response.header(IdempotencyService.REPLAYED_HEADER, "true");
+        }
+        return response.body(outcome.body());
+    }
+}
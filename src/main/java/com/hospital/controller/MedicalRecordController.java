@@ -1,5 +1,6 @@
 package com.hospital.controller;
 
+import com.hospital.dto.AllergyCheckDTO;
 import com.hospital.dto.MedicalRecordDTO;
 import com.hospital.entity.MedicalRecord;
 import com.hospital.service.MedicalRecordService;
@@ -77,6 +78,31 @@ public class MedicalRecordController {
         return ResponseEntity.ok(medicalRecordService.getPatientMedicalHistoryByType(patientId, recordType));
     }
 
+    @GetMapping("/patient/{patientId}/allergies")
+    @Operation(summary = "Get the normalized set of allergies recorded for a patient")
+    public ResponseEntity<List<String>> getPatientAllergies(@PathVariable Long patientId) {
+        log.debug("Request received to fetch allergies for patient ID: {}", patientId);
+        return ResponseEntity.ok(medicalRecordService.getPatientAllergies(patientId));
+    }
+
+    @GetMapping("/patient/{patientId}/allergies/check")
+    @Operation(summary = "Check whether a patient has any recorded allergy to an allergen")
+    public ResponseEntity<AllergyCheckDTO> checkAllergy(
+            @PathVariable Long patientId,
+            @RequestParam String allergen) {
+        log.debug("Request received to check allergy to {} for patient ID: {}", allergen, patientId);
+        return ResponseEntity.ok(new AllergyCheckDTO(patientId, allergen, medicalRecordService.hasAllergy(patientId, allergen)));
+    }
+
+    @GetMapping("/hospital/{hospitalId}/allergies/patients")
+    @Operation(summary = "Get IDs of all patients in a hospital with a recorded allergy to an allergen")
+    public ResponseEntity<List<Long>> getPatientsAllergicTo(
+            @PathVariable Long hospitalId,
+            @RequestParam String allergen) {
+        log.info("Request received to fetch patients allergic to {} in hospital ID: {}", allergen, hospitalId);
+        return ResponseEntity.ok(medicalRecordService.getPatientsAllergicTo(hospitalId, allergen));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Update an existing medical record")
     public ResponseEntity<MedicalRecord> updateMedicalRecord(
@@ -1,14 +1,27 @@
 package com.hospital.controller;
 
 import com.hospital.dto.PatientDTO;
+import com.hospital.dto.PatientImportJobDTO;
+import com.hospital.dto.PatientSearchResultDTO;
+import com.hospital.dto.PatientTimelineDTO;
+import com.hospital.dto.PatientView;
+import com.hospital.entity.DeletionJob;
 import com.hospital.entity.Patient;
+import com.hospital.service.PatientImportService;
 import com.hospital.service.PatientService;
+import com.hospital.service.PatientTimelineService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,9 +30,14 @@ import java.util.List;
 @Log4j2
 public class PatientController {
     private final PatientService patientService;
+    private final PatientTimelineService patientTimelineService;
+    private final PatientImportService patientImportService;
 
-    public PatientController(PatientService patientService) {
+    public PatientController(PatientService patientService, PatientTimelineService patientTimelineService,
+                             PatientImportService patientImportService) {
         this.patientService = patientService;
+        this.patientTimelineService = patientTimelineService;
+        this.patientImportService = patientImportService;
     }
 
     @PostMapping
@@ -29,23 +47,60 @@ public class PatientController {
         return ResponseEntity.ok(patientService.createPatient(patientDTO));
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/json"})
+    @Operation(summary = "Bulk import patients into a hospital from a CSV or NDJSON upload")
+    public ResponseEntity<PatientImportJobDTO> importPatients(
+            @RequestParam Long hospitalId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        log.info("Request received to import patients into hospital ID: {}", hospitalId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(patientImportService.submit(hospitalId, contentType, body));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @Operation(summary = "Get progress and errors of a bulk patient import")
+    public ResponseEntity<PatientImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(patientImportService.getJob(jobId));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Type-ahead search over patient name, phone and email")
+    public ResponseEntity<List<PatientSearchResultDTO>> searchPatients(
+            @RequestParam String q,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(patientService.searchPatients(hospitalId, q, limit));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get patient by ID")
-    public ResponseEntity<Patient> getPatient(@PathVariable Long id) {
+    public ResponseEntity<PatientView> getPatient(@PathVariable Long id) {
         log.info("Request received to fetch patient with ID: {}", id);
-        return ResponseEntity.ok(patientService.getPatient(id));
+        return ResponseEntity.ok(patientService.getPatientView(id));
+    }
+
+    @GetMapping("/{id}/timeline")
+    @Operation(summary = "Get a patient's appointments, medical records and bills as one time-ordered page")
+    public ResponseEntity<PatientTimelineDTO> getPatientTimeline(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Request received to fetch timeline for patient ID: {}", id);
+        return ResponseEntity.ok(patientTimelineService.getTimeline(id, from, to, page, size));
     }
 
     @GetMapping("/hospital/{hospitalId}")
     @Operation(summary = "Get all patients in a hospital")
-    public ResponseEntity<List<Patient>> getHospitalPatients(@PathVariable Long hospitalId) {
+    public ResponseEntity<List<PatientView>> getHospitalPatients(@PathVariable Long hospitalId) {
         log.info("Request received to fetch all patients for hospital ID: {}", hospitalId);
         return ResponseEntity.ok(patientService.getHospitalPatients(hospitalId));
     }
 
     @GetMapping
     @Operation(summary = "Get all patients")
-    public ResponseEntity<List<Patient>> getAllPatients() {
+    public ResponseEntity<List<PatientView>> getAllPatients() {
         log.info("Request received to fetch all patients");
         return ResponseEntity.ok(patientService.getAllPatients());
     }
@@ -61,9 +116,8 @@ public class PatientController {
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a patient")
-    public ResponseEntity<Void> deletePatient(@PathVariable Long id) {
+    public ResponseEntity<DeletionJob> deletePatient(@PathVariable Long id) {
         log.info("Request received to delete patient with ID: {}", id);
-        patientService.deletePatient(id);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(patientService.deletePatient(id));
     }
 }
@@ -0,0 +1,34 @@
+package com.hospital.controller;
+
+import com.hospital.service.QueueBoardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/queue-board")
+@Tag(name = "Queue Board", description = "Live appointment queues for doctor and department screens")
+public class QueueBoardController {
+    private final QueueBoardService queueBoardService;
+
+    public QueueBoardController(QueueBoardService queueBoardService) {
+        this.queueBoardService = queueBoardService;
+    }
+
+    @GetMapping(path = "/doctors/{doctorId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream a doctor's queue for today: a snapshot event, then a delta event per change")
+    public SseEmitter watchDoctor(@PathVariable Long doctorId) {
+        return queueBoardService.watch(QueueBoardService.DOCTOR, doctorId);
+    }
+
+    @GetMapping(path = "/departments/{departmentId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream a department's queue for today: a snapshot event, then a delta event per change")
+    public SseEmitter watchDepartment(@PathVariable Long departmentId) {
+        return queueBoardService.watch(QueueBoardService.DEPARTMENT, departmentId);
+    }
+}
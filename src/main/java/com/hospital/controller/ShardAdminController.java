@@ -0,0 +1,49 @@
+package com.hospital.controller;
+
+import com.hospital.config.ShardDirectory;
+import com.hospital.dto.ShardMapDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@Tag(name = "Shard Administration", description = "APIs for inspecting and changing the hospital shard map")
+@Log4j2
+public class ShardAdminController {
+    private final ShardDirectory shardDirectory;
+
+    public ShardAdminController(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get the shards and the hospitals moved between them")
+    public ResponseEntity<ShardMapDTO> getShardMap() {
+        return ResponseEntity.ok(shardMap());
+    }
+
+    @PutMapping("/hospitals/{hospitalId}")
+    @Operation(summary = "Route a hospital to another shard once its rows have been copied there")
+    public ResponseEntity<ShardMapDTO> assignHospital(@PathVariable Long hospitalId, @RequestParam String shard) {
+        log.info("Request received to move hospital ID: {} to shard '{}'", hospitalId, shard);
+        shardDirectory.assign(hospitalId, shard);
+        return ResponseEntity.ok(shardMap());
+    }
+
+    private ShardMapDTO shardMap() {
+        return new ShardMapDTO(shardDirectory.isEnabled(), shardDirectory.defaultShard(),
+            shardDirectory.newHospitalShard(),
+            shardDirectory.shards().stream()
+                .map(shard -> new ShardMapDTO.ShardRef(shard, shardDirectory.idBlock(shard)))
+                .toList(),
+            shardDirectory.movedHospitals());
+    }
+}
@@ -0,0 +1,67 @@
+package com.hospital.controller;
+
+import com.hospital.dto.WaitlistRequestDTO;
+import com.hospital.entity.WaitlistEntry;
+import com.hospital.service.WaitlistService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@Tag(name = "Waitlist", description = "APIs for waitlisting patients for cancelled slots")
+@Log4j2
+public class WaitlistController {
+    private final WaitlistService waitlistService;
+
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Put a patient on a doctor's waitlist")
+    public ResponseEntity<WaitlistEntry> joinWaitlist(@Valid @RequestBody WaitlistRequestDTO request) {
+        log.info("Request received to waitlist patient ID: {} for doctor ID: {}", request.getPatientId(), request.getDoctorId());
+        return ResponseEntity.ok(waitlistService.join(request));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a waitlist entry, including any open offer")
+    public ResponseEntity<WaitlistEntry> getEntry(@PathVariable Long id) {
+        return ResponseEntity.ok(waitlistService.getEntry(id));
+    }
+
+    @GetMapping("/doctor/{doctorId}")
+    @Operation(summary = "Get a doctor's waitlist in the order slots are offered")
+    public ResponseEntity<List<WaitlistEntry>> getDoctorWaitlist(@PathVariable Long doctorId) {
+        log.info("Request received to fetch the waitlist of doctor ID: {}", doctorId);
+        return ResponseEntity.ok(waitlistService.getDoctorWaitlist(doctorId));
+    }
+
+    @PostMapping("/{id}/accept")
+    @Operation(summary = "Accept the offered slot, booking the appointment")
+    public ResponseEntity<WaitlistEntry> acceptOffer(@PathVariable Long id) {
+        log.info("Request received to accept the offer of waitlist entry ID: {}", id);
+        return ResponseEntity.ok(waitlistService.acceptOffer(id));
+    }
+
+    @PostMapping("/{id}/decline")
+    @Operation(summary = "Decline the offered slot and keep waiting")
+    public ResponseEntity<WaitlistEntry> declineOffer(@PathVariable Long id) {
+        log.info("Request received to decline the offer of waitlist entry ID: {}", id);
+        return ResponseEntity.ok(waitlistService.declineOffer(id));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Take a patient off the waitlist")
+    public ResponseEntity<Void> removeEntry(@PathVariable Long id) {
+        log.info("Request received to remove waitlist entry ID: {}", id);
+        waitlistService.removeEntry(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllergyCheckDTO {
+    private Long patientId;
+    private String allergen;
+    private boolean allergic;
+}
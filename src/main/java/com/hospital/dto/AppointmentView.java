@@ -0,0 +1,32 @@
+package com.hospital.dto;
+
+import com.hospital.entity.Appointment.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for appointment endpoints. Built by a single JPQL constructor expression over the
+ * appointment, doctor and patient columns, so serializing it never touches a Hibernate proxy.
+ */
+public record AppointmentView(Long id, LocalDateTime appointmentTime, AppointmentStatus status,
+                              DoctorRef doctor, PatientRef patient,
+                              LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    // Flat form used by the repository queries
+    public AppointmentView(Long id, LocalDateTime appointmentTime, AppointmentStatus status,
+                           Long doctorId, String doctorName, String doctorSpecialization,
+                           Long patientId, String patientFirstName, String patientLastName,
+                           String patientEmail, String patientPhone,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, appointmentTime, status,
+             new DoctorRef(doctorId, doctorName, doctorSpecialization),
+             new PatientRef(patientId, patientFirstName, patientLastName, patientEmail, patientPhone),
+             createdAt, updatedAt);
+    }
+
+    public record DoctorRef(Long id, String name, String specialization) {
+    }
+
+    public record PatientRef(Long id, String firstName, String lastName, String email, String phone) {
+    }
+}
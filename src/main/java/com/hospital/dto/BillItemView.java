@@ -0,0 +1,16 @@
+package com.hospital.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hospital.entity.BillItem.ServiceType;
+
+import java.math.BigDecimal;
+
+/**
+ * Read model for a bill line; {@code billId} only groups rows fetched for several bills at once.
+ */
+public record BillItemView(@JsonIgnore Long billId, Long id, ServiceType serviceType, String serviceName,
+                           String description, Integer quantity, BigDecimal unitPrice,
+                           BigDecimal discountPercentage, BigDecimal discountAmount,
+                           BigDecimal taxPercentage, BigDecimal taxAmount, BigDecimal totalAmount,
+                           Long appointmentId, Long medicalRecordId, Long labTestId, Long pharmacyItemId) {
+}
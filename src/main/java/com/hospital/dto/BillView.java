@@ -0,0 +1,45 @@
+package com.hospital.dto;
+
+import com.hospital.entity.Bill.BillStatus;
+import com.hospital.entity.Bill.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model for bill endpoints. The header comes from one constructor-expression query and the lines
+ * from one more query for all bills in the response; see {@link #withBillItems}.
+ */
+public record BillView(Long id, String billNumber, Long patientId, String patientName, Long hospitalId,
+                       LocalDateTime billDate, LocalDateTime dueDate, BillStatus status,
+                       BigDecimal subTotal, BigDecimal taxAmount, BigDecimal discountAmount,
+                       BigDecimal totalAmount, BigDecimal paidAmount, BigDecimal balanceAmount,
+                       PaymentMethod paymentMethod, String paymentReference, String notes,
+                       LocalDateTime createdAt, LocalDateTime updatedAt, List<BillItemView> billItems) {
+
+    // Header-only form used by the repository queries
+    public BillView(Long id, String billNumber, Long patientId, String patientFirstName, String patientLastName,
+                    Long hospitalId, LocalDateTime billDate, LocalDateTime dueDate, BillStatus status,
+                    BigDecimal subTotal, BigDecimal taxAmount, BigDecimal discountAmount,
+                    BigDecimal totalAmount, BigDecimal paidAmount, BigDecimal balanceAmount,
+                    PaymentMethod paymentMethod, String paymentReference, String notes,
+                    LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, billNumber, patientId, fullName(patientFirstName, patientLastName), hospitalId,
+             billDate, dueDate, status, subTotal, taxAmount, discountAmount, totalAmount, paidAmount,
+             balanceAmount, paymentMethod, paymentReference, notes, createdAt, updatedAt, List.of());
+    }
+
+    public BillView withBillItems(List<BillItemView> items) {
+        return new BillView(id, billNumber, patientId, patientName, hospitalId, billDate, dueDate, status,
+            subTotal, taxAmount, discountAmount, totalAmount, paidAmount, balanceAmount, paymentMethod,
+            paymentReference, notes, createdAt, updatedAt, List.copyOf(items));
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        if (firstName == null) {
+            return lastName;
+        }
+        return lastName == null ? firstName : firstName + " " + lastName;
+    }
+}
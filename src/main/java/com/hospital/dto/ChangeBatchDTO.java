@@ -0,0 +1,10 @@
+package com.hospital.dto;
+
+import java.util.List;
+
+/**
+ * A page of the change feed. {@code nextOffset} is the {@code after} for the next call; it moves past
+ * changes the filter skipped, so it can advance even when {@code events} is empty.
+ */
+public record ChangeBatchDTO(List<ChangeEventDTO> events, long nextOffset) {
+}
@@ -0,0 +1,14 @@
+package com.hospital.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed change from the outbox. {@code offset} is the position to resume after; {@code payload} is
+ * the compact JSON the writer recorded, enough to decide whether to fetch the entity.
+ */
+public record ChangeEventDTO(long offset, String entityType, Long entityId, String changeType,
+                             Long hospitalId, Long patientId, @JsonRawValue String payload,
+                             LocalDateTime occurredAt) {
+}
@@ -0,0 +1,47 @@
+package com.hospital.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class HospitalStructureDTO {
+    private Long id;
+    private String name;
+    private String address;
+    private String phoneNumber;
+    private String email;
+
+    // Structure version this snapshot was built at; also the basis of its ETag
+    private long version;
+
+    private List<BlockNode> blocks = new ArrayList<>();
+    private List<DepartmentNode> unassignedDepartments = new ArrayList<>();
+    private List<DoctorNode> unassignedDoctors = new ArrayList<>();
+
+    @Data
+    public static class BlockNode {
+        private Long id;
+        private String name;
+        private String description;
+        private Integer floorNumber;
+        private List<DepartmentNode> departments = new ArrayList<>();
+    }
+
+    @Data
+    public static class DepartmentNode {
+        private Long id;
+        private String name;
+        private String description;
+        private List<DoctorNode> doctors = new ArrayList<>();
+    }
+
+    @Data
+    public static class DoctorNode {
+        private Long id;
+        private String name;
+        private String specialization;
+        private String email;
+    }
+}
@@ -0,0 +1,7 @@
+package com.hospital.dto;
+
+/**
+ * Flat projection of one allergy string recorded for a patient, used to build the allergy index.
+ */
+public record PatientAllergyRow(Long patientId, Long hospitalId, String allergy) {
+}
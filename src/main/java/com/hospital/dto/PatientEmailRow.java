@@ -0,0 +1,7 @@
+package com.hospital.dto;
+
+/**
+ * Existing (id, email) pair used to split an import chunk into inserts and updates.
+ */
+public record PatientEmailRow(Long id, String email) {
+}
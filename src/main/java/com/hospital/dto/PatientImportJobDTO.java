@@ -0,0 +1,28 @@
+package com.hospital.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class PatientImportJobDTO {
+    private String jobId;
+    private Long hospitalId;
+    private String format;
+    private ImportStatus status;
+    private long rowsRead;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private double rowsPerSecond;
+    private List<String> errors;
+    private boolean errorsTruncated;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public enum ImportStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,7 @@
+package com.hospital.dto;
+
+/**
+ * Flat projection of a patient's phone number, used to backfill and index normalized phones.
+ */
+public record PatientPhoneRow(Long id, Long hospitalId, String phone) {
+}
@@ -0,0 +1,17 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchResultDTO {
+    private Long id;
+    private Long hospitalId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+}
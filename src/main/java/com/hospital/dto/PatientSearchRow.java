@@ -0,0 +1,7 @@
+package com.hospital.dto;
+
+/**
+ * Flat projection of the patient fields covered by type-ahead search.
+ */
+public record PatientSearchRow(Long id, Long hospitalId, String firstName, String lastName, String email, String phone) {
+}
@@ -0,0 +1,33 @@
+package com.hospital.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class PatientTimelineDTO {
+    private PatientSummary patient;
+    private List<TimelineEntryDTO> entries = new ArrayList<>();
+    private int page;
+    private int size;
+    private boolean hasMore;
+
+    // True when at least one source did not answer within the latency budget
+    private boolean partial;
+    private List<String> unavailableSources = new ArrayList<>();
+
+    @Data
+    public static class PatientSummary {
+        private Long id;
+        private String firstName;
+        private String lastName;
+        private String email;
+        private String phone;
+        private LocalDate dateOfBirth;
+        private String gender;
+        private String bloodGroup;
+        private Long hospitalId;
+    }
+}
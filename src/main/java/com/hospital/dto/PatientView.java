@@ -0,0 +1,13 @@
+package com.hospital.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read model for patient endpoints: the patient's own columns only. Appointments and bills have
+ * their own endpoints and are no longer embedded.
+ */
+public record PatientView(Long id, Long hospitalId, String firstName, String lastName, String email, String phone,
+                          LocalDate dateOfBirth, String address, String gender, String bloodGroup,
+                          LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -0,0 +1,22 @@
+package com.hospital.dto;
+
+import com.hospital.entity.Appointment.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A queue board snapshot: a doctor's or department's appointments for the day, in time order, as of
+ * {@code version}. Cancelled appointments are left out.
+ */
+public record QueueBoardDTO(String board, Long id, LocalDate date, long version, List<Entry> entries) {
+
+    public record Entry(Long appointmentId, LocalDateTime appointmentTime, AppointmentStatus status,
+                        Long doctorId, String doctorName, String patientName) {
+
+        public Entry with(LocalDateTime appointmentTime, AppointmentStatus status) {
+            return new Entry(appointmentId, appointmentTime, status, doctorId, doctorName, patientName);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.hospital.dto;
+
+/**
+ * One change to a queue board: the appointment's new entry, or a null entry when it left the day's queue
+ * (cancelled or rescheduled to another day). Applies on top of the snapshot or delta with the previous version.
+ */
+public record QueueBoardDeltaDTO(long version, Long appointmentId, QueueBoardDTO.Entry entry) {
+}
@@ -0,0 +1,12 @@
+package com.hospital.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap validator for a collection (or a single entity, with a count of at most one): row count plus the
+ * newest {@code updatedAt} among the rows and the rows their responses embed, such as an appointment's
+ * doctor and patient. An insert or update moves the timestamp and a delete moves the count, so the pair
+ * changes whenever the rows behind a response do.
+ */
+public record ResourceVersion(Long count, LocalDateTime lastModified) {
+}
@@ -0,0 +1,14 @@
+package com.hospital.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shard map as this node currently routes by it.
+ */
+public record ShardMapDTO(boolean enabled, String defaultShard, String newHospitalShard,
+                          List<ShardRef> shards, Map<Long, String> movedHospitals) {
+
+    public record ShardRef(String name, long idBlock) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.hospital.dto;
+
+/**
+ * Flat projection of a block for the hospital structure snapshot.
+ */
+public record StructureBlockRow(Long id, String name, String description, Integer floorNumber) {
+}
@@ -0,0 +1,8 @@
+package com.hospital.dto;
+
+/**
+ * Flat projection of a department for the hospital structure snapshot; {@code blockId} is null when
+ * the department is not housed in a block.
+ */
+public record StructureDepartmentRow(Long id, String name, String description, Long blockId) {
+}
@@ -0,0 +1,8 @@
+package com.hospital.dto;
+
+/**
+ * Flat projection of a doctor for the hospital structure snapshot; {@code departmentId} is null when
+ * the doctor is not assigned to a department.
+ */
+public record StructureDoctorRow(Long id, String name, String specialization, String email, Long departmentId) {
+}
@@ -0,0 +1,27 @@
+package com.hospital.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntryDTO {
+    private EntryType type;
+    private Long id;
+    private LocalDateTime occurredAt;
+    private String title;
+    private String status;
+    private String doctorName;
+    private BigDecimal amount;
+
+    public enum EntryType {
+        APPOINTMENT,
+        MEDICAL_RECORD,
+        BILL
+    }
+}
@@ -0,0 +1,23 @@
+package com.hospital.dto;
+
+import com.hospital.entity.WaitlistEntry.Urgency;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class WaitlistRequestDTO {
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+
+    @NotNull(message = "Patient ID is required")
+    private Long patientId;
+
+    private Urgency urgency;
+
+    // Optional bounds on the slots the patient can take
+    private LocalDateTime earliestTime;
+
+    private LocalDateTime latestTime;
+}
@@ -0,0 +1,30 @@
+package com.hospital.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Monotonic version per change scope (e.g. {@code hospital}), bumped in the same transaction as the
+ * write it describes. Replicas poll this table to learn what other nodes changed.
+ */
+@Entity
+@Table(name = "change_version")
+@Getter
+@Setter
+public class ChangeVersion {
+    @Id
+    @Column(length = 100)
+    private String scope;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
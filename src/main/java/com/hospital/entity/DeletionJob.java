@@ -0,0 +1,79 @@
+package com.hospital.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background purge of a soft-deleted hospital, department or patient. Progress is stored per
+ * step so a job resumes where it stopped after a failure or restart.
+ */
+@Entity
+@Table(name = "deletion_job", indexes = @Index(name = "idx_deletion_job_status", columnList = "status, lease_until"))
+@Getter
+@Setter
+public class DeletionJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TargetType targetType;
+
+    @Column(nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private DeletionStatus status = DeletionStatus.PENDING;
+
+    // Index into the target type's purge plan; steps before it are finished
+    private int stepIndex;
+
+    private String currentStep;
+
+    private long rowsDeleted;
+
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @JsonIgnore
+    private String leaseOwner;
+
+    @JsonIgnore
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum TargetType {
+        HOSPITAL, DEPARTMENT, PATIENT
+    }
+
+    public enum DeletionStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.*;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -14,6 +17,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "department")
+@Where(clause = "deleted_at IS NULL")
 @Getter
 @Setter
 @EntityListeners(AuditingEntityListener.class)
@@ -54,6 +60,10 @@ public class Department implements Serializable {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Set when deletion is requested; the row is hidden from queries and purged by the deletion engine
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -5,6 +5,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,6 +19,9 @@ import java.util.Objects;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "hospital")
+@Where(clause = "deleted_at IS NULL")
 @Getter
 @Setter
 @EntityListeners(AuditingEntityListener.class)
@@ -59,6 +65,10 @@ public class Hospital implements Serializable {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Set when deletion is requested; the row is hidden from queries and purged by the deletion engine
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
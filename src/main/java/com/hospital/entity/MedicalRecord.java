@@ -42,6 +42,7 @@ public class MedicalRecord {
     @Column(columnDefinition = "TEXT")
     private String notes;
 
+    // Lazy; MedicalRecordService fetch-joins both collections for the records it returns
     @ElementCollection
     @CollectionTable(name = "medical_record_allergies")
     private List<String> allergies = new ArrayList<>();
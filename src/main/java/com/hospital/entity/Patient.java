@@ -1,10 +1,12 @@
 package com.hospital.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.Where;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -15,6 +17,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Where(clause = "deleted_at IS NULL")
+@Table(indexes = @Index(name = "idx_patient_hospital_phone", columnList = "hospital_id, phone_normalized"))
 @Data
 @EntityListeners(AuditingEntityListener.class)
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -27,6 +31,11 @@ public class Patient {
     private String lastName;
     private String email;
     private String phone;
+
+    // E.164 form of phone (e.g. +919876543210), used as the lookup key for walk-in bookings
+    @Column(name = "phone_normalized", length = 16)
+    private String phoneNormalized;
+
     private LocalDate dateOfBirth;
     private String address;
     private String gender;
@@ -51,6 +60,10 @@ public class Patient {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    // Set when deletion is requested; the row is hidden from queries and purged by the deletion engine
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
     @CreatedBy
     private String createdBy;
 
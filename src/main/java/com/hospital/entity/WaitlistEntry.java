@@ -0,0 +1,83 @@
+package com.hospital.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A patient waiting for an earlier slot with a doctor. Entries are matched by urgency, then by how long they
+ * have waited; {@code earliestTime} and {@code latestTime} optionally bound the slots the patient can take.
+ * {@code offeredTime} stays set after an offer lapses, so the same slot is not offered to them again.
+ */
+@Entity
+@Table(name = "waitlist_entry")
+@Getter
+@Setter
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long doctorId;
+
+    @Column(nullable = false)
+    private Long patientId;
+
+    @Column(nullable = false)
+    private Long hospitalId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Urgency urgency = Urgency.ROUTINE;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+
+    private LocalDateTime earliestTime;
+
+    private LocalDateTime latestTime;
+
+    @Column(nullable = false)
+    private LocalDateTime requestedAt;
+
+    private LocalDateTime offeredTime;
+
+    private LocalDateTime offerExpiresAt;
+
+    private int offerCount;
+
+    private Long appointmentId;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (requestedAt == null) {
+            requestedAt = createdAt;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Declared from least to most urgent
+    public enum Urgency {
+        ROUTINE, SOON, URGENT
+    }
+
+    public enum WaitlistStatus {
+        WAITING, OFFERED, BOOKED, REMOVED
+    }
+}
@@ -0,0 +1,9 @@
+package com.hospital.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@code AppointmentService} when an appointment is cancelled, freeing the doctor's slot.
+ */
+public record AppointmentCancelledEvent(Long appointmentId, Long doctorId, Long hospitalId, LocalDateTime appointmentTime) {
+}
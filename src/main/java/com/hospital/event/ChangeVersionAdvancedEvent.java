@@ -0,0 +1,8 @@
+package com.hospital.event;
+
+/**
+ * Published on every node when a change scope's version moves forward, whether the write
+ * happened locally (after commit) or on another replica (seen by polling).
+ */
+public record ChangeVersionAdvancedEvent(String scope, long version) {
+}
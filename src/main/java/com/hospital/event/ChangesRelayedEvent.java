@@ -0,0 +1,12 @@
+package com.hospital.event;
+
+import com.hospital.dto.ChangeEventDTO;
+
+import java.util.List;
+
+/**
+ * Published on every node for each batch of committed changes the change feed relays, on the relay thread
+ * with the batch's shard set. Listeners hold up the relay, so they should be quick and must not throw.
+ */
+public record ChangesRelayedEvent(String shard, List<ChangeEventDTO> changes) {
+}
@@ -0,0 +1,8 @@
+package com.hospital.event;
+
+/**
+ * Published for each doctor removed by a {@code DeletionService} purge or by deleting the doctor or its block,
+ * delivered once the deleting transaction commits.
+ */
+public record DoctorDeletedEvent(Long doctorId) {
+}
@@ -0,0 +1,11 @@
+package com.hospital.event;
+
+import java.util.List;
+
+/**
+ * Published by {@code MedicalRecordService} whenever a record is created or updated.
+ * Carries the patient's complete, current list of recorded allergies so listeners
+ * never have to go back to the database after the transaction commits.
+ */
+public record MedicalRecordSavedEvent(Long recordId, Long patientId, Long hospitalId, List<String> patientAllergies) {
+}
@@ -0,0 +1,21 @@
+package com.hospital.event;
+
+import com.hospital.entity.Patient;
+
+/**
+ * Published whenever a patient is created, updated or deleted. Carries the searchable
+ * fields as committed so listeners never have to reload the patient.
+ */
+public record PatientChangedEvent(Long patientId, Long hospitalId, String firstName, String lastName,
+                                  String email, String phone, boolean deleted) {
+
+    public static PatientChangedEvent saved(Patient patient) {
+        Long hospitalId = patient.getHospital() != null ? patient.getHospital().getId() : null;
+        return new PatientChangedEvent(patient.getId(), hospitalId, patient.getFirstName(), patient.getLastName(),
+                patient.getEmail(), patient.getPhone(), false);
+    }
+
+    public static PatientChangedEvent deleted(Long patientId) {
+        return new PatientChangedEvent(patientId, null, null, null, null, null, true);
+    }
+}
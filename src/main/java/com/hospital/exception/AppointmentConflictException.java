@@ -1,6 +1,6 @@
 package com.hospital.exception;
 
-public class AppointmentConflictException extends RuntimeException {
+public class AppointmentConflictException extends DomainException {
     public AppointmentConflictException(String message) {
         super(message);
     }
@@ -1,6 +1,6 @@
 package com.hospital.exception;
 
-public class AppointmentException extends RuntimeException {
+public class AppointmentException extends DomainException {
     public AppointmentException(String message) {
         super(message);
     }
@@ -0,0 +1,17 @@
+package com.hospital.exception;
+
+/**
+ * Base class for expected domain outcomes (missing resources, conflicts, duplicates).
+ * <p>
+ * These are thrown on ordinary request paths and mapped straight to a 4xx response, so they
+ * skip stack trace capture; the message carries everything the handler needs.
+ */
+public abstract class DomainException extends RuntimeException {
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+
+    protected DomainException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
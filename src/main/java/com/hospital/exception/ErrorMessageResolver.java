@@ -4,12 +4,35 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Component
 public class ErrorMessageResolver {
+    public static final String RESOURCE_NOT_FOUND = "error.resource.notfound";
+    public static final String APPOINTMENT_CONFLICT = "error.appointment.conflict";
+    public static final String DUPLICATE_RESOURCE = "error.duplicate.resource";
+    public static final String VALIDATION = "error.validation";
+    public static final String BAD_REQUEST = "error.badrequest";
+    public static final String ILLEGAL_STATE = "error.illegalstate";
+    public static final String INTERNAL = "error.internal";
+    public static final String EMAIL_SEND = "error.email.send";
+
+    private static final List<String> KNOWN_PREFIXES = List.of(
+        RESOURCE_NOT_FOUND, APPOINTMENT_CONFLICT, DUPLICATE_RESOURCE, VALIDATION,
+        BAD_REQUEST, ILLEGAL_STATE, INTERNAL, EMAIL_SEND
+    );
+
     private final MessageSource messageSource;
+    // error-messages has a single bundle, so details are resolved once rather than per error
+    private final Map<String, ErrorDetail> details = new ConcurrentHashMap<>();
 
     public ErrorMessageResolver(MessageSource messageSource) {
         this.messageSource = messageSource;
+        // Resolving eagerly also fails startup on a missing message key
+        KNOWN_PREFIXES.forEach(prefix -> details.put(prefix, resolveDetail(prefix)));
     }
 
     public String getErrorMessage(String code) {
@@ -17,10 +40,14 @@ public class ErrorMessageResolver {
     }
 
     public ErrorDetail getErrorDetail(String prefix) {
+        return details.computeIfAbsent(prefix, this::resolveDetail);
+    }
+
+    private ErrorDetail resolveDetail(String prefix) {
         return new ErrorDetail(
-            getErrorMessage(prefix + ".code"),
-            getErrorMessage(prefix + ".title"),
-            getErrorMessage(prefix + ".detail")
+            messageSource.getMessage(prefix + ".code", null, Locale.ROOT),
+            messageSource.getMessage(prefix + ".title", null, Locale.ROOT),
+            messageSource.getMessage(prefix + ".detail", null, Locale.ROOT)
         );
     }
 
@@ -21,7 +21,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleResourceNotFoundException(
             ResourceNotFoundException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.resource.notfound");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.RESOURCE_NOT_FOUND);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -29,7 +29,7 @@ public class GlobalExceptionHandler {
                 error.getDetail(),
                 HttpStatus.NOT_FOUND.value()
         );
-        log.error("Resource not found exception: {}", ex.getMessage());
+        log.debug("Resource not found exception: {}", ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
@@ -37,7 +37,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleAppointmentConflictException(
             AppointmentConflictException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.appointment.conflict");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.APPOINTMENT_CONFLICT);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -45,7 +45,7 @@ public class GlobalExceptionHandler {
                 error.getDetail(),
                 HttpStatus.CONFLICT.value()
         );
-        log.error("Appointment conflict: {}", ex.getMessage());
+        log.warn("Appointment conflict: {}", ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
 
@@ -53,7 +53,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleDuplicateResourceException(
             DuplicateResourceException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.duplicate.resource");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.DUPLICATE_RESOURCE);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -61,7 +61,7 @@ public class GlobalExceptionHandler {
                 error.getDetail(),
                 HttpStatus.CONFLICT.value()
         );
-        log.error("Duplicate resource: {}", ex.getMessage());
+        log.warn("Duplicate resource: {}", ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
 
@@ -69,7 +69,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(
             IllegalArgumentException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.badrequest");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.BAD_REQUEST);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -77,7 +77,7 @@ public class GlobalExceptionHandler {
                 error.getDetail(),
                 HttpStatus.BAD_REQUEST.value()
         );
-        log.error("Invalid input: {}", ex.getMessage());
+        log.debug("Invalid input: {}", ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
@@ -85,7 +85,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleIllegalStateException(
             IllegalStateException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.illegalstate");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.ILLEGAL_STATE);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -93,7 +93,7 @@ public class GlobalExceptionHandler {
                 error.getDetail(),
                 HttpStatus.CONFLICT.value()
         );
-        log.error("Invalid operation: {}", ex.getMessage());
+        log.warn("Invalid operation: {}", ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
 
@@ -101,7 +101,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleValidationException(
             MethodArgumentNotValidException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.validation");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.VALIDATION);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -114,7 +114,7 @@ public class GlobalExceptionHandler {
             response.addValidationError(fieldError.getField(), fieldError.getDefaultMessage())
         );
 
-        log.error("Validation error: {}", ex.getMessage());
+        log.debug("Validation error: {}", ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
@@ -122,7 +122,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleEmailException(
             EmailException ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.email.send");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.EMAIL_SEND);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -147,7 +147,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleStackOverflowError(
             StackOverflowError ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.internal");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.INTERNAL);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
@@ -163,7 +163,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleGlobalException(
             Exception ex,
             HttpServletRequest request) {
-        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail("error.internal");
+        ErrorMessageResolver.ErrorDetail error = errorMessageResolver.getErrorDetail(ErrorMessageResolver.INTERNAL);
         ErrorResponse response = ErrorResponse.of(
                 error.getCode(),
                 error.getTitle(),
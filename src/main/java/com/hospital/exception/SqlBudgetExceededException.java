@@ -0,0 +1,11 @@
+package com.hospital.exception;
+
+/**
+ * Thrown when a request runs more SQL statements than its budget while {@code sql.budget.fail-on-exceed}
+ * is set, so integration tests fail at the offending statement.
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,14 +1,71 @@
 package com.hospital.repository;
 
+import com.hospital.dto.AppointmentView;
+import com.hospital.dto.ResourceVersion;
 import com.hospital.entity.Appointment;
 import com.hospital.entity.Doctor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+    String VIEW_SELECT = "SELECT new com.hospital.dto.AppointmentView(a.id, a.appointmentTime, a.status, " +
+                         "d.id, d.name, d.specialization, p.id, p.firstName, p.lastName, p.email, p.phone, " +
+                         "a.createdAt, a.updatedAt) FROM Appointment a JOIN a.doctor d JOIN a.patient p ";
+
     List<Appointment> findByDoctorAndAppointmentTimeBetween(Doctor doctor, LocalDateTime start, LocalDateTime end);
     List<Appointment> findByDoctorIdAndAppointmentTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
+    List<Appointment> findByDoctorIdAndAppointmentTimeBetweenAndStatusNot(Long doctorId, LocalDateTime start,
+                                                                          LocalDateTime end,
+                                                                          Appointment.AppointmentStatus status);
     List<Appointment> findByDoctor(Doctor doctor);
     List<Appointment> findByPatientEmail(String email);
+
+    @Query(VIEW_SELECT + "WHERE a.id = :id")
+    Optional<AppointmentView> findViewById(@Param("id") Long id);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId ORDER BY a.appointmentTime, a.id")
+    List<AppointmentView> findViewsByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query(VIEW_SELECT + "WHERE d.id = :doctorId AND a.appointmentTime >= :start AND a.appointmentTime < :end " +
+           "AND a.status <> :excluded ORDER BY a.appointmentTime, a.id")
+    List<AppointmentView> findQueueViewsByDoctorId(@Param("doctorId") Long doctorId, @Param("start") LocalDateTime start,
+                                                   @Param("end") LocalDateTime end,
+                                                   @Param("excluded") Appointment.AppointmentStatus excluded);
+
+    @Query(VIEW_SELECT + "WHERE d.department.id = :departmentId AND a.appointmentTime >= :start " +
+           "AND a.appointmentTime < :end AND a.status <> :excluded ORDER BY a.appointmentTime, a.id")
+    List<AppointmentView> findQueueViewsByDepartmentId(@Param("departmentId") Long departmentId,
+                                                       @Param("start") LocalDateTime start,
+                                                       @Param("end") LocalDateTime end,
+                                                       @Param("excluded") Appointment.AppointmentStatus excluded);
+
+    @Query(VIEW_SELECT + "ORDER BY a.appointmentTime, a.id")
+    List<AppointmentView> findAllViews();
+
+    // The views embed doctor and patient fields, so their updates move the version too
+    String VERSION_SELECT = "SELECT new com.hospital.dto.ResourceVersion(COUNT(a), " +
+                            "MAX(GREATEST(a.updatedAt, d.updatedAt, COALESCE(p.updatedAt, a.updatedAt)))) " +
+                            "FROM Appointment a JOIN a.doctor d JOIN a.patient p ";
+
+    @Query(VERSION_SELECT + "WHERE a.id = :id")
+    ResourceVersion findVersionById(@Param("id") Long id);
+
+    @Query(VERSION_SELECT + "WHERE d.id = :doctorId")
+    ResourceVersion findVersionByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient WHERE a.id = :id")
+    Optional<Appointment> findWithDoctorAndPatientById(@Param("id") Long id);
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor WHERE a.patient.id = :patientId " +
+           "AND a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime DESC")
+    List<Appointment> findTimelineByPatientId(@Param("patientId") Long patientId,
+                                              @Param("start") LocalDateTime start,
+                                              @Param("end") LocalDateTime end,
+                                              Pageable pageable);
 }
@@ -1,20 +1,32 @@
 package com.hospital.repository;
 
+import com.hospital.dto.BillItemView;
+import com.hospital.dto.BillView;
+import com.hospital.dto.ResourceVersion;
 import com.hospital.entity.Bill;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, Long> {
+    String VIEW_SELECT = "SELECT new com.hospital.dto.BillView(b.id, b.billNumber, b.patient.id, p.firstName, p.lastName, " +
+                         "b.hospital.id, b.billDate, b.dueDate, b.status, b.subTotal, b.taxAmount, b.discountAmount, " +
+                         "b.totalAmount, b.paidAmount, b.balanceAmount, b.paymentMethod, b.paymentReference, b.notes, " +
+                         "b.createdAt, b.updatedAt) FROM Bill b LEFT JOIN b.patient p ";
 
     Optional<Bill> findByBillNumber(String billNumber);
 
+    @Query("SELECT b FROM Bill b JOIN FETCH b.patient JOIN FETCH b.hospital LEFT JOIN FETCH b.billItems WHERE b.id = :id")
+    Optional<Bill> findWithItemsById(@Param("id") Long id);
+
     List<Bill> findByPatientId(Long patientId);
 
     List<Bill> findByPatientIdAndStatus(Long patientId, Bill.BillStatus status);
@@ -23,6 +35,39 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
 
     List<Bill> findByHospitalIdAndStatus(Long hospitalId, Bill.BillStatus status);
 
+    @Query(VIEW_SELECT + "WHERE b.patient.id = :patientId ORDER BY b.billDate DESC, b.id DESC")
+    List<BillView> findViewsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(VIEW_SELECT + "WHERE b.hospital.id = :hospitalId ORDER BY b.billDate DESC, b.id DESC")
+    List<BillView> findViewsByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    @Query(VIEW_SELECT + "WHERE b.hospital.id = :hospitalId AND b.status = :status ORDER BY b.billDate DESC, b.id DESC")
+    List<BillView> findViewsByHospitalIdAndStatus(@Param("hospitalId") Long hospitalId, @Param("status") Bill.BillStatus status);
+
+    @Query(VIEW_SELECT + "WHERE b.dueDate < :currentDate AND b.status IN ('PENDING', 'PARTIALLY_PAID') ORDER BY b.dueDate, b.id")
+    List<BillView> findOverdueViews(@Param("currentDate") LocalDateTime currentDate);
+
+    @Query("SELECT new com.hospital.dto.BillItemView(i.bill.id, i.id, i.serviceType, i.serviceName, i.description, " +
+           "i.quantity, i.unitPrice, i.discountPercentage, i.discountAmount, i.taxPercentage, i.taxAmount, i.totalAmount, " +
+           "i.appointmentId, i.medicalRecordId, i.labTestId, i.pharmacyItemId) FROM BillItem i " +
+           "WHERE i.bill.id IN :billIds ORDER BY i.id")
+    List<BillItemView> findItemViewsByBillIdIn(@Param("billIds") Collection<Long> billIds);
+
+    // The views embed the patient's name, so patient updates move the version too. Bill items are only
+    // written together with their bill.
+    String VERSION_SELECT = "SELECT new com.hospital.dto.ResourceVersion(COUNT(b), " +
+                            "MAX(GREATEST(b.updatedAt, COALESCE(p.updatedAt, b.updatedAt)))) FROM Bill b LEFT JOIN b.patient p ";
+
+    @Query(VERSION_SELECT + "WHERE b.patient.id = :patientId")
+    ResourceVersion findVersionByPatientId(@Param("patientId") Long patientId);
+
+    @Query(VERSION_SELECT + "WHERE b.hospital.id = :hospitalId")
+    ResourceVersion findVersionByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    @Query(VERSION_SELECT + "WHERE b.hospital.id = :hospitalId AND b.status = :status")
+    ResourceVersion findVersionByHospitalIdAndStatus(@Param("hospitalId") Long hospitalId,
+                                                     @Param("status") Bill.BillStatus status);
+
     List<Bill> findByStatus(Bill.BillStatus status);
 
     List<Bill> findByBillDateBetween(LocalDateTime startDate, LocalDateTime endDate);
@@ -35,6 +80,12 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
     @Query("SELECT b FROM Bill b WHERE b.patient.id = :patientId AND b.status IN ('PENDING', 'PARTIALLY_PAID')")
     List<Bill> findPendingBillsByPatient(@Param("patientId") Long patientId);
 
+    @Query("SELECT b FROM Bill b WHERE b.patient.id = :patientId AND b.billDate BETWEEN :start AND :end ORDER BY b.billDate DESC")
+    List<Bill> findTimelineByPatientId(@Param("patientId") Long patientId,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end,
+                                       Pageable pageable);
+
     @Query("SELECT SUM(b.totalAmount) FROM Bill b WHERE b.hospital.id = :hospitalId AND b.billDate BETWEEN :startDate AND :endDate")
     Double getTotalRevenueByHospitalAndDateRange(@Param("hospitalId") Long hospitalId,
                                                 @Param("startDate") LocalDateTime startDate,
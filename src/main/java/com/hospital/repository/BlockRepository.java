@@ -1,12 +1,24 @@
 package com.hospital.repository;
 
+import com.hospital.dto.StructureBlockRow;
 import com.hospital.entity.Block;
 import com.hospital.entity.Hospital;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 public interface BlockRepository extends JpaRepository<Block, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Block> findByHospital(Hospital hospital);
     List<Block> findByFloorNumber(Integer floorNumber);
+
+    @Query("SELECT new com.hospital.dto.StructureBlockRow(b.id, b.name, b.description, b.floorNumber) FROM Block b " +
+           "WHERE b.hospital.id = :hospitalId ORDER BY b.floorNumber, b.name, b.id")
+    List<StructureBlockRow> findStructureRowsByHospitalId(@Param("hospitalId") Long hospitalId);
 }
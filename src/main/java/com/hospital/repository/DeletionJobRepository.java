@@ -0,0 +1,41 @@
+package com.hospital.repository;
+
+import com.hospital.entity.DeletionJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DeletionJobRepository extends JpaRepository<DeletionJob, Long> {
+
+    // Pending jobs, plus running jobs whose owner stopped renewing its lease
+    @Query("SELECT j.id FROM DeletionJob j WHERE j.status IN ('PENDING', 'RUNNING') " +
+           "AND (j.leaseUntil IS NULL OR j.leaseUntil < :now) ORDER BY j.id")
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Conditional update, so only one instance wins a job
+    @Modifying
+    @Query("UPDATE DeletionJob j SET j.status = 'RUNNING', " +
+           "j.leaseOwner = :owner, j.leaseUntil = :leaseUntil, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status IN ('PENDING', 'RUNNING') " +
+           "AND (j.leaseUntil IS NULL OR j.leaseUntil < :now)")
+    int claim(@Param("id") Long id, @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE DeletionJob j SET j.stepIndex = :stepIndex, j.currentStep = :currentStep, " +
+           "j.rowsDeleted = j.rowsDeleted + :deleted, j.leaseUntil = :leaseUntil, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.leaseOwner = :owner")
+    int recordProgress(@Param("id") Long id, @Param("owner") String owner, @Param("stepIndex") int stepIndex,
+                       @Param("currentStep") String currentStep, @Param("deleted") long deleted,
+                       @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+
+    boolean existsByTargetTypeAndTargetIdAndStatusNot(DeletionJob.TargetType targetType, Long targetId,
+                                                      DeletionJob.DeletionStatus status);
+}
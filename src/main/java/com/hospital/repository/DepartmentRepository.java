@@ -1,14 +1,24 @@
 package com.hospital.repository;
 
+import com.hospital.dto.StructureDepartmentRow;
 import com.hospital.entity.Department;
 import com.hospital.entity.Hospital;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Department> findByHospital(Hospital hospital);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Department> findByBlockId(Long blockId);
 
     // Method to check for duplicate department name within a hospital
@@ -17,4 +27,8 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
 
     // Method to check for duplicate department name within a hospital excluding current department (for updates)
     boolean existsByNameAndHospitalIdAndIdNot(String name, Long hospitalId, Long id);
+
+    @Query("SELECT new com.hospital.dto.StructureDepartmentRow(d.id, d.name, d.description, d.block.id) FROM Department d " +
+           "WHERE d.hospital.id = :hospitalId ORDER BY d.name, d.id")
+    List<StructureDepartmentRow> findStructureRowsByHospitalId(@Param("hospitalId") Long hospitalId);
 }
@@ -1,16 +1,40 @@
 package com.hospital.repository;
 
+import com.hospital.dto.StructureDoctorRow;
 import com.hospital.entity.Doctor;
 import com.hospital.entity.Hospital;
 import com.hospital.entity.Department;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     boolean existsByEmail(String email);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Doctor> findByHospital(Hospital hospital);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Doctor> findByDepartment(Department department);
+
+    @Query("SELECT new com.hospital.dto.StructureDoctorRow(d.id, d.name, d.specialization, d.email, d.department.id) FROM Doctor d " +
+           "WHERE d.hospital.id = :hospitalId ORDER BY d.name, d.id")
+    List<StructureDoctorRow> findStructureRowsByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    // Doctors stay in place until the purge of a deleted hospital or department reaches them, but take no bookings
+    @Query("SELECT d FROM Doctor d WHERE d.id = :id " +
+           "AND EXISTS (SELECT h.id FROM Hospital h WHERE h.id = d.hospital.id AND h.deletedAt IS NULL) " +
+           "AND (d.department IS NULL OR EXISTS " +
+           "(SELECT dep.id FROM Department dep WHERE dep.id = d.department.id AND dep.deletedAt IS NULL))")
+    Optional<Doctor> findBookableById(@Param("id") Long id);
+
+    @Query("SELECT d.id FROM Doctor d WHERE d.department.block.id = :blockId")
+    List<Long> findIdsByBlockId(@Param("blockId") Long blockId);
 }
@@ -1,7 +1,16 @@
 package com.hospital.repository;
 
 import com.hospital.entity.Hospital;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
 
 public interface HospitalRepository extends JpaRepository<Hospital, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Hospital> findAll();
 }
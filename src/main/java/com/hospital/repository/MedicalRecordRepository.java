@@ -1,19 +1,63 @@
 package com.hospital.repository;
 
+import com.hospital.dto.PatientAllergyRow;
 import com.hospital.entity.MedicalRecord;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
+    boolean existsByTreatingDoctor_Department_Id(Long departmentId);
+
     List<MedicalRecord> findByPatientIdOrderByVisitDateDesc(Long patientId);
     Page<MedicalRecord> findByPatientIdOrderByVisitDateDesc(Long patientId, Pageable pageable);
     List<MedicalRecord> findByPatientIdAndVisitDateBetween(Long patientId, LocalDateTime start, LocalDateTime end);
     List<MedicalRecord> findByPatientIdAndRecordType(Long patientId, MedicalRecord.RecordType recordType);
     List<MedicalRecord> findByTreatingDoctorId(Long doctorId);
+
+    @Query("SELECT r FROM MedicalRecord r JOIN FETCH r.treatingDoctor WHERE r.patient.id = :patientId " +
+           "AND r.visitDate BETWEEN :start AND :end ORDER BY r.visitDate DESC")
+    List<MedicalRecord> findTimelineByPatientId(@Param("patientId") Long patientId,
+                                                @Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end,
+                                                Pageable pageable);
+
+    // One fetch join per collection: joining both bags in one query would multiply their rows
+    @Query("SELECT DISTINCT r FROM MedicalRecord r LEFT JOIN FETCH r.allergies WHERE r.id IN :ids")
+    List<MedicalRecord> fetchAllergies(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT r FROM MedicalRecord r LEFT JOIN FETCH r.vitalSigns WHERE r.id IN :ids")
+    List<MedicalRecord> fetchVitalSigns(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT a FROM MedicalRecord r JOIN r.allergies a WHERE r.patient.id = :patientId")
+    List<String> findDistinctAllergiesByPatientId(@Param("patientId") Long patientId);
+
+    // Integer.MIN_VALUE asks MySQL Connector/J to stream rows instead of buffering the whole result
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "-2147483648"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.hospital.dto.PatientAllergyRow(p.id, h.id, a) FROM MedicalRecord r JOIN r.patient p LEFT JOIN p.hospital h JOIN r.allergies a")
+    Stream<PatientAllergyRow> streamAllPatientAllergies();
+
+    @Query("SELECT new com.hospital.dto.PatientAllergyRow(p.id, h.id, a) FROM MedicalRecord r JOIN r.patient p LEFT JOIN p.hospital h JOIN r.allergies a " +
+           "WHERE p.id IN :patientIds")
+    List<PatientAllergyRow> findPatientAllergiesByPatientIdIn(@Param("patientIds") Collection<Long> patientIds);
+
+    // Normalizes like AllergyIndexService.normalize: whitespace runs collapse to one space, then trim and lower-case
+    @Query("SELECT DISTINCT r.patient.id FROM MedicalRecord r JOIN r.allergies a " +
+           "WHERE r.patient.hospital.id = :hospitalId " +
+           "AND LOWER(TRIM(CAST(FUNCTION('REGEXP_REPLACE', a, '[[:space:]]+', ' ') AS String))) = :allergen")
+    List<Long> findPatientIdsByHospitalAndAllergy(@Param("hospitalId") Long hospitalId, @Param("allergen") String allergen);
 }
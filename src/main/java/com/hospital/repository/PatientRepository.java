@@ -1,19 +1,84 @@
 package com.hospital.repository;
 
+import com.hospital.dto.PatientEmailRow;
+import com.hospital.dto.PatientPhoneRow;
+import com.hospital.dto.PatientSearchRow;
+import com.hospital.dto.PatientView;
 import com.hospital.entity.Patient;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+    String VIEW_SELECT = "SELECT new com.hospital.dto.PatientView(p.id, p.hospital.id, p.firstName, p.lastName, p.email, " +
+                         "p.phone, p.dateOfBirth, p.address, p.gender, p.bloodGroup, p.createdAt, p.updatedAt) FROM Patient p ";
+
     List<Patient> findByHospitalId(Long hospitalId);
     Page<Patient> findByHospitalId(Long hospitalId, Pageable pageable);
     boolean existsByEmailAndHospitalId(String email, Long hospitalId);
     Optional<Patient> findByEmailAndHospitalId(String email, Long hospitalId);
-    Optional<Patient> findByPhone(String phone);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :id")
+    Optional<PatientView> findViewById(@Param("id") Long id);
+
+    @Query(VIEW_SELECT + "WHERE p.hospital.id = :hospitalId ORDER BY p.lastName, p.firstName, p.id")
+    List<PatientView> findViewsByHospitalId(@Param("hospitalId") Long hospitalId);
+
+    @Query(VIEW_SELECT + "ORDER BY p.id")
+    List<PatientView> findAllViews();
+
+    // Served by idx_patient_hospital_phone; ordered so duplicate registrations resolve to the oldest patient
+    List<Patient> findByHospitalIdAndPhoneNormalizedOrderByIdAsc(Long hospitalId, String phoneNormalized);
+
+    @Query("SELECT new com.hospital.dto.PatientPhoneRow(p.id, p.hospital.id, p.phone) FROM Patient p " +
+           "WHERE p.phoneNormalized IS NULL AND p.phone IS NOT NULL AND p.id > :afterId ORDER BY p.id")
+    List<PatientPhoneRow> findUnnormalizedPhones(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Patient p SET p.phoneNormalized = :phoneNormalized WHERE p.id = :id")
+    int updatePhoneNormalized(@Param("id") Long id, @Param("phoneNormalized") String phoneNormalized);
+
+    // Integer.MIN_VALUE asks MySQL Connector/J to stream rows instead of buffering the whole result
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "-2147483648"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.hospital.dto.PatientPhoneRow(p.id, p.hospital.id, p.phoneNormalized) FROM Patient p " +
+           "WHERE p.phoneNormalized IS NOT NULL AND p.hospital IS NOT NULL")
+    Stream<PatientPhoneRow> streamNormalizedPhones();
+
+    @Query("SELECT new com.hospital.dto.PatientPhoneRow(p.id, p.hospital.id, p.phoneNormalized) FROM Patient p " +
+           "WHERE p.id IN :ids AND p.phoneNormalized IS NOT NULL AND p.hospital IS NOT NULL")
+    List<PatientPhoneRow> findNormalizedPhonesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "-2147483648"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.hospital.dto.PatientSearchRow(p.id, p.hospital.id, p.firstName, p.lastName, p.email, p.phone) " +
+           "FROM Patient p WHERE p.hospital IS NOT NULL")
+    Stream<PatientSearchRow> streamSearchRows();
+
+    @Query("SELECT new com.hospital.dto.PatientSearchRow(p.id, p.hospital.id, p.firstName, p.lastName, p.email, p.phone) " +
+           "FROM Patient p WHERE p.id IN :ids AND p.hospital IS NOT NULL")
+    List<PatientSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.hospital.dto.PatientEmailRow(p.id, p.email) FROM Patient p " +
+           "WHERE p.hospital.id = :hospitalId AND p.email IN :emails ORDER BY p.id")
+    List<PatientEmailRow> findEmailRowsByHospitalIdAndEmailIn(@Param("hospitalId") Long hospitalId,
+                                                              @Param("emails") Collection<String> emails);
+
+    @Query("SELECT new com.hospital.dto.PatientSearchRow(p.id, p.hospital.id, p.firstName, p.lastName, p.email, p.phone) " +
+           "FROM Patient p WHERE p.hospital.id = :hospitalId AND p.email IN :emails")
+    List<PatientSearchRow> findSearchRowsByHospitalIdAndEmailIn(@Param("hospitalId") Long hospitalId,
+                                                                @Param("emails") Collection<String> emails);
 }
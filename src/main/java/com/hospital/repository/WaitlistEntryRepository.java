@@ -0,0 +1,55 @@
+package com.hospital.repository;
+
+import com.hospital.entity.WaitlistEntry;
+import com.hospital.entity.WaitlistEntry.WaitlistStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.doctorId = :doctorId AND w.status IN :statuses " +
+           "ORDER BY w.urgency DESC, w.requestedAt, w.id")
+    List<WaitlistEntry> findByDoctorIdAndStatusIn(@Param("doctorId") Long doctorId,
+                                                  @Param("statuses") Collection<WaitlistStatus> statuses);
+
+    boolean existsByDoctorIdAndPatientIdAndStatusIn(Long doctorId, Long patientId, Collection<WaitlistStatus> statuses);
+
+    @Query("SELECT w.id FROM WaitlistEntry w WHERE w.status = 'OFFERED' AND w.offerExpiresAt < :now ORDER BY w.offerExpiresAt")
+    List<Long> findExpiredOfferIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Conditional updates, so a slot goes to one entry and an entry gets one slot even with several instances
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'OFFERED', w.offeredTime = :slot, w.offerExpiresAt = :expiresAt, " +
+           "w.offerCount = w.offerCount + 1, w.updatedAt = :now WHERE w.id = :id AND w.status = 'WAITING'")
+    int offer(@Param("id") Long id, @Param("slot") LocalDateTime slot, @Param("expiresAt") LocalDateTime expiresAt,
+              @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'WAITING', w.offerExpiresAt = NULL, w.updatedAt = :now " +
+           "WHERE w.id = :id AND w.status = 'OFFERED' AND w.offerExpiresAt < :now")
+    int expireOffer(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'WAITING', w.offerExpiresAt = NULL, w.updatedAt = :now " +
+           "WHERE w.id = :id AND w.status = 'OFFERED'")
+    int declineOffer(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Ahead of deleting the doctors themselves; waitlist_entry has a foreign key to doctor but no JPA cascade
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.doctorId IN :doctorIds")
+    int deleteByDoctorIdIn(@Param("doctorIds") Collection<Long> doctorIds);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WaitlistEntry w SET w.status = 'BOOKED', w.appointmentId = :appointmentId, w.offerExpiresAt = NULL, " +
+           "w.updatedAt = :now WHERE w.id = :id AND w.status = 'OFFERED' AND w.offerExpiresAt >= :now")
+    int book(@Param("id") Long id, @Param("appointmentId") Long appointmentId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,337 @@
+package com.hospital.service;
+
+import com.hospital.config.ReadRouting;
+import com.hospital.dto.ChangeEventDTO;
+import com.hospital.dto.PatientAllergyRow;
+import com.hospital.event.ChangesRelayedEvent;
+import com.hospital.event.MedicalRecordSavedEvent;
+import com.hospital.event.PatientChangedEvent;
+import com.hospital.repository.MedicalRecordRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory, per-patient index of normalized allergens used for drug-allergy screening.
+ * <p>
+ * Allergen strings are normalized (trimmed, lower-cased, inner whitespace collapsed) and interned
+ * to small int IDs. Each patient maps to a sorted {@code int[]} of allergen IDs and each
+ * (hospital, allergen) pair maps to a sorted {@code long[]} of patient IDs, so both the
+ * "is this patient allergic to X" check and the reverse lookup are a hash probe plus a binary search.
+ * Reads are lock-free; writes are serialized and replace arrays copy-on-write.
+ * <p>
+ * Writes made on this instance are applied right after they commit. Every instance also reloads the patients
+ * named by relayed medical record and patient changes ({@link ChangesRelayedEvent}), which is how a write made on
+ * another instance reaches this index, within {@code outbox.relay.poll-interval-ms}. Because a missed allergy is
+ * the dangerous answer, {@link #hasAllergy} confirms a negative against the database unless
+ * {@code allergy.index.confirm-negatives} is off.
+ */
+@Service
+@Log4j2
+public class AllergyIndexService {
+    private static final long[] NO_PATIENTS = new long[0];
+
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final ShardQueryService shardQueryService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean confirmNegatives;
+
+    private final Map<String, Integer> allergenIds = new ConcurrentHashMap<>();
+    private final List<String> allergenNames = new ArrayList<>();
+    private final Map<Long, PatientAllergies> patientAllergies = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Integer, long[]>> patientsByHospitalAllergen = new ConcurrentHashMap<>();
+    private final Set<Long> updatedWhileBuilding = new HashSet<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean ready;
+
+    public AllergyIndexService(MedicalRecordRepository medicalRecordRepository,
+                               PlatformTransactionManager transactionManager,
+                               ShardQueryService shardQueryService,
+                               @Value("${allergy.index.confirm-negatives:true}") boolean confirmNegatives) {
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.shardQueryService = shardQueryService;
+        this.confirmNegatives = confirmNegatives;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> hospitalByPatient = new HashMap<>();
+        Map<Long, List<String>> allergiesByPatient = new HashMap<>();
+        shardQueryService.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PatientAllergyRow> rows = medicalRecordRepository.streamAllPatientAllergies()) {
+                rows.forEach(row -> {
+                    hospitalByPatient.put(row.patientId(), row.hospitalId());
+                    allergiesByPatient.computeIfAbsent(row.patientId(), id -> new ArrayList<>()).add(row.allergy());
+                });
+            }
+        }));
+
+        writeLock.lock();
+        try {
+            // Events applied while the snapshot was streaming are newer than the snapshot
+            allergiesByPatient.keySet().removeAll(updatedWhileBuilding);
+            allergiesByPatient.forEach((patientId, allergies) ->
+                replacePatient(patientId, hospitalByPatient.get(patientId), allergies));
+            updatedWhileBuilding.clear();
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Allergy index built for {} patients and {} distinct allergens in {} ms",
+                patientAllergies.size(), allergenIds.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener
+    public void onMedicalRecordSaved(MedicalRecordSavedEvent event) {
+        writeLock.lock();
+        try {
+            if (!ready) {
+                updatedWhileBuilding.add(event.patientId());
+            }
+            replacePatient(event.patientId(), event.hospitalId(), event.patientAllergies());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (event.deleted()) {
+            evictPatient(event.patientId());
+        }
+    }
+
+    /**
+     * Reloads the patients whose medical records or registration changed on any instance, this one included.
+     * The reload runs under the write lock, so a local write committing meanwhile is applied after it rather
+     * than overwritten by it.
+     */
+    @EventListener
+    public void onChangesRelayed(ChangesRelayedEvent event) {
+        Set<Long> patientIds = new HashSet<>();
+        for (ChangeEventDTO change : event.changes()) {
+            if (change.patientId() != null && (ChangeOutboxService.MEDICAL_RECORD.equals(change.entityType())
+                    || ChangeOutboxService.PATIENT.equals(change.entityType()))) {
+                patientIds.add(change.patientId());
+            }
+        }
+        if (patientIds.isEmpty()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Map<Long, Long> hospitalByPatient = new HashMap<>();
+            Map<Long, List<String>> allergiesByPatient = new HashMap<>();
+            for (PatientAllergyRow row : ReadRouting.onPrimary(() ->
+                    medicalRecordRepository.findPatientAllergiesByPatientIdIn(patientIds))) {
+                hospitalByPatient.put(row.patientId(), row.hospitalId());
+                allergiesByPatient.computeIfAbsent(row.patientId(), id -> new ArrayList<>()).add(row.allergy());
+            }
+            for (Long patientId : patientIds) {
+                if (!ready) {
+                    updatedWhileBuilding.add(patientId);
+                }
+                replacePatient(patientId, hospitalByPatient.get(patientId), allergiesByPatient.get(patientId));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reload allergies of {} patients relayed on shard '{}': {}",
+                    patientIds.size(), event.shard(), e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean hasAllergy(Long patientId, String allergen) {
+        String normalized = normalize(allergen);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Allergen is required");
+        }
+        if (ready) {
+            Integer allergenId = allergenIds.get(normalized);
+            PatientAllergies entry = patientAllergies.get(patientId);
+            if (allergenId != null && entry != null && Arrays.binarySearch(entry.allergenIds(), allergenId) >= 0) {
+                return true;
+            }
+            if (!confirmNegatives) {
+                return false;
+            }
+        }
+        // An allergy recorded on another instance may not have been relayed here yet, nor reached a replica
+        return ReadRouting.onPrimary(() -> medicalRecordRepository.findDistinctAllergiesByPatientId(patientId)).stream()
+            .anyMatch(recorded -> normalized.equals(normalize(recorded)));
+    }
+
+    public List<String> getPatientAllergies(Long patientId) {
+        if (!ready) {
+            return medicalRecordRepository.findDistinctAllergiesByPatientId(patientId).stream()
+                .map(AllergyIndexService::normalize)
+                .filter(allergen -> allergen != null)
+                .distinct()
+                .sorted()
+                .toList();
+        }
+        PatientAllergies entry = patientAllergies.get(patientId);
+        return entry == null ? List.of() : Arrays.asList(entry.allergens().clone());
+    }
+
+    public List<Long> findPatientsAllergicTo(Long hospitalId, String allergen) {
+        String normalized = normalize(allergen);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Allergen is required");
+        }
+        if (!ready) {
+            return medicalRecordRepository.findPatientIdsByHospitalAndAllergy(hospitalId, normalized);
+        }
+        Integer allergenId = allergenIds.get(normalized);
+        Map<Integer, long[]> byAllergen = patientsByHospitalAllergen.get(hospitalId);
+        if (allergenId == null || byAllergen == null) {
+            return List.of();
+        }
+        return Arrays.stream(byAllergen.getOrDefault(allergenId, NO_PATIENTS)).boxed().toList();
+    }
+
+    public void evictPatient(Long patientId) {
+        writeLock.lock();
+        try {
+            if (!ready) {
+                updatedWhileBuilding.add(patientId);
+            }
+            replacePatient(patientId, null, List.of());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    static String normalize(String allergen) {
+        if (allergen == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(allergen.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < allergen.length(); i++) {
+            char c = allergen.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.length() == 0 ? null : normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // Caller must hold writeLock
+    private void replacePatient(Long patientId, Long hospitalId, Collection<String> allergies) {
+        PatientAllergies previous = patientAllergies.get(patientId);
+        int[] ids = allergies == null ? new int[0] : allergies.stream()
+            .map(AllergyIndexService::normalize)
+            .filter(allergen -> allergen != null)
+            .mapToInt(this::intern)
+            .sorted()
+            .distinct()
+            .toArray();
+
+        if (previous != null && previous.hospitalId() != null) {
+            for (int allergenId : previous.allergenIds()) {
+                if (!previous.hospitalId().equals(hospitalId) || Arrays.binarySearch(ids, allergenId) < 0) {
+                    removeFromReverseIndex(previous.hospitalId(), allergenId, patientId);
+                }
+            }
+        }
+
+        if (ids.length == 0) {
+            patientAllergies.remove(patientId);
+            return;
+        }
+        patientAllergies.put(patientId, new PatientAllergies(hospitalId, ids, namesOf(ids)));
+        if (hospitalId != null) {
+            for (int allergenId : ids) {
+                addToReverseIndex(hospitalId, allergenId, patientId);
+            }
+        }
+    }
+
+    // Caller must hold writeLock
+    private int intern(String normalized) {
+        Integer id = allergenIds.get(normalized);
+        if (id == null) {
+            id = allergenNames.size();
+            allergenNames.add(normalized);
+            allergenIds.put(normalized, id);
+        }
+        return id;
+    }
+
+    private String[] namesOf(int[] ids) {
+        String[] names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            names[i] = allergenNames.get(ids[i]);
+        }
+        Arrays.sort(names);
+        return names;
+    }
+
+    private void addToReverseIndex(Long hospitalId, int allergenId, long patientId) {
+        patientsByHospitalAllergen.computeIfAbsent(hospitalId, id -> new ConcurrentHashMap<>())
+            .compute(allergenId, (id, patients) -> {
+                long[] current = patients == null ? NO_PATIENTS : patients;
+                int index = Arrays.binarySearch(current, patientId);
+                if (index >= 0) {
+                    return current;
+                }
+                int insertAt = -index - 1;
+                long[] updated = new long[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, insertAt);
+                updated[insertAt] = patientId;
+                System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+                return updated;
+            });
+    }
+
+    private void removeFromReverseIndex(Long hospitalId, int allergenId, long patientId) {
+        Map<Integer, long[]> byAllergen = patientsByHospitalAllergen.get(hospitalId);
+        if (byAllergen == null) {
+            return;
+        }
+        byAllergen.computeIfPresent(allergenId, (id, current) -> {
+            int index = Arrays.binarySearch(current, patientId);
+            if (index < 0) {
+                return current;
+            }
+            if (current.length == 1) {
+                return null;
+            }
+            long[] updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            return updated;
+        });
+    }
+
+    private record PatientAllergies(Long hospitalId, int[] allergenIds, String[] allergens) {
+    }
+}
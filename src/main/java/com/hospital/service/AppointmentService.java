@@ -1,40 +1,67 @@
 package com.hospital.service;
 
+import com.hospital.config.TimedService;
 import com.hospital.dto.AppointmentDTO;
+import com.hospital.dto.AppointmentView;
+import com.hospital.dto.ResourceVersion;
 import com.hospital.entity.Appointment;
 import com.hospital.entity.Doctor;
 import com.hospital.entity.Patient;
+import com.hospital.event.AppointmentCancelledEvent;
+import com.hospital.event.PatientChangedEvent;
 import com.hospital.exception.AppointmentConflictException;
+import com.hospital.exception.DomainException;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.AppointmentRepository;
 import com.hospital.repository.DoctorRepository;
 import com.hospital.repository.PatientRepository;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@TimedService
 @Log4j2
 public class AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
+    private final PatientIdentityResolver patientIdentityResolver;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardQueryService shardQueryService;
+    private final ChangeOutboxService changeOutboxService;
+    private final IdempotencyService idempotencyService;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
                             DoctorRepository doctorRepository,
-                            PatientRepository patientRepository) {
+                            PatientRepository patientRepository,
+                            PatientIdentityResolver patientIdentityResolver,
+                            ApplicationEventPublisher eventPublisher,
+                            ShardQueryService shardQueryService,
+                            ChangeOutboxService changeOutboxService,
+                            IdempotencyService idempotencyService) {
         this.appointmentRepository = appointmentRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
+        this.patientIdentityResolver = patientIdentityResolver;
+        this.eventPublisher = eventPublisher;
+        this.shardQueryService = shardQueryService;
+        this.changeOutboxService = changeOutboxService;
+        this.idempotencyService = idempotencyService;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Appointment createAppointment(AppointmentDTO appointmentDTO) {
         log.info("Creating appointment for doctor ID: {} and patient ID: {}",
@@ -51,7 +78,7 @@ public class AppointmentService {
         }
 
         // Fetch doctor and patient entities
-        Doctor doctor = doctorRepository.findById(appointmentDTO.getDoctor().getId())
+        Doctor doctor = doctorRepository.findBookableById(appointmentDTO.getDoctor().getId())
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + appointmentDTO.getDoctor().getId()));
 
         Patient patient = null;
@@ -59,8 +86,9 @@ public class AppointmentService {
              patient = patientRepository.findById(appointmentDTO.getPatient().getId())
                     .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id: " + appointmentDTO.getPatient().getId()));
         } else {
-            // Try to find patient by phone, create new if not found
-            Optional<Patient> existingPatient = patientRepository.findByPhone(appointmentDTO.getPatient().getPhone());
+            // Try to find patient by phone within the doctor's hospital, create new if not found
+            Optional<Patient> existingPatient = patientIdentityResolver.resolveByPhone(
+                    doctor.getHospital().getId(), appointmentDTO.getPatient().getPhone());
 
             if (existingPatient.isPresent()) {
                 patient = existingPatient.get();
@@ -72,7 +100,7 @@ public class AppointmentService {
                 patient.setFirstName(appointmentDTO.getPatient().getFirstName());
                 patient.setLastName(appointmentDTO.getPatient().getLastName());
                 patient.setEmail(appointmentDTO.getPatient().getEmail());
-                patient.setPhone(appointmentDTO.getPatient().getPhone());
+                patientIdentityResolver.applyPhone(patient, appointmentDTO.getPatient().getPhone());
                 patient.setDateOfBirth(appointmentDTO.getPatient().getDateOfBirth());
                 patient.setAddress(appointmentDTO.getPatient().getAddress());
                 patient.setGender(appointmentDTO.getPatient().getGender());
@@ -80,6 +108,10 @@ public class AppointmentService {
                 patient.setHospital(doctor.getHospital()); // Assign to same hospital as doctor
 
                 patient = patientRepository.save(patient);
+                patientIdentityResolver.register(patient);
+                eventPublisher.publishEvent(PatientChangedEvent.saved(patient));
+                changeOutboxService.record(ChangeOutboxService.PATIENT, patient.getId(), ChangeOutboxService.CREATED,
+                        doctor.getHospital().getId(), patient.getId(), null);
                 log.info("New patient created successfully with ID: {}", patient.getId());
             }
         }
@@ -101,57 +133,86 @@ public class AppointmentService {
             appointmentDTO.getStatus() : Appointment.AppointmentStatus.SCHEDULED);
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        recordChange(savedAppointment, ChangeOutboxService.CREATED);
+        // In this transaction, so a retry of an attempt that committed after all rolls back
+        idempotencyService.complete(savedAppointment.getId());
         log.info("Appointment created successfully with ID: {}", savedAppointment.getId());
         return savedAppointment;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Transactional(readOnly = true)
     public Appointment getAppointment(Long appointmentId) {
         if (appointmentId == null) {
             log.error("Appointment ID cannot be null");
             throw new IllegalArgumentException("Appointment ID is required");
         }
 
-        try {
-            log.info("Fetching appointment with ID: {}", appointmentId);
-            return appointmentRepository.findById(appointmentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
-        } catch (Exception e) {
-            log.error("Error fetching appointment: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch appointment: " + e.getMessage());
+        log.info("Fetching appointment with ID: {}", appointmentId);
+        return appointmentRepository.findById(appointmentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
+    }
+
+    /**
+     * The appointment with its doctor and patient loaded, as {@link #createAppointment} returns it.
+     */
+    @Transactional(readOnly = true)
+    public Appointment getAppointmentDetails(Long appointmentId) {
+        return appointmentRepository.findWithDoctorAndPatientById(appointmentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
+    }
+
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Transactional(readOnly = true)
+    public AppointmentView getAppointmentView(Long appointmentId) {
+        if (appointmentId == null) {
+            log.error("Appointment ID cannot be null");
+            throw new IllegalArgumentException("Appointment ID is required");
         }
+
+        log.info("Fetching appointment with ID: {}", appointmentId);
+        return appointmentRepository.findViewById(appointmentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    public List<Appointment> getDoctorAppointments(Long doctorId) {
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Transactional(readOnly = true)
+    public List<AppointmentView> getDoctorAppointments(Long doctorId) {
         if (doctorId == null) {
             log.error("Doctor ID cannot be null");
             throw new IllegalArgumentException("Doctor ID is required");
         }
 
-        try {
-            log.info("Fetching appointments for doctor ID: {}", doctorId);
-            Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + doctorId));
-            return appointmentRepository.findByDoctor(doctor);
-        } catch (Exception e) {
-            log.error("Error fetching doctor appointments: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch doctor appointments: " + e.getMessage());
+        log.info("Fetching appointments for doctor ID: {}", doctorId);
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor not found with id: " + doctorId);
         }
+        return appointmentRepository.findViewsByDoctorId(doctorId);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    public List<Appointment> getAllAppointments() {
-        try {
-            log.info("Fetching all appointments");
-            return appointmentRepository.findAll();
-        } catch (Exception e) {
-            log.error("Error fetching all appointments: {}", e.getMessage());
-            throw new RuntimeException("Failed to fetch appointments: " + e.getMessage());
-        }
+    @Transactional(readOnly = true)
+    public ResourceVersion getAppointmentVersion(Long appointmentId) {
+        return appointmentRepository.findVersionById(appointmentId);
+    }
+
+    @Transactional(readOnly = true)
+    public ResourceVersion getDoctorAppointmentsVersion(Long doctorId) {
+        return appointmentRepository.findVersionByDoctorId(doctorId);
+    }
+
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    public List<AppointmentView> getAllAppointments() {
+        log.info("Fetching all appointments");
+        return shardQueryService.queryAll(appointmentRepository::findAllViews,
+            Comparator.comparing(AppointmentView::appointmentTime).thenComparing(AppointmentView::id));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Appointment updateAppointmentStatus(Long appointmentId, Appointment.AppointmentStatus status) {
         if (appointmentId == null || status == null) {
@@ -159,24 +220,22 @@ public class AppointmentService {
             throw new IllegalArgumentException("Appointment ID and status are required");
         }
 
-        try {
-            log.info("Updating appointment status for ID: {} to {}", appointmentId, status);
-            Appointment appointment = getAppointment(appointmentId);
+        log.info("Updating appointment status for ID: {} to {}", appointmentId, status);
+        Appointment appointment = getAppointment(appointmentId);
 
-            if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
-                log.error("Cannot update status of cancelled appointment");
-                throw new IllegalStateException("Cannot update status of cancelled appointment");
-            }
-
-            appointment.setStatus(status);
-            return appointmentRepository.save(appointment);
-        } catch (Exception e) {
-            log.error("Error updating appointment status: {}", e.getMessage());
-            throw new RuntimeException("Failed to update appointment status: " + e.getMessage());
+        if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            log.error("Cannot update status of cancelled appointment");
+            throw new IllegalStateException("Cannot update status of cancelled appointment");
         }
+
+        appointment.setStatus(status);
+        Appointment updatedAppointment = appointmentRepository.save(appointment);
+        recordChange(updatedAppointment, ChangeOutboxService.STATUS_CHANGED);
+        return updatedAppointment;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public void cancelAppointment(Long appointmentId) {
         if (appointmentId == null) {
@@ -184,25 +243,24 @@ public class AppointmentService {
             throw new IllegalArgumentException("Appointment ID is required");
         }
 
-        try {
-            log.info("Cancelling appointment with ID: {}", appointmentId);
-            Appointment appointment = getAppointment(appointmentId);
+        log.info("Cancelling appointment with ID: {}", appointmentId);
+        Appointment appointment = getAppointment(appointmentId);
 
-            if (appointment.getStatus() == Appointment.AppointmentStatus.COMPLETED) {
-                log.error("Cannot cancel completed appointment");
-                throw new IllegalStateException("Cannot cancel completed appointment");
-            }
-
-            appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
-            appointmentRepository.save(appointment);
-            log.info("Appointment cancelled successfully");
-        } catch (Exception e) {
-            log.error("Error cancelling appointment: {}", e.getMessage());
-            throw new RuntimeException("Failed to cancel appointment: " + e.getMessage());
+        if (appointment.getStatus() == Appointment.AppointmentStatus.COMPLETED) {
+            log.error("Cannot cancel completed appointment");
+            throw new IllegalStateException("Cannot cancel completed appointment");
         }
+
+        appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
+        appointmentRepository.save(appointment);
+        recordChange(appointment, ChangeOutboxService.CANCELLED);
+        eventPublisher.publishEvent(new AppointmentCancelledEvent(appointment.getId(), appointment.getDoctor().getId(),
+            appointment.getDoctor().getHospital().getId(), appointment.getAppointmentTime()));
+        log.info("Appointment cancelled successfully");
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Appointment rescheduleAppointment(Long appointmentId, LocalDateTime newAppointmentTime) {
         if (appointmentId == null || newAppointmentTime == null) {
@@ -215,48 +273,62 @@ public class AppointmentService {
             throw new IllegalArgumentException("New appointment time must be in the future");
         }
 
-        try {
-            log.info("Rescheduling appointment ID: {} to new time: {}", appointmentId, newAppointmentTime);
+        log.info("Rescheduling appointment ID: {} to new time: {}", appointmentId, newAppointmentTime);
 
-            // Get the existing appointment
-            Appointment appointment = getAppointment(appointmentId);
+        // Get the existing appointment
+        Appointment appointment = getAppointment(appointmentId);
 
-            // Check if appointment can be rescheduled
-            if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
-                log.error("Cannot reschedule cancelled appointment");
-                throw new IllegalStateException("Cannot reschedule cancelled appointment");
-            }
+        // Check if appointment can be rescheduled
+        if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            log.error("Cannot reschedule cancelled appointment");
+            throw new IllegalStateException("Cannot reschedule cancelled appointment");
+        }
 
-            if (appointment.getStatus() == Appointment.AppointmentStatus.COMPLETED) {
-                log.error("Cannot reschedule completed appointment");
-                throw new IllegalStateException("Cannot reschedule completed appointment");
-            }
+        if (appointment.getStatus() == Appointment.AppointmentStatus.COMPLETED) {
+            log.error("Cannot reschedule completed appointment");
+            throw new IllegalStateException("Cannot reschedule completed appointment");
+        }
 
-            // Check for conflicts with the new time
-            checkAppointmentConflicts(appointment.getDoctor().getId(), newAppointmentTime);
+        // Check for conflicts with the new time
+        checkAppointmentConflicts(appointment.getDoctor().getId(), newAppointmentTime);
 
-            // Update the appointment time
-            appointment.setAppointmentTime(newAppointmentTime);
+        // Update the appointment time
+        appointment.setAppointmentTime(newAppointmentTime);
 
 
-            Appointment rescheduledAppointment = appointmentRepository.save(appointment);
-            log.info("Appointment rescheduled successfully to: {}", newAppointmentTime);
-            return rescheduledAppointment;
+        Appointment rescheduledAppointment = appointmentRepository.save(appointment);
+        recordChange(rescheduledAppointment, ChangeOutboxService.RESCHEDULED);
+        log.info("Appointment rescheduled successfully to: {}", newAppointmentTime);
+        return rescheduledAppointment;
+    }
 
-        } catch (Exception e) {
-            log.error("Error rescheduling appointment: {}", e.getMessage());
-            throw new RuntimeException("Failed to reschedule appointment: " + e.getMessage());
-        }
+    private void recordChange(Appointment appointment, String changeType) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("status", appointment.getStatus());
+        payload.put("appointmentTime", appointment.getAppointmentTime());
+        payload.put("doctorId", appointment.getDoctor().getId());
+        payload.put("departmentId", appointment.getDoctor().getDepartment() != null
+            ? appointment.getDoctor().getDepartment().getId() : null);
+        changeOutboxService.record(ChangeOutboxService.APPOINTMENT, appointment.getId(), changeType,
+            appointment.getDoctor().getHospital().getId(), appointment.getPatient().getId(), payload);
     }
 
-    private void checkAppointmentConflicts(Long doctorId, LocalDateTime appointmentTime) {
-        List<Appointment> conflictingAppointments = appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(
+    /**
+     * Whether the doctor has no appointment within 30 minutes of {@code appointmentTime}. Cancelled
+     * appointments have given their slot up.
+     */
+    @Transactional(readOnly = true)
+    public boolean isSlotFree(Long doctorId, LocalDateTime appointmentTime) {
+        return appointmentRepository.findByDoctorIdAndAppointmentTimeBetweenAndStatusNot(
             doctorId,
             appointmentTime.minusMinutes(30),
-            appointmentTime.plusMinutes(30)
-        );
+            appointmentTime.plusMinutes(30),
+            Appointment.AppointmentStatus.CANCELLED
+        ).isEmpty();
+    }
 
-        if (!conflictingAppointments.isEmpty()) {
+    void checkAppointmentConflicts(Long doctorId, LocalDateTime appointmentTime) {
+        if (!isSlotFree(doctorId, appointmentTime)) {
             throw new AppointmentConflictException("Doctor has another appointment at this time");
         }
     }
@@ -1,7 +1,11 @@
 package com.hospital.service;
 
+import com.hospital.config.TimedService;
 import com.hospital.dto.BillDTO;
 import com.hospital.dto.BillItemDTO;
+import com.hospital.dto.BillItemView;
+import com.hospital.dto.BillView;
+import com.hospital.dto.ResourceVersion;
 import com.hospital.entity.*;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.*;
@@ -13,13 +17,20 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@TimedService
 @RequiredArgsConstructor
 @Slf4j
 public class BillService {
+    private static final int ITEM_QUERY_CHUNK = 1000;
 
     private final BillRepository billRepository;
     private final BillItemRepository billItemRepository;
@@ -27,6 +38,9 @@ public class BillService {
     private final HospitalRepository hospitalRepository;
     private final AppointmentRepository appointmentRepository;
     private final MedicalRecordRepository medicalRecordRepository;
+    private final ShardQueryService shardQueryService;
+    private final ChangeOutboxService changeOutboxService;
+    private final IdempotencyService idempotencyService;
 
     @Transactional
     public Bill createBill(BillDTO billDTO) {
@@ -61,7 +75,10 @@ public class BillService {
         // Calculate totals
         savedBill.calculateTotals();
 
-        return billRepository.save(savedBill);
+        Bill createdBill = billRepository.save(savedBill);
+        recordChange(createdBill, ChangeOutboxService.CREATED);
+        idempotencyService.complete(createdBill.getId());
+        return createdBill;
     }
 
     @Transactional
@@ -149,7 +166,9 @@ public class BillService {
             .orElseThrow(() -> new ResourceNotFoundException("Bill not found with id: " + billId));
 
         bill.setStatus(status);
-        return billRepository.save(bill);
+        Bill updatedBill = billRepository.save(bill);
+        recordChange(updatedBill, ChangeOutboxService.STATUS_CHANGED);
+        return updatedBill;
     }
 
     @Transactional
@@ -174,23 +193,69 @@ public class BillService {
             bill.setStatus(Bill.BillStatus.PARTIALLY_PAID);
         }
 
-        return billRepository.save(bill);
+        Bill paidBill = billRepository.save(bill);
+        recordChange(paidBill, ChangeOutboxService.PAYMENT_ADDED);
+        return paidBill;
     }
 
-    public List<Bill> getBillsByPatient(Long patientId) {
-        return billRepository.findByPatientId(patientId);
+    @Transactional(readOnly = true)
+    public Bill getBill(Long billId) {
+        return billRepository.findWithItemsById(billId)
+            .orElseThrow(() -> new ResourceNotFoundException("Bill not found with id: " + billId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BillView> getBillsByPatient(Long patientId) {
+        return withBillItems(billRepository.findViewsByPatientId(patientId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BillView> getBillsByHospital(Long hospitalId) {
+        return withBillItems(billRepository.findViewsByHospitalId(hospitalId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BillView> getPendingBills(Long hospitalId) {
+        return withBillItems(billRepository.findViewsByHospitalIdAndStatus(hospitalId, Bill.BillStatus.PENDING));
+    }
+
+    @Transactional(readOnly = true)
+    public ResourceVersion getBillsByPatientVersion(Long patientId) {
+        return billRepository.findVersionByPatientId(patientId);
+    }
+
+    @Transactional(readOnly = true)
+    public ResourceVersion getBillsByHospitalVersion(Long hospitalId) {
+        return billRepository.findVersionByHospitalId(hospitalId);
     }
 
-    public List<Bill> getBillsByHospital(Long hospitalId) {
-        return billRepository.findByHospitalId(hospitalId);
+    @Transactional(readOnly = true)
+    public ResourceVersion getPendingBillsVersion(Long hospitalId) {
+        return billRepository.findVersionByHospitalIdAndStatus(hospitalId, Bill.BillStatus.PENDING);
     }
 
-    public List<Bill> getPendingBills(Long hospitalId) {
-        return billRepository.findByHospitalIdAndStatus(hospitalId, Bill.BillStatus.PENDING);
+    public List<BillView> getOverdueBills() {
+        LocalDateTime now = LocalDateTime.now();
+        return shardQueryService.queryAll(() -> withBillItems(billRepository.findOverdueViews(now)), BillView::hospitalId,
+            Comparator.comparing(BillView::dueDate).thenComparing(BillView::id));
     }
 
-    public List<Bill> getOverdueBills() {
-        return billRepository.findOverdueBills(LocalDateTime.now());
+    // One query per chunk of bills for their lines, instead of one lazy load per bill
+    private List<BillView> withBillItems(List<BillView> bills) {
+        if (bills.isEmpty()) {
+            return bills;
+        }
+        List<Long> billIds = bills.stream().map(BillView::id).toList();
+        Map<Long, List<BillItemView>> itemsByBill = new HashMap<>();
+        for (int from = 0; from < billIds.size(); from += ITEM_QUERY_CHUNK) {
+            List<Long> chunk = billIds.subList(from, Math.min(from + ITEM_QUERY_CHUNK, billIds.size()));
+            for (BillItemView item : billRepository.findItemViewsByBillIdIn(chunk)) {
+                itemsByBill.computeIfAbsent(item.billId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        return bills.stream()
+            .map(bill -> bill.withBillItems(itemsByBill.getOrDefault(bill.id(), List.of())))
+            .toList();
     }
 
 
@@ -213,6 +278,17 @@ public class BillService {
         return item;
     }
 
+    private void recordChange(Bill bill, String changeType) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("billNumber", bill.getBillNumber());
+        payload.put("status", bill.getStatus());
+        payload.put("totalAmount", bill.getTotalAmount());
+        payload.put("paidAmount", bill.getPaidAmount());
+        payload.put("dueDate", bill.getDueDate());
+        changeOutboxService.record(ChangeOutboxService.BILL, bill.getId(), changeType,
+            bill.getHospital().getId(), bill.getPatient().getId(), payload);
+    }
+
     private String generateBillNumber(Long hospitalId) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
         return String.format("BILL-%d-%s", hospitalId, timestamp);
@@ -2,10 +2,15 @@ package com.hospital.service;
 
 import com.hospital.entity.Block;
 import com.hospital.entity.Hospital;
+import com.hospital.event.DoctorDeletedEvent;
+import com.hospital.exception.DomainException;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.BlockRepository;
+import com.hospital.repository.DoctorRepository;
 import com.hospital.repository.HospitalRepository;
+import com.hospital.repository.WaitlistEntryRepository;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
@@ -18,13 +23,24 @@ import java.util.List;
 public class BlockService {
     private final BlockRepository blockRepository;
     private final HospitalRepository hospitalRepository;
+    private final ChangeVersionService changeVersionService;
+    private final DoctorRepository doctorRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BlockService(BlockRepository blockRepository, HospitalRepository hospitalRepository) {
+    public BlockService(BlockRepository blockRepository, HospitalRepository hospitalRepository,
+                        ChangeVersionService changeVersionService, DoctorRepository doctorRepository,
+                        WaitlistEntryRepository waitlistEntryRepository, ApplicationEventPublisher eventPublisher) {
         this.blockRepository = blockRepository;
         this.hospitalRepository = hospitalRepository;
+        this.changeVersionService = changeVersionService;
+        this.doctorRepository = doctorRepository;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Block createBlock(Long hospitalId, Block block) {
         log.info("Creating new block for hospital ID: {}", hospitalId);
@@ -32,17 +48,20 @@ public class BlockService {
             .orElseThrow(() -> new ResourceNotFoundException("Hospital not found with id: " + hospitalId));
 
         block.setHospital(hospital);
+        changeVersionService.bump(ChangeVersionService.BLOCKS, ChangeVersionService.structureScope(hospitalId));
         return blockRepository.save(block);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public Block getBlock(Long blockId) {
         log.info("Fetching block with ID: {}", blockId);
         return blockRepository.findById(blockId)
             .orElseThrow(() -> new ResourceNotFoundException("Block not found with id: " + blockId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Block> getBlocksByHospital(Long hospitalId) {
         log.info("Fetching blocks for hospital ID: {}", hospitalId);
         Hospital hospital = hospitalRepository.findById(hospitalId)
@@ -50,13 +69,15 @@ public class BlockService {
         return blockRepository.findByHospital(hospital);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Block> getBlocksByFloor(Integer floorNumber) {
         log.info("Fetching blocks for floor number: {}", floorNumber);
         return blockRepository.findByFloorNumber(floorNumber);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Block updateBlock(Long blockId, Block blockDetails) {
         log.info("Updating block with ID: {}", blockId);
@@ -64,14 +85,25 @@ public class BlockService {
         block.setName(blockDetails.getName());
         block.setDescription(blockDetails.getDescription());
         block.setFloorNumber(blockDetails.getFloorNumber());
+        changeVersionService.bump(ChangeVersionService.BLOCKS, ChangeVersionService.structureScope(block.getHospital().getId()));
         return blockRepository.save(block);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public void deleteBlock(Long blockId) {
         log.info("Deleting block with ID: {}", blockId);
         Block block = getBlock(blockId);
+        // The cascade reaches the doctors' appointments but not their waitlist entries, which have to go first
+        List<Long> doctorIds = doctorRepository.findIdsByBlockId(blockId);
+        if (!doctorIds.isEmpty()) {
+            waitlistEntryRepository.deleteByDoctorIdIn(doctorIds);
+        }
         blockRepository.delete(block);
+        doctorIds.forEach(id -> eventPublisher.publishEvent(new DoctorDeletedEvent(id)));
+        // Cascades to the block's departments and their doctors
+        changeVersionService.bump(ChangeVersionService.BLOCKS, ChangeVersionService.DEPARTMENTS, ChangeVersionService.DOCTORS,
+            ChangeVersionService.structureScope(block.getHospital().getId()));
     }
 }
@@ -0,0 +1,359 @@
+package com.hospital.service;
+
+import com.hospital.config.ShardContext;
+import com.hospital.config.ShardDirectory;
+import com.hospital.dto.ChangeBatchDTO;
+import com.hospital.dto.ChangeEventDTO;
+import com.hospital.event.ChangesRelayedEvent;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Relays the transactional outbox ({@link ChangeOutboxService}) to downstream consumers, so they follow
+ * appointment, bill, medical record, waitlist and patient changes instead of polling the REST APIs.
+ * <p>
+ * Every {@code outbox.relay.poll-interval-ms} each node sequences committed outbox rows in batches (one node at
+ * a time does this per shard) and reads the newly sequenced rows into an in-memory buffer of the last
+ * {@code outbox.relay.buffer-size} changes. Waiting long-polls and SSE streams are served from the buffer; a
+ * consumer further behind reads from the table until it catches up. Offsets come from the database, so a
+ * consumer can resume on any node. With hospital sharding each shard has its own feed, picked like any other
+ * request by the hospital it names.
+ */
+@Service
+@Log4j2
+public class ChangeFeedService {
+    public static final Set<String> ENTITY_TYPES =
+        Set.of(ChangeOutboxService.APPOINTMENT, ChangeOutboxService.BILL, ChangeOutboxService.MEDICAL_RECORD,
+               ChangeOutboxService.WAITLIST, ChangeOutboxService.PATIENT);
+
+    private final ChangeOutboxService changeOutboxService;
+    private final ShardDirectory shardDirectory;
+    private final ShardQueryService shardQueryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskExecutor changeFeedExecutor;
+    private final int relayBatchSize;
+    private final int bufferSize;
+    private final int maxBatchSize;
+    private final long maxWaitMillis;
+    private final long streamTimeoutMillis;
+    private final Map<String, ShardFeed> feeds = new ConcurrentHashMap<>();
+
+    public ChangeFeedService(ChangeOutboxService changeOutboxService, ShardDirectory shardDirectory,
+                             ShardQueryService shardQueryService, ApplicationEventPublisher eventPublisher,
+                             @Qualifier("changeFeedExecutor") ThreadPoolTaskExecutor changeFeedExecutor,
+                             @Value("${outbox.relay.batch-size:1000}") int relayBatchSize,
+                             @Value("${outbox.relay.buffer-size:20000}") int bufferSize,
+                             @Value("${changes.max-batch-size:1000}") int maxBatchSize,
+                             @Value("${changes.long-poll.max-wait-ms:30000}") long maxWaitMillis,
+                             @Value("${changes.stream.timeout-ms:300000}") long streamTimeoutMillis) {
+        this.changeOutboxService = changeOutboxService;
+        this.shardDirectory = shardDirectory;
+        this.shardQueryService = shardQueryService;
+        this.eventPublisher = eventPublisher;
+        this.changeFeedExecutor = changeFeedExecutor;
+        this.relayBatchSize = relayBatchSize;
+        this.bufferSize = bufferSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    /**
+     * Which changes a consumer wants: some entity types (all when empty) of one hospital (all when null).
+     */
+    public record Filter(Set<String> entityTypes, Long hospitalId) {
+        public Filter {
+            entityTypes = entityTypes == null ? Set.of() : Set.copyOf(entityTypes);
+            for (String entityType : entityTypes) {
+                if (!ENTITY_TYPES.contains(entityType)) {
+                    throw new IllegalArgumentException("Unknown change entity type: " + entityType);
+                }
+            }
+        }
+
+        boolean matches(ChangeEventDTO event) {
+            return (entityTypes.isEmpty() || entityTypes.contains(event.entityType()))
+                && (hospitalId == null || hospitalId.equals(event.hospitalId()));
+        }
+    }
+
+    /**
+     * Up to {@code limit} changes after offset {@code after}. When there are none yet, waits up to
+     * {@code waitMillis} for the first ones to be relayed before answering with an empty batch.
+     */
+    public DeferredResult<ChangeBatchDTO> poll(long after, int limit, long waitMillis, Filter filter) {
+        if (limit < 1 || limit > maxBatchSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxBatchSize);
+        }
+        if (waitMillis < 0 || waitMillis > maxWaitMillis) {
+            throw new IllegalArgumentException("waitMs must be between 0 and " + maxWaitMillis);
+        }
+        ShardFeed feed = feed(shardDirectory.currentShard());
+        if (waitMillis == 0) {
+            DeferredResult<ChangeBatchDTO> result = new DeferredResult<>();
+            result.setResult(read(feed, after, limit, filter));
+            return result;
+        }
+        Waiter waiter = new Waiter(after, limit, filter);
+        DeferredResult<ChangeBatchDTO> result =
+            new DeferredResult<>(waitMillis, () -> read(feed, waiter.after, waiter.limit, waiter.filter));
+        waiter.result = result;
+        result.onCompletion(() -> feed.waiters.remove(waiter));
+        // Registered before the first read, so changes relayed in between wake it
+        feed.waiters.add(waiter);
+        offer(feed, waiter);
+        return result;
+    }
+
+    /**
+     * Streams changes after offset {@code after} as server-sent events whose IDs are the offsets, so a client
+     * reconnecting with {@code Last-Event-ID} resumes where it stopped.
+     */
+    public SseEmitter stream(long after, Filter filter) {
+        ShardFeed feed = feed(shardDirectory.currentShard());
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscription subscription = new Subscription(feed, filter, emitter, after);
+        emitter.onCompletion(() -> close(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> close(subscription));
+        feed.subscriptions.add(subscription);
+        drain(subscription);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:100}")
+    public void relay() {
+        shardQueryService.forEachShard(shard -> {
+            ShardFeed feed = feed(shard);
+            boolean more;
+            do {
+                int sequenced = changeOutboxService.sequence(relayBatchSize);
+                List<ChangeEventDTO> loaded =
+                    changeOutboxService.readAfter(feed.horizon, Long.MAX_VALUE, relayBatchSize, null, null);
+                if (!loaded.isEmpty()) {
+                    feed.append(loaded);
+                    publish(feed);
+                    eventPublisher.publishEvent(new ChangesRelayedEvent(shard, loaded));
+                }
+                more = sequenced == relayBatchSize || loaded.size() == relayBatchSize;
+            } while (more);
+        });
+    }
+
+    /**
+     * Keeps idle streams alive through proxies, and notices clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${changes.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (ShardFeed feed : feeds.values()) {
+            for (Subscription subscription : feed.subscriptions) {
+                subscription.heartbeatDue = true;
+                drain(subscription);
+            }
+        }
+    }
+
+    private ShardFeed feed(String shard) {
+        return feeds.computeIfAbsent(shard, name ->
+            new ShardFeed(name, bufferSize, ShardContext.onShard(name, changeOutboxService::lastOffset)));
+    }
+
+    private ChangeBatchDTO read(ShardFeed feed, long after, int limit, Filter filter) {
+        ChangeBatchDTO buffered = feed.read(after, limit, filter);
+        if (buffered != null) {
+            return buffered;
+        }
+        long horizon = feed.horizon;
+        List<ChangeEventDTO> events = ShardContext.onShard(feed.shard, () ->
+            changeOutboxService.readAfter(after, horizon, limit, filter.entityTypes(), filter.hospitalId()));
+        return new ChangeBatchDTO(events, events.size() == limit ? events.get(limit - 1).offset() : horizon);
+    }
+
+    private void publish(ShardFeed feed) {
+        for (Waiter waiter : feed.waiters) {
+            offer(feed, waiter);
+        }
+        for (Subscription subscription : feed.subscriptions) {
+            drain(subscription);
+        }
+    }
+
+    private void offer(ShardFeed feed, Waiter waiter) {
+        synchronized (waiter) {
+            if (waiter.result.isSetOrExpired()) {
+                feed.waiters.remove(waiter);
+                return;
+            }
+            ChangeBatchDTO batch = read(feed, waiter.after, waiter.limit, waiter.filter);
+            if (batch.events().isEmpty()) {
+                // Nothing up to here matches; later offers scan only what is relayed after it
+                waiter.after = batch.nextOffset();
+            } else if (waiter.result.setResult(batch)) {
+                feed.waiters.remove(waiter);
+            }
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        if (subscription.closed || !subscription.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            changeFeedExecutor.execute(() -> pump(subscription));
+        } catch (TaskRejectedException e) {
+            // Picked up again by the next relay or heartbeat
+            subscription.draining.set(false);
+        }
+    }
+
+    private void pump(Subscription subscription) {
+        try {
+            if (subscription.heartbeatDue) {
+                subscription.heartbeatDue = false;
+                subscription.emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+            ChangeBatchDTO batch;
+            do {
+                batch = read(subscription.feed, subscription.offset, maxBatchSize, subscription.filter);
+                for (ChangeEventDTO event : batch.events()) {
+                    subscription.emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.offset()))
+                        .data(event, MediaType.APPLICATION_JSON));
+                }
+                subscription.offset = batch.nextOffset();
+            } while (!subscription.closed && batch.events().size() == maxBatchSize);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Change stream closed: {}", e.getMessage());
+            subscription.emitter.completeWithError(e);
+            close(subscription);
+        } finally {
+            subscription.draining.set(false);
+        }
+        // Changes relayed while this pump was finishing found it still draining
+        if (!subscription.closed && (subscription.offset < subscription.feed.horizon || subscription.heartbeatDue)) {
+            drain(subscription);
+        }
+    }
+
+    private void close(Subscription subscription) {
+        subscription.closed = true;
+        subscription.feed.subscriptions.remove(subscription);
+    }
+
+    /**
+     * The last relayed changes of one shard, oldest first.
+     */
+    private static final class ShardFeed {
+        private final String shard;
+        private final ChangeEventDTO[] ring;
+        private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+        private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+        private int start;
+        private int size;
+        // Every change after this offset, up to the horizon, is in the ring
+        private long bufferedAfter;
+        private volatile long horizon;
+
+        private ShardFeed(String shard, int capacity, long lastOffset) {
+            this.shard = shard;
+            this.ring = new ChangeEventDTO[capacity];
+            this.bufferedAfter = lastOffset;
+            this.horizon = lastOffset;
+        }
+
+        private synchronized void append(List<ChangeEventDTO> events) {
+            for (ChangeEventDTO event : events) {
+                if (size == ring.length) {
+                    bufferedAfter = ring[start].offset();
+                    ring[start] = null;
+                    start = (start + 1) % ring.length;
+                    size--;
+                }
+                ring[(start + size) % ring.length] = event;
+                size++;
+            }
+            horizon = events.get(events.size() - 1).offset();
+        }
+
+        /**
+         * Null when changes after {@code after} have already left the ring.
+         */
+        private synchronized ChangeBatchDTO read(long after, int limit, Filter filter) {
+            if (after < bufferedAfter) {
+                return null;
+            }
+            List<ChangeEventDTO> events = new ArrayList<>();
+            for (int i = firstAfter(after); i < size && events.size() < limit; i++) {
+                ChangeEventDTO event = ring[(start + i) % ring.length];
+                if (filter.matches(event)) {
+                    events.add(event);
+                }
+            }
+            long nextOffset = events.size() == limit ? events.get(limit - 1).offset() : Math.max(horizon, after);
+            return new ChangeBatchDTO(events, nextOffset);
+        }
+
+        private int firstAfter(long offset) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ring[(start + mid) % ring.length].offset() <= offset) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Waiter {
+        private final int limit;
+        private final Filter filter;
+        private volatile long after;
+        private DeferredResult<ChangeBatchDTO> result;
+
+        private Waiter(long after, int limit, Filter filter) {
+            this.after = after;
+            this.limit = limit;
+            this.filter = filter;
+        }
+    }
+
+    private static final class Subscription {
+        private final ShardFeed feed;
+        private final Filter filter;
+        private final SseEmitter emitter;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long offset;
+        private volatile boolean closed;
+        private volatile boolean heartbeatDue;
+
+        private Subscription(ShardFeed feed, Filter filter, SseEmitter emitter, long offset) {
+            this.feed = feed;
+            this.filter = filter;
+            this.emitter = emitter;
+            this.offset = offset;
+        }
+    }
+}
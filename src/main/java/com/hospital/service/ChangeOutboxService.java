@@ -0,0 +1,230 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.dto.ChangeEventDTO;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code change_outbox} table behind the change feed ({@link ChangeFeedService}).
+ * <p>
+ * Writers call {@link #record} inside their transaction, so a change is in the outbox if and only if it
+ * commits. {@link #sequence} then gives committed rows their feed offset ({@code seq}); in-flight rows are
+ * skipped until they commit, so offsets follow commit visibility and a consumer never resumes past a change
+ * that was still open. Rows older than {@code outbox.compaction.after-hours} are compacted down to the
+ * latest change of each entity. With hospital sharding each shard has its own outbox and offsets.
+ */
+@Service
+@Log4j2
+public class ChangeOutboxService {
+    public static final String APPOINTMENT = "APPOINTMENT";
+    public static final String BILL = "BILL";
+    public static final String MEDICAL_RECORD = "MEDICAL_RECORD";
+    public static final String WAITLIST = "WAITLIST";
+    public static final String PATIENT = "PATIENT";
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String RESCHEDULED = "RESCHEDULED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String PAYMENT_ADDED = "PAYMENT_ADDED";
+    public static final String OFFERED = "OFFERED";
+    public static final String OFFER_DECLINED = "OFFER_DECLINED";
+    public static final String OFFER_EXPIRED = "OFFER_EXPIRED";
+    public static final String BOOKED = "BOOKED";
+    public static final String REMOVED = "REMOVED";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO change_outbox (entity_type, entity_id, change_type, hospital_id, patient_id, payload, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS =
+        "SELECT seq, entity_type, entity_id, change_type, hospital_id, patient_id, payload, created_at FROM change_outbox ";
+    private static final String COMPACT_SQL =
+        "DELETE older FROM change_outbox older JOIN change_outbox newer " +
+        "ON newer.entity_type = older.entity_type AND newer.entity_id = older.entity_id AND newer.seq > older.seq " +
+        "WHERE newer.seq > ? AND newer.seq <= ?";
+
+    private static final RowMapper<ChangeEventDTO> EVENT_MAPPER = (rs, rowNum) -> new ChangeEventDTO(
+        rs.getLong("seq"), rs.getString("entity_type"), rs.getLong("entity_id"), rs.getString("change_type"),
+        rs.getObject("hospital_id", Long.class), rs.getObject("patient_id", Long.class), rs.getString("payload"),
+        rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ShardQueryService shardQueryService;
+    private final TransactionTemplate sequenceTransaction;
+    private final Duration compactAfter;
+    private final int compactionBatchSize;
+
+    public ChangeOutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                               ShardQueryService shardQueryService, PlatformTransactionManager transactionManager,
+                               @Value("${outbox.compaction.after-hours:24}") long compactAfterHours,
+                               @Value("${outbox.compaction.batch-size:5000}") int compactionBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.shardQueryService = shardQueryService;
+        this.compactAfter = Duration.ofHours(compactAfterHours);
+        this.compactionBatchSize = compactionBatchSize;
+        this.sequenceTransaction = new TransactionTemplate(transactionManager);
+        // Record locks only: under REPEATABLE READ the scan of unsequenced rows would gap-lock writers' inserts
+        this.sequenceTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Records a change in the caller's transaction. {@code payload} should stay small: the few fields a
+     * consumer needs to decide whether to fetch the entity.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String entityType, Long entityId, String changeType, Long hospitalId, Long patientId,
+                       Map<String, ?> payload) {
+        String json;
+        try {
+            json = payload == null || payload.isEmpty() ? null : objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize change payload for " + entityType + " " + entityId, e);
+        }
+        jdbcTemplate.update(INSERT_SQL, entityType, entityId, changeType, hospitalId, patientId, json,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Records the same change, without payload, for many patients of one hospital in one JDBC batch, e.g. an
+     * import chunk or a purge batch. {@code hospitalId} may be null when the patients' hospital is unknown.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPatients(String changeType, Long hospitalId, Collection<Long> patientIds) {
+        if (patientIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(patientIds.size());
+        for (Long patientId : patientIds) {
+            rows.add(new Object[]{PATIENT, patientId, changeType, hospitalId, patientId, null, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Gives up to {@code batchSize} committed rows their offsets, on the current shard. Returns how many were
+     * sequenced; 0 as well when another node is sequencing right now.
+     */
+    public int sequence(int batchSize) {
+        Integer sequenced = sequenceTransaction.execute(status -> {
+            List<Long> nextSeq = jdbcTemplate.queryForList(
+                "SELECT next_seq FROM change_outbox_sequence WHERE id = 1 FOR UPDATE SKIP LOCKED", Long.class);
+            if (nextSeq.isEmpty()) {
+                return 0;
+            }
+            // Without ORDER BY: InnoDB returns the NULL range of the seq index in ID order anyway, but MySQL would
+            // sort the whole backlog for every batch. Any set of committed rows may be sequenced together.
+            List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT id FROM change_outbox WHERE seq IS NULL LIMIT ? FOR UPDATE SKIP LOCKED", Long.class, batchSize));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            Collections.sort(ids);
+            // Offsets keep the ID spacing within a batch, so one statement assigns them all in order
+            long firstId = ids.get(0);
+            long base = nextSeq.get(0);
+            jdbcTemplate.update("UPDATE change_outbox SET seq = ? + id - ? WHERE id IN ("
+                    + String.join(",", Collections.nCopies(ids.size(), "?")) + ")", batchArgs(base, firstId, ids));
+            jdbcTemplate.update("UPDATE change_outbox_sequence SET next_seq = ? WHERE id = 1",
+                    base + ids.get(ids.size() - 1) - firstId + 1);
+            return ids.size();
+        });
+        return sequenced != null ? sequenced : 0;
+    }
+
+    /**
+     * Highest offset given out so far on the current shard, or 0.
+     */
+    public long lastOffset() {
+        Long last = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM change_outbox", Long.class);
+        return last != null ? last : 0;
+    }
+
+    /**
+     * Sequenced changes after {@code after} up to {@code through}, oldest first, on the current shard. Reads
+     * the primary: a replica could still miss offsets the feed has already handed out.
+     */
+    public List<ChangeEventDTO> readAfter(long after, long through, int limit, Set<String> entityTypes, Long hospitalId) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append("WHERE seq > ? AND seq <= ?");
+        List<Object> args = new ArrayList<>(List.of(after, through));
+        if (entityTypes != null && !entityTypes.isEmpty()) {
+            sql.append(" AND entity_type IN (").append(String.join(",", Collections.nCopies(entityTypes.size(), "?"))).append(')');
+            args.addAll(entityTypes);
+        }
+        if (hospitalId != null) {
+            sql.append(" AND hospital_id = ?");
+            args.add(hospitalId);
+        }
+        sql.append(" ORDER BY seq LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), EVENT_MAPPER, args.toArray());
+    }
+
+    /**
+     * Deletes every change older than {@code outbox.compaction.after-hours} that a later change of the same
+     * entity supersedes, so a consumer that starts over still gets every entity's latest change while the
+     * outbox grows with the number of entities rather than with write volume. Progress is kept in
+     * {@code change_outbox_sequence}; each batch of offsets is one short statement.
+     */
+    @Scheduled(fixedDelayString = "${outbox.compaction.interval-ms:600000}")
+    public void compact() {
+        shardQueryService.forEachShard(shard -> {
+            long from = jdbcTemplate.queryForObject(
+                "SELECT compacted_through FROM change_outbox_sequence WHERE id = 1", Long.class);
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(compactAfter));
+            List<Long> firstRecent = jdbcTemplate.queryForList(
+                "SELECT seq FROM change_outbox WHERE seq > ? AND created_at >= ? ORDER BY seq LIMIT 1",
+                Long.class, from, cutoff);
+            long through = firstRecent.isEmpty() ? lastOffset() : firstRecent.get(0) - 1;
+            int deleted = 0;
+            // Batches by row count: offsets are sparse wherever rows committed out of ID order
+            for (long start = from; start < through; ) {
+                List<Long> batchEnd = jdbcTemplate.queryForList(
+                    "SELECT seq FROM change_outbox WHERE seq > ? AND seq <= ? ORDER BY seq LIMIT 1 OFFSET ?",
+                    Long.class, start, through, compactionBatchSize - 1);
+                long end = batchEnd.isEmpty() ? through : batchEnd.get(0);
+                deleted += jdbcTemplate.update(COMPACT_SQL, start, end);
+                jdbcTemplate.update("UPDATE change_outbox_sequence SET compacted_through = ? " +
+                        "WHERE id = 1 AND compacted_through < ?", end, end);
+                start = end;
+            }
+            if (deleted > 0) {
+                log.info("Compacted {} superseded changes up to offset {} on shard '{}'", deleted, through, shard);
+            }
+        });
+    }
+
+    private static Object[] batchArgs(long base, long firstId, List<Long> ids) {
+        Object[] args = new Object[ids.size() + 2];
+        args[0] = base;
+        args[1] = firstId;
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 2] = ids.get(i);
+        }
+        return args;
+    }
+}
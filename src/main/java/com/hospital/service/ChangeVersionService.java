@@ -0,0 +1,131 @@
+package com.hospital.service;
+
+import com.hospital.config.ShardDirectory;
+import com.hospital.event.ChangeVersionAdvancedEvent;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cross-replica change notification through the {@code change_version} table.
+ * <p>
+ * Writers call {@link #bump} inside their transaction, so the version moves if and only if the
+ * write commits. Every node polls the table and publishes a {@link ChangeVersionAdvancedEvent} for
+ * each scope whose version moved; the writing node publishes right after commit instead of waiting
+ * for the next poll. With hospital sharding each shard has its own table, and versions are tracked per shard.
+ */
+@Service
+@Log4j2
+public class ChangeVersionService {
+    public static final String HOSPITALS = "hospital";
+    public static final String BLOCKS = "block";
+    public static final String DEPARTMENTS = "department";
+    public static final String DOCTORS = "doctor";
+    public static final String STRUCTURE_SCOPE_PREFIX = "structure:";
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO change_version (scope, version, updated_at) VALUES (?, 1, ?) " +
+        "ON DUPLICATE KEY UPDATE version = version + 1, updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardDirectory shardDirectory;
+    private final ShardQueryService shardQueryService;
+    private final Map<String, Long> knownVersions = new ConcurrentHashMap<>();
+    private volatile boolean initialized;
+
+    public ChangeVersionService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                ShardDirectory shardDirectory, ShardQueryService shardQueryService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.shardDirectory = shardDirectory;
+        this.shardQueryService = shardQueryService;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump(String... scopes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String scope : scopes) {
+            jdbcTemplate.update(UPSERT_SQL, scope, now);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String scope : scopes) {
+                    advance(scope, readVersion(scope));
+                }
+            }
+        });
+    }
+
+    /**
+     * Scope covering one hospital's blocks, departments and doctors.
+     */
+    public static String structureScope(Long hospitalId) {
+        return STRUCTURE_SCOPE_PREFIX + hospitalId;
+    }
+
+    /**
+     * Last version this node has seen for the scope on the current shard, or 0 if it has never changed.
+     */
+    public long currentVersion(String scope) {
+        String key = versionKey(scope);
+        Long version = knownVersions.get(key);
+        if (version == null) {
+            version = readVersion(scope);
+            knownVersions.putIfAbsent(key, version);
+        }
+        return version;
+    }
+
+    @Scheduled(fixedDelayString = "${change-version.poll-interval-ms:2000}")
+    public void poll() {
+        shardQueryService.forEachShard(shard -> {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT scope, version FROM change_version");
+            for (Map<String, Object> row : rows) {
+                advance((String) row.get("scope"), ((Number) row.get("version")).longValue());
+            }
+        });
+        initialized = true;
+    }
+
+    private String versionKey(String scope) {
+        return shardDirectory.currentShard() + "/" + scope;
+    }
+
+    private void advance(String scope, long version) {
+        String key = versionKey(scope);
+        Long previous = knownVersions.get(key);
+        if (previous != null && previous >= version) {
+            return;
+        }
+        if (previous == null ? knownVersions.putIfAbsent(key, version) != null
+                             : !knownVersions.replace(key, previous, version)) {
+            // Another thread advanced it concurrently; let it publish
+            return;
+        }
+        // The first poll only learns the baseline; nothing is cached from before this node started
+        if (initialized || previous != null) {
+            log.debug("Change scope '{}' advanced to version {}", scope, version);
+            eventPublisher.publishEvent(new ChangeVersionAdvancedEvent(scope, version));
+        }
+    }
+
+    private long readVersion(String scope) {
+        List<Long> versions = jdbcTemplate.queryForList(
+            "SELECT version FROM change_version WHERE scope = ?", Long.class, scope);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+}
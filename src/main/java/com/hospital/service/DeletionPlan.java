@@ -0,0 +1,132 @@
+package com.hospital.service;
+
+import com.hospital.entity.DeletionJob.TargetType;
+
+import java.util.List;
+
+/**
+ * Ordered purge steps per deletion target, children before parents so no step trips a foreign key.
+ * <p>
+ * Each step selects a bounded batch of row IDs ({@code :targetId}, {@code :limit}) and applies its
+ * statements to exactly those IDs ({@code :ids}). A step is finished when its select returns nothing,
+ * which makes every step idempotent and lets a job resume mid-step after a crash.
+ */
+final class DeletionPlan {
+
+    record Step(String name, String selectIds, List<String> statements, Purges purges) {
+        Step(String name, String selectIds, String... statements) {
+            this(name, selectIds, List.of(statements), Purges.OTHER);
+        }
+    }
+
+    /**
+     * What a step's IDs are, when other components keep those rows in memory and must hear of the purge.
+     */
+    enum Purges {
+        OTHER, PATIENTS, DOCTORS
+    }
+
+    private static final String HOSPITAL_PATIENTS = "SELECT p.id FROM patient p WHERE p.hospital_id = :targetId";
+    private static final String HOSPITAL_DEPARTMENTS = "SELECT dp.id FROM department dp WHERE dp.hospital_id = :targetId";
+    private static final String HOSPITAL_DOCTORS = "SELECT d.id FROM doctor d WHERE d.hospital_id = :targetId " +
+        "OR d.department_id IN (" + HOSPITAL_DEPARTMENTS + ")";
+    private static final String DEPARTMENT_DOCTORS = "SELECT d.id FROM doctor d WHERE d.department_id = :targetId";
+
+    private static final String[] DELETE_BILLS = {
+        "DELETE FROM bill_item WHERE bill_id IN (:ids)",
+        "DELETE FROM bill WHERE id IN (:ids)"
+    };
+    private static final String[] DELETE_MEDICAL_RECORDS = {
+        "DELETE FROM medical_record_allergies WHERE medical_record_id IN (:ids)",
+        "DELETE FROM medical_record_vital_signs WHERE medical_record_id IN (:ids)",
+        "DELETE FROM medical_record WHERE id IN (:ids)"
+    };
+
+    private static final String DELETE_WAITLIST = "DELETE FROM waitlist_entry WHERE id IN (:ids)";
+
+    private static final List<Step> HOSPITAL = List.of(
+        new Step("bills",
+            "SELECT b.id FROM bill b WHERE b.hospital_id = :targetId OR b.patient_id IN (" + HOSPITAL_PATIENTS + ") LIMIT :limit",
+            DELETE_BILLS),
+        new Step("medical records",
+            "SELECT mr.id FROM medical_record mr WHERE mr.patient_id IN (" + HOSPITAL_PATIENTS + ") " +
+            "OR mr.doctor_id IN (" + HOSPITAL_DOCTORS + ") LIMIT :limit",
+            DELETE_MEDICAL_RECORDS),
+        new Step("appointments",
+            "SELECT a.id FROM appointment a WHERE a.patient_id IN (" + HOSPITAL_PATIENTS + ") " +
+            "OR a.doctor_id IN (" + HOSPITAL_DOCTORS + ") LIMIT :limit",
+            "DELETE FROM appointment WHERE id IN (:ids)"),
+        new Step("waitlist",
+            "SELECT w.id FROM waitlist_entry w WHERE w.patient_id IN (" + HOSPITAL_PATIENTS + ") " +
+            "OR w.doctor_id IN (" + HOSPITAL_DOCTORS + ") LIMIT :limit",
+            DELETE_WAITLIST),
+        new Step("service catalog",
+            "SELECT s.id FROM service_catalog s WHERE s.hospital_id = :targetId " +
+            "OR s.department_id IN (" + HOSPITAL_DEPARTMENTS + ") LIMIT :limit",
+            "DELETE FROM service_catalog WHERE id IN (:ids)"),
+        new Step("patients",
+            HOSPITAL_PATIENTS + " LIMIT :limit",
+            List.of("DELETE FROM patient WHERE id IN (:ids)"), Purges.PATIENTS),
+        new Step("doctors",
+            HOSPITAL_DOCTORS + " LIMIT :limit",
+            List.of("DELETE FROM doctor WHERE id IN (:ids)"), Purges.DOCTORS),
+        new Step("departments",
+            "SELECT dp.id FROM department dp WHERE dp.hospital_id = :targetId " +
+            "OR dp.block_id IN (SELECT bl.id FROM block bl WHERE bl.hospital_id = :targetId) LIMIT :limit",
+            "DELETE FROM department WHERE id IN (:ids)"),
+        new Step("blocks",
+            "SELECT bl.id FROM block bl WHERE bl.hospital_id = :targetId LIMIT :limit",
+            "DELETE FROM block WHERE id IN (:ids)"),
+        new Step("hospital",
+            "SELECT h.id FROM hospital h WHERE h.id = :targetId LIMIT :limit",
+            "DELETE FROM hospital WHERE id IN (:ids)")
+    );
+
+    // Medical records are never purged with a department; DepartmentService refuses the request instead
+    private static final List<Step> DEPARTMENT = List.of(
+        new Step("appointments",
+            "SELECT a.id FROM appointment a WHERE a.doctor_id IN (" + DEPARTMENT_DOCTORS + ") LIMIT :limit",
+            "DELETE FROM appointment WHERE id IN (:ids)"),
+        new Step("waitlist",
+            "SELECT w.id FROM waitlist_entry w WHERE w.doctor_id IN (" + DEPARTMENT_DOCTORS + ") LIMIT :limit",
+            DELETE_WAITLIST),
+        new Step("service catalog",
+            "SELECT s.id FROM service_catalog s WHERE s.department_id = :targetId LIMIT :limit",
+            "UPDATE service_catalog SET department_id = NULL WHERE id IN (:ids)"),
+        new Step("doctors",
+            DEPARTMENT_DOCTORS + " LIMIT :limit",
+            List.of("DELETE FROM doctor WHERE id IN (:ids)"), Purges.DOCTORS),
+        new Step("department",
+            "SELECT dp.id FROM department dp WHERE dp.id = :targetId LIMIT :limit",
+            "DELETE FROM department WHERE id IN (:ids)")
+    );
+
+    private static final List<Step> PATIENT = List.of(
+        new Step("bills",
+            "SELECT b.id FROM bill b WHERE b.patient_id = :targetId LIMIT :limit",
+            DELETE_BILLS),
+        new Step("medical records",
+            "SELECT mr.id FROM medical_record mr WHERE mr.patient_id = :targetId LIMIT :limit",
+            DELETE_MEDICAL_RECORDS),
+        new Step("appointments",
+            "SELECT a.id FROM appointment a WHERE a.patient_id = :targetId LIMIT :limit",
+            "DELETE FROM appointment WHERE id IN (:ids)"),
+        new Step("waitlist",
+            "SELECT w.id FROM waitlist_entry w WHERE w.patient_id = :targetId LIMIT :limit",
+            DELETE_WAITLIST),
+        new Step("patient",
+            "SELECT p.id FROM patient p WHERE p.id = :targetId LIMIT :limit",
+            List.of("DELETE FROM patient WHERE id IN (:ids)"), Purges.PATIENTS)
+    );
+
+    private DeletionPlan() {
+    }
+
+    static List<Step> forTarget(TargetType targetType) {
+        return switch (targetType) {
+            case HOSPITAL -> HOSPITAL;
+            case DEPARTMENT -> DEPARTMENT;
+            case PATIENT -> PATIENT;
+        };
+    }
+}
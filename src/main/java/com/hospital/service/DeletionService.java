@@ -0,0 +1,281 @@
+package com.hospital.service;
+
+import com.hospital.entity.DeletionJob;
+import com.hospital.entity.DeletionJob.DeletionStatus;
+import com.hospital.entity.DeletionJob.TargetType;
+import com.hospital.event.DoctorDeletedEvent;
+import com.hospital.event.PatientChangedEvent;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.DeletionJobRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Background deletion engine for hospitals, departments and patients.
+ * <p>
+ * A delete request only soft-deletes the root row and records a {@link DeletionJob}; the request thread
+ * never touches children. A scheduled worker then claims jobs under a lease (so one replica works a job
+ * at a time, and a crashed replica's job is picked up once its lease expires) and walks the
+ * {@link DeletionPlan}, deleting at most {@code deletion.batch-size} rows per short transaction. Progress
+ * is committed with each batch, so a job resumes exactly where it stopped.
+ */
+@Service
+@Log4j2
+public class DeletionService {
+    private final DeletionJobRepository deletionJobRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeVersionService changeVersionService;
+    private final ShardQueryService shardQueryService;
+    private final ChangeOutboxService changeOutboxService;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final String owner;
+
+    public DeletionService(DeletionJobRepository deletionJobRepository,
+                           NamedParameterJdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           ChangeVersionService changeVersionService,
+                           ShardQueryService shardQueryService,
+                           ChangeOutboxService changeOutboxService,
+                           @Value("${deletion.batch-size:500}") int batchSize,
+                           @Value("${deletion.batch-pause-ms:50}") long batchPauseMs,
+                           @Value("${deletion.max-attempts:5}") int maxAttempts,
+                           @Value("${deletion.lease-seconds:60}") long leaseSeconds) {
+        this.deletionJobRepository = deletionJobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.changeVersionService = changeVersionService;
+        this.shardQueryService = shardQueryService;
+        this.changeOutboxService = changeOutboxService;
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    /**
+     * Soft-deletes the target and queues its purge. Joins the caller's transaction so the
+     * soft delete and the job commit together.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public DeletionJob requestDeletion(TargetType targetType, Long targetId) {
+        String table = switch (targetType) {
+            case HOSPITAL -> "hospital";
+            case DEPARTMENT -> "department";
+            case PATIENT -> "patient";
+        };
+        int marked = jdbcTemplate.update("UPDATE " + table + " SET deleted_at = :now WHERE id = :id AND deleted_at IS NULL",
+            Map.of("now", LocalDateTime.now(), "id", targetId));
+        if (marked == 0) {
+            throw new IllegalStateException(targetType + " " + targetId + " is already being deleted");
+        }
+        // The soft delete bypasses Hibernate, so cached copies must be dropped explicitly
+        bumpCachedScopes(targetType);
+        Long structureHospitalId = switch (targetType) {
+            case HOSPITAL -> targetId;
+            case DEPARTMENT -> jdbcTemplate.queryForObject("SELECT hospital_id FROM department WHERE id = :id",
+                Map.of("id", targetId), Long.class);
+            case PATIENT -> null;
+        };
+        if (structureHospitalId != null) {
+            changeVersionService.bump(ChangeVersionService.structureScope(structureHospitalId));
+        }
+
+        DeletionJob job = new DeletionJob();
+        job.setTargetType(targetType);
+        job.setTargetId(targetId);
+        job.setCurrentStep(DeletionPlan.forTarget(targetType).get(0).name());
+        DeletionJob saved = deletionJobRepository.save(job);
+        log.info("Queued deletion job {} for {} ID: {}", saved.getId(), targetType, targetId);
+        return saved;
+    }
+
+    public DeletionJob getJob(Long jobId) {
+        return deletionJobRepository.findById(jobId)
+            .orElseThrow(() -> new ResourceNotFoundException("Deletion job not found with id: " + jobId));
+    }
+
+    @Transactional
+    public DeletionJob retryJob(Long jobId) {
+        DeletionJob job = getJob(jobId);
+        if (job.getStatus() != DeletionStatus.FAILED) {
+            throw new IllegalStateException("Only failed deletion jobs can be retried; job " + jobId + " is " + job.getStatus());
+        }
+        job.setStatus(DeletionStatus.PENDING);
+        job.setAttempts(0);
+        job.setLeaseUntil(null);
+        log.info("Deletion job {} re-queued from step '{}'", jobId, job.getCurrentStep());
+        return deletionJobRepository.save(job);
+    }
+
+    @Scheduled(fixedDelayString = "${deletion.poll-interval-ms:5000}")
+    public void processJobs() {
+        // Jobs are stored on the shard holding the rows they delete
+        shardQueryService.forEachShard(shard -> {
+            List<Long> candidates = deletionJobRepository.findClaimableIds(LocalDateTime.now(), PageRequest.of(0, 10));
+            for (Long jobId : candidates) {
+                LocalDateTime now = LocalDateTime.now();
+                Integer claimed = transactionTemplate.execute(status ->
+                    deletionJobRepository.claim(jobId, owner, now.plus(lease), now));
+                if (claimed != null && claimed == 1) {
+                    runJob(jobId);
+                }
+            }
+        });
+    }
+
+    private void runJob(Long jobId) {
+        DeletionJob job = getJob(jobId);
+        List<DeletionPlan.Step> steps = DeletionPlan.forTarget(job.getTargetType());
+        long start = System.currentTimeMillis();
+        int stepIndex = job.getStepIndex();
+        try {
+            while (stepIndex < steps.size()) {
+                DeletionPlan.Step step = steps.get(stepIndex);
+                int deleted = runBatch(job, stepIndex, step);
+                if (deleted == 0) {
+                    stepIndex++;
+                    String next = stepIndex < steps.size() ? steps.get(stepIndex).name() : null;
+                    int nextIndex = stepIndex;
+                    transactionTemplate.executeWithoutResult(status -> updateProgress(job, nextIndex, next, 0));
+                } else if (batchPauseMs > 0) {
+                    // Leave room for interactive traffic on the same tables
+                    Thread.sleep(batchPauseMs);
+                }
+            }
+            finish(job, DeletionStatus.COMPLETED, null);
+            log.info("Deletion job {} for {} ID: {} completed in {} ms",
+                    job.getId(), job.getTargetType(), job.getTargetId(), System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            // Shutting down; the lease expires and another instance resumes from the last committed batch
+            Thread.currentThread().interrupt();
+        } catch (LeaseLostException e) {
+            log.warn("Deletion job {} lease was taken over by another instance", job.getId());
+        } catch (Exception e) {
+            log.error("Deletion job {} failed at step '{}': {}", job.getId(), steps.get(stepIndex).name(), e.getMessage(), e);
+            if (job.getAttempts() + 1 >= maxAttempts) {
+                finish(job, DeletionStatus.FAILED, e.getMessage());
+            } else {
+                releaseLease(job, e.getMessage());
+            }
+        }
+    }
+
+    private int runBatch(DeletionJob job, int stepIndex, DeletionPlan.Step step) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(step.selectIds(),
+                new MapSqlParameterSource("targetId", job.getTargetId()).addValue("limit", batchSize), Long.class);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+            for (String statement : step.statements()) {
+                jdbcTemplate.update(statement, params);
+            }
+            // Delivered after commit to the search, allergy and waitlist indexes; other instances follow the outbox
+            switch (step.purges()) {
+                case PATIENTS -> {
+                    ids.forEach(id -> eventPublisher.publishEvent(PatientChangedEvent.deleted(id)));
+                    changeOutboxService.recordPatients(ChangeOutboxService.REMOVED, null, ids);
+                }
+                case DOCTORS -> ids.forEach(id -> eventPublisher.publishEvent(new DoctorDeletedEvent(id)));
+                case OTHER -> {
+                }
+            }
+            updateProgress(job, stepIndex, step.name(), ids.size());
+            return ids.size();
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    // Must run inside a transaction; also renews the lease
+    private void updateProgress(DeletionJob job, int stepIndex, String stepName, long deleted) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = deletionJobRepository.recordProgress(job.getId(), owner, stepIndex, stepName, deleted,
+            now.plus(lease), now);
+        if (updated == 0) {
+            throw new LeaseLostException();
+        }
+    }
+
+    private void finish(DeletionJob job, DeletionStatus status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            DeletionJob current = getJob(job.getId());
+            current.setStatus(status);
+            current.setLastError(truncate(error));
+            current.setAttempts(status == DeletionStatus.FAILED ? current.getAttempts() + 1 : current.getAttempts());
+            current.setCompletedAt(status == DeletionStatus.COMPLETED ? LocalDateTime.now() : null);
+            current.setLeaseOwner(null);
+            current.setLeaseUntil(null);
+            deletionJobRepository.save(current);
+            if (status == DeletionStatus.COMPLETED) {
+                // Purged children were removed with plain SQL, behind the second-level cache's back
+                bumpCachedScopes(current.getTargetType());
+            }
+        });
+    }
+
+    private void bumpCachedScopes(TargetType targetType) {
+        switch (targetType) {
+            case HOSPITAL -> changeVersionService.bump(ChangeVersionService.HOSPITALS, ChangeVersionService.BLOCKS,
+                ChangeVersionService.DEPARTMENTS, ChangeVersionService.DOCTORS);
+            case DEPARTMENT -> changeVersionService.bump(ChangeVersionService.DEPARTMENTS, ChangeVersionService.DOCTORS);
+            case PATIENT -> { }
+        }
+    }
+
+    // Hands the job back with a retry delay that grows with each failed attempt
+    private void releaseLease(DeletionJob job, String error) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            DeletionJob current = getJob(job.getId());
+            current.setStatus(DeletionStatus.PENDING);
+            current.setAttempts(current.getAttempts() + 1);
+            current.setLastError(truncate(error));
+            current.setLeaseOwner(null);
+            current.setLeaseUntil(LocalDateTime.now().plusSeconds(30L << Math.min(current.getAttempts(), 6)));
+            deletionJobRepository.save(current);
+        });
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super("Deletion job lease lost", null, false, false);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.hospital.service;
 
 import com.hospital.dto.DepartmentDTO;
+import com.hospital.entity.DeletionJob;
 import com.hospital.entity.Department;
 import com.hospital.entity.Hospital;
 import com.hospital.entity.Block;
+import com.hospital.exception.DomainException;
 import com.hospital.exception.DuplicateResourceException;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.DepartmentRepository;
 import com.hospital.repository.HospitalRepository;
+import com.hospital.repository.MedicalRecordRepository;
 import com.hospital.repository.BlockRepository;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.retry.annotation.Backoff;
@@ -23,16 +26,26 @@ public class DepartmentService {
     private final DepartmentRepository departmentRepository;
     private final HospitalRepository hospitalRepository;
     private final BlockRepository blockRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final DeletionService deletionService;
+    private final ChangeVersionService changeVersionService;
 
     public DepartmentService(DepartmentRepository departmentRepository,
                            HospitalRepository hospitalRepository,
-                           BlockRepository blockRepository) {
+                           BlockRepository blockRepository,
+                           MedicalRecordRepository medicalRecordRepository,
+                           DeletionService deletionService,
+                           ChangeVersionService changeVersionService) {
         this.departmentRepository = departmentRepository;
         this.hospitalRepository = hospitalRepository;
         this.blockRepository = blockRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.deletionService = deletionService;
+        this.changeVersionService = changeVersionService;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Department createDepartment(DepartmentDTO departmentDTO) {
         log.info("Creating new department: {}", departmentDTO.getName());
@@ -58,17 +71,20 @@ public class DepartmentService {
         department.setHospital(hospital);
         department.setBlock(block);
 
+        changeVersionService.bump(ChangeVersionService.DEPARTMENTS, ChangeVersionService.structureScope(hospital.getId()));
         return departmentRepository.save(department);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public Department getDepartment(Long departmentId) {
         log.info("Fetching department with ID: {}", departmentId);
         return departmentRepository.findById(departmentId)
             .orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + departmentId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Department> getDepartmentsByHospital(Long hospitalId) {
         log.info("Fetching departments for hospital ID: {}", hospitalId);
         Hospital hospital = hospitalRepository.findById(hospitalId)
@@ -76,18 +92,21 @@ public class DepartmentService {
         return departmentRepository.findByHospital(hospital);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Department> getDepartmentsByBlock(Long blockId) {
         log.info("Fetching departments for block ID: {}", blockId);
         return departmentRepository.findByBlockId(blockId);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Department updateDepartment(Long id, DepartmentDTO departmentDTO) {
         log.info("Updating department with ID: {}", id);
 
         Department department = getDepartment(id);
+        Long previousHospitalId = department.getHospital().getId();
 
         // Store original values for duplicate checking
         String newName = departmentDTO.getName() != null ? departmentDTO.getName() : department.getName();
@@ -118,14 +137,25 @@ public class DepartmentService {
             department.setBlock(block);
         }
 
+        changeVersionService.bump(ChangeVersionService.DEPARTMENTS, ChangeVersionService.structureScope(newHospitalId));
+        if (!previousHospitalId.equals(newHospitalId)) {
+            // The department moved; it must also disappear from the old hospital's structure
+            changeVersionService.bump(ChangeVersionService.structureScope(previousHospitalId));
+        }
         return departmentRepository.save(department);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
-    public void deleteDepartment(Long departmentId) {
+    public DeletionJob deleteDepartment(Long departmentId) {
         log.info("Deleting department with ID: {}", departmentId);
-        Department department = getDepartment(departmentId);
-        departmentRepository.delete(department);
+        getDepartment(departmentId);
+        // Deleting the department's doctors must not take patients' clinical history with it
+        if (medicalRecordRepository.existsByTreatingDoctor_Department_Id(departmentId)) {
+            throw new IllegalStateException("Department " + departmentId +
+                " has doctors with medical records; reassign them before deleting the department");
+        }
+        return deletionService.requestDeletion(DeletionJob.TargetType.DEPARTMENT, departmentId);
     }
 }
@@ -2,15 +2,20 @@ package com.hospital.service;
 
 import com.hospital.entity.Doctor;
 import com.hospital.entity.Hospital;
+import com.hospital.event.DoctorDeletedEvent;
+import com.hospital.exception.DomainException;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.DoctorRepository;
 import com.hospital.repository.HospitalRepository;
+import com.hospital.repository.WaitlistEntryRepository;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -18,13 +23,24 @@ import java.util.List;
 public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final HospitalRepository hospitalRepository;
+    private final ChangeVersionService changeVersionService;
+    private final ShardQueryService shardQueryService;
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public DoctorService(DoctorRepository doctorRepository, HospitalRepository hospitalRepository) {
+    public DoctorService(DoctorRepository doctorRepository, HospitalRepository hospitalRepository,
+                         ChangeVersionService changeVersionService, ShardQueryService shardQueryService,
+                         WaitlistEntryRepository waitlistEntryRepository, ApplicationEventPublisher eventPublisher) {
         this.doctorRepository = doctorRepository;
         this.hospitalRepository = hospitalRepository;
+        this.changeVersionService = changeVersionService;
+        this.shardQueryService = shardQueryService;
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Doctor createDoctor(Long hospitalId, Doctor doctor) {
         log.info("Creating new doctor for hospital ID: {}", hospitalId);
@@ -32,23 +48,29 @@ public class DoctorService {
             .orElseThrow(() -> new ResourceNotFoundException("Hospital not found with id: " + hospitalId));
 
         doctor.setHospital(hospital);
+        bumpVersions(doctor);
         return doctorRepository.save(doctor);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public Doctor getDoctor(Long doctorId) {
         log.info("Fetching doctor with ID: {}", doctorId);
         return doctorRepository.findById(doctorId)
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + doctorId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Doctor> getAllDoctors() {
         log.info("Fetching all doctors");
-        return doctorRepository.findAll();
+        return shardQueryService.queryAll(doctorRepository::findAll,
+            doctor -> doctor.getHospital() != null ? doctor.getHospital().getId() : null,
+            Comparator.comparing(Doctor::getId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Doctor> getDoctorsByHospital(Long hospitalId) {
         log.info("Fetching doctors for hospital ID: {}", hospitalId);
         Hospital hospital = hospitalRepository.findById(hospitalId)
@@ -56,7 +78,8 @@ public class DoctorService {
         return doctorRepository.findByHospital(hospital);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Doctor updateDoctor(Long doctorId, Doctor doctorDetails) {
         log.info("Updating doctor with ID: {}", doctorId);
@@ -64,14 +87,28 @@ public class DoctorService {
         doctor.setName(doctorDetails.getName());
         doctor.setSpecialization(doctorDetails.getSpecialization());
         doctor.setEmail(doctorDetails.getEmail());
+        bumpVersions(doctor);
         return doctorRepository.save(doctor);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public void deleteDoctor(Long doctorId) {
         log.info("Deleting doctor with ID: {}", doctorId);
         Doctor doctor = getDoctor(doctorId);
+        // Appointments go with the doctor through the cascade, waitlist entries have to go first
+        waitlistEntryRepository.deleteByDoctorIdIn(List.of(doctorId));
         doctorRepository.delete(doctor);
+        bumpVersions(doctor);
+        eventPublisher.publishEvent(new DoctorDeletedEvent(doctorId));
+    }
+
+    private void bumpVersions(Doctor doctor) {
+        if (doctor.getHospital() != null) {
+            changeVersionService.bump(ChangeVersionService.DOCTORS, ChangeVersionService.structureScope(doctor.getHospital().getId()));
+        } else {
+            changeVersionService.bump(ChangeVersionService.DOCTORS);
+        }
     }
 }
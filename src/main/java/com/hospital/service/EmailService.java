@@ -1,5 +1,6 @@
 package com.hospital.service;
 
+import com.hospital.config.TimedService;
 import com.hospital.dto.EmailRequestDTO;
 import com.hospital.dto.EmailResponseDTO;
 import com.hospital.exception.EmailException;
@@ -20,6 +21,7 @@ import java.io.File;
 import java.util.UUID;
 
 @Service
+@TimedService
 @Log4j2
 public class EmailService {
 
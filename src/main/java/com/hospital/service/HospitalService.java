@@ -1,6 +1,8 @@
 package com.hospital.service;
 
+import com.hospital.entity.DeletionJob;
 import com.hospital.entity.Hospital;
+import com.hospital.exception.DomainException;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.HospitalRepository;
 import lombok.extern.log4j.Log4j2;
@@ -9,38 +11,52 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 
 @Service
 @Log4j2
 public class HospitalService {
     private final HospitalRepository hospitalRepository;
+    private final DeletionService deletionService;
+    private final ChangeVersionService changeVersionService;
+    private final ShardQueryService shardQueryService;
 
-    public HospitalService(HospitalRepository hospitalRepository) {
+    public HospitalService(HospitalRepository hospitalRepository, DeletionService deletionService,
+                           ChangeVersionService changeVersionService, ShardQueryService shardQueryService) {
         this.hospitalRepository = hospitalRepository;
+        this.deletionService = deletionService;
+        this.changeVersionService = changeVersionService;
+        this.shardQueryService = shardQueryService;
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Hospital createHospital(Hospital hospital) {
         log.info("Creating new hospital: {}", hospital.getName());
+        changeVersionService.bump(ChangeVersionService.HOSPITALS);
         return hospitalRepository.save(hospital);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public Hospital getHospital(Long hospitalId) {
         log.info("Fetching hospital with ID: {}", hospitalId);
         return hospitalRepository.findById(hospitalId)
             .orElseThrow(() -> new ResourceNotFoundException("Hospital not found with id: " + hospitalId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public List<Hospital> getAllHospitals() {
         log.info("Fetching all hospitals");
-        return hospitalRepository.findAll();
+        return shardQueryService.queryAll(hospitalRepository::findAll, Hospital::getId,
+            Comparator.comparing(Hospital::getId));
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
     public Hospital updateHospital(Long hospitalId, Hospital hospitalDetails) {
         log.info("Updating hospital with ID: {}", hospitalId);
@@ -49,14 +65,17 @@ public class HospitalService {
         hospital.setAddress(hospitalDetails.getAddress());
         hospital.setPhoneNumber(hospitalDetails.getPhoneNumber());
         hospital.setEmail(hospitalDetails.getEmail());
+        changeVersionService.bump(ChangeVersionService.HOSPITALS, ChangeVersionService.structureScope(hospitalId));
         return hospitalRepository.save(hospital);
     }
 
-    @Retryable(value = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
+    @Retryable(value = Exception.class, noRetryFor = {DomainException.class, IllegalArgumentException.class, IllegalStateException.class},
+        maxAttempts = 3, backoff = @Backoff(delay = 1000))
     @Transactional
-    public void deleteHospital(Long hospitalId) {
+    public DeletionJob deleteHospital(Long hospitalId) {
         log.info("Deleting hospital with ID: {}", hospitalId);
-        Hospital hospital = getHospital(hospitalId);
-        hospitalRepository.delete(hospital);
+        getHospital(hospitalId);
+        // Doctors, departments, blocks, patients and their records are purged in the background
+        return deletionService.requestDeletion(DeletionJob.TargetType.HOSPITAL, hospitalId);
     }
 }
@@ -0,0 +1,195 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.config.ReadRouting;
+import com.hospital.dto.HospitalStructureDTO;
+import com.hospital.dto.StructureBlockRow;
+import com.hospital.dto.StructureDepartmentRow;
+import com.hospital.dto.StructureDoctorRow;
+import com.hospital.entity.Hospital;
+import com.hospital.event.ChangeVersionAdvancedEvent;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.BlockRepository;
+import com.hospital.repository.DepartmentRepository;
+import com.hospital.repository.DoctorRepository;
+import com.hospital.repository.HospitalRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the hospital → blocks → departments → doctors tree as a pre-serialized snapshot.
+ * <p>
+ * Each snapshot is tagged with the hospital's structure version from {@link ChangeVersionService}.
+ * The version is bumped by every block, department and doctor write, so the JSON is rebuilt (from
+ * three flat projection queries) only after the structure has actually changed; every other request
+ * is served from the cached bytes, or answered with 304 when the client already holds them.
+ */
+@Service
+@Log4j2
+public class HospitalStructureService {
+    private final HospitalRepository hospitalRepository;
+    private final BlockRepository blockRepository;
+    private final DepartmentRepository departmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final ChangeVersionService changeVersionService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Cache<Long, Snapshot> snapshots;
+    private final Map<Long, CompletableFuture<Snapshot>> rebuilds = new ConcurrentHashMap<>();
+
+    public HospitalStructureService(HospitalRepository hospitalRepository,
+                                    BlockRepository blockRepository,
+                                    DepartmentRepository departmentRepository,
+                                    DoctorRepository doctorRepository,
+                                    ChangeVersionService changeVersionService,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${hospital.structure.cache-size:1000}") long cacheSize) {
+        this.hospitalRepository = hospitalRepository;
+        this.blockRepository = blockRepository;
+        this.departmentRepository = departmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.changeVersionService = changeVersionService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.snapshots = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Serialized structure snapshot with its strong ETag.
+     */
+    public record Snapshot(long version, String etag, byte[] body) {
+    }
+
+    public Snapshot getSnapshot(Long hospitalId) {
+        long version = changeVersionService.currentVersion(ChangeVersionService.structureScope(hospitalId));
+        Snapshot cached = snapshots.getIfPresent(hospitalId);
+        if (cached != null && cached.version() >= version) {
+            return cached;
+        }
+        // One rebuild per hospital at a time. The winner builds outside any monitor, since the map's
+        // compute() would hold a bin lock across JDBC and pin the carrier of a virtual thread.
+        CompletableFuture<Snapshot> rebuild = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = rebuilds.putIfAbsent(hospitalId, rebuild);
+        if (running != null) {
+            Snapshot built = await(running);
+            return built.version() >= version ? built : getSnapshot(hospitalId);
+        }
+        try {
+            Snapshot current = snapshots.getIfPresent(hospitalId);
+            Snapshot built = current != null && current.version() >= version ? current : build(hospitalId, version);
+            snapshots.put(hospitalId, built);
+            rebuild.complete(built);
+            return built;
+        } catch (RuntimeException | Error e) {
+            rebuild.completeExceptionally(e);
+            throw e;
+        } finally {
+            rebuilds.remove(hospitalId, rebuild);
+        }
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> rebuild) {
+        try {
+            return rebuild.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    @EventListener
+    public void onChangeVersionAdvanced(ChangeVersionAdvancedEvent event) {
+        if (event.scope().startsWith(ChangeVersionService.STRUCTURE_SCOPE_PREFIX)) {
+            snapshots.invalidate(Long.valueOf(event.scope().substring(ChangeVersionService.STRUCTURE_SCOPE_PREFIX.length())));
+        }
+    }
+
+    private Snapshot build(Long hospitalId, long version) {
+        long start = System.currentTimeMillis();
+        // Read from the primary, since the snapshot is cached as the structure at a version read from the primary
+        HospitalStructureDTO structure = ReadRouting.onPrimary(() ->
+                readOnlyTransactionTemplate.execute(status -> assemble(hospitalId, version)));
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(structure);
+            log.info("Built structure snapshot for hospital ID: {} at version {} ({} bytes) in {} ms",
+                    hospitalId, version, body.length, System.currentTimeMillis() - start);
+            return new Snapshot(version, "\"hs-" + hospitalId + "-" + version + "\"", body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize structure of hospital " + hospitalId, e);
+        }
+    }
+
+    private HospitalStructureDTO assemble(Long hospitalId, long version) {
+        Hospital hospital = hospitalRepository.findById(hospitalId)
+            .orElseThrow(() -> new ResourceNotFoundException("Hospital not found with id: " + hospitalId));
+        HospitalStructureDTO structure = new HospitalStructureDTO();
+        structure.setId(hospital.getId());
+        structure.setName(hospital.getName());
+        structure.setAddress(hospital.getAddress());
+        structure.setPhoneNumber(hospital.getPhoneNumber());
+        structure.setEmail(hospital.getEmail());
+        structure.setVersion(version);
+
+        Map<Long, HospitalStructureDTO.BlockNode> blocks = new HashMap<>();
+        for (StructureBlockRow row : blockRepository.findStructureRowsByHospitalId(hospitalId)) {
+            HospitalStructureDTO.BlockNode block = new HospitalStructureDTO.BlockNode();
+            block.setId(row.id());
+            block.setName(row.name());
+            block.setDescription(row.description());
+            block.setFloorNumber(row.floorNumber());
+            blocks.put(row.id(), block);
+            structure.getBlocks().add(block);
+        }
+
+        Map<Long, HospitalStructureDTO.DepartmentNode> departments = new HashMap<>();
+        for (StructureDepartmentRow row : departmentRepository.findStructureRowsByHospitalId(hospitalId)) {
+            HospitalStructureDTO.DepartmentNode department = new HospitalStructureDTO.DepartmentNode();
+            department.setId(row.id());
+            department.setName(row.name());
+            department.setDescription(row.description());
+            departments.put(row.id(), department);
+            HospitalStructureDTO.BlockNode block = row.blockId() == null ? null : blocks.get(row.blockId());
+            if (block != null) {
+                block.getDepartments().add(department);
+            } else {
+                structure.getUnassignedDepartments().add(department);
+            }
+        }
+
+        for (StructureDoctorRow row : doctorRepository.findStructureRowsByHospitalId(hospitalId)) {
+            HospitalStructureDTO.DoctorNode doctor = new HospitalStructureDTO.DoctorNode();
+            doctor.setId(row.id());
+            doctor.setName(row.name());
+            doctor.setSpecialization(row.specialization());
+            doctor.setEmail(row.email());
+            if (row.departmentId() == null) {
+                structure.getUnassignedDoctors().add(doctor);
+            } else if (departments.containsKey(row.departmentId())) {
+                departments.get(row.departmentId()).getDoctors().add(doctor);
+            }
+            // Otherwise the department is pending deletion and its doctors are about to be purged
+        }
+        return structure;
+    }
+}
@@ -0,0 +1,361 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hospital.config.ReadRouting;
+import com.hospital.config.ShardDirectory;
+import com.hospital.exception.DomainException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@value #HEADER} support for create POSTs: a request that repeats an earlier one's key gets the resource
+ * that request created instead of creating another.
+ * <p>
+ * The first request claims its key in the {@code idempotency_key} table, and the service that creates the
+ * resource calls {@link #complete} in its own transaction, so the key names the resource if and only if the
+ * resource commits. A {@code @Retryable} re-run after a commit whose acknowledgement was lost therefore rolls
+ * back instead of creating a second resource. While the first request is in flight, duplicates on this node
+ * wait for its result and duplicates on other nodes poll the table, for up to {@code idempotency.wait-ms}.
+ * A claim whose node died is taken over once its lease ({@code idempotency.lease-seconds}) runs out; a failed
+ * request releases its claim, so the client's retry runs again. Completed keys are kept for
+ * {@code idempotency.ttl-hours}, and the most recent ones in memory, so a retry storm is answered without
+ * touching the table. With hospital sharding each shard keeps its own keys.
+ */
+@Service
+@Log4j2
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String IN_PROGRESS = "A request with this " + HEADER + " is still in progress";
+
+    private static final String INSERT_SQL =
+        "INSERT IGNORE INTO idempotency_key (key_hash, request_hash, resource_id, claim_token, locked_until, expires_at) " +
+        "VALUES (?, ?, NULL, ?, ?, ?)";
+    private static final String TAKE_OVER_SQL =
+        "UPDATE idempotency_key SET request_hash = ?, resource_id = NULL, claim_token = ?, locked_until = ?, expires_at = ? " +
+        "WHERE key_hash = ? AND ";
+
+    private static final RowMapper<KeyRow> ROW_MAPPER = (rs, rowNum) -> new KeyRow(rs.getBytes("request_hash"),
+        rs.getObject("resource_id", Long.class), rs.getTimestamp("locked_until").toLocalDateTime(),
+        rs.getTimestamp("expires_at").toLocalDateTime());
+
+    // The claim of the request running on this thread, for complete()
+    private static final ThreadLocal<Claim> CURRENT = new ThreadLocal<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ShardDirectory shardDirectory;
+    private final ShardQueryService shardQueryService;
+    private final Duration ttl;
+    private final Duration lease;
+    private final long waitMillis;
+    private final long pollMillis;
+    private final int purgeBatchSize;
+    private final Cache<String, Completed> completed;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, ShardDirectory shardDirectory,
+                              ShardQueryService shardQueryService,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.lease-seconds:30}") long leaseSeconds,
+                              @Value("${idempotency.wait-ms:10000}") long waitMillis,
+                              @Value("${idempotency.poll-ms:50}") long pollMillis,
+                              @Value("${idempotency.cache.max-entries:10000}") long cacheSize,
+                              @Value("${idempotency.purge.batch-size:5000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.shardDirectory = shardDirectory;
+        this.shardQueryService = shardQueryService;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.waitMillis = waitMillis;
+        this.pollMillis = pollMillis;
+        this.purgeBatchSize = purgeBatchSize;
+        this.completed = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(ttl).build();
+    }
+
+    /**
+     * A create request's result: the resource it created, or, for a repeated key, the one the first request
+     * created as it is now.
+     */
+    public record Outcome<T>(T body, boolean replayed) {
+    }
+
+    /**
+     * Runs {@code create} once per {@code key} within {@code scope} (the endpoint). {@code request} is what
+     * the client sent; reusing a key for a different request is rejected. {@code idOf} gives the created
+     * resource's id and {@code load} reads a resource back by id for repeated keys. Without a key,
+     * {@code create} simply runs.
+     */
+    public <T> Outcome<T> execute(String scope, String key, Object request, Supplier<T> create,
+                                  Function<T, Long> idOf, Function<Long, T> load) {
+        if (key == null) {
+            return new Outcome<>(create.get(), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        byte[] keyHash = sha256(scope + '\n' + key);
+        byte[] requestHash = sha256(scope + '\n' + json(request));
+        String cacheKey = shardDirectory.currentShard() + ':' + HexFormat.of().formatHex(keyHash);
+
+        Completed done = completed.getIfPresent(cacheKey);
+        if (done != null) {
+            checkSameRequest(done.requestHash(), requestHash);
+            return replay(load, done.resourceId());
+        }
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight first = inFlight.putIfAbsent(cacheKey, mine);
+        if (first != null) {
+            return awaitFirst(first, requestHash, load);
+        }
+        try {
+            Outcome<T> outcome = claimAndCreate(keyHash, requestHash, create, idOf, load);
+            Long resourceId = idOf.apply(outcome.body());
+            completed.put(cacheKey, new Completed(requestHash, resourceId));
+            mine.result().complete(resourceId);
+            return outcome;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    /**
+     * Records {@code resourceId} as the result of the keyed request running on this thread, in the caller's
+     * transaction. Does nothing for requests without a key.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(Long resourceId) {
+        Claim claim = CURRENT.get();
+        if (claim == null) {
+            return;
+        }
+        // Also locks the claim, so a request that takes it over waits for this transaction
+        int updated = jdbcTemplate.update("UPDATE idempotency_key SET resource_id = ? " +
+                "WHERE key_hash = ? AND claim_token = ? AND resource_id IS NULL", resourceId, claim.keyHash(), claim.token());
+        if (updated == 0) {
+            List<Long> recorded = jdbcTemplate.queryForList(
+                "SELECT resource_id FROM idempotency_key WHERE key_hash = ?", Long.class, claim.keyHash());
+            if (!recorded.isEmpty() && recorded.get(0) != null) {
+                // An earlier attempt of this request committed after all; roll this one back
+                throw new AlreadyCompletedException(recorded.get(0));
+            }
+            throw new IllegalStateException(HEADER + " claim was taken over by another request");
+        }
+    }
+
+    /**
+     * Deletes expired keys, in batches, on every shard.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge.interval-ms:600000}")
+    public void purgeExpired() {
+        shardQueryService.forEachShard(shard -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int deleted = 0;
+            int batch;
+            do {
+                batch = jdbcTemplate.update("DELETE FROM idempotency_key WHERE expires_at < ? LIMIT ?", now, purgeBatchSize);
+                deleted += batch;
+            } while (batch == purgeBatchSize);
+            if (deleted > 0) {
+                log.info("Purged {} expired idempotency keys on shard '{}'", deleted, shard);
+            }
+        });
+    }
+
+    private <T> Outcome<T> claimAndCreate(byte[] keyHash, byte[] requestHash, Supplier<T> create,
+                                          Function<T, Long> idOf, Function<Long, T> load) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (true) {
+            ClaimResult claim = claim(keyHash, requestHash);
+            if (claim.resourceId() != null) {
+                return replay(load, claim.resourceId());
+            }
+            if (claim.token() != null) {
+                return create(new Claim(keyHash, claim.token()), create, idOf, load);
+            }
+            // In flight on another node
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(IN_PROGRESS);
+            }
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(IN_PROGRESS, e);
+            }
+        }
+    }
+
+    private <T> Outcome<T> create(Claim claim, Supplier<T> create, Function<T, Long> idOf, Function<Long, T> load) {
+        T body;
+        CURRENT.set(claim);
+        try {
+            body = create.get();
+        } catch (AlreadyCompletedException e) {
+            return replay(load, e.resourceId);
+        } catch (RuntimeException e) {
+            release(claim);
+            throw e;
+        } finally {
+            CURRENT.remove();
+        }
+        // For services that do not call complete() themselves; a no-op for those that do
+        jdbcTemplate.update("UPDATE idempotency_key SET resource_id = ? " +
+                "WHERE key_hash = ? AND claim_token = ? AND resource_id IS NULL", idOf.apply(body), claim.keyHash(), claim.token());
+        return new Outcome<>(body, false);
+    }
+
+    /**
+     * Claims the key, or reports its resource, or that another request holds it. Each statement commits on
+     * its own, so concurrent claims never hold locks on the row while they decide.
+     */
+    private ClaimResult claim(byte[] keyHash, byte[] requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        long token = ThreadLocalRandom.current().nextLong();
+        Timestamp lockedUntil = Timestamp.valueOf(now.plus(lease));
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(ttl));
+        if (jdbcTemplate.update(INSERT_SQL, keyHash, requestHash, token, lockedUntil, expiresAt) == 1) {
+            return new ClaimResult(token, null);
+        }
+        List<KeyRow> rows = jdbcTemplate.query("SELECT request_hash, resource_id, locked_until, expires_at " +
+                "FROM idempotency_key WHERE key_hash = ?", ROW_MAPPER, keyHash);
+        if (rows.isEmpty()) {
+            // Released or purged in between; claim it on the next round
+            return new ClaimResult(null, null);
+        }
+        KeyRow row = rows.get(0);
+        boolean expired = row.expiresAt().isBefore(now);
+        if (!expired) {
+            checkSameRequest(row.requestHash(), requestHash);
+            if (row.resourceId() != null) {
+                return new ClaimResult(null, row.resourceId());
+            }
+            if (row.lockedUntil().isAfter(now)) {
+                return new ClaimResult(null, null);
+            }
+        }
+        // An expired key, or a claim whose request died without releasing it
+        int taken = jdbcTemplate.update(TAKE_OVER_SQL + (expired ? "expires_at < ?" : "resource_id IS NULL AND locked_until < ?"),
+            requestHash, token, lockedUntil, expiresAt, keyHash, Timestamp.valueOf(now));
+        return new ClaimResult(taken == 1 ? token : null, null);
+    }
+
+    private void release(Claim claim) {
+        try {
+            jdbcTemplate.update("DELETE FROM idempotency_key WHERE key_hash = ? AND claim_token = ? AND resource_id IS NULL",
+                claim.keyHash(), claim.token());
+        } catch (DataAccessException e) {
+            log.warn("Could not release idempotency key claim; it lapses after {}s", lease.toSeconds(), e);
+        }
+    }
+
+    private <T> Outcome<T> awaitFirst(InFlight first, byte[] requestHash, Function<Long, T> load) {
+        checkSameRequest(first.requestHash(), requestHash);
+        Long resourceId;
+        try {
+            resourceId = first.result().get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(IN_PROGRESS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(IN_PROGRESS, e);
+        } catch (ExecutionException e) {
+            // The same request, so the same answer
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return replay(load, resourceId);
+    }
+
+    private static <T> Outcome<T> replay(Function<Long, T> load, Long resourceId) {
+        // The first request may have committed on another node a moment ago
+        return new Outcome<>(ReadRouting.onPrimary(() -> load.apply(resourceId)), true);
+    }
+
+    private static void checkSameRequest(byte[] recorded, byte[] requestHash) {
+        if (!Arrays.equals(recorded, requestHash)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request");
+        }
+    }
+
+    private String json(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize request for " + HEADER, e);
+        }
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Claim(byte[] keyHash, long token) {
+    }
+
+    private record ClaimResult(Long token, Long resourceId) {
+    }
+
+    private record KeyRow(byte[] requestHash, Long resourceId, LocalDateTime lockedUntil, LocalDateTime expiresAt) {
+    }
+
+    private record Completed(byte[] requestHash, Long resourceId) {
+    }
+
+    private record InFlight(byte[] requestHash, CompletableFuture<Long> result) {
+    }
+
+    /**
+     * Rolls back a re-run of a request that had committed after all. A domain exception, so
+     * {@code @Retryable} does not retry it.
+     */
+    private static class AlreadyCompletedException extends DomainException {
+        private final Long resourceId;
+
+        AlreadyCompletedException(Long resourceId) {
+            super("Request already completed with resource " + resourceId);
+            this.resourceId = resourceId;
+        }
+    }
+}
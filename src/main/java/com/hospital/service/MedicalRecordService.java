@@ -1,36 +1,52 @@
 package com.hospital.service;
 
+import com.hospital.config.TimedService;
 import com.hospital.dto.MedicalRecordDTO;
 import com.hospital.entity.Doctor;
 import com.hospital.entity.MedicalRecord;
 import com.hospital.entity.Patient;
+import com.hospital.event.MedicalRecordSavedEvent;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.DoctorRepository;
 import com.hospital.repository.MedicalRecordRepository;
 import com.hospital.repository.PatientRepository;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@TimedService
 @Log4j2
 public class MedicalRecordService {
     private final MedicalRecordRepository medicalRecordRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final AllergyIndexService allergyIndexService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeOutboxService changeOutboxService;
 
     public MedicalRecordService(MedicalRecordRepository medicalRecordRepository,
                                PatientRepository patientRepository,
-                               DoctorRepository doctorRepository) {
+                               DoctorRepository doctorRepository,
+                               AllergyIndexService allergyIndexService,
+                               ApplicationEventPublisher eventPublisher,
+                               ChangeOutboxService changeOutboxService) {
         this.medicalRecordRepository = medicalRecordRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
+        this.allergyIndexService = allergyIndexService;
+        this.eventPublisher = eventPublisher;
+        this.changeOutboxService = changeOutboxService;
     }
 
     @Transactional
@@ -72,46 +88,54 @@ public class MedicalRecordService {
         }
 
         MedicalRecord saved = medicalRecordRepository.save(record);
+        publishSaved(saved, ChangeOutboxService.CREATED);
         log.info("Medical record created successfully with ID: {}", saved.getId());
         return saved;
     }
 
+    @Transactional(readOnly = true)
     public MedicalRecord getMedicalRecord(Long recordId) {
         log.info("Fetching medical record with ID: {}", recordId);
-        return medicalRecordRepository.findById(recordId)
+        MedicalRecord record = medicalRecordRepository.findById(recordId)
             .orElseThrow(() -> new ResourceNotFoundException("Medical record not found with id: " + recordId));
+        withCollections(List.of(record));
+        return record;
     }
 
+    @Transactional(readOnly = true)
     public List<MedicalRecord> getPatientMedicalHistory(Long patientId) {
         log.info("Fetching medical history for patient ID: {}", patientId);
         if (!patientRepository.existsById(patientId)) {
             throw new ResourceNotFoundException("Patient not found with id: " + patientId);
         }
-        return medicalRecordRepository.findByPatientIdOrderByVisitDateDesc(patientId);
+        return withCollections(medicalRecordRepository.findByPatientIdOrderByVisitDateDesc(patientId));
     }
 
+    @Transactional(readOnly = true)
     public Page<MedicalRecord> getPatientMedicalHistoryPaged(Long patientId, Pageable pageable) {
         log.info("Fetching paged medical history for patient ID: {}", patientId);
         if (!patientRepository.existsById(patientId)) {
             throw new ResourceNotFoundException("Patient not found with id: " + patientId);
         }
-        return medicalRecordRepository.findByPatientIdOrderByVisitDateDesc(patientId, pageable);
+        return withCollections(medicalRecordRepository.findByPatientIdOrderByVisitDateDesc(patientId, pageable));
     }
 
+    @Transactional(readOnly = true)
     public List<MedicalRecord> getPatientMedicalHistoryByDateRange(Long patientId, LocalDateTime start, LocalDateTime end) {
         log.info("Fetching medical history for patient ID: {} between {} and {}", patientId, start, end);
         if (!patientRepository.existsById(patientId)) {
             throw new ResourceNotFoundException("Patient not found with id: " + patientId);
         }
-        return medicalRecordRepository.findByPatientIdAndVisitDateBetween(patientId, start, end);
+        return withCollections(medicalRecordRepository.findByPatientIdAndVisitDateBetween(patientId, start, end));
     }
 
+    @Transactional(readOnly = true)
     public List<MedicalRecord> getPatientMedicalHistoryByType(Long patientId, MedicalRecord.RecordType recordType) {
         log.info("Fetching medical history for patient ID: {} of type: {}", patientId, recordType);
         if (!patientRepository.existsById(patientId)) {
             throw new ResourceNotFoundException("Patient not found with id: " + patientId);
         }
-        return medicalRecordRepository.findByPatientIdAndRecordType(patientId, recordType);
+        return withCollections(medicalRecordRepository.findByPatientIdAndRecordType(patientId, recordType));
     }
 
     @Transactional
@@ -158,6 +182,50 @@ public class MedicalRecordService {
             existingRecord.setVisitDate(recordDTO.getVisitDate());
         }
 
-        return medicalRecordRepository.save(existingRecord);
+        MedicalRecord saved = medicalRecordRepository.save(existingRecord);
+        publishSaved(saved, ChangeOutboxService.UPDATED);
+        return saved;
+    }
+
+    public boolean hasAllergy(Long patientId, String allergen) {
+        return allergyIndexService.hasAllergy(patientId, allergen);
+    }
+
+    public List<String> getPatientAllergies(Long patientId) {
+        return allergyIndexService.getPatientAllergies(patientId);
+    }
+
+    public List<Long> getPatientsAllergicTo(Long hospitalId, String allergen) {
+        log.info("Fetching patients of hospital ID: {} allergic to: {}", hospitalId, allergen);
+        return allergyIndexService.findPatientsAllergicTo(hospitalId, allergen);
+    }
+
+    /**
+     * Loads allergies and vital signs for records that are about to be serialized. Both collections are lazy, so
+     * they are fetched here, inside the transaction, with one query each for the whole result.
+     */
+    private <T extends Iterable<MedicalRecord>> T withCollections(T records) {
+        List<Long> ids = new ArrayList<>();
+        records.forEach(record -> ids.add(record.getId()));
+        if (!ids.isEmpty()) {
+            medicalRecordRepository.fetchAllergies(ids);
+            medicalRecordRepository.fetchVitalSigns(ids);
+        }
+        return records;
+    }
+
+    private void publishSaved(MedicalRecord record, String changeType) {
+        Patient patient = record.getPatient();
+        Long hospitalId = patient.getHospital() != null ? patient.getHospital().getId() : null;
+        // The query auto-flushes the pending insert/update, so it sees the allergies just written
+        List<String> patientAllergies = medicalRecordRepository.findDistinctAllergiesByPatientId(patient.getId());
+        eventPublisher.publishEvent(new MedicalRecordSavedEvent(record.getId(), patient.getId(), hospitalId, patientAllergies));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("recordType", record.getRecordType());
+        payload.put("doctorId", record.getTreatingDoctor() != null ? record.getTreatingDoctor().getId() : null);
+        payload.put("visitDate", record.getVisitDate());
+        changeOutboxService.record(ChangeOutboxService.MEDICAL_RECORD, record.getId(), changeType,
+            hospitalId, patient.getId(), payload);
     }
 }
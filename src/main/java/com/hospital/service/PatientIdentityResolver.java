@@ -0,0 +1,223 @@
+package com.hospital.service;
+
+import com.hospital.config.ReadRouting;
+import com.hospital.dto.ChangeEventDTO;
+import com.hospital.dto.PatientPhoneRow;
+import com.hospital.entity.Patient;
+import com.hospital.event.ChangesRelayedEvent;
+import com.hospital.repository.PatientRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Resolves walk-in patients by phone number within a hospital.
+ * <p>
+ * Lookups use the E.164 {@code phone_normalized} key and the (hospital_id, phone_normalized) index.
+ * A Bloom filter of all known (hospital, phone) keys answers most misses (new walk-ins) without
+ * touching the database. When several patients share a phone, the oldest registration wins, so
+ * the same input always resolves to the same patient.
+ * <p>
+ * The filter is loaded at startup and then grows with every patient saved on this instance and, through
+ * the change feed relay ({@link ChangesRelayedEvent}), with those saved on the others. If a relayed batch
+ * cannot be applied, the filter is dropped and every lookup goes to the database.
+ */
+@Service
+@Log4j2
+public class PatientIdentityResolver {
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final PatientRepository patientRepository;
+    private final PhoneNumberNormalizer phoneNumberNormalizer;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ShardQueryService shardQueryService;
+    private final long expectedPatients;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter knownPhones;
+    // The filter being loaded; keys registered meanwhile go into it as well
+    private volatile BloomFilter loadingPhones;
+    private final AtomicLong registeredPhones = new AtomicLong();
+
+    public PatientIdentityResolver(PatientRepository patientRepository,
+                                   PhoneNumberNormalizer phoneNumberNormalizer,
+                                   PlatformTransactionManager transactionManager,
+                                   ShardQueryService shardQueryService,
+                                   @Value("${patient.identity.bloom.expected-patients:2000000}") long expectedPatients,
+                                   @Value("${patient.identity.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.patientRepository = patientRepository;
+        this.phoneNumberNormalizer = phoneNumberNormalizer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.shardQueryService = shardQueryService;
+        this.expectedPatients = expectedPatients;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        shardQueryService.forEachShard(shard -> backfillNormalizedPhones());
+        rebuildFilter();
+    }
+
+    public String normalize(String phone) {
+        return phoneNumberNormalizer.normalize(phone);
+    }
+
+    public Optional<Patient> resolveByPhone(Long hospitalId, String phone) {
+        String normalized = normalize(phone);
+        if (hospitalId == null || normalized == null) {
+            return Optional.empty();
+        }
+        BloomFilter filter = knownPhones;
+        if (filter != null && !filter.mightContain(key(hospitalId, normalized))) {
+            return Optional.empty();
+        }
+
+        List<Patient> candidates = patientRepository.findByHospitalIdAndPhoneNormalizedOrderByIdAsc(hospitalId, normalized);
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+        if (candidates.size() > 1) {
+            log.warn("{} patients share phone {} in hospital ID: {}; resolving to oldest patient ID: {}",
+                    candidates.size(), normalized, hospitalId, candidates.get(0).getId());
+        }
+        return Optional.of(candidates.get(0));
+    }
+
+    /**
+     * Sets {@code phone} and its normalized key on the patient. Call before saving.
+     */
+    public void applyPhone(Patient patient, String phone) {
+        patient.setPhone(phone);
+        patient.setPhoneNormalized(normalize(phone));
+    }
+
+    /**
+     * Records a saved patient's phone key so later lookups don't treat it as a guaranteed miss.
+     * Registering a key that is later rolled back only costs one extra indexed query.
+     */
+    public void register(Patient patient) {
+        if (patient.getHospital() != null) {
+            registerPhone(patient.getHospital().getId(), patient.getPhoneNormalized());
+        }
+    }
+
+    public void registerPhone(Long hospitalId, String phoneNormalized) {
+        if (hospitalId == null || phoneNormalized == null) {
+            return;
+        }
+        BloomFilter loading = loadingPhones;
+        if (loading != null) {
+            loading.put(key(hospitalId, phoneNormalized));
+        }
+        BloomFilter filter = knownPhones;
+        if (filter == null) {
+            return;
+        }
+        filter.put(key(hospitalId, phoneNormalized));
+        if (registeredPhones.incrementAndGet() > expectedPatients) {
+            log.warn("Phone Bloom filter holds more keys than it was sized for ({}); false positive rate is rising",
+                    expectedPatients);
+        }
+    }
+
+    /**
+     * Registers the phones of patients created or updated on any instance, this one included.
+     */
+    @EventListener
+    public void onChangesRelayed(ChangesRelayedEvent event) {
+        Set<Long> patientIds = new HashSet<>();
+        for (ChangeEventDTO change : event.changes()) {
+            if (ChangeOutboxService.PATIENT.equals(change.entityType())
+                    && !ChangeOutboxService.REMOVED.equals(change.changeType())) {
+                patientIds.add(change.entityId());
+            }
+        }
+        if (patientIds.isEmpty() || (knownPhones == null && loadingPhones == null)) {
+            return;
+        }
+        try {
+            for (PatientPhoneRow row : ReadRouting.onPrimary(() -> patientRepository.findNormalizedPhonesByIdIn(patientIds))) {
+                registerPhone(row.hospitalId(), row.phone());
+            }
+        } catch (RuntimeException e) {
+            // A missing key would make lookups skip an existing patient
+            knownPhones = null;
+            log.warn("Could not register phones of {} patients relayed on shard '{}', phone lookups now always " +
+                    "query the database: {}", patientIds.size(), event.shard(), e.getMessage());
+        }
+    }
+
+    public void rebuildFilter() {
+        long start = System.currentTimeMillis();
+        AtomicLong total = new AtomicLong();
+        shardQueryService.forEachShard(shard -> total.addAndGet(patientRepository.count()));
+        BloomFilter filter = new BloomFilter(Math.max(expectedPatients, total.get() * 2), falsePositiveRate);
+        loadingPhones = filter;
+        AtomicLong loaded = new AtomicLong();
+        try {
+            // From the primary: a key missing because a replica lags would make lookups skip an existing patient
+            shardQueryService.forEachShard(shard -> ReadRouting.onPrimary(() -> readOnlyTransactionTemplate.execute(status -> {
+                try (Stream<PatientPhoneRow> rows = patientRepository.streamNormalizedPhones()) {
+                    rows.forEach(row -> {
+                        filter.put(key(row.hospitalId(), row.phone()));
+                        loaded.incrementAndGet();
+                    });
+                }
+                return null;
+            })));
+            registeredPhones.set(loaded.get());
+            knownPhones = filter;
+        } finally {
+            loadingPhones = null;
+        }
+        log.info("Phone Bloom filter built with {} keys in {} ms", loaded.get(), System.currentTimeMillis() - start);
+    }
+
+    private void backfillNormalizedPhones() {
+        long afterId = 0;
+        long updated = 0;
+        List<PatientPhoneRow> batch;
+        do {
+            long cursor = afterId;
+            batch = patientRepository.findUnnormalizedPhones(cursor, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<PatientPhoneRow> rows = batch;
+            updated += transactionTemplate.execute(status -> {
+                int count = 0;
+                for (PatientPhoneRow row : rows) {
+                    String normalized = normalize(row.phone());
+                    if (normalized != null) {
+                        count += patientRepository.updatePhoneNormalized(row.id(), normalized);
+                    }
+                }
+                return count;
+            });
+            afterId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        if (updated > 0) {
+            log.info("Backfilled normalized phone numbers for {} patients", updated);
+        }
+    }
+
+    private static String key(Long hospitalId, String phoneNormalized) {
+        return hospitalId + "|" + phoneNormalized;
+    }
+}
@@ -0,0 +1,212 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hospital.dto.PatientDTO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Pull-style reader over an uploaded patient file, one row at a time, so an import never holds
+ * the whole file in memory. A malformed row is returned with an error instead of aborting the import.
+ */
+abstract class PatientImportReader implements Closeable {
+
+    enum Format {
+        CSV, NDJSON;
+
+        static Format fromContentType(String contentType) {
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json")) {
+                return NDJSON;
+            }
+            return CSV;
+        }
+    }
+
+    record ImportRow(long line, PatientDTO patient, String error) {
+    }
+
+    protected final BufferedReader reader;
+    protected long line;
+
+    private PatientImportReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    static PatientImportReader open(Format format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        return format == Format.NDJSON ? new NdjsonReader(in, objectMapper) : new CsvReader(in);
+    }
+
+    /**
+     * Returns the next row, or {@code null} at end of input.
+     */
+    abstract ImportRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class NdjsonReader extends PatientImportReader {
+        private final ObjectReader rowReader;
+
+        NdjsonReader(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.rowReader = objectMapper.readerFor(PatientDTO.class);
+        }
+
+        @Override
+        ImportRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new ImportRow(line, rowReader.readValue(text), null);
+            } catch (JsonProcessingException e) {
+                // Location details are dropped; the line number already pinpoints the row
+                return new ImportRow(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row. Quoted fields may contain commas, doubled quotes and line breaks.
+     * Header names are matched case-insensitively, ignoring spaces, underscores and dashes, so both
+     * {@code firstName} and {@code first_name} work.
+     */
+    private static final class CsvReader extends PatientImportReader {
+        private static final int FIRST_NAME = 0, LAST_NAME = 1, EMAIL = 2, PHONE = 3,
+            DATE_OF_BIRTH = 4, ADDRESS = 5, GENDER = 6, BLOOD_GROUP = 7;
+
+        private final int[] columnOf = new int[8];
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> fields = new ArrayList<>();
+
+        CsvReader(InputStream in) throws IOException {
+            super(in);
+            Arrays.fill(columnOf, -1);
+            if (!readRecord()) {
+                throw new IllegalArgumentException("CSV upload is empty");
+            }
+            if (fields.get(0).startsWith("\uFEFF")) {
+                fields.set(0, fields.get(0).substring(1));
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                int target = switch (fields.get(i).replaceAll("[\\s_\\-]", "").toLowerCase(Locale.ROOT)) {
+                    case "firstname" -> FIRST_NAME;
+                    case "lastname" -> LAST_NAME;
+                    case "email" -> EMAIL;
+                    case "phone" -> PHONE;
+                    case "dateofbirth", "dob" -> DATE_OF_BIRTH;
+                    case "address" -> ADDRESS;
+                    case "gender" -> GENDER;
+                    case "bloodgroup" -> BLOOD_GROUP;
+                    default -> -1;
+                };
+                if (target >= 0) {
+                    columnOf[target] = i;
+                }
+            }
+            if (columnOf[EMAIL] < 0) {
+                throw new IllegalArgumentException("CSV header must include an email column");
+            }
+        }
+
+        @Override
+        ImportRow next() throws IOException {
+            long startLine;
+            do {
+                startLine = line + 1;
+                if (!readRecord()) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+            PatientDTO patient = new PatientDTO();
+            patient.setFirstName(column(FIRST_NAME));
+            patient.setLastName(column(LAST_NAME));
+            patient.setEmail(column(EMAIL));
+            patient.setPhone(column(PHONE));
+            patient.setAddress(column(ADDRESS));
+            patient.setGender(column(GENDER));
+            patient.setBloodGroup(column(BLOOD_GROUP));
+            String dateOfBirth = column(DATE_OF_BIRTH);
+            if (dateOfBirth != null) {
+                try {
+                    patient.setDateOfBirth(LocalDate.parse(dateOfBirth));
+                } catch (DateTimeParseException e) {
+                    return new ImportRow(startLine, null, "Invalid dateOfBirth (expected yyyy-MM-dd): " + dateOfBirth);
+                }
+            }
+            return new ImportRow(startLine, patient, null);
+        }
+
+        private String column(int target) {
+            int index = columnOf[target];
+            if (index < 0 || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return false;
+            }
+            fields.add(field.toString());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.dto.PatientDTO;
+import com.hospital.dto.PatientEmailRow;
+import com.hospital.dto.PatientImportJobDTO;
+import com.hospital.dto.PatientImportJobDTO.ImportStatus;
+import com.hospital.dto.PatientSearchRow;
+import com.hospital.event.PatientChangedEvent;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.HospitalRepository;
+import com.hospital.repository.PatientRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk patient import for onboarding a hospital's legacy records.
+ * <p>
+ * The upload is spooled to a temp file and processed on a background executor in chunks. Each chunk is
+ * deduplicated against existing (hospital, email) keys with a single {@code IN} query and written with
+ * JDBC batch inserts and updates in its own transaction, so a failure loses at most one chunk and the job
+ * can report progress as it goes. Imported patients are published as {@link PatientChangedEvent}s so the
+ * search index and phone lookup stay current, and recorded in the change outbox for the other instances.
+ * <p>
+ * Jobs are kept in the {@code patient_import_job} table, on the shard of their hospital, so any instance can
+ * report one. Progress is written in each chunk's transaction and so always matches the committed patients.
+ * The spooled upload only exists on the instance that received it, which holds a lease on the job and renews
+ * it every {@code patient.import.heartbeat-interval-ms}. When that instance stops, the others fail its jobs
+ * once the lease runs out; submitting the file again updates the patients it had already written.
+ */
+@Service
+@Log4j2
+public class PatientImportService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO patient (first_name, last_name, email, phone, phone_normalized, date_of_birth, address, " +
+        "gender, blood_group, hospital_id, created_at, updated_at, created_by, last_modified_by) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+        "UPDATE patient SET first_name = ?, last_name = ?, email = ?, phone = ?, phone_normalized = ?, " +
+        "date_of_birth = ?, address = ?, gender = ?, blood_group = ?, updated_at = ?, last_modified_by = ? " +
+        "WHERE id = ?";
+
+    private static final String INSERT_JOB_SQL =
+        "INSERT INTO patient_import_job (id, hospital_id, format, status, rows_read, inserted, updated, rejected, " +
+        "lease_owner, lease_until, submitted_at) VALUES (?, ?, ?, ?, 0, 0, 0, 0, ?, ?, ?)";
+    // Conditional, so a job another instance has failed for want of a lease stays failed
+    private static final String UPDATE_JOB_SQL =
+        "UPDATE patient_import_job SET status = ?, rows_read = ?, inserted = ?, updated = ?, rejected = ?, errors = ?, " +
+        "lease_until = ?, started_at = ?, finished_at = ? " +
+        "WHERE id = ? AND lease_owner = ? AND status IN ('QUEUED', 'RUNNING')";
+    private static final String SELECT_JOB_SQL = "SELECT * FROM patient_import_job WHERE id = ?";
+    private static final String RENEW_LEASES_SQL =
+        "UPDATE patient_import_job SET lease_until = ? WHERE lease_owner = ? AND status IN ('QUEUED', 'RUNNING')";
+    private static final String SELECT_ABANDONED_SQL =
+        "SELECT id, errors FROM patient_import_job WHERE status IN ('QUEUED', 'RUNNING') AND lease_until < ?";
+    private static final String FAIL_ABANDONED_SQL =
+        "UPDATE patient_import_job SET status = 'FAILED', errors = ?, finished_at = ? " +
+        "WHERE id = ? AND status IN ('QUEUED', 'RUNNING') AND lease_until < ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM patient_import_job WHERE finished_at < ?";
+    private static final TypeReference<List<String>> ERRORS_TYPE = new TypeReference<>() {
+    };
+
+    private final PatientRepository patientRepository;
+    private final HospitalRepository hospitalRepository;
+    private final PatientIdentityResolver patientIdentityResolver;
+    private final ChangeOutboxService changeOutboxService;
+    private final ShardQueryService shardQueryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditorAware<String> auditorAware;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor importExecutor;
+    private final int chunkSize;
+    private final Duration jobRetention;
+    private final Duration lease;
+    private final String owner;
+
+    public PatientImportService(PatientRepository patientRepository,
+                                HospitalRepository hospitalRepository,
+                                PatientIdentityResolver patientIdentityResolver,
+                                ChangeOutboxService changeOutboxService,
+                                ShardQueryService shardQueryService,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                AuditorAware<String> auditorAware,
+                                ObjectMapper objectMapper,
+                                @Qualifier("importExecutor") TaskExecutor importExecutor,
+                                @Value("${patient.import.chunk-size:1000}") int chunkSize,
+                                @Value("${patient.import.job-retention-hours:24}") long jobRetentionHours,
+                                @Value("${patient.import.lease-seconds:60}") long leaseSeconds) {
+        this.patientRepository = patientRepository;
+        this.hospitalRepository = hospitalRepository;
+        this.patientIdentityResolver = patientIdentityResolver;
+        this.changeOutboxService = changeOutboxService;
+        this.shardQueryService = shardQueryService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.auditorAware = auditorAware;
+        this.objectMapper = objectMapper;
+        this.importExecutor = importExecutor;
+        this.chunkSize = chunkSize;
+        this.jobRetention = Duration.ofHours(jobRetentionHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    public PatientImportJobDTO submit(Long hospitalId, String contentType, InputStream body) throws IOException {
+        if (!hospitalRepository.existsById(hospitalId)) {
+            throw new ResourceNotFoundException("Hospital not found with id: " + hospitalId);
+        }
+
+        PatientImportReader.Format format = PatientImportReader.Format.fromContentType(contentType);
+        Path spool = Files.createTempFile("patient-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), hospitalId, format);
+        jdbcTemplate.update(INSERT_JOB_SQL, job.id, hospitalId, format.name(), ImportStatus.QUEUED.name(), owner,
+            Timestamp.valueOf(job.submittedAt.plus(lease)), Timestamp.valueOf(job.submittedAt));
+        try {
+            importExecutor.execute(() -> run(job, spool));
+        } catch (TaskRejectedException e) {
+            jdbcTemplate.update("DELETE FROM patient_import_job WHERE id = ?", job.id);
+            Files.deleteIfExists(spool);
+            throw new IllegalStateException("Too many patient imports in progress, retry later");
+        }
+        log.info("Queued patient import {} for hospital ID: {} ({} bytes, {})",
+                job.id, hospitalId, Files.size(spool), format);
+        return job.snapshot();
+    }
+
+    public PatientImportJobDTO getJob(String jobId) {
+        // Outside a transaction, so from the primary; the job is on its hospital's shard, which the id doesn't name
+        List<PatientImportJobDTO> found = new ArrayList<>(1);
+        shardQueryService.forEachShard(shard -> {
+            if (found.isEmpty()) {
+                found.addAll(jdbcTemplate.query(SELECT_JOB_SQL, (rs, rowNum) -> toDto(rs), jobId));
+            }
+        });
+        if (found.isEmpty()) {
+            throw new ResourceNotFoundException("Patient import job not found with id: " + jobId);
+        }
+        return found.get(0);
+    }
+
+    /**
+     * Renews the leases on this instance's jobs, fails the jobs of instances that stopped renewing theirs and
+     * deletes finished jobs past {@code patient.import.job-retention-hours}.
+     */
+    @Scheduled(fixedDelayString = "${patient.import.heartbeat-interval-ms:10000}")
+    public void maintainJobs() {
+        shardQueryService.forEachShard(shard -> {
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                jdbcTemplate.update(RENEW_LEASES_SQL, Timestamp.valueOf(now.plus(lease)), owner);
+                List<String[]> abandoned = jdbcTemplate.query(SELECT_ABANDONED_SQL,
+                    (rs, rowNum) -> new String[]{rs.getString("id"), rs.getString("errors")}, Timestamp.valueOf(now));
+                for (String[] job : abandoned) {
+                    List<String> errors = readErrors(job[1]);
+                    errors.add("Import aborted: the instance running it stopped");
+                    if (jdbcTemplate.update(FAIL_ABANDONED_SQL, writeErrors(errors), Timestamp.valueOf(now), job[0],
+                            Timestamp.valueOf(now)) > 0) {
+                        log.warn("Patient import {} failed: its instance stopped renewing the lease", job[0]);
+                    }
+                }
+                jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(now.minus(jobRetention)));
+            } catch (RuntimeException e) {
+                log.warn("Could not maintain patient import jobs on shard '{}': {}", shard, e.getMessage());
+            }
+        });
+    }
+
+    private void run(ImportJob job, Path spool) {
+        job.startedAt = LocalDateTime.now();
+        job.startNanos = System.nanoTime();
+        job.status = ImportStatus.RUNNING;
+        try (InputStream in = Files.newInputStream(spool);
+             PatientImportReader reader = PatientImportReader.open(job.format, in, objectMapper)) {
+            saveProgress(job, 0, 0);
+            List<PatientImportReader.ImportRow> chunk = new ArrayList<>(chunkSize);
+            PatientImportReader.ImportRow row;
+            while ((row = reader.next()) != null) {
+                job.rowsRead.incrementAndGet();
+                if (row.error() != null) {
+                    job.reject(row.line(), row.error());
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(job, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(job, chunk);
+            }
+            job.status = ImportStatus.COMPLETED;
+        } catch (Exception e) {
+            log.error("Patient import {} failed after {} rows: {}", job.id, job.rowsRead.get(), e.getMessage(), e);
+            job.addError("Import aborted: " + e.getMessage());
+            job.status = ImportStatus.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.finishNanos = System.nanoTime();
+            try {
+                saveProgress(job, 0, 0);
+            } catch (RuntimeException e) {
+                log.warn("Could not record the outcome of patient import {}: {}", job.id, e.getMessage());
+            }
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete import spool file {}: {}", spool, e.getMessage());
+            }
+        }
+        log.info("Patient import {} {}: {} rows read, {} inserted, {} updated, {} rejected at {} rows/s",
+                job.id, job.status, job.rowsRead.get(), job.inserted.get(), job.updated.get(),
+                job.rejected.get(), Math.round(job.rowsPerSecond()));
+    }
+
+    private void writeChunk(ImportJob job, List<PatientImportReader.ImportRow> rows) {
+        // Last occurrence of an email within the chunk wins, as it would with one request per row
+        Map<String, PatientImportReader.ImportRow> byEmail = new LinkedHashMap<>();
+        for (PatientImportReader.ImportRow row : rows) {
+            String error = validate(row.patient());
+            if (error != null) {
+                job.reject(row.line(), error);
+                continue;
+            }
+            PatientImportReader.ImportRow previous = byEmail.put(emailKey(row.patient().getEmail()), row);
+            if (previous != null) {
+                job.reject(previous.line(), "Superseded by a later row with the same email");
+            }
+        }
+        if (byEmail.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        int[] counts = transactionTemplate.execute(status -> {
+            List<String> emails = byEmail.values().stream().map(row -> row.patient().getEmail()).toList();
+            Map<String, Long> existingIds = new HashMap<>();
+            Set<Long> preexisting = new HashSet<>();
+            for (PatientEmailRow existing : patientRepository.findEmailRowsByHospitalIdAndEmailIn(job.hospitalId, emails)) {
+                // Keep the oldest patient when legacy data already holds duplicates
+                existingIds.putIfAbsent(emailKey(existing.email()), existing.id());
+                preexisting.add(existing.id());
+            }
+
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> updates = new ArrayList<>();
+            byEmail.forEach((key, row) -> {
+                PatientDTO p = row.patient();
+                String phoneNormalized = patientIdentityResolver.normalize(p.getPhone());
+                Date dateOfBirth = p.getDateOfBirth() != null ? Date.valueOf(p.getDateOfBirth()) : null;
+                Long existingId = existingIds.get(key);
+                if (existingId == null) {
+                    inserts.add(new Object[]{p.getFirstName(), p.getLastName(), p.getEmail(), p.getPhone(), phoneNormalized,
+                        dateOfBirth, p.getAddress(), p.getGender(), p.getBloodGroup(), job.hospitalId, now, now, auditor, auditor});
+                } else {
+                    updates.add(new Object[]{p.getFirstName(), p.getLastName(), p.getEmail(), p.getPhone(), phoneNormalized,
+                        dateOfBirth, p.getAddress(), p.getGender(), p.getBloodGroup(), now, auditor, existingId});
+                }
+            });
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            }
+
+            // Delivered after commit, like single-patient writes
+            List<Long> created = new ArrayList<>();
+            for (PatientSearchRow saved : patientRepository.findSearchRowsByHospitalIdAndEmailIn(job.hospitalId, emails)) {
+                patientIdentityResolver.registerPhone(job.hospitalId, patientIdentityResolver.normalize(saved.phone()));
+                eventPublisher.publishEvent(new PatientChangedEvent(saved.id(), saved.hospitalId(), saved.firstName(),
+                    saved.lastName(), saved.email(), saved.phone(), false));
+                if (!preexisting.contains(saved.id())) {
+                    created.add(saved.id());
+                }
+            }
+            changeOutboxService.recordPatients(ChangeOutboxService.CREATED, job.hospitalId, created);
+            changeOutboxService.recordPatients(ChangeOutboxService.UPDATED, job.hospitalId, existingIds.values());
+            saveProgress(job, inserts.size(), updates.size());
+            return new int[]{inserts.size(), updates.size()};
+        });
+        job.inserted.addAndGet(counts[0]);
+        job.updated.addAndGet(counts[1]);
+    }
+
+    // Counts the chunk being written as well, since its own transaction commits both
+    private void saveProgress(ImportJob job, int inserting, int updating) {
+        List<String> errors;
+        synchronized (job.errors) {
+            errors = new ArrayList<>(job.errors);
+        }
+        int updated = jdbcTemplate.update(UPDATE_JOB_SQL, job.status.name(), job.rowsRead.get(),
+            job.inserted.get() + inserting, job.updated.get() + updating, job.rejected.get(), writeErrors(errors),
+            Timestamp.valueOf(LocalDateTime.now().plus(lease)), timestamp(job.startedAt), timestamp(job.finishedAt),
+            job.id, owner);
+        if (updated == 0) {
+            throw new IllegalStateException("Patient import " + job.id + " was failed by another instance");
+        }
+    }
+
+    private PatientImportJobDTO toDto(ResultSet rs) throws SQLException {
+        PatientImportJobDTO dto = new PatientImportJobDTO();
+        dto.setJobId(rs.getString("id"));
+        dto.setHospitalId(rs.getLong("hospital_id"));
+        dto.setFormat(rs.getString("format"));
+        dto.setStatus(ImportStatus.valueOf(rs.getString("status")));
+        dto.setRowsRead(rs.getLong("rows_read"));
+        dto.setInserted(rs.getLong("inserted"));
+        dto.setUpdated(rs.getLong("updated"));
+        dto.setRejected(rs.getLong("rejected"));
+        dto.setErrors(readErrors(rs.getString("errors")));
+        dto.setErrorsTruncated(dto.getRejected() > dto.getErrors().size());
+        dto.setSubmittedAt(localDateTime(rs.getTimestamp("submitted_at")));
+        dto.setStartedAt(localDateTime(rs.getTimestamp("started_at")));
+        dto.setFinishedAt(localDateTime(rs.getTimestamp("finished_at")));
+        if (dto.getStartedAt() != null) {
+            LocalDateTime end = dto.getFinishedAt() != null ? dto.getFinishedAt() : LocalDateTime.now();
+            double seconds = Duration.between(dto.getStartedAt(), end).toNanos() / 1_000_000_000.0;
+            dto.setRowsPerSecond(seconds > 0 ? Math.round(dto.getRowsRead() / seconds * 10) / 10.0 : 0);
+        }
+        return dto;
+    }
+
+    private List<String> readErrors(String json) {
+        if (json == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(json, ERRORS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable patient import errors: " + e.getMessage(), e);
+        }
+    }
+
+    private String writeErrors(List<String> errors) {
+        try {
+            return errors.isEmpty() ? null : objectMapper.writeValueAsString(errors);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write patient import errors: " + e.getMessage(), e);
+        }
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static LocalDateTime localDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+
+    private static String validate(PatientDTO patient) {
+        if (patient.getEmail() == null || patient.getEmail().isBlank()) {
+            return "Email is required";
+        }
+        if (patient.getEmail().indexOf('@') < 1) {
+            return "Invalid email: " + patient.getEmail();
+        }
+        if (patient.getFirstName() == null && patient.getLastName() == null) {
+            return "First or last name is required";
+        }
+        return null;
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final Long hospitalId;
+        private final PatientImportReader.Format format;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile ImportStatus status = ImportStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long startNanos;
+        private volatile long finishNanos;
+
+        ImportJob(String id, Long hospitalId, PatientImportReader.Format format) {
+            this.id = id;
+            this.hospitalId = hospitalId;
+            this.format = format;
+        }
+
+        void reject(long line, String error) {
+            rejected.incrementAndGet();
+            addError("Line " + line + ": " + error);
+        }
+
+        void addError(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        double rowsPerSecond() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+            double seconds = (end - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? rowsRead.get() / seconds : 0;
+        }
+
+        PatientImportJobDTO snapshot() {
+            PatientImportJobDTO dto = new PatientImportJobDTO();
+            dto.setJobId(id);
+            dto.setHospitalId(hospitalId);
+            dto.setFormat(format.name());
+            dto.setStatus(status);
+            dto.setRowsRead(rowsRead.get());
+            dto.setInserted(inserted.get());
+            dto.setUpdated(updated.get());
+            dto.setRejected(rejected.get());
+            dto.setRowsPerSecond(Math.round(rowsPerSecond() * 10) / 10.0);
+            synchronized (errors) {
+                dto.setErrors(new ArrayList<>(errors));
+            }
+            dto.setErrorsTruncated(rejected.get() > errors.size());
+            dto.setSubmittedAt(submittedAt);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
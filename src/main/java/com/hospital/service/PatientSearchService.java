@@ -0,0 +1,572 @@
+package com.hospital.service;
+
+import com.hospital.config.ReadRouting;
+import com.hospital.dto.ChangeEventDTO;
+import com.hospital.dto.PatientSearchResultDTO;
+import com.hospital.dto.PatientSearchRow;
+import com.hospital.event.ChangesRelayedEvent;
+import com.hospital.event.PatientChangedEvent;
+import com.hospital.repository.PatientRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory type-ahead search over patient first name, last name, email and phone, one index per hospital.
+ * <p>
+ * Every field is broken into character trigrams, plus one- and two-character word-prefix grams, each packed
+ * into a {@code long} key. A gram maps to a growable {@code int[]} posting list of document numbers, which are
+ * appended in increasing order so lists stay sorted and can be intersected by galloping. Queries of three or more
+ * characters match substrings (verified against the field, since trigram overlap alone can be a false match);
+ * shorter queries match word prefixes. Updates append a new document and tombstone the old one; a hospital's
+ * index is compacted once tombstones make up a quarter of it.
+ * <p>
+ * Patients saved on this instance are applied from {@link PatientChangedEvent}; those saved on others are reloaded
+ * from the primary when the change feed relays them ({@link ChangesRelayedEvent}). Until the index is built,
+ * queries go to the database, where every token must match one of the fields, as in the index.
+ */
+@Service
+@Log4j2
+public class PatientSearchService {
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 50;
+
+    private static final char WORD_START = '\u0001';
+    private static final Docs NO_DOCS = new Docs(new int[0], 0);
+
+    private final PatientRepository patientRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PhoneNumberNormalizer phoneNumberNormalizer;
+    private final ShardQueryService shardQueryService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxCandidates;
+
+    private volatile Map<Long, HospitalIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> hospitalByPatient = new ConcurrentHashMap<>();
+    private final List<PatientChangedEvent> receivedWhileBuilding = new ArrayList<>();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile boolean ready;
+
+    public PatientSearchService(PatientRepository patientRepository, NamedParameterJdbcTemplate jdbcTemplate,
+                                PhoneNumberNormalizer phoneNumberNormalizer, PlatformTransactionManager transactionManager,
+                                ShardQueryService shardQueryService,
+                                @Value("${patient.search.max-candidates:20000}") int maxCandidates) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.phoneNumberNormalizer = phoneNumberNormalizer;
+        this.shardQueryService = shardQueryService;
+        this.maxCandidates = maxCandidates;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        Map<Long, HospitalIndex> built = new ConcurrentHashMap<>();
+        Map<Long, Long> builtHospitalByPatient = new HashMap<>();
+        shardQueryService.forEachShard(shard -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PatientSearchRow> rows = patientRepository.streamSearchRows()) {
+                rows.forEach(row -> {
+                    built.computeIfAbsent(row.hospitalId(), id -> new HospitalIndex()).add(row);
+                    builtHospitalByPatient.put(row.id(), row.hospitalId());
+                });
+            }
+        }));
+
+        buildLock.lock();
+        try {
+            indexes = built;
+            hospitalByPatient.clear();
+            hospitalByPatient.putAll(builtHospitalByPatient);
+            // Events received while the snapshot was streaming are at least as new as the snapshot
+            receivedWhileBuilding.forEach(this::apply);
+            receivedWhileBuilding.clear();
+            ready = true;
+        } finally {
+            buildLock.unlock();
+        }
+        log.info("Patient search index built for {} patients in {} hospitals in {} ms",
+                builtHospitalByPatient.size(), built.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        buildLock.lock();
+        try {
+            applyOrQueue(event);
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the patients created, updated or removed on any instance, this one included; those no longer found
+     * are dropped from the index.
+     */
+    @EventListener
+    public void onChangesRelayed(ChangesRelayedEvent event) {
+        Set<Long> patientIds = new HashSet<>();
+        for (ChangeEventDTO change : event.changes()) {
+            if (ChangeOutboxService.PATIENT.equals(change.entityType())) {
+                patientIds.add(change.entityId());
+            }
+        }
+        if (patientIds.isEmpty()) {
+            return;
+        }
+        // Loaded under the lock, so a local change committed meanwhile is applied after this reload, not before it
+        buildLock.lock();
+        try {
+            Set<Long> missing = new HashSet<>(patientIds);
+            for (PatientSearchRow row : ReadRouting.onPrimary(() -> patientRepository.findSearchRowsByIdIn(patientIds))) {
+                missing.remove(row.id());
+                applyOrQueue(new PatientChangedEvent(row.id(), row.hospitalId(), row.firstName(), row.lastName(),
+                    row.email(), row.phone(), false));
+            }
+            missing.forEach(id -> applyOrQueue(PatientChangedEvent.deleted(id)));
+        } catch (RuntimeException e) {
+            log.warn("Could not reload {} patients relayed on shard '{}' into the search index: {}",
+                    patientIds.size(), event.shard(), e.getMessage());
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    public List<PatientSearchResultDTO> search(Long hospitalId, String query, Integer limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        int k = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (!ready) {
+            return searchDatabase(hospitalId, query, tokens, k);
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, Hit.WORST_FIRST);
+        if (hospitalId != null) {
+            HospitalIndex index = indexes.get(hospitalId);
+            if (index != null) {
+                index.search(tokens, k, maxCandidates, top);
+            }
+        } else {
+            int remaining = maxCandidates;
+            for (HospitalIndex index : indexes.values()) {
+                remaining -= index.search(tokens, k, remaining, top);
+                if (remaining <= 0) {
+                    break;
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        return hits.stream().map(Hit::result).toList();
+    }
+
+    // Fallback used only while the index is still building
+    List<PatientSearchResultDTO> searchDatabase(Long hospitalId, String query, String[] tokens, int k) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", k);
+        StringBuilder tokensMatch = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            String param = "token" + i;
+            params.addValue(param, "%" + escapeLike(tokens[i]) + "%");
+            tokensMatch.append(i == 0 ? "(" : " AND (")
+                .append("LOWER(first_name) LIKE :").append(param)
+                .append(" OR LOWER(last_name) LIKE :").append(param)
+                .append(" OR LOWER(email) LIKE :").append(param)
+                .append(" OR phone_normalized LIKE :").append(param).append(')');
+        }
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT id, hospital_id, first_name, last_name, email, phone FROM patient " +
+            "WHERE deleted_at IS NULL AND hospital_id IS NOT NULL");
+        if (hospitalId != null) {
+            sql.append(" AND hospital_id = :hospitalId");
+            params.addValue("hospitalId", hospitalId);
+        }
+        // A whole number in any format, trunk and country prefixes included, also matches its E.164 form
+        String phone = isPhoneLike(query.trim()) ? phoneNumberNormalizer.normalize(query) : null;
+        if (phone != null) {
+            sql.append(" AND (phone_normalized = :phone OR (").append(tokensMatch).append("))");
+            params.addValue("phone", phone);
+        } else {
+            sql.append(" AND ").append(tokensMatch);
+        }
+        sql.append(" ORDER BY last_name, first_name, id LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> new PatientSearchResultDTO(
+            rs.getLong("id"), rs.getLong("hospital_id"), rs.getString("first_name"), rs.getString("last_name"),
+            rs.getString("email"), rs.getString("phone")));
+    }
+
+    // Caller holds buildLock
+    private void applyOrQueue(PatientChangedEvent event) {
+        if (ready) {
+            apply(event);
+        } else {
+            receivedWhileBuilding.add(event);
+        }
+    }
+
+    private void apply(PatientChangedEvent event) {
+        Long previousHospital = event.deleted() || event.hospitalId() == null
+            ? hospitalByPatient.remove(event.patientId())
+            : hospitalByPatient.put(event.patientId(), event.hospitalId());
+        if (previousHospital != null && !previousHospital.equals(event.hospitalId())) {
+            HospitalIndex previous = indexes.get(previousHospital);
+            if (previous != null) {
+                previous.remove(event.patientId());
+            }
+        }
+        if (!event.deleted() && event.hospitalId() != null) {
+            indexes.computeIfAbsent(event.hospitalId(), id -> new HospitalIndex())
+                .upsert(new PatientSearchRow(event.patientId(), event.hospitalId(), event.firstName(),
+                    event.lastName(), event.email(), event.phone()));
+        }
+    }
+
+    static String[] tokenize(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        return Arrays.stream(query.trim().split("\\s+"))
+            .map(PatientSearchService::normalizeToken)
+            .filter(token -> !token.isEmpty())
+            .toArray(String[]::new);
+    }
+
+    private static String normalizeToken(String token) {
+        return isPhoneLike(token) ? digitsOnly(token) : token.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isPhoneLike(String value) {
+        boolean phoneLike = !value.isEmpty();
+        for (int i = 0; i < value.length() && phoneLike; i++) {
+            char c = value.charAt(i);
+            phoneLike = Character.isDigit(c) || c == '+' || c == '-' || c == '(' || c == ')' || Character.isWhitespace(c);
+        }
+        return phoneLike;
+    }
+
+    private static String escapeLike(String token) {
+        return token.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String digitsOnly(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    private static long gram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static PatientSearchResultDTO toResult(PatientSearchRow row) {
+        return new PatientSearchResultDTO(row.id(), row.hospitalId(), row.firstName(), row.lastName(),
+            row.email(), row.phone());
+    }
+
+    private static final class HospitalIndex {
+        private static final int FIELDS = 4;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private final Map<Long, Integer> docByPatient = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private PatientSearchRow[] rows = new PatientSearchRow[16];
+        // Normalized fields per document: first name, last name, email (lower-cased), phone (digits only)
+        private String[] normalized = new String[16 * FIELDS];
+        private int docCount;
+        private int deletedCount;
+
+        // Used during the initial build only, before the index is published
+        void add(PatientSearchRow row) {
+            int doc = docCount++;
+            if (doc == rows.length) {
+                rows = Arrays.copyOf(rows, doc * 2);
+                normalized = Arrays.copyOf(normalized, doc * 2 * FIELDS);
+            }
+            rows[doc] = row;
+            int base = doc * FIELDS;
+            normalized[base] = lower(row.firstName());
+            normalized[base + 1] = lower(row.lastName());
+            normalized[base + 2] = lower(row.email());
+            normalized[base + 3] = digitsOnly(row.phone());
+
+            for (int field = 0; field < FIELDS; field++) {
+                String value = normalized[base + field];
+                for (int i = 0; i < value.length(); i++) {
+                    if (i + 2 < value.length()) {
+                        post(gram(value.charAt(i), value.charAt(i + 1), value.charAt(i + 2)), doc);
+                    }
+                    boolean wordStart = isWordChar(value.charAt(i)) && (i == 0 || !isWordChar(value.charAt(i - 1)));
+                    if (wordStart) {
+                        post(gram(WORD_START, WORD_START, value.charAt(i)), doc);
+                        if (i + 1 < value.length() && isWordChar(value.charAt(i + 1))) {
+                            post(gram(WORD_START, value.charAt(i), value.charAt(i + 1)), doc);
+                        }
+                    }
+                }
+            }
+            docByPatient.put(row.id(), doc);
+        }
+
+        void upsert(PatientSearchRow row) {
+            lock.writeLock().lock();
+            try {
+                tombstone(row.id());
+                add(row);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long patientId) {
+            lock.writeLock().lock();
+            try {
+                tombstone(patientId);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Walks the shortest posting list and probes the others with a galloping search, so no intersection is
+         * materialized. Stops after {@code budget} verified candidates, which bounds latency for very broad
+         * queries (a single letter in a large hospital); returns the number of candidates examined.
+         */
+        int search(String[] tokens, int k, int budget, PriorityQueue<Hit> top) {
+            lock.readLock().lock();
+            try {
+                List<Docs> lists = new ArrayList<>();
+                for (String token : tokens) {
+                    if (!collectPostings(token, lists)) {
+                        return 0;
+                    }
+                }
+                lists.sort(Comparator.comparingInt(Docs::size));
+                Docs driver = lists.get(0);
+                int[] cursors = new int[lists.size()];
+                int examined = 0;
+                for (int i = 0; i < driver.size() && examined < budget; i++) {
+                    int doc = driver.ids()[i];
+                    if (deleted.get(doc) || !presentInAll(doc, lists, cursors)) {
+                        continue;
+                    }
+                    examined++;
+                    int score = score(doc, tokens);
+                    if (score == 0 || (top.size() == k && score < top.peek().score())) {
+                        continue;
+                    }
+                    Hit hit = new Hit(score, normalized[doc * FIELDS + 1], normalized[doc * FIELDS], rows[doc]);
+                    if (top.size() < k) {
+                        top.add(hit);
+                    } else if (Hit.WORST_FIRST.compare(hit, top.peek()) > 0) {
+                        top.poll();
+                        top.add(hit);
+                    }
+                }
+                return examined;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private boolean collectPostings(String token, List<Docs> lists) {
+            if (token.length() == 1) {
+                return addPosting(gram(WORD_START, WORD_START, token.charAt(0)), lists);
+            }
+            if (token.length() == 2) {
+                return addPosting(gram(WORD_START, token.charAt(0), token.charAt(1)), lists);
+            }
+            for (int i = 0; i + 2 < token.length(); i++) {
+                if (!addPosting(gram(token.charAt(i), token.charAt(i + 1), token.charAt(i + 2)), lists)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean addPosting(long gram, List<Docs> lists) {
+            Docs docs = docsOf(gram);
+            lists.add(docs);
+            return docs.size() > 0;
+        }
+
+        // Lists are sorted and docs are probed in increasing order, so each cursor only moves forward
+        private static boolean presentInAll(int doc, List<Docs> lists, int[] cursors) {
+            for (int l = 1; l < lists.size(); l++) {
+                Docs list = lists.get(l);
+                int from = cursors[l];
+                int step = 1;
+                int to = from;
+                while (to < list.size() && list.ids()[to] < doc) {
+                    from = to;
+                    to += step;
+                    step <<= 1;
+                }
+                int index = Arrays.binarySearch(list.ids(), from, Math.min(to + 1, list.size()), doc);
+                cursors[l] = index >= 0 ? index : -index - 1;
+                if (index < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Docs docsOf(long gram) {
+            IntList list = postings.get(gram);
+            return list == null ? NO_DOCS : list.view();
+        }
+
+        // Ranks exact field matches above field prefixes, word prefixes and plain substrings
+        private int score(int doc, String[] tokens) {
+            int total = 0;
+            int base = doc * FIELDS;
+            for (String token : tokens) {
+                int best = 0;
+                for (int field = 0; field < FIELDS; field++) {
+                    best = Math.max(best, matchScore(normalized[base + field], token));
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        private static int matchScore(String value, String token) {
+            int at = value.indexOf(token);
+            if (at < 0) {
+                return 0;
+            }
+            if (at == 0) {
+                return value.length() == token.length() ? 100 : 60;
+            }
+            int best = token.length() >= 3 ? 10 : 0;
+            for (; at > 0; at = value.indexOf(token, at + 1)) {
+                if (!isWordChar(value.charAt(at - 1))) {
+                    return 40;
+                }
+            }
+            return best;
+        }
+
+        private void tombstone(Long patientId) {
+            Integer doc = docByPatient.remove(patientId);
+            if (doc != null) {
+                deleted.set(doc);
+                rows[doc] = null;
+                Arrays.fill(normalized, doc * FIELDS, doc * FIELDS + FIELDS, "");
+                deletedCount++;
+            }
+        }
+
+        private void compactIfNeeded() {
+            if (deletedCount < 1024 || deletedCount * 4 < docCount) {
+                return;
+            }
+            PatientSearchRow[] live = new PatientSearchRow[docCount - deletedCount];
+            int n = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc)) {
+                    live[n++] = rows[doc];
+                }
+            }
+            postings.clear();
+            docByPatient.clear();
+            deleted.clear();
+            rows = new PatientSearchRow[Math.max(16, live.length)];
+            normalized = new String[rows.length * FIELDS];
+            docCount = 0;
+            deletedCount = 0;
+            for (PatientSearchRow row : live) {
+                add(row);
+            }
+        }
+
+        private void post(long gram, int doc) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(doc);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        // Documents arrive in increasing order, so a repeat of the same gram within one patient is the last entry
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+
+        // Shares the backing array; only valid while the hospital read lock is held
+        Docs view() {
+            return new Docs(values, size);
+        }
+    }
+
+    private record Docs(int[] ids, int size) {
+    }
+
+    private record Hit(int score, String lastName, String firstName, PatientSearchRow row) {
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingInt(Hit::score)
+            .thenComparing(Hit::lastName, Comparator.reverseOrder())
+            .thenComparing(Hit::firstName, Comparator.reverseOrder())
+            .thenComparing((Hit hit) -> hit.row().id(), Comparator.reverseOrder());
+
+        PatientSearchResultDTO result() {
+            return toResult(row);
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.hospital.service;
 
 import com.hospital.dto.PatientDTO;
+import com.hospital.dto.PatientSearchResultDTO;
+import com.hospital.dto.PatientView;
+import com.hospital.entity.DeletionJob;
 import com.hospital.entity.Hospital;
 import com.hospital.entity.Patient;
+import com.hospital.event.PatientChangedEvent;
 import com.hospital.exception.ResourceNotFoundException;
 import com.hospital.repository.HospitalRepository;
 import com.hospital.repository.PatientRepository;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -17,10 +23,25 @@ import java.util.List;
 public class PatientService {
     private final PatientRepository patientRepository;
     private final HospitalRepository hospitalRepository;
-
-    public PatientService(PatientRepository patientRepository, HospitalRepository hospitalRepository) {
+    private final PatientIdentityResolver patientIdentityResolver;
+    private final PatientSearchService patientSearchService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeletionService deletionService;
+    private final ShardQueryService shardQueryService;
+    private final ChangeOutboxService changeOutboxService;
+
+    public PatientService(PatientRepository patientRepository, HospitalRepository hospitalRepository,
+                          PatientIdentityResolver patientIdentityResolver, PatientSearchService patientSearchService,
+                          ApplicationEventPublisher eventPublisher, DeletionService deletionService,
+                          ShardQueryService shardQueryService, ChangeOutboxService changeOutboxService) {
         this.patientRepository = patientRepository;
         this.hospitalRepository = hospitalRepository;
+        this.patientIdentityResolver = patientIdentityResolver;
+        this.patientSearchService = patientSearchService;
+        this.eventPublisher = eventPublisher;
+        this.deletionService = deletionService;
+        this.shardQueryService = shardQueryService;
+        this.changeOutboxService = changeOutboxService;
     }
 
     @Transactional
@@ -38,7 +59,7 @@ public class PatientService {
         patient.setFirstName(patientDTO.getFirstName());
         patient.setLastName(patientDTO.getLastName());
         patient.setEmail(patientDTO.getEmail());
-        patient.setPhone(patientDTO.getPhone());
+        patientIdentityResolver.applyPhone(patient, patientDTO.getPhone());
         patient.setDateOfBirth(patientDTO.getDateOfBirth());
         patient.setAddress(patientDTO.getAddress());
         patient.setGender(patientDTO.getGender());
@@ -46,27 +67,46 @@ public class PatientService {
         patient.setHospital(hospital);
 
         Patient savedPatient = patientRepository.save(patient);
+        patientIdentityResolver.register(savedPatient);
+        eventPublisher.publishEvent(PatientChangedEvent.saved(savedPatient));
+        recordChange(savedPatient.getId(), hospital.getId(), ChangeOutboxService.CREATED);
         log.info("Patient created successfully with ID: {}", savedPatient.getId());
         return savedPatient;
     }
 
+    @Transactional(readOnly = true)
     public Patient getPatient(Long patientId) {
         log.info("Fetching patient with ID: {}", patientId);
         return patientRepository.findById(patientId)
             .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id: " + patientId));
     }
 
-    public List<Patient> getHospitalPatients(Long hospitalId) {
+    @Transactional(readOnly = true)
+    public PatientView getPatientView(Long patientId) {
+        log.info("Fetching patient with ID: {}", patientId);
+        return patientRepository.findViewById(patientId)
+            .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id: " + patientId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PatientView> getHospitalPatients(Long hospitalId) {
         log.info("Fetching all patients for hospital ID: {}", hospitalId);
         if (!hospitalRepository.existsById(hospitalId)) {
             throw new ResourceNotFoundException("Hospital not found with id: " + hospitalId);
         }
-        return patientRepository.findByHospitalId(hospitalId);
+        return patientRepository.findViewsByHospitalId(hospitalId);
     }
 
-    public List<Patient> getAllPatients() {
+    @Transactional(readOnly = true)
+    public List<PatientSearchResultDTO> searchPatients(Long hospitalId, String query, Integer limit) {
+        log.debug("Searching patients in hospital ID: {} for: {}", hospitalId, query);
+        return patientSearchService.search(hospitalId, query, limit);
+    }
+
+    public List<PatientView> getAllPatients() {
         log.info("Fetching all patients");
-        return patientRepository.findAll();
+        return shardQueryService.queryAll(patientRepository::findAllViews, PatientView::hospitalId,
+            Comparator.comparing(PatientView::id));
     }
 
     @Transactional
@@ -84,24 +124,35 @@ public class PatientService {
         patient.setFirstName(patientDTO.getFirstName());
         patient.setLastName(patientDTO.getLastName());
         patient.setEmail(patientDTO.getEmail());
-        patient.setPhone(patientDTO.getPhone());
+        patientIdentityResolver.applyPhone(patient, patientDTO.getPhone());
         patient.setDateOfBirth(patientDTO.getDateOfBirth());
         patient.setAddress(patientDTO.getAddress());
         patient.setGender(patientDTO.getGender());
         patient.setBloodGroup(patientDTO.getBloodGroup());
 
         Patient updatedPatient = patientRepository.save(patient);
+        patientIdentityResolver.register(updatedPatient);
+        eventPublisher.publishEvent(PatientChangedEvent.saved(updatedPatient));
+        recordChange(updatedPatient.getId(), updatedPatient.getHospital().getId(), ChangeOutboxService.UPDATED);
         log.info("Patient updated successfully");
         return updatedPatient;
     }
 
     @Transactional
-    public void deletePatient(Long patientId) {
+    public DeletionJob deletePatient(Long patientId) {
         log.info("Deleting patient with ID: {}", patientId);
-        if (!patientRepository.existsById(patientId)) {
-            throw new ResourceNotFoundException("Patient not found with id: " + patientId);
-        }
-        patientRepository.deleteById(patientId);
-        log.info("Patient deleted successfully");
+        Patient patient = patientRepository.findById(patientId)
+            .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id: " + patientId));
+        // Bills, medical records and appointments are purged in the background
+        DeletionJob job = deletionService.requestDeletion(DeletionJob.TargetType.PATIENT, patientId);
+        eventPublisher.publishEvent(PatientChangedEvent.deleted(patientId));
+        recordChange(patientId, patient.getHospital().getId(), ChangeOutboxService.REMOVED);
+        log.info("Patient soft-deleted, purge queued as deletion job {}", job.getId());
+        return job;
+    }
+
+    // Other instances reload the patient into their search, phone and allergy indexes from the relayed change
+    private void recordChange(Long patientId, Long hospitalId, String changeType) {
+        changeOutboxService.record(ChangeOutboxService.PATIENT, patientId, changeType, hospitalId, patientId, null);
     }
 }
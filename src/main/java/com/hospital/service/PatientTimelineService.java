@@ -0,0 +1,214 @@
+package com.hospital.service;
+
+import com.hospital.dto.PatientTimelineDTO;
+import com.hospital.dto.TimelineEntryDTO;
+import com.hospital.entity.Appointment;
+import com.hospital.entity.Bill;
+import com.hospital.entity.MedicalRecord;
+import com.hospital.entity.Patient;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.AppointmentRepository;
+import com.hospital.repository.BillRepository;
+import com.hospital.repository.MedicalRecordRepository;
+import com.hospital.repository.PatientRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Assembles a patient's appointments, medical records and bills into one time-ordered page.
+ * <p>
+ * The four sources are fetched concurrently on the bounded {@code timelineExecutor}, each in its own
+ * read-only transaction, and mapped to DTOs before the transaction ends so nothing is lazily loaded
+ * during serialization. A single latency budget covers the whole request: sources that have not
+ * answered when it runs out are reported in {@code unavailableSources} instead of failing the call.
+ * The budget is also each source's query timeout, so the database stops a query nobody waits for any
+ * more. Pages reach back at most {@code timeline.max-depth} entries, since every source loads all
+ * entries up to the requested page.
+ */
+@Service
+@Log4j2
+public class PatientTimelineService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final BillRepository billRepository;
+    private final ThreadPoolTaskExecutor timelineExecutor;
+    private final PlatformTransactionManager transactionManager;
+    private final long latencyBudgetMillis;
+    private final int maxDepth;
+
+    public PatientTimelineService(PatientRepository patientRepository,
+                                  AppointmentRepository appointmentRepository,
+                                  MedicalRecordRepository medicalRecordRepository,
+                                  BillRepository billRepository,
+                                  @Qualifier("timelineExecutor") ThreadPoolTaskExecutor timelineExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${timeline.latency-budget-ms:800}") long latencyBudgetMillis,
+                                  @Value("${timeline.max-depth:1000}") int maxDepth) {
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.billRepository = billRepository;
+        this.timelineExecutor = timelineExecutor;
+        this.transactionManager = transactionManager;
+        this.latencyBudgetMillis = latencyBudgetMillis;
+        this.maxDepth = maxDepth;
+    }
+
+    public PatientTimelineDTO getTimeline(Long patientId, LocalDateTime from, LocalDateTime to, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((page + 1L) * size > maxDepth) {
+            throw new IllegalArgumentException("Timeline pages reach back at most " + maxDepth
+                + " entries; narrow the from/to range instead");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusYears(1);
+        LocalDateTime start = from != null ? from : end.minusYears(2);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Timeline start must not be after its end");
+        }
+        log.info("Fetching timeline for patient ID: {} between {} and {}, page {}", patientId, start, end, page);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+        // Each source can contribute at most (page + 1) * size entries to the requested page,
+        // plus one more so we can tell whether another page exists
+        Pageable window = PageRequest.of(0, (page + 1) * size + 1);
+
+        CompletableFuture<PatientTimelineDTO.PatientSummary> patientFuture = submit(() ->
+            patientRepository.findById(patientId).map(this::toSummary).orElse(null), deadline);
+        CompletableFuture<List<TimelineEntryDTO>> appointmentsFuture = submit(() ->
+            appointmentRepository.findTimelineByPatientId(patientId, start, end, window).stream().map(this::toEntry).toList(), deadline);
+        CompletableFuture<List<TimelineEntryDTO>> recordsFuture = submit(() ->
+            medicalRecordRepository.findTimelineByPatientId(patientId, start, end, window).stream().map(this::toEntry).toList(), deadline);
+        CompletableFuture<List<TimelineEntryDTO>> billsFuture = submit(() ->
+            billRepository.findTimelineByPatientId(patientId, start, end, window).stream().map(this::toEntry).toList(), deadline);
+
+        PatientTimelineDTO timeline = new PatientTimelineDTO();
+        timeline.setPage(page);
+        timeline.setSize(size);
+
+        List<TimelineEntryDTO> merged = new ArrayList<>();
+        timeline.setPatient(await(patientFuture, "patient", deadline, timeline));
+        if (timeline.getPatient() == null && !timeline.isPartial()) {
+            appointmentsFuture.cancel(true);
+            recordsFuture.cancel(true);
+            billsFuture.cancel(true);
+            throw new ResourceNotFoundException("Patient not found with id: " + patientId);
+        }
+        addAll(merged, await(appointmentsFuture, "appointments", deadline, timeline));
+        addAll(merged, await(recordsFuture, "medicalRecords", deadline, timeline));
+        addAll(merged, await(billsFuture, "bills", deadline, timeline));
+
+        merged.sort(Comparator.comparing(TimelineEntryDTO::getOccurredAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(entry -> entry.getType().ordinal())
+            .thenComparing(TimelineEntryDTO::getId, Comparator.reverseOrder()));
+
+        int fromIndex = Math.min(page * size, merged.size());
+        int toIndex = Math.min(fromIndex + size, merged.size());
+        timeline.setEntries(new ArrayList<>(merged.subList(fromIndex, toIndex)));
+        timeline.setHasMore(merged.size() > toIndex);
+        return timeline;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query, long deadline) {
+        try {
+            return CompletableFuture.supplyAsync(() -> sourceTransaction(deadline).execute(status -> query.get()), timelineExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private TransactionTemplate sourceTransaction(long deadline) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            // Queued past the budget; the request has moved on without this source
+            throw new TransactionTimedOutException("Timeline latency budget ran out before the query started");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        // Hibernate gives each query the whole seconds left, rounded down, and fails once none are left; one
+        // extra second makes that the remaining budget rounded up, so a source is never cut short
+        transaction.setTimeout((int) ((remainingMillis + 999) / 1000) + 1);
+        return transaction;
+    }
+
+    private <T> T await(CompletableFuture<T> future, String source, long deadline, PatientTimelineDTO timeline) {
+        long remaining = deadline - System.nanoTime();
+        try {
+            return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Timeline source {} exceeded the {} ms latency budget", source, latencyBudgetMillis);
+        } catch (ExecutionException e) {
+            log.error("Timeline source {} failed: {}", source, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timeline.setPartial(true);
+        timeline.getUnavailableSources().add(source);
+        return null;
+    }
+
+    private static void addAll(List<TimelineEntryDTO> merged, List<TimelineEntryDTO> entries) {
+        if (entries != null) {
+            merged.addAll(entries);
+        }
+    }
+
+    private PatientTimelineDTO.PatientSummary toSummary(Patient patient) {
+        PatientTimelineDTO.PatientSummary summary = new PatientTimelineDTO.PatientSummary();
+        summary.setId(patient.getId());
+        summary.setFirstName(patient.getFirstName());
+        summary.setLastName(patient.getLastName());
+        summary.setEmail(patient.getEmail());
+        summary.setPhone(patient.getPhone());
+        summary.setDateOfBirth(patient.getDateOfBirth());
+        summary.setGender(patient.getGender());
+        summary.setBloodGroup(patient.getBloodGroup());
+        summary.setHospitalId(patient.getHospital() != null ? patient.getHospital().getId() : null);
+        return summary;
+    }
+
+    private TimelineEntryDTO toEntry(Appointment appointment) {
+        return new TimelineEntryDTO(TimelineEntryDTO.EntryType.APPOINTMENT, appointment.getId(),
+            appointment.getAppointmentTime(), "Appointment with " + appointment.getDoctor().getSpecialization(),
+            appointment.getStatus() != null ? appointment.getStatus().name() : null,
+            appointment.getDoctor().getName(), null);
+    }
+
+    private TimelineEntryDTO toEntry(MedicalRecord record) {
+        return new TimelineEntryDTO(TimelineEntryDTO.EntryType.MEDICAL_RECORD, record.getId(),
+            record.getVisitDate(), record.getDiagnosis(),
+            record.getRecordType() != null ? record.getRecordType().name() : null,
+            record.getTreatingDoctor().getName(), null);
+    }
+
+    private TimelineEntryDTO toEntry(Bill bill) {
+        return new TimelineEntryDTO(TimelineEntryDTO.EntryType.BILL, bill.getId(),
+            bill.getBillDate(), "Bill " + bill.getBillNumber(),
+            bill.getStatus() != null ? bill.getStatus().name() : null,
+            null, bill.getTotalAmount());
+    }
+}
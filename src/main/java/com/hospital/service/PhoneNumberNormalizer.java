@@ -0,0 +1,66 @@
+package com.hospital.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts free-form phone numbers into E.164 ({@code +<country code><subscriber number>}).
+ * <p>
+ * Separators and punctuation are dropped. Numbers written with {@code +} or the {@code 00}
+ * international prefix keep their own country code. National numbers, with or without trunk
+ * zeros, get the configured default country code.
+ */
+@Component
+public class PhoneNumberNormalizer {
+    private static final int MIN_E164_DIGITS = 7;
+    private static final int MAX_E164_DIGITS = 15;
+
+    private final String defaultCountryCode;
+    private final int nationalNumberLength;
+
+    public PhoneNumberNormalizer(@Value("${patient.phone.default-country-code:91}") String defaultCountryCode,
+                                 @Value("${patient.phone.national-number-length:10}") int nationalNumberLength) {
+        this.defaultCountryCode = defaultCountryCode;
+        this.nationalNumberLength = nationalNumberLength;
+    }
+
+    /**
+     * @return the E.164 form of {@code phone}, or {@code null} when it is blank or cannot be a valid number
+     */
+    public String normalize(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(MAX_E164_DIGITS + 1);
+        boolean international = false;
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.length() == 0) {
+                international = true;
+            }
+        }
+
+        if (!international && digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0') {
+            digits.delete(0, 2);
+            international = true;
+        }
+        if (!international) {
+            if (digits.length() == defaultCountryCode.length() + nationalNumberLength
+                    && digits.indexOf(defaultCountryCode) == 0) {
+                international = true;
+            } else {
+                while (digits.length() > nationalNumberLength && digits.charAt(0) == '0') {
+                    digits.deleteCharAt(0);
+                }
+                digits.insert(0, defaultCountryCode);
+            }
+        }
+
+        if (digits.length() < MIN_E164_DIGITS || digits.length() > MAX_E164_DIGITS) {
+            return null;
+        }
+        return digits.insert(0, '+').toString();
+    }
+}
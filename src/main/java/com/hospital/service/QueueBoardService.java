@@ -0,0 +1,484 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.config.ReadRouting;
+import com.hospital.config.ShardContext;
+import com.hospital.config.ShardDirectory;
+import com.hospital.dto.AppointmentView;
+import com.hospital.dto.ChangeEventDTO;
+import com.hospital.dto.QueueBoardDTO;
+import com.hospital.dto.QueueBoardDeltaDTO;
+import com.hospital.entity.Appointment.AppointmentStatus;
+import com.hospital.event.ChangesRelayedEvent;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.AppointmentRepository;
+import com.hospital.repository.DepartmentRepository;
+import com.hospital.repository.DoctorRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live queue boards for doctors' room screens and department displays, pushed over server-sent events.
+ * <p>
+ * A board holds one doctor's or department's appointments for the day, loaded once when its first screen
+ * connects and shared by every screen watching it. Appointment changes arrive from the change feed
+ * ({@link ChangesRelayedEvent}), so writes made on any node reach screens on every node. Each change updates
+ * the board once and is serialized once; every screen then gets a reference to the same frame in its own
+ * queue of at most {@code queue-board.max-pending} frames. A screen that falls that far behind has its queue
+ * dropped and gets a fresh snapshot instead. Frames are written on the bounded {@code queueBoardExecutor}, a
+ * heartbeat every {@code queue-board.heartbeat-ms} finds screens that went away, and a board is dropped with
+ * its last screen.
+ */
+@Service
+@Log4j2
+public class QueueBoardService {
+    public static final String DOCTOR = "doctor";
+    public static final String DEPARTMENT = "department";
+
+    private static final Frame HEARTBEAT = new Frame(0, null, null);
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final DepartmentRepository departmentRepository;
+    private final ShardDirectory shardDirectory;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor queueBoardExecutor;
+    private final int maxPending;
+    private final long streamTimeoutMillis;
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+
+    public QueueBoardService(AppointmentRepository appointmentRepository, DoctorRepository doctorRepository,
+                             DepartmentRepository departmentRepository, ShardDirectory shardDirectory,
+                             ObjectMapper objectMapper,
+                             @Qualifier("queueBoardExecutor") ThreadPoolTaskExecutor queueBoardExecutor,
+                             @Value("${queue-board.max-pending:64}") int maxPending,
+                             @Value("${queue-board.stream.timeout-ms:3600000}") long streamTimeoutMillis) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.departmentRepository = departmentRepository;
+        this.shardDirectory = shardDirectory;
+        this.objectMapper = objectMapper;
+        this.queueBoardExecutor = queueBoardExecutor;
+        this.maxPending = maxPending;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    /**
+     * Streams the board: a {@code snapshot} event, then a {@code delta} event per change. Event IDs are the
+     * board version; a reconnecting screen simply gets a new snapshot.
+     */
+    public SseEmitter watch(String kind, Long id) {
+        String shard = shardDirectory.currentShard();
+        String key = shard + "/" + kind + ":" + id;
+        Viewer viewer = new Viewer(new SseEmitter(streamTimeoutMillis));
+        Board board;
+        boolean creator;
+        while (true) {
+            board = boards.computeIfAbsent(key, k -> new Board(k, kind, id, shard));
+            synchronized (board) {
+                if (board.closed) {
+                    continue;
+                }
+                creator = !board.loadStarted;
+                board.loadStarted = true;
+                board.viewers.add(viewer);
+                viewer.board = board;
+                viewer.resync = true;
+                break;
+            }
+        }
+        viewer.emitter.onCompletion(() -> detach(viewer));
+        viewer.emitter.onTimeout(viewer.emitter::complete);
+        viewer.emitter.onError(e -> detach(viewer));
+        if (creator) {
+            log.info("Opening queue board {} {}", kind, id);
+            Board opening = board;
+            try {
+                // Not on the request thread: its open-in-view session would keep a connection for as long as the
+                // stream stays open
+                CompletableFuture.runAsync(() -> open(opening), queueBoardExecutor).join();
+            } catch (CompletionException | TaskRejectedException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException failure ? failure : e;
+                fail(board, cause, viewer);
+                throw cause;
+            }
+        } else {
+            drain(viewer);
+        }
+        return viewer.emitter;
+    }
+
+    @EventListener
+    public void onChangesRelayed(ChangesRelayedEvent event) {
+        if (boards.isEmpty()) {
+            return;
+        }
+        Map<Long, Optional<AppointmentView>> views = new HashMap<>();
+        for (ChangeEventDTO change : event.changes()) {
+            if (!ChangeOutboxService.APPOINTMENT.equals(change.entityType()) || change.payload() == null) {
+                continue;
+            }
+            AppointmentChange appointment = parse(change);
+            if (appointment == null) {
+                continue;
+            }
+            for (String key : List.of(event.shard() + "/" + DOCTOR + ":" + appointment.doctorId(),
+                                      event.shard() + "/" + DEPARTMENT + ":" + appointment.departmentId())) {
+                Board board = boards.get(key);
+                if (board != null) {
+                    try {
+                        apply(board, appointment, views);
+                    } catch (RuntimeException e) {
+                        // The board misses this change; its screens resync when they reconnect
+                        log.warn("Could not apply change at offset {} to queue board {}: {}",
+                            change.offset(), key, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps idle screens' connections alive through proxies, closes those that went away, and starts each
+     * board's new day.
+     */
+    @Scheduled(fixedDelayString = "${queue-board.heartbeat-ms:15000}")
+    public void heartbeat() {
+        LocalDate today = LocalDate.now();
+        for (Board board : boards.values()) {
+            boolean newDay;
+            List<Viewer> viewers;
+            synchronized (board) {
+                newDay = board.loaded && !today.equals(board.date);
+                if (newDay) {
+                    // Changes relayed meanwhile wait for the new day's snapshot
+                    board.loaded = false;
+                } else {
+                    board.viewers.forEach(viewer -> viewer.heartbeatDue = true);
+                }
+                viewers = List.copyOf(board.viewers);
+            }
+            if (newDay) {
+                try {
+                    load(board);
+                } catch (RuntimeException e) {
+                    log.warn("Could not start the new day on queue board {}: {}", board.key, e.getMessage());
+                    fail(board, e, null);
+                }
+            } else {
+                viewers.forEach(this::drain);
+            }
+        }
+    }
+
+    private void open(Board board) {
+        ShardContext.onShard(board.shard, () -> {
+            boolean exists = DOCTOR.equals(board.kind)
+                ? doctorRepository.existsById(board.id) : departmentRepository.existsById(board.id);
+            if (!exists) {
+                throw new ResourceNotFoundException(
+                    (DOCTOR.equals(board.kind) ? "Doctor" : "Department") + " not found with id: " + board.id);
+            }
+            load(board);
+            return null;
+        });
+    }
+
+    private void load(Board board) {
+        LocalDate date = LocalDate.now();
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        // From the primary, like the changes applied on top of it
+        List<AppointmentView> views = ShardContext.onShard(board.shard, () -> ReadRouting.onPrimary(() ->
+            DOCTOR.equals(board.kind)
+                ? appointmentRepository.findQueueViewsByDoctorId(board.id, start, end, AppointmentStatus.CANCELLED)
+                : appointmentRepository.findQueueViewsByDepartmentId(board.id, start, end, AppointmentStatus.CANCELLED)));
+        List<Viewer> viewers;
+        synchronized (board) {
+            board.entries.clear();
+            views.forEach(view -> board.entries.put(view.id(), entry(view)));
+            board.date = date;
+            board.version++;
+            board.snapshot = null;
+            board.loaded = true;
+            // Changes relayed while loading; the snapshot may already include some of them, which is harmless
+            for (PendingChange pending : board.pendingChanges) {
+                applyLoaded(board, pending.change(), pending.view());
+            }
+            board.pendingChanges.clear();
+            board.viewers.forEach(viewer -> viewer.resync = true);
+            viewers = List.copyOf(board.viewers);
+        }
+        viewers.forEach(this::drain);
+    }
+
+    private void apply(Board board, AppointmentChange change, Map<Long, Optional<AppointmentView>> views) {
+        // A new entry needs the patient and doctor names; fetched outside the board's lock, once per batch
+        AppointmentView view = null;
+        if (change.status() != AppointmentStatus.CANCELLED && !board.entries.containsKey(change.appointmentId())
+                && (board.date == null || change.appointmentTime().toLocalDate().equals(board.date))) {
+            view = views.computeIfAbsent(change.appointmentId(), appointmentId -> ShardContext.onShard(board.shard, () ->
+                ReadRouting.onPrimary(() -> appointmentRepository.findViewById(appointmentId)))).orElse(null);
+        }
+        synchronized (board) {
+            if (board.closed) {
+                return;
+            }
+            if (!board.loaded) {
+                board.pendingChanges.add(new PendingChange(change, view));
+                return;
+            }
+            applyLoaded(board, change, view);
+        }
+    }
+
+    private void applyLoaded(Board board, AppointmentChange change, AppointmentView view) {
+        boolean onBoard = change.status() != AppointmentStatus.CANCELLED
+            && change.appointmentTime().toLocalDate().equals(board.date);
+        QueueBoardDTO.Entry existing = board.entries.get(change.appointmentId());
+        QueueBoardDTO.Entry entry;
+        if (!onBoard) {
+            if (existing == null) {
+                return;
+            }
+            board.entries.remove(change.appointmentId());
+            entry = null;
+        } else if (existing != null) {
+            entry = existing.with(change.appointmentTime(), change.status());
+            if (entry.equals(existing)) {
+                return;
+            }
+            board.entries.put(change.appointmentId(), entry);
+        } else if (view != null) {
+            entry = entry(view).with(change.appointmentTime(), change.status());
+            board.entries.put(change.appointmentId(), entry);
+        } else {
+            return;
+        }
+        board.version++;
+        board.snapshot = null;
+        Frame frame = new Frame(board.version, "delta",
+            write(new QueueBoardDeltaDTO(board.version, change.appointmentId(), entry)));
+        for (Viewer viewer : board.viewers) {
+            synchronized (viewer) {
+                if (viewer.resync) {
+                    continue;
+                }
+                if (viewer.pending.size() >= maxPending) {
+                    // Too far behind to be worth catching up frame by frame
+                    viewer.pending.clear();
+                    viewer.resync = true;
+                } else {
+                    viewer.pending.add(frame);
+                }
+            }
+            drain(viewer);
+        }
+    }
+
+    private void drain(Viewer viewer) {
+        if (viewer.closed || !viewer.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            queueBoardExecutor.execute(() -> pump(viewer));
+        } catch (TaskRejectedException e) {
+            // Picked up again by the next change or heartbeat
+            viewer.draining.set(false);
+        }
+    }
+
+    private void pump(Viewer viewer) {
+        try {
+            Frame frame;
+            while (!viewer.closed && (frame = nextFrame(viewer)) != null) {
+                viewer.emitter.send(frame == HEARTBEAT
+                    ? SseEmitter.event().comment("keep-alive")
+                    : SseEmitter.event().id(Long.toString(frame.version())).name(frame.name()).data(frame.json()));
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Queue board screen went away: {}", e.getMessage());
+            viewer.emitter.completeWithError(e);
+            detach(viewer);
+        } finally {
+            viewer.draining.set(false);
+        }
+        // Frames queued while this pump was finishing found it still draining
+        boolean more;
+        synchronized (viewer) {
+            more = !viewer.pending.isEmpty() || viewer.heartbeatDue || viewer.resync && viewer.board.loaded;
+        }
+        if (more && !viewer.closed) {
+            drain(viewer);
+        }
+    }
+
+    private Frame nextFrame(Viewer viewer) {
+        synchronized (viewer) {
+            if (!viewer.resync) {
+                Frame frame = viewer.pending.poll();
+                if (frame == null && viewer.heartbeatDue) {
+                    viewer.heartbeatDue = false;
+                    return HEARTBEAT;
+                }
+                return frame;
+            }
+        }
+        Board board = viewer.board;
+        synchronized (board) {
+            if (!board.loaded) {
+                return null;
+            }
+            if (board.snapshot == null) {
+                List<QueueBoardDTO.Entry> entries = new ArrayList<>(board.entries.values());
+                entries.sort(Comparator.comparing(QueueBoardDTO.Entry::appointmentTime)
+                    .thenComparing(QueueBoardDTO.Entry::appointmentId));
+                board.snapshot = new Frame(board.version, "snapshot",
+                    write(new QueueBoardDTO(board.kind, board.id, board.date, board.version, entries)));
+            }
+            synchronized (viewer) {
+                viewer.resync = false;
+                viewer.heartbeatDue = false;
+                viewer.pending.clear();
+            }
+            return board.snapshot;
+        }
+    }
+
+    private void detach(Viewer viewer) {
+        viewer.closed = true;
+        Board board = viewer.board;
+        synchronized (board) {
+            board.viewers.remove(viewer);
+            if (board.viewers.isEmpty() && !board.closed) {
+                board.closed = true;
+                boards.remove(board.key, board);
+                log.info("Closed queue board {} {}", board.kind, board.id);
+            }
+        }
+    }
+
+    private void fail(Board board, RuntimeException e, Viewer answered) {
+        List<Viewer> viewers;
+        synchronized (board) {
+            board.closed = true;
+            boards.remove(board.key, board);
+            viewers = List.copyOf(board.viewers);
+        }
+        // The screen that opened the board gets the error as its response instead
+        for (Viewer viewer : viewers) {
+            viewer.closed = true;
+            if (viewer != answered) {
+                viewer.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private AppointmentChange parse(ChangeEventDTO change) {
+        try {
+            JsonNode payload = objectMapper.readTree(change.payload());
+            if (!payload.hasNonNull("doctorId") || !payload.hasNonNull("appointmentTime") || !payload.hasNonNull("status")) {
+                return null;
+            }
+            return new AppointmentChange(change.entityId(), payload.get("doctorId").asLong(),
+                payload.hasNonNull("departmentId") ? payload.get("departmentId").asLong() : null,
+                LocalDateTime.parse(payload.get("appointmentTime").asText()),
+                AppointmentStatus.valueOf(payload.get("status").asText()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Skipping unreadable appointment change at offset {}: {}", change.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize queue board frame", e);
+        }
+    }
+
+    private static QueueBoardDTO.Entry entry(AppointmentView view) {
+        AppointmentView.PatientRef patient = view.patient();
+        // Screens are on display in waiting areas, so the patient is shown by first name and initial only
+        String patientName = patient.firstName()
+            + (patient.lastName() != null && !patient.lastName().isEmpty() ? " " + patient.lastName().charAt(0) + "." : "");
+        return new QueueBoardDTO.Entry(view.id(), view.appointmentTime(), view.status(),
+            view.doctor().id(), view.doctor().name(), patientName);
+    }
+
+    private record AppointmentChange(Long appointmentId, Long doctorId, Long departmentId,
+                                     LocalDateTime appointmentTime, AppointmentStatus status) {
+    }
+
+    private record PendingChange(AppointmentChange change, AppointmentView view) {
+    }
+
+    private record Frame(long version, String name, String json) {
+    }
+
+    private static final class Board {
+        private final String key;
+        private final String kind;
+        private final Long id;
+        private final String shard;
+        private final Set<Viewer> viewers = new LinkedHashSet<>();
+        // Read without the lock to decide whether a change needs a lookup; written under it
+        private final Map<Long, QueueBoardDTO.Entry> entries = new ConcurrentHashMap<>();
+        private final List<PendingChange> pendingChanges = new ArrayList<>();
+        private volatile LocalDate date;
+        private volatile boolean loaded;
+        private boolean loadStarted;
+        private boolean closed;
+        private long version;
+        private Frame snapshot;
+
+        private Board(String key, String kind, Long id, String shard) {
+            this.key = key;
+            this.kind = kind;
+            this.id = id;
+            this.shard = shard;
+        }
+    }
+
+    private static final class Viewer {
+        private final SseEmitter emitter;
+        private final Queue<Frame> pending = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private Board board;
+        private boolean resync;
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+
+        private Viewer(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hospital.service;
+
+import com.hospital.dto.CacheRegionStatsDTO;
+import com.hospital.entity.Block;
+import com.hospital.entity.Department;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.event.ChangeVersionAdvancedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the second-level cache for hospital reference data (hospitals, blocks, departments, doctors)
+ * consistent across replicas.
+ * <p>
+ * Writes on this node keep the local cache current through Hibernate's read-write strategy; writes on
+ * other nodes surface here as {@link ChangeVersionAdvancedEvent}s, and the matching entity region is
+ * dropped along with all cached query results. Entries that miss an event still age out through the
+ * TTLs in {@code application.conf}.
+ */
+@Service
+@Log4j2
+public class ReferenceDataCacheService {
+    private static final Map<String, Class<?>> REGIONS = Map.of(
+        ChangeVersionService.HOSPITALS, Hospital.class,
+        ChangeVersionService.BLOCKS, Block.class,
+        ChangeVersionService.DEPARTMENTS, Department.class,
+        ChangeVersionService.DOCTORS, Doctor.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final SessionFactory sessionFactory;
+
+    public ReferenceDataCacheService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @EventListener
+    public void onChangeVersionAdvanced(ChangeVersionAdvancedEvent event) {
+        Class<?> entityClass = REGIONS.get(event.scope());
+        if (entityClass == null) {
+            return;
+        }
+        entityManagerFactory.getCache().evict(entityClass);
+        // Cached query results hold ids that may no longer match the query
+        sessionFactory.getCache().evictQueryRegions();
+        log.info("Evicted cached {} entries at change version {}", entityClass.getSimpleName(), event.version());
+    }
+
+    public List<CacheRegionStatsDTO> getRegionStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        List<CacheRegionStatsDTO> stats = new ArrayList<>(regionNames.length);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long hits = region.getHitCount();
+            long misses = region.getMissCount();
+            long lookups = hits + misses;
+            stats.add(new CacheRegionStatsDTO(regionName, hits, misses, region.getPutCount(),
+                lookups == 0 ? 0 : (double) hits / lookups, region.getElementCountInMemory()));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hospital.service;
+
+import com.hospital.config.ShardContext;
+import com.hospital.config.ShardDirectory;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Queries that span every hospital when hospital sharding is enabled.
+ * <p>
+ * {@link #queryAll} runs a read on every shard at once on the bounded {@code shardQueryExecutor}, each in its
+ * own read-only transaction, and merges the results. A shard that fails or misses {@code shard.scatter.timeout-ms}
+ * fails the whole query: an admin list silently missing a shard's hospitals would look complete. Background jobs
+ * use {@link #forEachShard} instead, one shard after another on the calling thread.
+ */
+@Service
+@Log4j2
+public class ShardQueryService {
+    private final ShardDirectory shardDirectory;
+    private final ThreadPoolTaskExecutor shardQueryExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate shardTransaction;
+    private final long timeoutMillis;
+
+    public ShardQueryService(ShardDirectory shardDirectory,
+                             @Qualifier("shardQueryExecutor") ThreadPoolTaskExecutor shardQueryExecutor,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${shard.scatter.timeout-ms:5000}") long timeoutMillis) {
+        this.shardDirectory = shardDirectory;
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.timeoutMillis = timeoutMillis;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Also ends a shard's statement once nobody waits for its answer any more
+        this.shardTransaction = new TransactionTemplate(transactionManager);
+        this.shardTransaction.setReadOnly(true);
+        this.shardTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)));
+    }
+
+    /**
+     * Runs {@code query} on every shard and merges the results in {@code order}, which should be the order
+     * each shard returns them in.
+     */
+    public <T> List<T> queryAll(Supplier<List<T>> query, Comparator<? super T> order) {
+        return queryAll(query, null, order);
+    }
+
+    /**
+     * Like {@link #queryAll(Supplier, Comparator)}, keeping only each shard's rows of hospitals that shard holds,
+     * so rows left on the old shard while a hospital is being moved are not listed twice.
+     */
+    public <T> List<T> queryAll(Supplier<List<T>> query, Function<T, Long> hospitalOf, Comparator<? super T> order) {
+        List<String> shards = shardDirectory.shards();
+        if (shards.size() == 1) {
+            return readOnlyTransaction.execute(status -> query.get());
+        }
+        Map<String, CompletableFuture<List<T>>> futures = new LinkedHashMap<>();
+        for (String shard : shards) {
+            futures.put(shard, CompletableFuture.supplyAsync(() -> ShardContext.onShard(shard, () ->
+                shardTransaction.execute(status -> {
+                    List<T> rows = query.get();
+                    if (hospitalOf != null) {
+                        rows = new ArrayList<>(rows);
+                        rows.removeIf(row -> !shard.equals(shardDirectory.shardOf(hospitalOf.apply(row))));
+                    }
+                    return rows;
+                })), shardQueryExecutor));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<T> merged = new ArrayList<>();
+        try {
+            for (Map.Entry<String, CompletableFuture<List<T>>> future : futures.entrySet()) {
+                merged.addAll(await(future.getKey(), future.getValue(), deadline));
+            }
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+        merged.sort(order);
+        return merged;
+    }
+
+    /**
+     * Runs {@code work} once per shard, with the shard set for everything it does.
+     */
+    public void forEachShard(Consumer<String> work) {
+        for (String shard : shardDirectory.shards()) {
+            ShardContext.onShard(shard, () -> {
+                work.accept(shard);
+                return null;
+            });
+        }
+    }
+
+    private <T> List<T> await(String shard, CompletableFuture<List<T>> future, long deadline) {
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Shard '{}' did not answer within {} ms", shard, timeoutMillis);
+            throw new QueryTimeoutException("Shard '" + shard + "' did not answer within " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            log.error("Query on shard '{}' failed: {}", shard, e.getCause().getMessage());
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shard '" + shard + "'", e);
+        }
+    }
+}
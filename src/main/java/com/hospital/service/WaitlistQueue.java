@@ -0,0 +1,85 @@
+package com.hospital.service;
+
+import com.hospital.entity.WaitlistEntry;
+import com.hospital.entity.WaitlistEntry.Urgency;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * One doctor's waiting entries in priority order: most urgent first, then longest waiting. Matching a slot
+ * walks that order to the first entry whose time bounds admit the slot, so entries without bounds (most of
+ * them) answer in the first few steps. Not thread-safe; {@link WaitlistService} locks each queue.
+ */
+class WaitlistQueue {
+    static final Comparator<Candidate> PRIORITY = Comparator
+        .comparing(Candidate::urgency, Comparator.reverseOrder())
+        .thenComparing(Candidate::requestedAt)
+        .thenComparing(Candidate::entryId);
+
+    private final NavigableSet<Candidate> candidates = new TreeSet<>(PRIORITY);
+    private final Map<Long, Candidate> byEntryId = new HashMap<>();
+
+    void put(Candidate candidate) {
+        remove(candidate.entryId());
+        candidates.add(candidate);
+        byEntryId.put(candidate.entryId(), candidate);
+    }
+
+    void remove(Long entryId) {
+        Candidate previous = byEntryId.remove(entryId);
+        if (previous != null) {
+            candidates.remove(previous);
+        }
+    }
+
+    void removePatient(Long patientId) {
+        candidates.removeIf(candidate -> {
+            if (candidate.patientId().equals(patientId)) {
+                byEntryId.remove(candidate.entryId());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * The highest-priority entry that can take {@code slot}, skipping {@code tried}; null if none can.
+     */
+    Candidate match(LocalDateTime slot, Set<Long> tried) {
+        for (Candidate candidate : candidates) {
+            if (candidate.accepts(slot) && !tried.contains(candidate.entryId())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return candidates.size();
+    }
+
+    /**
+     * What matching needs of a waiting entry.
+     */
+    record Candidate(Long entryId, Long patientId, Long hospitalId, Urgency urgency, LocalDateTime requestedAt,
+                     LocalDateTime earliestTime, LocalDateTime latestTime, LocalDateTime offeredTime) {
+
+        static Candidate of(WaitlistEntry entry) {
+            return new Candidate(entry.getId(), entry.getPatientId(), entry.getHospitalId(), entry.getUrgency(),
+                entry.getRequestedAt(), entry.getEarliestTime(), entry.getLatestTime(), entry.getOfferedTime());
+        }
+
+        boolean accepts(LocalDateTime slot) {
+            return (earliestTime == null || !slot.isBefore(earliestTime))
+                && (latestTime == null || !slot.isAfter(latestTime))
+                // Offered this slot before and let it go
+                && !slot.equals(offeredTime);
+        }
+    }
+}
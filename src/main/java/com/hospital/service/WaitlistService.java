@@ -0,0 +1,435 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.config.ReadRouting;
+import com.hospital.config.ShardContext;
+import com.hospital.config.ShardDirectory;
+import com.hospital.dto.AppointmentDTO;
+import com.hospital.dto.ChangeEventDTO;
+import com.hospital.dto.WaitlistRequestDTO;
+import com.hospital.entity.Appointment;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Patient;
+import com.hospital.entity.WaitlistEntry;
+import com.hospital.entity.WaitlistEntry.Urgency;
+import com.hospital.entity.WaitlistEntry.WaitlistStatus;
+import com.hospital.event.AppointmentCancelledEvent;
+import com.hospital.event.ChangesRelayedEvent;
+import com.hospital.event.DoctorDeletedEvent;
+import com.hospital.event.PatientChangedEvent;
+import com.hospital.exception.DuplicateResourceException;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.DoctorRepository;
+import com.hospital.repository.PatientRepository;
+import com.hospital.repository.WaitlistEntryRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-doctor waitlists that fill cancelled slots.
+ * <p>
+ * When an appointment is cancelled, the freed slot is matched against the doctor's waiting entries right
+ * after the cancellation commits and offered to the best one: most urgent first, then longest waiting, among
+ * those whose time bounds admit the slot. The offer holds for {@code waitlist.offer.timeout-minutes} (never
+ * past the slot itself); a declined or lapsed offer sends the entry back to the queue and the slot on to the
+ * next match. Offers are recorded in the change feed as {@code WAITLIST} changes, which is how patients get
+ * notified.
+ * <p>
+ * Matching runs against an in-memory {@link WaitlistQueue} per doctor, loaded on first use and kept current
+ * on every instance from the change feed. The table stays the authority: an offer is a conditional update
+ * that only succeeds on a waiting entry, so a queue that is a relay interval behind can at worst pick an
+ * entry that is no longer waiting, which is then skipped.
+ */
+@Service
+@Log4j2
+public class WaitlistService {
+    private static final Set<WaitlistStatus> ACTIVE = EnumSet.of(WaitlistStatus.WAITING, WaitlistStatus.OFFERED);
+    // Candidates taken by another instance in the meantime; beyond this many the slot is left to staff
+    private static final int MAX_OFFER_ATTEMPTS = 5;
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final AppointmentService appointmentService;
+    private final ChangeOutboxService changeOutboxService;
+    private final ShardDirectory shardDirectory;
+    private final ShardQueryService shardQueryService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration offerTimeout;
+    private final Map<String, DoctorQueue> queues = new ConcurrentHashMap<>();
+
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository, DoctorRepository doctorRepository,
+                           PatientRepository patientRepository, AppointmentService appointmentService,
+                           ChangeOutboxService changeOutboxService, ShardDirectory shardDirectory,
+                           ShardQueryService shardQueryService, ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${waitlist.offer.timeout-minutes:15}") long offerTimeoutMinutes) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.appointmentService = appointmentService;
+        this.changeOutboxService = changeOutboxService;
+        this.shardDirectory = shardDirectory;
+        this.shardQueryService = shardQueryService;
+        this.objectMapper = objectMapper;
+        this.offerTimeout = Duration.ofMinutes(offerTimeoutMinutes);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Offers are also made from after-commit listeners, where the cancelling transaction is still bound
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public WaitlistEntry join(WaitlistRequestDTO request) {
+        log.info("Adding patient ID: {} to the waitlist of doctor ID: {}", request.getPatientId(), request.getDoctorId());
+        if (request.getEarliestTime() != null && request.getLatestTime() != null
+                && request.getLatestTime().isBefore(request.getEarliestTime())) {
+            throw new IllegalArgumentException("Latest time must not be before earliest time");
+        }
+        if (request.getLatestTime() != null && request.getLatestTime().isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Latest time must be in the future");
+        }
+        WaitlistEntry saved = transactionTemplate.execute(status -> {
+            Doctor doctor = doctorRepository.findBookableById(request.getDoctorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + request.getDoctorId()));
+            Patient patient = patientRepository.findById(request.getPatientId())
+                .orElseThrow(() -> new ResourceNotFoundException("Patient not found with id: " + request.getPatientId()));
+            if (!patient.getHospital().getId().equals(doctor.getHospital().getId())) {
+                throw new IllegalStateException("Patient and Doctor must belong to the same hospital");
+            }
+            if (waitlistEntryRepository.existsByDoctorIdAndPatientIdAndStatusIn(doctor.getId(), patient.getId(), ACTIVE)) {
+                throw new DuplicateResourceException("Patient " + patient.getId() + " is already on the waitlist of doctor " + doctor.getId());
+            }
+            WaitlistEntry entry = new WaitlistEntry();
+            entry.setDoctorId(doctor.getId());
+            entry.setPatientId(patient.getId());
+            entry.setHospitalId(doctor.getHospital().getId());
+            entry.setUrgency(request.getUrgency() != null ? request.getUrgency() : Urgency.ROUTINE);
+            entry.setEarliestTime(request.getEarliestTime());
+            entry.setLatestTime(request.getLatestTime());
+            entry = waitlistEntryRepository.save(entry);
+            recordChange(entry, ChangeOutboxService.CREATED);
+            return entry;
+        });
+        requeue(shardDirectory.currentShard(), saved);
+        log.info("Waitlist entry {} created with urgency {}", saved.getId(), saved.getUrgency());
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public WaitlistEntry getEntry(Long entryId) {
+        return waitlistEntryRepository.findById(entryId)
+            .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry not found with id: " + entryId));
+    }
+
+    /**
+     * The doctor's waiting and offered entries, in the order slots go to them.
+     */
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getDoctorWaitlist(Long doctorId) {
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new ResourceNotFoundException("Doctor not found with id: " + doctorId);
+        }
+        return waitlistEntryRepository.findByDoctorIdAndStatusIn(doctorId, ACTIVE);
+    }
+
+    /**
+     * Books the offered slot for the entry's patient.
+     */
+    public WaitlistEntry acceptOffer(Long entryId) {
+        log.info("Accepting the waitlist offer of entry ID: {}", entryId);
+        return transactionTemplate.execute(status -> {
+            WaitlistEntry entry = getEntry(entryId);
+            if (entry.getStatus() != WaitlistStatus.OFFERED) {
+                throw new IllegalStateException("Waitlist entry " + entryId + " has no open offer");
+            }
+            if (entry.getOfferExpiresAt().isBefore(LocalDateTime.now())) {
+                throw new IllegalStateException("The offer for waitlist entry " + entryId + " has expired");
+            }
+            Doctor doctor = new Doctor();
+            doctor.setId(entry.getDoctorId());
+            Patient patient = new Patient();
+            patient.setId(entry.getPatientId());
+            AppointmentDTO appointmentDTO = new AppointmentDTO();
+            appointmentDTO.setDoctor(doctor);
+            appointmentDTO.setPatient(patient);
+            appointmentDTO.setAppointmentTime(entry.getOfferedTime());
+            Appointment appointment = appointmentService.createAppointment(appointmentDTO);
+            // The sweeper may have just taken the offer back
+            if (waitlistEntryRepository.book(entryId, appointment.getId(), LocalDateTime.now()) == 0) {
+                throw new IllegalStateException("The offer for waitlist entry " + entryId + " is no longer open");
+            }
+            WaitlistEntry booked = getEntry(entryId);
+            recordChange(booked, ChangeOutboxService.BOOKED);
+            log.info("Waitlist entry {} booked appointment {}", entryId, appointment.getId());
+            return booked;
+        });
+    }
+
+    /**
+     * Returns the entry to the queue and offers the slot to the next match.
+     */
+    public WaitlistEntry declineOffer(Long entryId) {
+        log.info("Declining the waitlist offer of entry ID: {}", entryId);
+        WaitlistEntry entry = transactionTemplate.execute(status -> {
+            if (waitlistEntryRepository.declineOffer(entryId, LocalDateTime.now()) == 0) {
+                getEntry(entryId);
+                throw new IllegalStateException("Waitlist entry " + entryId + " has no open offer");
+            }
+            WaitlistEntry declined = getEntry(entryId);
+            recordChange(declined, ChangeOutboxService.OFFER_DECLINED);
+            return declined;
+        });
+        String shard = shardDirectory.currentShard();
+        requeue(shard, entry);
+        offerSlot(shard, entry.getDoctorId(), entry.getOfferedTime());
+        return entry;
+    }
+
+    public void removeEntry(Long entryId) {
+        log.info("Removing waitlist entry ID: {}", entryId);
+        WaitlistEntry removed = transactionTemplate.execute(status -> {
+            WaitlistEntry entry = getEntry(entryId);
+            if (entry.getStatus() == WaitlistStatus.BOOKED || entry.getStatus() == WaitlistStatus.REMOVED) {
+                throw new IllegalStateException("Waitlist entry " + entryId + " is already " + entry.getStatus());
+            }
+            // An open offer frees its slot; the expiry time tells that apart once the status is REMOVED
+            entry.setStatus(WaitlistStatus.REMOVED);
+            recordChange(waitlistEntryRepository.save(entry), ChangeOutboxService.REMOVED);
+            return entry;
+        });
+        String shard = shardDirectory.currentShard();
+        DoctorQueue queue = queues.get(queueKey(shard, removed.getDoctorId()));
+        if (queue != null) {
+            synchronized (queue) {
+                queue.waiting.remove(entryId);
+            }
+        }
+        if (removed.getOfferExpiresAt() != null) {
+            offerSlot(shard, removed.getDoctorId(), removed.getOfferedTime());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAppointmentCancelled(AppointmentCancelledEvent event) {
+        try {
+            offerSlot(shardDirectory.currentShard(), event.doctorId(), event.appointmentTime());
+        } catch (RuntimeException e) {
+            // The cancellation itself has committed; the slot is simply not auto-filled
+            log.error("Could not offer the slot of cancelled appointment {} to the waitlist: {}",
+                event.appointmentId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Drops a deleted patient's entries from this shard's loaded queues; their rows go with the patient's purge.
+     */
+    @TransactionalEventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (!event.deleted()) {
+            return;
+        }
+        // Queue keys are shard/doctorId, see queueKey
+        String prefix = shardDirectory.currentShard() + "/";
+        queues.forEach((key, queue) -> {
+            if (key.startsWith(prefix)) {
+                synchronized (queue) {
+                    queue.waiting.removePatient(event.patientId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Forgets a deleted doctor's queue; its entries were deleted with it.
+     */
+    @TransactionalEventListener
+    public void onDoctorDeleted(DoctorDeletedEvent event) {
+        queues.remove(queueKey(shardDirectory.currentShard(), event.doctorId()));
+    }
+
+    /**
+     * Applies waitlist changes made on any instance to the queues loaded here.
+     */
+    @EventListener
+    public void onChangesRelayed(ChangesRelayedEvent event) {
+        if (queues.isEmpty()) {
+            return;
+        }
+        for (ChangeEventDTO change : event.changes()) {
+            if (!ChangeOutboxService.WAITLIST.equals(change.entityType()) || change.payload() == null) {
+                continue;
+            }
+            try {
+                JsonNode payload = objectMapper.readTree(change.payload());
+                DoctorQueue queue = queues.get(queueKey(event.shard(), payload.get("doctorId").asLong()));
+                if (queue == null) {
+                    continue;
+                }
+                synchronized (queue) {
+                    if (!queue.loaded) {
+                        continue;
+                    }
+                    if (WaitlistStatus.WAITING.name().equals(payload.get("status").asText())) {
+                        queue.waiting.put(new WaitlistQueue.Candidate(change.entityId(), change.patientId(),
+                            change.hospitalId(), Urgency.valueOf(payload.get("urgency").asText()),
+                            dateTime(payload, "requestedAt"), dateTime(payload, "earliestTime"),
+                            dateTime(payload, "latestTime"), dateTime(payload, "offeredTime")));
+                    } else {
+                        queue.waiting.remove(change.entityId());
+                    }
+                }
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Skipping unreadable waitlist change at offset {}: {}", change.offset(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Takes back offers nobody answered in time and passes their slots on.
+     */
+    @Scheduled(fixedDelayString = "${waitlist.offer.sweep-interval-ms:5000}")
+    public void expireOffers() {
+        shardQueryService.forEachShard(shard -> {
+            List<Long> expired = waitlistEntryRepository.findExpiredOfferIds(LocalDateTime.now(), PageRequest.of(0, 100));
+            for (Long entryId : expired) {
+                WaitlistEntry entry = transactionTemplate.execute(status -> {
+                    // Another instance may be sweeping too, or the patient accepting right now
+                    if (waitlistEntryRepository.expireOffer(entryId, LocalDateTime.now()) == 0) {
+                        return null;
+                    }
+                    WaitlistEntry returned = getEntry(entryId);
+                    recordChange(returned, ChangeOutboxService.OFFER_EXPIRED);
+                    return returned;
+                });
+                if (entry != null) {
+                    log.info("Offer of {} to waitlist entry {} expired", entry.getOfferedTime(), entryId);
+                    requeue(shard, entry);
+                    offerSlot(shard, entry.getDoctorId(), entry.getOfferedTime());
+                }
+            }
+        });
+    }
+
+    /**
+     * Offers a free slot to the doctor's best waiting match, if there is one.
+     */
+    void offerSlot(String shard, Long doctorId, LocalDateTime slot) {
+        LocalDateTime now = LocalDateTime.now();
+        if (slot == null || !slot.isAfter(now)) {
+            return;
+        }
+        long start = System.nanoTime();
+        ShardContext.onShard(shard, () -> {
+            if (!ReadRouting.onPrimary(() -> appointmentService.isSlotFree(doctorId, slot))) {
+                log.debug("Slot {} of doctor {} was booked meanwhile", slot, doctorId);
+                return null;
+            }
+            DoctorQueue queue = queue(shard, doctorId);
+            Set<Long> tried = new HashSet<>();
+            for (int attempt = 0; attempt < MAX_OFFER_ATTEMPTS; attempt++) {
+                WaitlistQueue.Candidate candidate;
+                synchronized (queue) {
+                    candidate = queue.waiting.match(slot, tried);
+                }
+                if (candidate == null) {
+                    log.info("No waitlisted patient of doctor {} can take the slot at {}", doctorId, slot);
+                    return null;
+                }
+                tried.add(candidate.entryId());
+                LocalDateTime offeredAt = LocalDateTime.now();
+                LocalDateTime expiresAt = offeredAt.plus(offerTimeout).isBefore(slot) ? offeredAt.plus(offerTimeout) : slot;
+                Boolean offered = transactionTemplate.execute(status -> {
+                    if (waitlistEntryRepository.offer(candidate.entryId(), slot, expiresAt, offeredAt) == 0) {
+                        return false;
+                    }
+                    recordChange(getEntry(candidate.entryId()), ChangeOutboxService.OFFERED);
+                    return true;
+                });
+                synchronized (queue) {
+                    queue.waiting.remove(candidate.entryId());
+                }
+                if (Boolean.TRUE.equals(offered)) {
+                    log.info("Offered the slot at {} of doctor {} to waitlist entry {} until {} ({} us)",
+                        slot, doctorId, candidate.entryId(), expiresAt, (System.nanoTime() - start) / 1000);
+                    return null;
+                }
+            }
+            log.warn("Gave up offering the slot at {} of doctor {} after {} taken candidates", slot, doctorId, MAX_OFFER_ATTEMPTS);
+            return null;
+        });
+    }
+
+    private DoctorQueue queue(String shard, Long doctorId) {
+        DoctorQueue queue = queues.computeIfAbsent(queueKey(shard, doctorId), key -> new DoctorQueue());
+        synchronized (queue) {
+            if (!queue.loaded) {
+                List<WaitlistEntry> waiting = ShardContext.onShard(shard, () -> ReadRouting.onPrimary(() ->
+                    waitlistEntryRepository.findByDoctorIdAndStatusIn(doctorId, EnumSet.of(WaitlistStatus.WAITING))));
+                waiting.forEach(entry -> queue.waiting.put(WaitlistQueue.Candidate.of(entry)));
+                queue.loaded = true;
+                log.info("Loaded the waitlist of doctor {} with {} waiting entries", doctorId, waiting.size());
+            }
+        }
+        return queue;
+    }
+
+    private void requeue(String shard, WaitlistEntry entry) {
+        DoctorQueue queue = queues.get(queueKey(shard, entry.getDoctorId()));
+        if (queue != null) {
+            synchronized (queue) {
+                if (queue.loaded) {
+                    queue.waiting.put(WaitlistQueue.Candidate.of(entry));
+                }
+            }
+        }
+    }
+
+    private void recordChange(WaitlistEntry entry, String changeType) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("status", entry.getStatus());
+        payload.put("doctorId", entry.getDoctorId());
+        payload.put("urgency", entry.getUrgency());
+        payload.put("requestedAt", entry.getRequestedAt());
+        payload.put("earliestTime", entry.getEarliestTime());
+        payload.put("latestTime", entry.getLatestTime());
+        payload.put("offeredTime", entry.getOfferedTime());
+        payload.put("offerExpiresAt", entry.getOfferExpiresAt());
+        payload.put("appointmentId", entry.getAppointmentId());
+        changeOutboxService.record(ChangeOutboxService.WAITLIST, entry.getId(), changeType, entry.getHospitalId(),
+            entry.getPatientId(), payload);
+    }
+
+    private static LocalDateTime dateTime(JsonNode payload, String field) {
+        return payload.hasNonNull(field) ? LocalDateTime.parse(payload.get(field).asText()) : null;
+    }
+
+    private static String queueKey(String shard, Long doctorId) {
+        return shard + "/" + doctorId;
+    }
+
+    private static final class DoctorQueue {
+        private final WaitlistQueue waiting = new WaitlistQueue();
+        private boolean loaded;
+    }
+}
@@ -0,0 +1,18 @@
+-- Normalized phone number for walk-in lookups per hospital (PatientRepository.findByHospitalIdAndPhoneNormalized...).
+-- A database that ddl-auto=update kept current already has the column and index, so each step checks first;
+-- MySQL has no IF NOT EXISTS for either.
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns
+                      WHERE table_schema = DATABASE() AND table_name = 'patient' AND column_name = 'phone_normalized'),
+              'DO 0', 'ALTER TABLE patient ADD COLUMN phone_normalized VARCHAR(16)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.statistics
+                      WHERE table_schema = DATABASE() AND table_name = 'patient'
+                        AND index_name = 'idx_patient_hospital_phone'),
+              'DO 0', 'CREATE INDEX idx_patient_hospital_phone ON patient (hospital_id, phone_normalized)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,23 @@
+-- Soft delete for hospitals, departments and patients: deleted_at is set when the delete is accepted and the
+-- rows are purged later by a deletion_job (V1_3). Skips columns that ddl-auto=update already added.
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns
+                      WHERE table_schema = DATABASE() AND table_name = 'hospital' AND column_name = 'deleted_at'),
+              'DO 0', 'ALTER TABLE hospital ADD COLUMN deleted_at DATETIME(6)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns
+                      WHERE table_schema = DATABASE() AND table_name = 'department' AND column_name = 'deleted_at'),
+              'DO 0', 'ALTER TABLE department ADD COLUMN deleted_at DATETIME(6)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.columns
+                      WHERE table_schema = DATABASE() AND table_name = 'patient' AND column_name = 'deleted_at'),
+              'DO 0', 'ALTER TABLE patient ADD COLUMN deleted_at DATETIME(6)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
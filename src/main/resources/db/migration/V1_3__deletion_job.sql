@@ -0,0 +1,28 @@
+-- Background purge jobs for soft-deleted hospitals, departments and patients (DeletionService), claimed by
+-- status and lease expiry. Skips what ddl-auto=update already created.
+
+CREATE TABLE IF NOT EXISTS deletion_job (
+    id           BIGINT        NOT NULL AUTO_INCREMENT,
+    target_type  ENUM ('DEPARTMENT','HOSPITAL','PATIENT') NOT NULL,
+    target_id    BIGINT        NOT NULL,
+    status       ENUM ('COMPLETED','FAILED','PENDING','RUNNING') NOT NULL,
+    step_index   INTEGER       NOT NULL,
+    current_step VARCHAR(255),
+    rows_deleted BIGINT        NOT NULL,
+    attempts     INTEGER       NOT NULL,
+    last_error   VARCHAR(1000),
+    lease_owner  VARCHAR(255),
+    lease_until  DATETIME(6),
+    created_at   DATETIME(6)   NOT NULL,
+    updated_at   DATETIME(6)   NOT NULL,
+    completed_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+SET @ddl = IF(EXISTS (SELECT 1 FROM information_schema.statistics
+                      WHERE table_schema = DATABASE() AND table_name = 'deletion_job'
+                        AND index_name = 'idx_deletion_job_status'),
+              'DO 0', 'CREATE INDEX idx_deletion_job_status ON deletion_job (status, lease_until)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
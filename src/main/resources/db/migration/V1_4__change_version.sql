@@ -0,0 +1,9 @@
+-- Per-scope version counters behind the reference data cache and the hospital structure ETags
+-- (ChangeVersionService). Skipped when ddl-auto=update already created the table.
+
+CREATE TABLE IF NOT EXISTS change_version (
+    scope      VARCHAR(100) NOT NULL,
+    version    BIGINT       NOT NULL,
+    updated_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (scope)
+) ENGINE = InnoDB;
@@ -0,0 +1,214 @@
+-- Schema as ddl-auto=update built it for the original entity model. Databases created by ddl-auto=update are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and start from V1_1; empty databases run it.
+-- Constraint names are the ones Hibernate generated, so both kinds of database end up identical.
+-- Columns and tables that later changes added through ddl-auto=update follow in V1_1 to V1_4.
+
+CREATE TABLE hospital (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    name             VARCHAR(255) NOT NULL,
+    address          VARCHAR(255) NOT NULL,
+    phone_number     VARCHAR(255),
+    email            VARCHAR(255),
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    created_at       DATETIME(6)  NOT NULL,
+    updated_at       DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE block (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    name             VARCHAR(255) NOT NULL,
+    description      VARCHAR(255),
+    floor_number     INTEGER      NOT NULL,
+    hospital_id      BIGINT       NOT NULL,
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    created_at       DATETIME(6)  NOT NULL,
+    updated_at       DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE department (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    name             VARCHAR(255) NOT NULL,
+    description      VARCHAR(255),
+    hospital_id      BIGINT       NOT NULL,
+    block_id         BIGINT,
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    created_at       DATETIME(6)  NOT NULL,
+    updated_at       DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE doctor (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    name             VARCHAR(255) NOT NULL,
+    specialization   VARCHAR(255) NOT NULL,
+    email            VARCHAR(255),
+    hospital_id      BIGINT,
+    department_id    BIGINT,
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    created_at       DATETIME(6)  NOT NULL,
+    updated_at       DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE patient (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    first_name       VARCHAR(255),
+    last_name        VARCHAR(255),
+    email            VARCHAR(255),
+    phone            VARCHAR(255),
+    date_of_birth    DATE,
+    address          VARCHAR(255),
+    gender           VARCHAR(255),
+    blood_group      VARCHAR(255),
+    hospital_id      BIGINT,
+    created_at       DATETIME(6),
+    updated_at       DATETIME(6),
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE appointment (
+    id               BIGINT      NOT NULL AUTO_INCREMENT,
+    doctor_id        BIGINT      NOT NULL,
+    patient_id       BIGINT      NOT NULL,
+    appointment_time DATETIME(6) NOT NULL,
+    status           ENUM ('CANCELLED','COMPLETED','SCHEDULED'),
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    created_at       DATETIME(6) NOT NULL,
+    updated_at       DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE medical_record (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    patient_id       BIGINT       NOT NULL,
+    diagnosis        VARCHAR(255) NOT NULL,
+    symptoms         TEXT,
+    treatment        TEXT,
+    prescriptions    TEXT,
+    notes            TEXT,
+    doctor_id        BIGINT       NOT NULL,
+    visit_date       DATETIME(6)  NOT NULL,
+    record_type      ENUM ('CONSULTATION','EMERGENCY','FOLLOW_UP','LAB_TEST','PRESCRIPTION','REGULAR_CHECKUP',
+                           'SURGERY','VACCINATION') NOT NULL,
+    created_at       DATETIME(6),
+    updated_at       DATETIME(6),
+    created_by       VARCHAR(255),
+    last_modified_by VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE medical_record_allergies (
+    medical_record_id BIGINT NOT NULL,
+    allergies         VARCHAR(255)
+) ENGINE = InnoDB;
+
+CREATE TABLE medical_record_vital_signs (
+    medical_record_id BIGINT NOT NULL,
+    type              VARCHAR(255),
+    value             VARCHAR(255),
+    unit              VARCHAR(255),
+    recorded_at       DATETIME(6)
+) ENGINE = InnoDB;
+
+CREATE TABLE bill (
+    id                BIGINT         NOT NULL AUTO_INCREMENT,
+    bill_number       VARCHAR(255)   NOT NULL,
+    patient_id        BIGINT         NOT NULL,
+    hospital_id       BIGINT         NOT NULL,
+    bill_date         DATETIME(6)    NOT NULL,
+    due_date          DATETIME(6),
+    status            ENUM ('CANCELLED','OVERDUE','PAID','PARTIALLY_PAID','PENDING') NOT NULL,
+    sub_total         DECIMAL(10, 2) NOT NULL,
+    tax_amount        DECIMAL(10, 2),
+    discount_amount   DECIMAL(10, 2),
+    total_amount      DECIMAL(10, 2) NOT NULL,
+    paid_amount       DECIMAL(10, 2),
+    balance_amount    DECIMAL(10, 2),
+    payment_method    ENUM ('CARD','CASH','CHEQUE','INSURANCE','NET_BANKING','UPI'),
+    payment_reference VARCHAR(255),
+    notes             TEXT,
+    created_at        DATETIME(6)    NOT NULL,
+    updated_at        DATETIME(6),
+    created_by        VARCHAR(100),
+    last_modified_by  VARCHAR(100),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE bill_item (
+    id                  BIGINT         NOT NULL AUTO_INCREMENT,
+    bill_id             BIGINT         NOT NULL,
+    service_type        ENUM ('CONSULTATION','LAB_TEST','OTHER','PHARMACY','PROCEDURE','ROOM_CHARGES') NOT NULL,
+    service_name        VARCHAR(255)   NOT NULL,
+    description         VARCHAR(255),
+    quantity            INTEGER        NOT NULL,
+    unit_price          DECIMAL(10, 2) NOT NULL,
+    discount_percentage DECIMAL(5, 2),
+    discount_amount     DECIMAL(10, 2),
+    tax_percentage      DECIMAL(5, 2),
+    tax_amount          DECIMAL(10, 2),
+    total_amount        DECIMAL(10, 2) NOT NULL,
+    appointment_id      BIGINT,
+    medical_record_id   BIGINT,
+    lab_test_id         BIGINT,
+    pharmacy_item_id    BIGINT,
+    created_at          DATETIME(6)    NOT NULL,
+    updated_at          DATETIME(6),
+    created_by          VARCHAR(100),
+    last_modified_by    VARCHAR(100),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE service_catalog (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    service_code     VARCHAR(255)   NOT NULL,
+    service_name     VARCHAR(255)   NOT NULL,
+    description      VARCHAR(255),
+    service_type     ENUM ('CONSULTATION','DIAGNOSTIC','LAB_TEST','OTHER','PHARMACY','PROCEDURE','ROOM_CHARGES',
+                           'THERAPY') NOT NULL,
+    category         ENUM ('BIOCHEMISTRY','BLOOD_TEST','EMERGENCY_CONSULTATION','EQUIPMENT_CHARGE',
+                           'FOLLOW_UP_CONSULTATION','GENERAL_CONSULTATION','IMAGING','INJECTION','MEDICAL_DEVICE',
+                           'MEDICINE','MICROBIOLOGY','MISCELLANEOUS','PATHOLOGY','PROCEDURE_CHARGE','ROOM_CHARGE',
+                           'SPECIALIST_CONSULTATION','SUPPLEMENT','URINE_TEST') NOT NULL,
+    unit_price       DECIMAL(10, 2) NOT NULL,
+    tax_percentage   DECIMAL(5, 2),
+    is_active        BIT            NOT NULL,
+    hospital_id      BIGINT         NOT NULL,
+    department_id    BIGINT,
+    created_at       DATETIME(6)    NOT NULL,
+    updated_at       DATETIME(6),
+    created_by       VARCHAR(100),
+    last_modified_by VARCHAR(100),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+ALTER TABLE bill ADD CONSTRAINT UK_bwsd82315vw93bjl9clrik7jc UNIQUE (bill_number);
+ALTER TABLE service_catalog ADD CONSTRAINT UK_ehi8pw7ka9f73g7k9om5lxpt9 UNIQUE (service_code);
+
+ALTER TABLE block ADD CONSTRAINT FKrtmqtca8ws6vi73gerq7pylhr FOREIGN KEY (hospital_id) REFERENCES hospital (id);
+ALTER TABLE department ADD CONSTRAINT FKn8lq60po1t7p42oslqbk61wnu FOREIGN KEY (hospital_id) REFERENCES hospital (id);
+ALTER TABLE department ADD CONSTRAINT FKgrn4oxbdi129vxr1vvndytumi FOREIGN KEY (block_id) REFERENCES block (id);
+ALTER TABLE doctor ADD CONSTRAINT FKds7ws3yyj4c5wj35fpefpeny0 FOREIGN KEY (hospital_id) REFERENCES hospital (id);
+ALTER TABLE doctor ADD CONSTRAINT FK75x47tyyeco3xj4cmlhj8v6ta FOREIGN KEY (department_id) REFERENCES department (id);
+ALTER TABLE patient ADD CONSTRAINT FKfrtkp1fawf55kilsxb1uxpio0 FOREIGN KEY (hospital_id) REFERENCES hospital (id);
+ALTER TABLE appointment ADD CONSTRAINT FKoeb98n82eph1dx43v3y2bcmsl FOREIGN KEY (doctor_id) REFERENCES doctor (id);
+ALTER TABLE appointment ADD CONSTRAINT FK4apif2ewfyf14077ichee8g06 FOREIGN KEY (patient_id) REFERENCES patient (id);
+ALTER TABLE medical_record ADD CONSTRAINT FKt0lf3feuiurr73bpln2n6x0v FOREIGN KEY (patient_id) REFERENCES patient (id);
+ALTER TABLE medical_record ADD CONSTRAINT FKmommgymv6rayvbje0hp4c6g8w FOREIGN KEY (doctor_id) REFERENCES doctor (id);
+ALTER TABLE medical_record_allergies ADD CONSTRAINT FKbcrwmbys5kb5ajysvfu6cva6u
+    FOREIGN KEY (medical_record_id) REFERENCES medical_record (id);
+ALTER TABLE medical_record_vital_signs ADD CONSTRAINT FKj7xsg2iooge6qfg79kenjwt1k
+    FOREIGN KEY (medical_record_id) REFERENCES medical_record (id);
+ALTER TABLE bill ADD CONSTRAINT FKh9onmogpkn1owh9lg98rln9by FOREIGN KEY (patient_id) REFERENCES patient (id);
+ALTER TABLE bill ADD CONSTRAINT FKehjsqedey5nqjsa7rh4rm376e FOREIGN KEY (hospital_id) REFERENCES hospital (id);
+ALTER TABLE bill_item ADD CONSTRAINT FKcf0kpt07c9onbtvnttajk3skx FOREIGN KEY (bill_id) REFERENCES bill (id);
+ALTER TABLE service_catalog ADD CONSTRAINT FKmdy4cjphykus46iabu12o31us FOREIGN KEY (hospital_id) REFERENCES hospital (id);
+ALTER TABLE service_catalog ADD CONSTRAINT FKp8j4o8bltfjflym895qtgtela FOREIGN KEY (department_id) REFERENCES department (id);
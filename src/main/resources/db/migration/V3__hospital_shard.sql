@@ -0,0 +1,9 @@
+-- Hospitals that live on another shard than the one their ID was generated on (ShardDirectory).
+-- Only the default shard's copy is read; every shard gets the table so all shards share one schema version.
+
+CREATE TABLE hospital_shard (
+    hospital_id BIGINT      NOT NULL,
+    shard       VARCHAR(64) NOT NULL,
+    updated_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (hospital_id)
+) ENGINE = InnoDB;
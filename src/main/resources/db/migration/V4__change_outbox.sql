@@ -0,0 +1,30 @@
+-- Transactional outbox behind the /api/changes feed (ChangeOutboxService, ChangeFeedService).
+-- Writers insert rows without a seq in their own transaction. The relay gives committed rows their seq in
+-- ID order, one relay at a time across nodes (it locks the change_outbox_sequence row), so seq order is the
+-- order rows became visible and a consumer resuming after a seq never skips a row that committed late.
+
+CREATE TABLE change_outbox (
+    id          BIGINT        NOT NULL AUTO_INCREMENT,
+    seq         BIGINT,
+    entity_type VARCHAR(32)   NOT NULL,
+    entity_id   BIGINT        NOT NULL,
+    change_type VARCHAR(32)   NOT NULL,
+    hospital_id BIGINT,
+    patient_id  BIGINT,
+    payload     VARCHAR(2000),
+    created_at  DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id),
+    -- Feed reads by offset; unsequenced rows are the NULL range, in ID order
+    UNIQUE KEY uk_change_outbox_seq (seq),
+    -- Compaction: the older rows of each entity
+    KEY idx_change_outbox_entity_seq (entity_type, entity_id, seq)
+) ENGINE = InnoDB;
+
+CREATE TABLE change_outbox_sequence (
+    id                TINYINT NOT NULL,
+    next_seq          BIGINT  NOT NULL,
+    compacted_through BIGINT  NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO change_outbox_sequence (id, next_seq, compacted_through) VALUES (1, 1, 0);
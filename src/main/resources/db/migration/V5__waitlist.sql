@@ -0,0 +1,27 @@
+-- Per-doctor waitlist (WaitlistService). Entries wait for a cancelled slot; the best match is offered the
+-- slot until offer_expires_at, then the slot moves on to the next one.
+
+CREATE TABLE waitlist_entry (
+    id                BIGINT        NOT NULL AUTO_INCREMENT,
+    doctor_id         BIGINT        NOT NULL,
+    patient_id        BIGINT        NOT NULL,
+    hospital_id       BIGINT        NOT NULL,
+    urgency           ENUM ('ROUTINE','SOON','URGENT') NOT NULL,
+    status            ENUM ('BOOKED','OFFERED','REMOVED','WAITING') NOT NULL,
+    earliest_time     DATETIME(6),
+    latest_time       DATETIME(6),
+    requested_at      DATETIME(6)   NOT NULL,
+    offered_time      DATETIME(6),
+    offer_expires_at  DATETIME(6),
+    offer_count       INTEGER       NOT NULL,
+    appointment_id    BIGINT,
+    created_at        DATETIME(6)   NOT NULL,
+    updated_at        DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id),
+    -- A doctor's queue in priority order; also the duplicate check on joining
+    KEY idx_waitlist_doctor_status (doctor_id, status, urgency, requested_at),
+    -- Expired offers
+    KEY idx_waitlist_status_expiry (status, offer_expires_at),
+    CONSTRAINT fk_waitlist_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id),
+    CONSTRAINT fk_waitlist_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,17 @@
+-- Idempotency-Key support for create POSTs (IdempotencyService). One row per key: the first request claims
+-- it, and the transaction that creates the resource records the resource's id on it. Rows expire after
+-- idempotency.ttl-hours.
+
+CREATE TABLE idempotency_key (
+    -- SHA-256 of the endpoint scope and the client's key
+    key_hash      BINARY(32)    NOT NULL,
+    -- SHA-256 of the request, to reject a key reused for a different request
+    request_hash  BINARY(32)    NOT NULL,
+    -- NULL while the first request is in flight
+    resource_id   BIGINT,
+    claim_token   BIGINT        NOT NULL,
+    locked_until  DATETIME(6)   NOT NULL,
+    expires_at    DATETIME(6)   NOT NULL,
+    PRIMARY KEY (key_hash),
+    KEY idx_idempotency_expiry (expires_at)
+) ENGINE = InnoDB;
@@ -0,0 +1,23 @@
+-- Bulk patient import jobs (PatientImportService), so any instance can report an import's progress. The instance
+-- that received the upload holds a lease on the job while it runs; the others fail the job once it lapses.
+
+CREATE TABLE patient_import_job (
+    id            VARCHAR(36)   NOT NULL,
+    hospital_id   BIGINT        NOT NULL,
+    format        VARCHAR(20)   NOT NULL,
+    status        VARCHAR(20)   NOT NULL,
+    rows_read     BIGINT        NOT NULL,
+    inserted      BIGINT        NOT NULL,
+    updated       BIGINT        NOT NULL,
+    rejected      BIGINT        NOT NULL,
+    -- JSON array of the first rejected rows and the reason an import aborted
+    errors        MEDIUMTEXT,
+    lease_owner   VARCHAR(255)  NOT NULL,
+    lease_until   DATETIME(6)   NOT NULL,
+    submitted_at  DATETIME(6)   NOT NULL,
+    started_at    DATETIME(6),
+    finished_at   DATETIME(6),
+    PRIMARY KEY (id),
+    KEY idx_patient_import_job_status (status, lease_until),
+    KEY idx_patient_import_job_finished (finished_at)
+) ENGINE = InnoDB;
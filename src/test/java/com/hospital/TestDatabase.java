@@ -0,0 +1,136 @@
+package com.hospital;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A MySQL database for tests that need the real schema and SQL: a {@code mysql:8.0} container
+ * ({@code -Dtest.mysql.image} to override), or an existing scratch database given with {@code -Dtest.mysql.url}
+ * ({@code .user}, {@code .password}). It is emptied when opened and when closed. Without Docker or a URL, the
+ * calling test is skipped.
+ * <p>
+ * {@link #startNode} runs the application on it, so a test can start two instances and check what one sees of the
+ * other's writes, as replicas of the deployment would.
+ */
+public final class TestDatabase implements AutoCloseable {
+    private final MySQLContainer<?> container;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Flyway flyway;
+
+    private TestDatabase(MySQLContainer<?> container, String url, String user, String password) {
+        this.container = container;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.flyway = Flyway.configure().dataSource(url, user, password).cleanDisabled(false).load();
+    }
+
+    public static TestDatabase open() {
+        String url = System.getProperty("test.mysql.url");
+        TestDatabase database;
+        if (url != null) {
+            database = new TestDatabase(null, url, System.getProperty("test.mysql.user", "root"),
+                System.getProperty("test.mysql.password", ""));
+        } else {
+            assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Needs Docker or -Dtest.mysql.url");
+            MySQLContainer<?> container = new MySQLContainer<>(
+                DockerImageName.parse(System.getProperty("test.mysql.image", "mysql:8.0")).asCompatibleSubstituteFor("mysql"));
+            container.start();
+            database = new TestDatabase(container, container.getJdbcUrl(), container.getUsername(), container.getPassword());
+        }
+        database.flyway.clean();
+        return database;
+    }
+
+    public Flyway flyway() {
+        return flyway;
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Starts an instance of the application on this database, on a random port. The instance migrates the schema
+     * itself and polls for other instances' changes every 100 ms. {@code args} override its properties, in
+     * {@code --name=value} form.
+     */
+    public ConfigurableApplicationContext startNode(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.datasource.url=" + url,
+            "--spring.datasource.username=" + user,
+            "--spring.datasource.password=" + password,
+            "--spring.datasource.hikari.catalog=" + catalog(),
+            "--spring.datasource.hikari.minimum-idle=1",
+            "--spring.jpa.show-sql=false",
+            // Each instance needs its own cache; the JCache provider would hand all of them the same one
+            "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+            "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+            "--management.health.mail.enabled=false",
+            "--change-version.poll-interval-ms=100",
+            "--deletion.poll-interval-ms=100",
+            "--deletion.batch-pause-ms=0"));
+        for (String arg : args) {
+            // Spring joins a property given twice into a list, so the default has to go
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                String name = arg.substring(0, equals + 1);
+                arguments.removeIf(argument -> argument.startsWith(name));
+            }
+            arguments.add(arg);
+        }
+        return new SpringApplicationBuilder(Application.class).run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Waits up to ten seconds for {@code condition}, for changes another instance relays asynchronously.
+     */
+    public static void await(String description, BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting until " + description);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted waiting until " + description, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flyway.clean();
+        } finally {
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    private String catalog() {
+        String path = url.substring(url.indexOf('/', url.indexOf("//") + 2) + 1);
+        int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+}
@@ -0,0 +1,162 @@
+package com.hospital.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Differential tests: {@link JacksonConfig.FlexibleLocalDateTimeDeserializer} with its fast path must give the same
+ * result as the FORMATTERS chain alone, for accepted and rejected input alike. Randomized cases use fixed seeds so a
+ * failure names an input that reproduces on every run.
+ */
+class LocalDateTimeFastParserTest {
+
+    private static final String[] WHITESPACE = {"", " ", "  ", "\t", "\n", "\r\n", " \t "};
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @Test
+    void everyFractionLengthMatchesFormatters() {
+        StringBuilder fraction = new StringBuilder();
+        for (int digits = 0; digits <= 9; digits++) {
+            String text = "2024-02-29T23:59:58" + (digits == 0 ? "" : "." + fraction);
+            assertSameAsFormatters(text);
+            assertThat(fastParse(text)).as("fast path answers %s", text).isNotNull();
+            fraction.append((char) ('1' + digits % 9));
+        }
+        assertSameAsFormatters("2024-02-29T23:59:58.1234567891");
+    }
+
+    @Test
+    void zoneDesignatorWithEveryFractionLengthMatchesFormatters() {
+        StringBuilder fraction = new StringBuilder();
+        for (int digits = 0; digits <= 9; digits++) {
+            assertSameAsFormatters("2024-06-30T08:15:30" + (digits == 0 ? "" : "." + fraction) + "Z");
+            fraction.append((char) ('0' + (7 * digits + 3) % 10));
+        }
+        assertSameAsFormatters("2024-06-30T08:15Z");
+        assertSameAsFormatters("2024-06-30T08:15:30.123z");
+    }
+
+    @Test
+    void spaceSeparatedFormMatchesFormatters() {
+        assertSameAsFormatters("2024-01-15 07:05:09");
+        assertSameAsFormatters("2024-01-15 07:05");
+        assertSameAsFormatters("2024-01-15 07:05:09.5");
+        assertSameAsFormatters("2024-01-15 07:05:09Z");
+        assertSameAsFormatters("2024-01-15  07:05:09");
+        assertThat(fastParse("2024-01-15 07:05:09")).isNotNull();
+    }
+
+    @Test
+    void outOfRangeFieldsMatchFormatters() {
+        String[] texts = {
+            "2023-02-29T10:00:00", "2023-02-29 10:00:00", "2023-02-29T10:00:00Z", "2023-02-29T10:00:00.000Z",
+            "2024-02-30T10:00:00", "2024-04-31 10:00:00", "2024-13-01T10:00:00", "2024-00-10T10:00:00",
+            "2024-01-00T10:00:00", "2024-01-32T10:00:00", "2024-01-10T24:00:00", "2024-01-10T23:60:00",
+            "2024-01-10T23:59:60", "2024-01-10T23:59:60Z", "0000-01-01T00:00:00", "0000-01-01",
+            "2023-02-29", "2024-02-30", "2024-11-31 00:00:00.123"
+        };
+        for (String text : texts) {
+            assertSameAsFormatters(text);
+        }
+    }
+
+    @Test
+    void surroundingWhitespaceMatchesFormatters() {
+        for (String leading : WHITESPACE) {
+            for (String trailing : WHITESPACE) {
+                assertSameAsFormatters(leading + "2024-03-10T12:30:45.678Z" + trailing);
+                assertSameAsFormatters(leading + "2024-03-10 12:30:45" + trailing);
+                assertSameAsFormatters(leading + "2024-03-10" + trailing);
+            }
+        }
+        assertSameAsFormatters("   ");
+    }
+
+    @Test
+    void randomWellFormedInputMatchesFormatters() {
+        Random random = new Random(20240301L);
+        for (int i = 0; i < 20_000; i++) {
+            assertSameAsFormatters(randomDateTime(random, false));
+        }
+    }
+
+    @Test
+    void randomOutOfRangeInputMatchesFormatters() {
+        Random random = new Random(20240302L);
+        for (int i = 0; i < 20_000; i++) {
+            assertSameAsFormatters(randomDateTime(random, true));
+        }
+    }
+
+    private static String randomDateTime(Random random, boolean outOfRange) {
+        int year = outOfRange ? random.nextInt(10_000) : 1 + random.nextInt(9_999);
+        int month = outOfRange ? random.nextInt(14) : 1 + random.nextInt(12);
+        int day = outOfRange ? random.nextInt(33) : 1 + random.nextInt(28);
+        int hour = random.nextInt(outOfRange ? 25 : 24);
+        int minute = random.nextInt(outOfRange ? 61 : 60);
+        int second = random.nextInt(outOfRange ? 61 : 60);
+
+        StringBuilder text = new StringBuilder();
+        text.append(WHITESPACE[random.nextInt(WHITESPACE.length)]);
+        text.append(String.format("%04d-%02d-%02d", year, month, day));
+        int shape = random.nextInt(6);
+        if (shape > 0) {
+            text.append(random.nextInt(3) == 0 ? ' ' : 'T');
+            text.append(String.format("%02d:%02d", hour, minute));
+        }
+        if (shape > 1) {
+            text.append(String.format(":%02d", second));
+        }
+        if (shape > 2) {
+            int digits = random.nextInt(10);
+            if (digits > 0) {
+                text.append('.');
+                for (int d = 0; d < digits; d++) {
+                    text.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+        }
+        if (shape > 3) {
+            text.append('Z');
+        }
+        text.append(WHITESPACE[random.nextInt(WHITESPACE.length)]);
+        return text.toString();
+    }
+
+    private void assertSameAsFormatters(String text) {
+        String trimmed = text.trim();
+        String expected = trimmed.isEmpty() ? "null" : outcome(() -> JacksonConfig.FlexibleLocalDateTimeDeserializer.parseWithFormatters(trimmed));
+        String actual = outcome(() -> objectMapper.readValue(objectMapper.writeValueAsString(text), LocalDateTime.class));
+        assertThat(actual).as("deserializing \"%s\"", text).isEqualTo(expected);
+
+        LocalDateTime fast = fastParse(trimmed);
+        if (fast != null) {
+            assertThat(fast.toString()).as("fast path for \"%s\"", text).isEqualTo(expected);
+        }
+    }
+
+    private static LocalDateTime fastParse(String trimmed) {
+        char[] chars = trimmed.toCharArray();
+        return LocalDateTimeFastParser.parse(chars, 0, chars.length);
+    }
+
+    private static String outcome(ParseCall call) {
+        try {
+            LocalDateTime value = call.parse();
+            return value == null ? "null" : value.toString();
+        } catch (Exception e) {
+            return "rejected";
+        }
+    }
+
+    @FunctionalInterface
+    private interface ParseCall {
+        LocalDateTime parse() throws Exception;
+    }
+}
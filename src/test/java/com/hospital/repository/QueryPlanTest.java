@@ -0,0 +1,126 @@
+package com.hospital.repository;
+
+import com.hospital.TestDatabase;
+import com.hospital.repository.QueryPlans.HotQuery;
+import com.hospital.repository.QueryPlans.Plan;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails the build when a hot repository query stops reading its table through the index
+ * V2__access_path_indexes.sql designed for it, e.g. after a migration drops or reorders an index.
+ * <p>
+ * Runs the migrations on MySQL, seeds a few thousand rows per table with production-like fan-out (one
+ * hospital's share of patients, a doctor's two years of appointments, mostly paid old bills), and EXPLAINs
+ * every {@link QueryPlans hot query}. On a handful of rows every plan is a table scan, hence the seed data.
+ * <p>
+ * The database is a {@link TestDatabase}: a MySQL container, or a scratch database given with
+ * {@code -Dtest.mysql.url}. Without Docker or a URL the test is skipped.
+ */
+class QueryPlanTest {
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 6, 1, 0, 0);
+    private static final int HOSPITALS = 4;
+    private static final int DOCTORS = 40;
+    private static final int PATIENTS = 4_000;
+
+    private static TestDatabase database;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        database = TestDatabase.open();
+        database.flyway().migrate();
+        try (Connection connection = database.connect();
+             Statement statement = connection.createStatement()) {
+            seed(statement);
+            QueryPlans.analyze(statement);
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void hotQueriesUseTheirIndexes() throws SQLException {
+        long patient = PATIENTS / 2 + 1;
+        long hospitalOfPatient = hospitalOf(patient);
+        List<HotQuery> queries = QueryPlans.hotQueries(1, patient, hospitalOfPatient, hospitalOfPatient + HOSPITALS * 5,
+            (patient - 1) * 10 + 1, EPOCH);
+
+        List<String> failures = new ArrayList<>();
+        try (Connection connection = database.connect();
+             Statement statement = connection.createStatement()) {
+            for (HotQuery query : queries) {
+                Plan plan = QueryPlans.explain(statement, query);
+                if (!query.index().equals(plan.key())) {
+                    failures.add(query.method() + " reads " + query.table() + " by " + plan.type() + " on "
+                        + (plan.key() == null ? "no index" : plan.key()) + ", expected " + query.index());
+                }
+            }
+        }
+        assertThat(failures).as("hot queries not using their index").isEmpty();
+    }
+
+    private static long hospitalOf(long patient) {
+        return (patient - 1) % HOSPITALS + 1;
+    }
+
+    // Patients are spread round-robin over hospitals and each one only sees that hospital's doctors
+    private static void seed(Statement statement) throws SQLException {
+        String epoch = "TIMESTAMP '" + EPOCH.toLocalDate() + " 00:00:00'";
+        String hospitalOfPatient = "((%s - 1) %% " + HOSPITALS + " + 1)";
+        String doctorOfPatient = "(" + hospitalOfPatient + " + " + HOSPITALS + " * (n %% 10))";
+
+        statement.execute("CREATE TABLE seq_digit (d INT PRIMARY KEY)");
+        statement.execute("INSERT INTO seq_digit VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9)");
+        statement.execute("CREATE TABLE seq (n INT PRIMARY KEY) SELECT a.d + 10 * b.d + 100 * c.d + 1000 * e.d "
+            + "+ 10000 * f.d + 1 AS n FROM seq_digit a, seq_digit b, seq_digit c, seq_digit e, seq_digit f");
+
+        statement.execute("INSERT INTO hospital (id, name, address, created_at, updated_at) "
+            + "SELECT n, CONCAT('Hospital ', n), 'Main Street', NOW(), NOW() FROM seq WHERE n <= " + HOSPITALS);
+        statement.execute("INSERT INTO doctor (id, name, specialization, hospital_id, created_at, updated_at) "
+            + "SELECT n, CONCAT('Doctor ', n), 'General', " + String.format(hospitalOfPatient, "n")
+            + ", NOW(), NOW() FROM seq WHERE n <= " + DOCTORS);
+        statement.execute("INSERT INTO patient (id, first_name, last_name, email, phone, phone_normalized, hospital_id, "
+            + "created_at, updated_at) SELECT n, 'Pat', CONCAT('Patient', n), CONCAT('patient', n, '@mail.example'), "
+            + "CONCAT('+91', 9000000000 + n), CONCAT('+91', 9000000000 + n), " + String.format(hospitalOfPatient, "n")
+            + ", NOW(), NOW() FROM seq WHERE n <= " + PATIENTS);
+        // Ten appointments per patient over two years
+        statement.execute("INSERT INTO appointment (id, doctor_id, patient_id, appointment_time, status, created_at, "
+            + "updated_at) SELECT n, " + String.format(doctorOfPatient, "((n - 1) DIV 10 + 1)") + ", (n - 1) DIV 10 + 1, "
+            + epoch + " - INTERVAL (n % 730) DAY + INTERVAL (8 + n % 10) HOUR, "
+            + "CASE n % 10 WHEN 0 THEN 'CANCELLED' WHEN 1 THEN 'SCHEDULED' ELSE 'COMPLETED' END, NOW(), NOW() "
+            + "FROM seq WHERE n <= " + PATIENTS * 10);
+        // Two bills per patient, due after 30 days; bills older than 60 days are paid apart from a few stragglers
+        statement.execute("INSERT INTO bill (id, bill_number, patient_id, hospital_id, bill_date, due_date, status, "
+            + "sub_total, total_amount, created_at) SELECT n, CONCAT('B', n), (n - 1) DIV 2 + 1, "
+            + String.format(hospitalOfPatient, "((n - 1) DIV 2 + 1)") + ", "
+            + epoch + " - INTERVAL (n * 7 % 730) DAY, " + epoch + " - INTERVAL (n * 7 % 730) DAY + INTERVAL 30 DAY, "
+            + "CASE WHEN n * 7 % 730 > 60 THEN IF(n % 25 = 0, 'PENDING', 'PAID') "
+            + "ELSE ELT(n % 3 + 1, 'PENDING', 'PARTIALLY_PAID', 'PAID') END, 100.00, 100.00, NOW() "
+            + "FROM seq WHERE n <= " + PATIENTS * 2);
+        // Two items per bill, the first one for the patient's first appointment
+        statement.execute("INSERT INTO bill_item (id, bill_id, service_type, service_name, quantity, unit_price, "
+            + "total_amount, appointment_id, created_at) SELECT n, (n - 1) DIV 2 + 1, 'CONSULTATION', 'Consultation', "
+            + "1, 100.00, 100.00, IF(n % 2 = 1, ((n - 1) DIV 4) * 10 + 1, NULL), NOW() FROM seq WHERE n <= " + PATIENTS * 4);
+        statement.execute("INSERT INTO medical_record (id, patient_id, diagnosis, doctor_id, visit_date, record_type) "
+            + "SELECT n, (n - 1) DIV 5 + 1, 'Checkup', " + String.format(doctorOfPatient, "((n - 1) DIV 5 + 1)") + ", "
+            + epoch + " - INTERVAL (n * 11 % 730) DAY, 'REGULAR_CHECKUP' FROM seq WHERE n <= " + PATIENTS * 5);
+
+        statement.execute("DROP TABLE seq");
+        statement.execute("DROP TABLE seq_digit");
+    }
+}
@@ -0,0 +1,124 @@
+package com.hospital.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The hot repository queries and the index V2__access_path_indexes.sql designed for each, shared by
+ * {@link QueryPlanTest} and the load-test harness's {@code explain} command.
+ * <p>
+ * The statements have the shape of the SQL Hibernate generates for the named repository method. Literals
+ * are passed in so each caller can point them at rows of its own dataset.
+ */
+public final class QueryPlans {
+    public static final List<String> TABLES = List.of("appointment", "patient", "bill", "bill_item", "medical_record");
+
+    private QueryPlans() {
+    }
+
+    /**
+     * Refreshes index statistics, since bulk-loaded rows bypass the sampling that normal inserts trigger.
+     */
+    public static void analyze(Statement statement) throws SQLException {
+        for (String table : TABLES) {
+            statement.execute("ANALYZE TABLE " + table);
+        }
+    }
+
+    /**
+     * The plan row of the query's checked table.
+     */
+    public static Plan explain(Statement statement, HotQuery query) throws SQLException {
+        try (ResultSet plan = statement.executeQuery("EXPLAIN " + query.sql())) {
+            while (plan.next()) {
+                if (query.table().equals(plan.getString("table"))) {
+                    return new Plan(plan.getString("type"), plan.getString("key"), plan.getString("rows"));
+                }
+            }
+        }
+        throw new IllegalStateException("EXPLAIN for " + query.name() + " has no row for table " + query.table());
+    }
+
+    /**
+     * @param hospital          a hospital with patients and bills
+     * @param patient           a patient with appointments, bills and medical records
+     * @param hospitalOfPatient the hospital {@code patient} belongs to
+     * @param doctor            a doctor with appointments
+     * @param appointment       an appointment that bill items refer to
+     * @param now               the dataset's current time; history reaches back a year from it
+     */
+    public static List<HotQuery> hotQueries(long hospital, long patient, long hospitalOfPatient, long doctor,
+                                            long appointment, LocalDateTime now) {
+        String yearAgo = quote(now.minusYears(1));
+        String today = quote(now);
+        String dayStart = quote(now.plusHours(9));
+        String dayEnd = quote(now.plusHours(17));
+        String email = "'nobody" + patient + "@mail.example'";
+        String phone = "'+91" + (9_000_000_000L + patient) + "'";
+        String patientJoin = " JOIN patient p ON p.id = a.patient_id AND p.deleted_at IS NULL ";
+        return List.of(
+            new HotQuery("appointment-conflict", "AppointmentRepository.findByDoctorIdAndAppointmentTimeBetweenAndStatusNot",
+                "a", "idx_appointment_doctor_time",
+                "SELECT a.* FROM appointment a WHERE a.doctor_id = " + doctor
+                    + " AND a.appointment_time BETWEEN " + dayStart + " AND " + dayEnd + " AND a.status <> 'CANCELLED'"),
+            new HotQuery("doctor-schedule", "AppointmentRepository.findViewsByDoctorId",
+                "a", "idx_appointment_doctor_time",
+                "SELECT a.id, a.appointment_time, a.status, d.name, p.first_name, p.last_name FROM appointment a "
+                    + "JOIN doctor d ON d.id = a.doctor_id" + patientJoin + "WHERE d.id = " + doctor
+                    + " ORDER BY a.appointment_time, a.id"),
+            new HotQuery("appointment-timeline", "AppointmentRepository.findTimelineByPatientId",
+                "a", "idx_appointment_patient_time",
+                "SELECT a.*, d.* FROM appointment a JOIN doctor d ON d.id = a.doctor_id WHERE a.patient_id = " + patient
+                    + " AND a.appointment_time BETWEEN " + yearAgo + " AND " + today
+                    + " ORDER BY a.appointment_time DESC LIMIT 20"),
+            new HotQuery("patient-email", "PatientRepository.existsByEmailAndHospitalId",
+                "p", "idx_patient_hospital_email",
+                "SELECT p.id FROM patient p WHERE p.email = " + email + " AND p.hospital_id = " + hospital
+                    + " AND p.deleted_at IS NULL LIMIT 1"),
+            new HotQuery("patient-phone", "PatientRepository.findByHospitalIdAndPhoneNormalizedOrderByIdAsc",
+                "p", "idx_patient_hospital_phone",
+                "SELECT p.* FROM patient p WHERE p.hospital_id = " + hospitalOfPatient
+                    + " AND p.phone_normalized = " + phone + " AND p.deleted_at IS NULL ORDER BY p.id"),
+            new HotQuery("patient-bills", "BillRepository.findViewsByPatientId",
+                "b", "idx_bill_patient_date",
+                "SELECT b.*, p.first_name, p.last_name FROM bill b LEFT JOIN patient p ON p.id = b.patient_id "
+                    + "AND p.deleted_at IS NULL WHERE b.patient_id = " + patient + " ORDER BY b.bill_date DESC, b.id DESC"),
+            new HotQuery("hospital-pending-bills", "BillRepository.findViewsByHospitalIdAndStatus",
+                "b", "idx_bill_hospital_status_date",
+                "SELECT b.*, p.first_name, p.last_name FROM bill b LEFT JOIN patient p ON p.id = b.patient_id "
+                    + "AND p.deleted_at IS NULL WHERE b.hospital_id = " + hospital
+                    + " AND b.status = 'PENDING' ORDER BY b.bill_date DESC, b.id DESC"),
+            new HotQuery("overdue-bills", "BillRepository.findOverdueViews",
+                "b", "idx_bill_status_due_date",
+                "SELECT b.*, p.first_name, p.last_name FROM bill b LEFT JOIN patient p ON p.id = b.patient_id "
+                    + "AND p.deleted_at IS NULL WHERE b.due_date < " + today
+                    + " AND b.status IN ('PENDING', 'PARTIALLY_PAID') ORDER BY b.due_date, b.id"),
+            new HotQuery("appointment-bill-items", "BillItemRepository.findByAppointmentId",
+                "i", "idx_bill_item_appointment",
+                "SELECT i.* FROM bill_item i WHERE i.appointment_id = " + appointment),
+            new HotQuery("medical-history", "MedicalRecordRepository.findByPatientIdOrderByVisitDateDesc",
+                "r", "idx_medical_record_patient_visit",
+                "SELECT r.* FROM medical_record r WHERE r.patient_id = " + patient
+                    + " ORDER BY r.visit_date DESC LIMIT 20"),
+            new HotQuery("medical-timeline", "MedicalRecordRepository.findTimelineByPatientId",
+                "r", "idx_medical_record_patient_visit",
+                "SELECT r.*, d.* FROM medical_record r JOIN doctor d ON d.id = r.doctor_id WHERE r.patient_id = " + patient
+                    + " AND r.visit_date BETWEEN " + yearAgo + " AND " + today + " ORDER BY r.visit_date DESC LIMIT 20"));
+    }
+
+    private static String quote(LocalDateTime time) {
+        return "'" + time.toLocalDate() + " " + time.toLocalTime() + "'";
+    }
+
+    /**
+     * A repository query, the table alias whose access is checked and the index it must use.
+     */
+    public record HotQuery(String name, String method, String table, String index, String sql) {
+    }
+
+    public record Plan(String type, String key, String rows) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.hospital.service;
+
+import com.hospital.TestDatabase;
+import com.hospital.dto.MedicalRecordDTO;
+import com.hospital.dto.PatientDTO;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.entity.MedicalRecord;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances on one database: allergies recorded through one must be screened by the other, whose in-memory
+ * index was built before the write.
+ */
+class AllergyScreeningAcrossNodesTest {
+    private static final AtomicInteger PATIENTS = new AtomicInteger();
+
+    private static TestDatabase database;
+    private static ConfigurableApplicationContext writer;
+    private static ConfigurableApplicationContext screener;
+
+    private Long hospitalId;
+    private Long doctorId;
+    private Long patientId;
+
+    @BeforeAll
+    static void startNodes() {
+        database = TestDatabase.open();
+        writer = database.startNode();
+        screener = database.startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (screener != null) {
+            screener.close();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void createPatient() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        hospitalId = writer.getBean(HospitalService.class).createHospital(hospital).getId();
+
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Grey");
+        doctor.setSpecialization("Internal Medicine");
+        doctorId = writer.getBean(DoctorService.class).createDoctor(hospitalId, doctor).getId();
+
+        PatientDTO patient = new PatientDTO();
+        patient.setFirstName("Ada");
+        patient.setLastName("Lovelace");
+        patient.setEmail("ada" + PATIENTS.incrementAndGet() + "@mail.example");
+        patient.setHospitalId(hospitalId);
+        patientId = writer.getBean(PatientService.class).createPatient(patient).getId();
+    }
+
+    @Test
+    void allergyRecordedOnOneNodeIsScreenedOnAnother() {
+        AllergyIndexService screening = screener.getBean(AllergyIndexService.class);
+        assertThat(screening.hasAllergy(patientId, "penicillin")).isFalse();
+
+        writer.getBean(MedicalRecordService.class).createMedicalRecord(record("Penicillin", "Latex"));
+
+        assertThat(screening.hasAllergy(patientId, "penicillin")).isTrue();
+        TestDatabase.await("the screening index lists the patient",
+            () -> screening.findPatientsAllergicTo(hospitalId, "latex").contains(patientId));
+        assertThat(screening.getPatientAllergies(patientId)).containsExactly("latex", "penicillin");
+    }
+
+    @Test
+    void removedPatientLeavesTheOtherNodesIndex() {
+        AllergyIndexService screening = screener.getBean(AllergyIndexService.class);
+        writer.getBean(MedicalRecordService.class).createMedicalRecord(record("Sulfa"));
+        TestDatabase.await("the screening index lists the patient",
+            () -> screening.findPatientsAllergicTo(hospitalId, "sulfa").contains(patientId));
+
+        writer.getBean(PatientService.class).deletePatient(patientId);
+
+        TestDatabase.await("the screening index drops the patient",
+            () -> !screening.findPatientsAllergicTo(hospitalId, "sulfa").contains(patientId));
+    }
+
+    @Test
+    void negativeAnswerIsConfirmedAgainstTheDatabase() throws SQLException {
+        Long recordId = writer.getBean(MedicalRecordService.class).createMedicalRecord(record("Aspirin")).getId();
+        AllergyIndexService screening = screener.getBean(AllergyIndexService.class);
+        TestDatabase.await("the screening index lists the patient",
+            () -> screening.findPatientsAllergicTo(hospitalId, "aspirin").contains(patientId));
+
+        // Written behind the application's back, so no instance hears of it: only the database knows
+        try (Connection connection = database.connect();
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO medical_record_allergies (medical_record_id, allergies) VALUES (?, ?)")) {
+            insert.setLong(1, recordId);
+            insert.setString(2, "Iodine");
+            insert.executeUpdate();
+        }
+
+        assertThat(screening.findPatientsAllergicTo(hospitalId, "iodine")).doesNotContain(patientId);
+        assertThat(screening.hasAllergy(patientId, "iodine")).isTrue();
+        assertThat(screening.hasAllergy(patientId, "codeine")).isFalse();
+    }
+
+    private MedicalRecordDTO record(String... allergies) {
+        MedicalRecordDTO dto = new MedicalRecordDTO();
+        dto.setPatientId(patientId);
+        dto.setDoctorId(doctorId);
+        dto.setDiagnosis("Rash");
+        dto.setRecordType(MedicalRecord.RecordType.REGULAR_CHECKUP);
+        dto.setVisitDate(LocalDateTime.now().minusHours(1));
+        dto.setAllergies(List.of(allergies));
+        return dto;
+    }
+}
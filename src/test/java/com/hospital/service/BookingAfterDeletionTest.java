@@ -0,0 +1,120 @@
+package com.hospital.service;
+
+import com.hospital.TestDatabase;
+import com.hospital.dto.AppointmentDTO;
+import com.hospital.dto.DepartmentDTO;
+import com.hospital.dto.PatientDTO;
+import com.hospital.dto.WaitlistRequestDTO;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.entity.Patient;
+import com.hospital.exception.ResourceNotFoundException;
+import com.hospital.repository.DoctorRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A deleted hospital or department keeps its doctors until the purge reaches them; they must take no bookings
+ * in the meantime. The purge is held back here, so the doctors are still in place when the booking is tried.
+ */
+class BookingAfterDeletionTest {
+    private static final AtomicInteger PATIENTS = new AtomicInteger();
+
+    private static TestDatabase database;
+    private static ConfigurableApplicationContext node;
+
+    private Long hospitalId;
+    private Long departmentId;
+    private Long doctorId;
+    private Long patientId;
+
+    @BeforeAll
+    static void startNode() {
+        database = TestDatabase.open();
+        node = database.startNode("--deletion.poll-interval-ms=3600000");
+    }
+
+    @AfterAll
+    static void stopNode() {
+        if (node != null) {
+            node.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void createDoctorAndPatient() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        hospitalId = node.getBean(HospitalService.class).createHospital(hospital).getId();
+
+        DepartmentDTO department = new DepartmentDTO();
+        department.setName("Cardiology");
+        department.setHospitalId(hospitalId);
+        departmentId = node.getBean(DepartmentService.class).createDepartment(department).getId();
+
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Grey");
+        doctor.setSpecialization("Cardiology");
+        doctor.setDepartment(node.getBean(DepartmentService.class).getDepartment(departmentId));
+        doctorId = node.getBean(DoctorService.class).createDoctor(hospitalId, doctor).getId();
+
+        PatientDTO patient = new PatientDTO();
+        patient.setFirstName("Ada");
+        patient.setLastName("Lovelace");
+        patient.setEmail("ada" + PATIENTS.incrementAndGet() + "@mail.example");
+        patient.setHospitalId(hospitalId);
+        patientId = node.getBean(PatientService.class).createPatient(patient).getId();
+    }
+
+    @Test
+    void bookingIsRefusedRightAfterHospitalIsDeleted() {
+        assertThat(node.getBean(AppointmentService.class).createAppointment(appointment()).getId()).isNotNull();
+
+        node.getBean(HospitalService.class).deleteHospital(hospitalId);
+
+        assertNotBookable();
+    }
+
+    @Test
+    void bookingIsRefusedRightAfterDepartmentIsDeleted() {
+        node.getBean(DepartmentService.class).deleteDepartment(departmentId);
+
+        assertNotBookable();
+    }
+
+    private void assertNotBookable() {
+        assertThat(node.getBean(DoctorRepository.class).existsById(doctorId)).isTrue();
+        assertThatThrownBy(() -> node.getBean(AppointmentService.class).createAppointment(appointment()))
+            .isInstanceOf(ResourceNotFoundException.class);
+        WaitlistRequestDTO request = new WaitlistRequestDTO();
+        request.setDoctorId(doctorId);
+        request.setPatientId(patientId);
+        assertThatThrownBy(() -> node.getBean(WaitlistService.class).join(request))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private AppointmentDTO appointment() {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setDoctor(doctor);
+        dto.setPatient(patient);
+        dto.setAppointmentTime(LocalDate.now().plusDays(1).atTime(9, PATIENTS.get()));
+        return dto;
+    }
+}
@@ -0,0 +1,112 @@
+package com.hospital.service;
+
+import com.hospital.TestDatabase;
+import com.hospital.dto.DepartmentDTO;
+import com.hospital.dto.PatientDTO;
+import com.hospital.dto.WaitlistRequestDTO;
+import com.hospital.entity.Block;
+import com.hospital.entity.Department;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.repository.DoctorRepository;
+import com.hospital.repository.WaitlistEntryRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deleting a doctor, directly or with its block, on the real schema: the doctor's waitlist entries must not
+ * block the delete on their foreign key.
+ */
+class DoctorDeletionTest {
+    private static final AtomicInteger PATIENTS = new AtomicInteger();
+
+    private static TestDatabase database;
+    private static ConfigurableApplicationContext node;
+
+    private Long hospitalId;
+    private Long patientId;
+
+    @BeforeAll
+    static void startNode() {
+        database = TestDatabase.open();
+        node = database.startNode();
+    }
+
+    @AfterAll
+    static void stopNode() {
+        if (node != null) {
+            node.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void createPatient() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        hospitalId = node.getBean(HospitalService.class).createHospital(hospital).getId();
+
+        PatientDTO patient = new PatientDTO();
+        patient.setFirstName("Ada");
+        patient.setLastName("Lovelace");
+        patient.setEmail("ada" + PATIENTS.incrementAndGet() + "@mail.example");
+        patient.setHospitalId(hospitalId);
+        patientId = node.getBean(PatientService.class).createPatient(patient).getId();
+    }
+
+    @Test
+    void deletesDoctorWithWaitlistEntry() {
+        Long doctorId = createDoctor(null);
+        Long entryId = joinWaitlist(doctorId);
+
+        node.getBean(DoctorService.class).deleteDoctor(doctorId);
+
+        assertThat(node.getBean(DoctorRepository.class).existsById(doctorId)).isFalse();
+        assertThat(node.getBean(WaitlistEntryRepository.class).existsById(entryId)).isFalse();
+    }
+
+    @Test
+    void deletesBlockWhoseDoctorHasWaitlistEntry() {
+        Block block = new Block();
+        block.setName("East Wing");
+        block.setFloorNumber(1);
+        Long blockId = node.getBean(BlockService.class).createBlock(hospitalId, block).getId();
+        DepartmentDTO departmentDTO = new DepartmentDTO();
+        departmentDTO.setName("Cardiology");
+        departmentDTO.setHospitalId(hospitalId);
+        departmentDTO.setBlockId(blockId);
+        Department department = node.getBean(DepartmentService.class).createDepartment(departmentDTO);
+        Long doctorId = createDoctor(department);
+        Long entryId = joinWaitlist(doctorId);
+
+        node.getBean(BlockService.class).deleteBlock(blockId);
+
+        assertThat(node.getBean(DoctorRepository.class).existsById(doctorId)).isFalse();
+        assertThat(node.getBean(WaitlistEntryRepository.class).existsById(entryId)).isFalse();
+    }
+
+    private Long createDoctor(Department department) {
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Grey");
+        doctor.setSpecialization("Cardiology");
+        doctor.setDepartment(department);
+        return node.getBean(DoctorService.class).createDoctor(hospitalId, doctor).getId();
+    }
+
+    private Long joinWaitlist(Long doctorId) {
+        WaitlistRequestDTO request = new WaitlistRequestDTO();
+        request.setDoctorId(doctorId);
+        request.setPatientId(patientId);
+        return node.getBean(WaitlistService.class).join(request).getId();
+    }
+}
@@ -0,0 +1,182 @@
+package com.hospital.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hospital.config.JacksonConfig;
+import com.hospital.dto.MedicalRecordDTO;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.entity.MedicalRecord;
+import com.hospital.entity.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Medical record responses are entities whose allergies and vital signs are lazy collections. Open-in-view keeps the
+ * session open while Jackson writes the body, but with FORCE_LAZY_LOADING off a collection the service did not load
+ * is written as null rather than fetched. These tests require both collections to be loaded before serialization and
+ * write every record response inside the still-open session, failing if that issues any SQL.
+ */
+@DataJpaTest
+@Import(MedicalRecordService.class)
+@TestPropertySource(properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+    "spring.jpa.show-sql=false"
+})
+class MedicalRecordSerializationTest {
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private AllergyIndexService allergyIndexService;
+
+    @MockBean
+    private ChangeOutboxService changeOutboxService;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    private Long patientId;
+    private Long recordId;
+
+    @BeforeEach
+    void createRecords() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        entityManager.persist(hospital);
+
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Grey");
+        doctor.setSpecialization("Cardiology");
+        doctor.setHospital(hospital);
+        entityManager.persist(doctor);
+
+        Patient patient = new Patient();
+        patient.setFirstName("Ada");
+        patient.setLastName("Lovelace");
+        patient.setHospital(hospital);
+        entityManager.persist(patient);
+        patientId = patient.getId();
+
+        for (int i = 0; i < 3; i++) {
+            MedicalRecordDTO dto = new MedicalRecordDTO();
+            dto.setPatientId(patientId);
+            dto.setDoctorId(doctor.getId());
+            dto.setDiagnosis("Diagnosis " + i);
+            dto.setRecordType(MedicalRecord.RecordType.REGULAR_CHECKUP);
+            dto.setVisitDate(LocalDateTime.of(2024, 3, 1 + i, 9, 0));
+            dto.setAllergies(List.of("penicillin", "latex " + i));
+            MedicalRecordDTO.VitalSignDTO pulse = new MedicalRecordDTO.VitalSignDTO();
+            pulse.setType("pulse");
+            pulse.setValue(String.valueOf(60 + i));
+            pulse.setUnit("bpm");
+            dto.setVitalSigns(List.of(pulse));
+            recordId = medicalRecordService.createMedicalRecord(dto).getId();
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void singleRecordSerializesWithoutQueries() {
+        String json = serializeWithoutQueries(medicalRecordService.getMedicalRecord(recordId));
+
+        assertThat(json).contains("latex 2").contains("\"bpm\"");
+    }
+
+    @Test
+    void historyListsSerializeWithoutQueries() {
+        String json = serializeWithoutQueries(medicalRecordService.getPatientMedicalHistory(patientId));
+        assertThat(json).contains("latex 0", "latex 1", "latex 2");
+        entityManager.clear();
+
+        serializeWithoutQueries(medicalRecordService.getPatientMedicalHistoryByDateRange(patientId,
+            LocalDateTime.of(2024, 3, 1, 0, 0), LocalDateTime.of(2024, 3, 31, 0, 0)));
+        entityManager.clear();
+
+        serializeWithoutQueries(medicalRecordService.getPatientMedicalHistoryByType(patientId,
+            MedicalRecord.RecordType.REGULAR_CHECKUP));
+    }
+
+    @Test
+    void historyPageSerializesWithoutQueries() {
+        String json = serializeWithoutQueries(
+            medicalRecordService.getPatientMedicalHistoryPaged(patientId, PageRequest.of(0, 2)));
+
+        assertThat(json).contains("latex 2", "latex 1").doesNotContain("latex 0");
+    }
+
+    @Test
+    void updatedRecordSerializesWithoutQueries() {
+        MedicalRecordDTO update = new MedicalRecordDTO();
+        update.setAllergies(null);
+        update.setVitalSigns(null);
+        update.setNotes("Reviewed");
+
+        String json = serializeWithoutQueries(medicalRecordService.updateMedicalRecord(recordId, update));
+
+        assertThat(json).contains("Reviewed", "latex 2");
+    }
+
+    @Test
+    void unloadedCollectionsAreWrittenAsNull() throws Exception {
+        MedicalRecord unloaded = entityManager.find(MedicalRecord.class, recordId);
+
+        String json = objectMapper.writeValueAsString(unloaded);
+
+        assertThat(json).contains("\"allergies\":null", "\"vitalSigns\":null");
+    }
+
+    private String serializeWithoutQueries(Object response) {
+        Iterable<?> records = response instanceof Iterable<?> iterable ? iterable : List.of(response);
+        records.forEach(item -> {
+            MedicalRecord record = (MedicalRecord) item;
+            assertThat(Hibernate.isInitialized(record.getAllergies())).as("allergies of record %d loaded", record.getId()).isTrue();
+            assertThat(Hibernate.isInitialized(record.getVitalSigns())).as("vital signs of record %d loaded", record.getId()).isTrue();
+        });
+
+        Statistics statistics = statistics();
+        long statements = statistics.getPrepareStatementCount();
+        long collectionFetches = statistics.getCollectionFetchCount();
+        long entityFetches = statistics.getEntityFetchCount();
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(response);
+        } catch (Exception e) {
+            throw new AssertionError("Serialization failed", e);
+        }
+        assertThat(statistics.getPrepareStatementCount()).as("SQL statements during serialization").isEqualTo(statements);
+        assertThat(statistics.getCollectionFetchCount()).as("lazy collection loads").isEqualTo(collectionFetches);
+        assertThat(statistics.getEntityFetchCount()).as("lazy entity loads").isEqualTo(entityFetches);
+        return json;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,125 @@
+package com.hospital.service;
+
+import com.hospital.TestDatabase;
+import com.hospital.dto.AppointmentDTO;
+import com.hospital.dto.PatientDTO;
+import com.hospital.dto.PatientImportJobDTO;
+import com.hospital.dto.PatientImportJobDTO.ImportStatus;
+import com.hospital.entity.Appointment;
+import com.hospital.entity.Doctor;
+import com.hospital.entity.Hospital;
+import com.hospital.entity.Patient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances on one database: a walk-in at one instance must resolve to the patient registered or imported
+ * through the other, whose phone filter was loaded before the write.
+ */
+class PatientIdentityAcrossNodesTest {
+    private static TestDatabase database;
+    private static ConfigurableApplicationContext registration;
+    private static ConfigurableApplicationContext frontDesk;
+
+    private Long hospitalId;
+    private Long doctorId;
+
+    @BeforeAll
+    static void startNodes() {
+        database = TestDatabase.open();
+        registration = database.startNode();
+        frontDesk = database.startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (frontDesk != null) {
+            frontDesk.close();
+        }
+        if (registration != null) {
+            registration.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void createHospital() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        hospitalId = registration.getBean(HospitalService.class).createHospital(hospital).getId();
+
+        Doctor doctor = new Doctor();
+        doctor.setName("Dr. Grey");
+        doctor.setSpecialization("General Practice");
+        doctorId = registration.getBean(DoctorService.class).createDoctor(hospitalId, doctor).getId();
+    }
+
+    @Test
+    void walkInResolvesToPatientRegisteredOnAnotherNode() {
+        PatientDTO dto = new PatientDTO();
+        dto.setFirstName("Ada");
+        dto.setLastName("Lovelace");
+        dto.setEmail("ada@mail.example");
+        dto.setPhone("98765 43210");
+        dto.setHospitalId(hospitalId);
+        Long patientId = registration.getBean(PatientService.class).createPatient(dto).getId();
+
+        PatientIdentityResolver resolver = frontDesk.getBean(PatientIdentityResolver.class);
+        TestDatabase.await("the front desk knows the phone",
+            () -> resolver.resolveByPhone(hospitalId, "+91 98765-43210").isPresent());
+
+        Appointment appointment = frontDesk.getBean(AppointmentService.class).createAppointment(walkIn("098765 43210", 1));
+
+        assertThat(appointment.getPatient().getId()).isEqualTo(patientId);
+        assertThat(registration.getBean(PatientService.class).getHospitalPatients(hospitalId)).hasSize(1);
+    }
+
+    @Test
+    void importedPatientsAreKnownOnAnotherNode() throws Exception {
+        String csv = "firstName,lastName,email,phone\n"
+            + "Grace,Hopper,grace@mail.example,9123456780\n"
+            + "Alan,Turing,alan@mail.example,+91 91234 56781\n";
+        PatientImportService imports = registration.getBean(PatientImportService.class);
+        String jobId = imports.submit(hospitalId, "text/csv",
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).getJobId();
+        TestDatabase.await("the import completes", () -> imports.getJob(jobId).getStatus() == ImportStatus.COMPLETED);
+        PatientImportJobDTO job = imports.getJob(jobId);
+        assertThat(job.getInserted()).isEqualTo(2);
+
+        PatientIdentityResolver resolver = frontDesk.getBean(PatientIdentityResolver.class);
+        TestDatabase.await("the front desk knows both phones",
+            () -> resolver.resolveByPhone(hospitalId, "9123456780").isPresent()
+                && resolver.resolveByPhone(hospitalId, "9123456781").isPresent());
+
+        Appointment appointment = frontDesk.getBean(AppointmentService.class).createAppointment(walkIn("91234 56781", 2));
+
+        assertThat(appointment.getPatient().getEmail()).isEqualTo("alan@mail.example");
+        assertThat(registration.getBean(PatientService.class).getHospitalPatients(hospitalId)).hasSize(2);
+    }
+
+    private AppointmentDTO walkIn(String phone, int daysAhead) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setFirstName("Walk");
+        patient.setLastName("In");
+        patient.setPhone(phone);
+        AppointmentDTO dto = new AppointmentDTO();
+        dto.setDoctor(doctor);
+        dto.setPatient(patient);
+        dto.setAppointmentTime(LocalDate.now().plusDays(daysAhead).atTime(10, 0));
+        return dto;
+    }
+}
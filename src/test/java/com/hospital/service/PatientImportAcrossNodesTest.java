@@ -0,0 +1,116 @@
+package com.hospital.service;
+
+import com.hospital.TestDatabase;
+import com.hospital.dto.PatientImportJobDTO;
+import com.hospital.dto.PatientImportJobDTO.ImportStatus;
+import com.hospital.entity.Hospital;
+import com.hospital.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two instances on one database: an import submitted to one must be reported by the other, and an import whose
+ * instance stopped must end up failed rather than running forever.
+ */
+class PatientImportAcrossNodesTest {
+    private static TestDatabase database;
+    private static ConfigurableApplicationContext receiver;
+    private static ConfigurableApplicationContext reporter;
+
+    private Long hospitalId;
+
+    @BeforeAll
+    static void startNodes() {
+        database = TestDatabase.open();
+        receiver = database.startNode("--patient.import.heartbeat-interval-ms=100");
+        reporter = database.startNode("--patient.import.heartbeat-interval-ms=100");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (reporter != null) {
+            reporter.close();
+        }
+        if (receiver != null) {
+            receiver.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void createHospital() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        hospitalId = receiver.getBean(HospitalService.class).createHospital(hospital).getId();
+    }
+
+    @Test
+    void importIsReportedByAnotherNode() throws IOException {
+        String csv = "firstName,lastName,email\n"
+            + "Grace,Hopper,grace@mail.example\n"
+            + "Alan,Turing,not-an-email\n"
+            + "Ada,Lovelace,ada@mail.example\n";
+        String jobId = receiver.getBean(PatientImportService.class).submit(hospitalId, "text/csv",
+            new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).getJobId();
+
+        PatientImportService imports = reporter.getBean(PatientImportService.class);
+        TestDatabase.await("the other node reports the import complete",
+            () -> imports.getJob(jobId).getStatus() == ImportStatus.COMPLETED);
+        PatientImportJobDTO job = imports.getJob(jobId);
+
+        assertThat(job.getHospitalId()).isEqualTo(hospitalId);
+        assertThat(job.getRowsRead()).isEqualTo(3);
+        assertThat(job.getInserted()).isEqualTo(2);
+        assertThat(job.getRejected()).isEqualTo(1);
+        assertThat(job.getErrors()).containsExactly("Line 3: Invalid email: not-an-email");
+        assertThat(job.getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    void importOfAStoppedNodeIsFailed() throws SQLException {
+        LocalDateTime submittedAt = LocalDateTime.now().minusMinutes(5);
+        try (Connection connection = database.connect();
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO patient_import_job (id, hospital_id, format, status, rows_read, inserted, updated, " +
+                 "rejected, lease_owner, lease_until, submitted_at, started_at) " +
+                 "VALUES ('stopped-node-job', ?, 'CSV', 'RUNNING', 1000, 1000, 0, 0, 'stopped-node', ?, ?, ?)")) {
+            insert.setLong(1, hospitalId);
+            insert.setTimestamp(2, Timestamp.valueOf(submittedAt.plusMinutes(1)));
+            insert.setTimestamp(3, Timestamp.valueOf(submittedAt));
+            insert.setTimestamp(4, Timestamp.valueOf(submittedAt));
+            insert.executeUpdate();
+        }
+
+        PatientImportService imports = reporter.getBean(PatientImportService.class);
+        TestDatabase.await("the lapsed import is failed",
+            () -> imports.getJob("stopped-node-job").getStatus() == ImportStatus.FAILED);
+
+        PatientImportJobDTO job = imports.getJob("stopped-node-job");
+        assertThat(job.getInserted()).isEqualTo(1000);
+        assertThat(job.getErrors()).containsExactly("Import aborted: the instance running it stopped");
+    }
+
+    @Test
+    void unknownJobIsNotFound() {
+        assertThatThrownBy(() -> reporter.getBean(PatientImportService.class).getJob("no-such-job"))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.hospital.service;
+
+import com.hospital.TestDatabase;
+import com.hospital.dto.PatientDTO;
+import com.hospital.dto.PatientSearchResultDTO;
+import com.hospital.entity.Hospital;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two instances on one database: patients saved through one must be found by the other's search index, built
+ * before the write. The database fallback, used while an index builds, must match what the index matches.
+ */
+class PatientSearchServiceTest {
+    private static final AtomicInteger PATIENTS = new AtomicInteger();
+
+    private static TestDatabase database;
+    private static ConfigurableApplicationContext registration;
+    private static ConfigurableApplicationContext frontDesk;
+
+    private Long hospitalId;
+
+    @BeforeAll
+    static void startNodes() {
+        database = TestDatabase.open();
+        registration = database.startNode();
+        frontDesk = database.startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (frontDesk != null) {
+            frontDesk.close();
+        }
+        if (registration != null) {
+            registration.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @BeforeEach
+    void createHospital() {
+        Hospital hospital = new Hospital();
+        hospital.setName("General");
+        hospital.setAddress("1 Main Street");
+        hospitalId = registration.getBean(HospitalService.class).createHospital(hospital).getId();
+    }
+
+    @Test
+    void patientSavedOnOneNodeIsFoundOnAnother() {
+        PatientService patients = registration.getBean(PatientService.class);
+        PatientSearchService search = frontDesk.getBean(PatientSearchService.class);
+        PatientDTO dto = patient("Ada", "Lovelace", "98765 43210");
+        Long patientId = patients.createPatient(dto).getId();
+
+        TestDatabase.await("the front desk finds the new patient",
+            () -> ids(search.search(hospitalId, "lovelace ada", null)).contains(patientId));
+
+        dto.setLastName("King");
+        patients.updatePatient(patientId, dto);
+        TestDatabase.await("the front desk finds the renamed patient",
+            () -> ids(search.search(hospitalId, "ada king", null)).contains(patientId));
+        assertThat(ids(search.search(hospitalId, "lovelace", null))).doesNotContain(patientId);
+
+        patients.deletePatient(patientId);
+        TestDatabase.await("the front desk drops the deleted patient",
+            () -> !ids(search.search(hospitalId, "ada king", null)).contains(patientId));
+    }
+
+    @Test
+    void fallbackMatchesEachTokenInAnyOrder() {
+        Long patientId = registration.getBean(PatientService.class)
+            .createPatient(patient("Grace", "Hopper", "+91 91234 56780")).getId();
+        PatientSearchService search = registration.getBean(PatientSearchService.class);
+
+        for (String query : List.of("hopper grace", "Grace Hopper", "gra hop", "hopper 56780")) {
+            assertThat(ids(search.searchDatabase(hospitalId, query, PatientSearchService.tokenize(query), 10)))
+                .as(query)
+                .containsExactly(patientId);
+            assertThat(ids(search.search(hospitalId, query, null))).as(query).containsExactly(patientId);
+        }
+        assertThat(search.searchDatabase(hospitalId, "grace turing", PatientSearchService.tokenize("grace turing"), 10))
+            .isEmpty();
+    }
+
+    @Test
+    void fallbackMatchesFormattedPhones() {
+        Long patientId = registration.getBean(PatientService.class)
+            .createPatient(patient("Alan", "Turing", "9123456781")).getId();
+        PatientSearchService search = registration.getBean(PatientSearchService.class);
+
+        for (String query : List.of("91234 56781", "(912) 345-6781", "+91 91234-56781", "091234 56781", "0091 9123456781")) {
+            assertThat(ids(search.searchDatabase(hospitalId, query, PatientSearchService.tokenize(query), 10)))
+                .as(query)
+                .containsExactly(patientId);
+        }
+    }
+
+    private PatientDTO patient(String firstName, String lastName, String phone) {
+        PatientDTO dto = new PatientDTO();
+        dto.setFirstName(firstName);
+        dto.setLastName(lastName);
+        dto.setEmail(firstName.toLowerCase() + PATIENTS.incrementAndGet() + "@mail.example");
+        dto.setPhone(phone);
+        dto.setHospitalId(hospitalId);
+        return dto;
+    }
+
+    private static List<Long> ids(List<PatientSearchResultDTO> results) {
+        return results.stream().map(PatientSearchResultDTO::getId).toList();
+    }
+}